@@ -0,0 +1,1205 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.SocketTimeoutException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.axis.AxisFault;
+
+import com.hannonhill.www.ws.ns.AssetOperationService.AccessRightsInformation;
+import com.hannonhill.www.ws.ns.AssetOperationService.Asset;
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
+import com.hannonhill.www.ws.ns.AssetOperationService.AuditParameters;
+import com.hannonhill.www.ws.ns.AssetOperationService.Authentication;
+import com.hannonhill.www.ws.ns.AssetOperationService.BatchResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.CheckOutResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ContentType;
+import com.hannonhill.www.ws.ns.AssetOperationService.ContentTypeContainer;
+import com.hannonhill.www.ws.ns.AssetOperationService.CopyParameters;
+import com.hannonhill.www.ws.ns.AssetOperationService.CreateResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.DataDefinition;
+import com.hannonhill.www.ws.ns.AssetOperationService.DynamicMetadataField;
+import com.hannonhill.www.ws.ns.AssetOperationService.DynamicMetadataFieldDefinition;
+import com.hannonhill.www.ws.ns.AssetOperationService.EntityTypeString;
+import com.hannonhill.www.ws.ns.AssetOperationService.FieldValue;
+import com.hannonhill.www.ws.ns.AssetOperationService.Folder;
+import com.hannonhill.www.ws.ns.AssetOperationService.FolderContainedAsset;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+import com.hannonhill.www.ws.ns.AssetOperationService.ListMessagesResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ListSitesResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ListSubscribersResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.Message;
+import com.hannonhill.www.ws.ns.AssetOperationService.MessageMarkType;
+import com.hannonhill.www.ws.ns.AssetOperationService.Metadata;
+import com.hannonhill.www.ws.ns.AssetOperationService.MetadataSet;
+import com.hannonhill.www.ws.ns.AssetOperationService.MoveParameters;
+import com.hannonhill.www.ws.ns.AssetOperationService.Operation;
+import com.hannonhill.www.ws.ns.AssetOperationService.OperationResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.Page;
+import com.hannonhill.www.ws.ns.AssetOperationService.Path;
+import com.hannonhill.www.ws.ns.AssetOperationService.Preference;
+import com.hannonhill.www.ws.ns.AssetOperationService.PublishInformation;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadAccessRightsResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadAuditsResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadPreferencesResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadWorkflowInformationResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadWorkflowSettingsResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.RecycleBinExpiration;
+import com.hannonhill.www.ws.ns.AssetOperationService.SearchInformation;
+import com.hannonhill.www.ws.ns.AssetOperationService.SearchMatchType;
+import com.hannonhill.www.ws.ns.AssetOperationService.SearchResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.Site;
+import com.hannonhill.www.ws.ns.AssetOperationService.WorkflowConfiguration;
+import com.hannonhill.www.ws.ns.AssetOperationService.WorkflowSettings;
+import com.hannonhill.www.ws.ns.AssetOperationService.WorkflowTransitionInformation;
+import com.hannonhill.www.ws.ns.AssetOperationService.XhtmlDataDefinitionBlock;
+
+/**
+ * An in-memory simulator of the Cascade Server web services, so that the migration can be benchmarked and
+ * load tested without a Cascade Server. It implements the operations the tool uses - read, create, edit,
+ * delete, batch, search and listSites - on the folders, pages, files and XHTML/Data Definition blocks of its
+ * sites and answers with the same messages Cascade does, for example that a parent folder "could not be
+ * found", which the tool relies on. All the other operations fail with a message saying they are not
+ * supported.
+ *
+ * Each site is created with a root folder and a "Default" content type with a metadata set and no data
+ * definition. The assets are copied when stored and when read, so the callers can't change the stored state
+ * by changing the returned objects, just like with real web services.
+ *
+ * The server's behavior can be changed at any time with the setters:
+ * <ul>
+ * <li>latency of reads and writes with a random jitter</li>
+ * <li>maximum number of calls served at the same time - the other calls wait</li>
+ * <li>maximum number of calls per second - the other calls are rejected with a (503) fault</li>
+ * <li>rate of failed results and rate of faults (read timeouts)</li>
+ * </ul>
+ *
+ * The simulator can be used in the tool's JVM with
+ * {@link com.hannonhill.smt.service.WebServices#setHandlerFactory} or behind a real SOAP endpoint with
+ * {@link CascadeSimulatorServer}.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class CascadeSimulator implements AssetOperationHandler
+{
+    public static final String DEFAULT_CONTENT_TYPE_PATH = "Default";
+    public static final String SIMULATED_FAILURE_MESSAGE = "Simulated failure: the operation could not be completed";
+
+    private final ReadWriteLock lock;
+    private final Map<String, StoredAsset> assetsById; // all the assets by id
+    private final Map<String, StoredAsset> assetsByPath; // all the assets by key (see getKey())
+    private final Map<String, StoredAsset> sitesByName; // sites by lower case name
+    private final AtomicLong nextId;
+
+    private final Random random;
+    private volatile long readLatencyMs;
+    private volatile long writeLatencyMs;
+    private volatile long jitterMs;
+    private volatile double failureRate; // fraction of calls returning a failed result
+    private volatile double faultRate; // fraction of calls throwing a read timeout fault
+    private volatile Semaphore capacity; // null if the number of calls served at the same time is not limited
+    private volatile int maxCallsPerSecond; // 0 if not limited
+
+    private long rateSecond; // the second the calls are counted in for the rate limit
+    private int rateCalls; // the calls made in that second
+
+    private final AtomicLong calls;
+    private final AtomicLong failures;
+    private final AtomicLong faults;
+    private final AtomicLong rejections;
+    private final AtomicInteger inFlight;
+    private final AtomicInteger maxInFlight;
+
+    /**
+     * Constructor, creates a simulator with given sites and no latency
+     *
+     * @param siteNames
+     */
+    public CascadeSimulator(String... siteNames)
+    {
+        lock = new ReentrantReadWriteLock();
+        assetsById = new HashMap<String, StoredAsset>();
+        assetsByPath = new HashMap<String, StoredAsset>();
+        sitesByName = new HashMap<String, StoredAsset>();
+        nextId = new AtomicLong(1);
+        random = new Random();
+
+        calls = new AtomicLong();
+        failures = new AtomicLong();
+        faults = new AtomicLong();
+        rejections = new AtomicLong();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+
+        for (String siteName : siteNames)
+            addSite(siteName);
+    }
+
+    /**
+     * Adds a site with a root folder and the default content type
+     *
+     * @param siteName
+     */
+    public void addSite(String siteName)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Site site = new Site();
+            site.setName(siteName);
+            site.setUrl("http://" + siteName);
+            site.setRecycleBinExpiration(RecycleBinExpiration.value3);
+            StoredAsset storedSite = store(EntityTypeString.site, siteName, "", null, asset(site));
+            site.setId(storedSite.id);
+            sitesByName.put(siteName.toLowerCase(), storedSite);
+
+            Folder rootFolder = new Folder();
+            rootFolder.setName("/");
+            rootFolder.setSiteName(siteName);
+            StoredAsset storedRootFolder = store(EntityTypeString.folder, siteName, "", null, null);
+            rootFolder.setId(storedRootFolder.id);
+            rootFolder.setPath("/");
+            storedRootFolder.asset = asset(rootFolder);
+
+            ContentTypeContainer container = new ContentTypeContainer();
+            container.setName("Content Types");
+            StoredAsset storedContainer = store(EntityTypeString.contenttypecontainer, siteName, "/", null, asset(container));
+
+            MetadataSet metadataSet = new MetadataSet();
+            metadataSet.setName(DEFAULT_CONTENT_TYPE_PATH);
+            metadataSet.setDynamicMetadataFieldDefinitions(new DynamicMetadataFieldDefinition[0]);
+            StoredAsset storedMetadataSet = store(EntityTypeString.metadataset, siteName, DEFAULT_CONTENT_TYPE_PATH, null, asset(metadataSet));
+
+            ContentType contentType = new ContentType();
+            contentType.setName(DEFAULT_CONTENT_TYPE_PATH);
+            contentType.setMetadataSetId(storedMetadataSet.id);
+            contentType.setMetadataSetPath(DEFAULT_CONTENT_TYPE_PATH);
+            store(EntityTypeString.contenttype, siteName, DEFAULT_CONTENT_TYPE_PATH, storedContainer, asset(contentType));
+
+            site.setRootFolderId(storedRootFolder.id);
+            site.setRootContentTypeContainerId(storedContainer.id);
+            site.setDefaultMetadataSetId(storedMetadataSet.id);
+            site.setDefaultMetadataSetPath(DEFAULT_CONTENT_TYPE_PATH);
+            storedSite.asset = asset(site);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a data definition to the site and a content type using it
+     *
+     * @param siteName
+     * @param contentTypePath
+     * @param dataDefinitionXml
+     */
+    public void addDataDefinitionContentType(String siteName, String contentTypePath, String dataDefinitionXml)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            StoredAsset site = sitesByName.get(siteName.toLowerCase());
+            Site siteAsset = site.asset.getSite();
+            StoredAsset container = assetsById.get(siteAsset.getRootContentTypeContainerId());
+
+            DataDefinition dataDefinition = new DataDefinition();
+            dataDefinition.setName(contentTypePath);
+            dataDefinition.setXml(dataDefinitionXml);
+            StoredAsset storedDataDefinition = store(EntityTypeString.datadefinition, siteName, contentTypePath, null, asset(dataDefinition));
+
+            ContentType contentType = new ContentType();
+            contentType.setName(contentTypePath);
+            contentType.setMetadataSetId(siteAsset.getDefaultMetadataSetId());
+            contentType.setMetadataSetPath(siteAsset.getDefaultMetadataSetPath());
+            contentType.setDataDefinitionId(storedDataDefinition.id);
+            contentType.setDataDefinitionPath(contentTypePath);
+            store(EntityTypeString.contenttype, siteName, contentTypePath, container, asset(contentType));
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ReadResult read(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        beginCall(false);
+        try
+        {
+            if (isFailureInjected())
+                return new ReadResult("false", SIMULATED_FAILURE_MESSAGE, null);
+            return doRead(identifier);
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public CreateResult create(Authentication authentication, Asset asset) throws RemoteException
+    {
+        beginCall(true);
+        try
+        {
+            if (isFailureInjected())
+                return new CreateResult("false", SIMULATED_FAILURE_MESSAGE, null);
+            return doCreate(asset);
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public OperationResult edit(Authentication authentication, Asset asset) throws RemoteException
+    {
+        beginCall(true);
+        try
+        {
+            if (isFailureInjected())
+                return new OperationResult("false", SIMULATED_FAILURE_MESSAGE);
+            return doEdit(asset);
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public OperationResult delete(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        beginCall(true);
+        try
+        {
+            if (isFailureInjected())
+                return new OperationResult("false", SIMULATED_FAILURE_MESSAGE);
+            return doDelete(identifier);
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public BatchResult[] batch(Authentication authentication, Operation[] operations) throws RemoteException
+    {
+        beginCall(true);
+        try
+        {
+            BatchResult[] results = new BatchResult[operations == null ? 0 : operations.length];
+            for (int i = 0; i < results.length; i++)
+            {
+                Operation operation = operations[i];
+                BatchResult result = new BatchResult();
+                if (isFailureInjected())
+                    result.setOperationResult(new OperationResult("false", SIMULATED_FAILURE_MESSAGE));
+                else if (operation.getRead() != null)
+                    result.setReadResult(doRead(operation.getRead().getIdentifier()));
+                else if (operation.getCreate() != null)
+                    result.setCreateResult(doCreate(operation.getCreate().getAsset()));
+                else if (operation.getEdit() != null)
+                    result.setOperationResult(doEdit(operation.getEdit().getAsset()));
+                else if (operation.getDelete() != null)
+                    result.setOperationResult(doDelete(operation.getDelete().getIdentifier()));
+                else
+                    result.setOperationResult(new OperationResult("false", "The simulator supports only read, create, edit and delete in batch"));
+                results[i] = result;
+            }
+            return results;
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public SearchResult search(Authentication authentication, SearchInformation searchInformation) throws RemoteException
+    {
+        beginCall(false);
+        try
+        {
+            if (isFailureInjected())
+                return new SearchResult("false", SIMULATED_FAILURE_MESSAGE, null);
+
+            lock.readLock().lock();
+            try
+            {
+                List<Identifier> matches = new ArrayList<Identifier>();
+                for (StoredAsset storedAsset : assetsById.values())
+                    if (matches(storedAsset, searchInformation))
+                        matches.add(storedAsset.toIdentifier());
+                return new SearchResult("true", null, matches.toArray(new Identifier[matches.size()]));
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public ListSitesResult listSites(Authentication authentication) throws RemoteException
+    {
+        beginCall(false);
+        try
+        {
+            if (isFailureInjected())
+                return new ListSitesResult("false", SIMULATED_FAILURE_MESSAGE, null);
+
+            lock.readLock().lock();
+            try
+            {
+                List<Identifier> sites = new ArrayList<Identifier>();
+                for (StoredAsset site : sitesByName.values())
+                    sites.add(new Identifier(site.id, new Path(site.siteName, null, null), EntityTypeString.site, false));
+                return new ListSitesResult("true", null, sites.toArray(new Identifier[sites.size()]));
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+        }
+        finally
+        {
+            endCall();
+        }
+    }
+
+    public OperationResult publish(Authentication authentication, PublishInformation publishInformation) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "publish");
+    }
+
+    public ReadAccessRightsResult readAccessRights(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        return unsupported(new ReadAccessRightsResult(), "readAccessRights");
+    }
+
+    public OperationResult editAccessRights(Authentication authentication, AccessRightsInformation accessRightsInformation, Boolean applyToChildren)
+            throws RemoteException
+    {
+        return unsupported(new OperationResult(), "editAccessRights");
+    }
+
+    public ReadWorkflowSettingsResult readWorkflowSettings(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        return unsupported(new ReadWorkflowSettingsResult(), "readWorkflowSettings");
+    }
+
+    public OperationResult editWorkflowSettings(Authentication authentication, WorkflowSettings workflowSettings,
+            Boolean applyInheritWorkflowsToChildren, Boolean applyRequireWorkflowToChildren) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "editWorkflowSettings");
+    }
+
+    public ListSubscribersResult listSubscribers(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        return unsupported(new ListSubscribersResult(), "listSubscribers");
+    }
+
+    public ListMessagesResult listMessages(Authentication authentication) throws RemoteException
+    {
+        return unsupported(new ListMessagesResult(), "listMessages");
+    }
+
+    public OperationResult markMessage(Authentication authentication, Identifier identifier, MessageMarkType markType) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "markMessage");
+    }
+
+    public OperationResult deleteMessage(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "deleteMessage");
+    }
+
+    public OperationResult sendMessage(Authentication authentication, Message message) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "sendMessage");
+    }
+
+    public CheckOutResult checkOut(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        return unsupported(new CheckOutResult(), "checkOut");
+    }
+
+    public OperationResult checkIn(Authentication authentication, Identifier identifier, String comments) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "checkIn");
+    }
+
+    public OperationResult copy(Authentication authentication, Identifier identifier, CopyParameters copyParameters,
+            WorkflowConfiguration workflowConfiguration) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "copy");
+    }
+
+    public OperationResult siteCopy(Authentication authentication, String originalSiteId, String originalSiteName, String newSiteName)
+            throws RemoteException
+    {
+        return unsupported(new OperationResult(), "siteCopy");
+    }
+
+    public OperationResult move(Authentication authentication, Identifier identifier, MoveParameters moveParameters,
+            WorkflowConfiguration workflowConfiguration) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "move");
+    }
+
+    public ReadWorkflowInformationResult readWorkflowInformation(Authentication authentication, Identifier identifier) throws RemoteException
+    {
+        return unsupported(new ReadWorkflowInformationResult(), "readWorkflowInformation");
+    }
+
+    public ReadAuditsResult readAudits(Authentication authentication, AuditParameters auditParameters) throws RemoteException
+    {
+        return unsupported(new ReadAuditsResult(), "readAudits");
+    }
+
+    public OperationResult performWorkflowTransition(Authentication authentication, WorkflowTransitionInformation workflowTransitionInformation)
+            throws RemoteException
+    {
+        return unsupported(new OperationResult(), "performWorkflowTransition");
+    }
+
+    public ReadPreferencesResult readPreferences(Authentication authentication) throws RemoteException
+    {
+        return unsupported(new ReadPreferencesResult(), "readPreferences");
+    }
+
+    public OperationResult editPreference(Authentication authentication, Preference preference) throws RemoteException
+    {
+        return unsupported(new OperationResult(), "editPreference");
+    }
+
+    /**
+     * Sets the time each read (read, search, listSites) and each write (create, edit, delete, batch) takes
+     *
+     * @param readLatencyMs
+     * @param writeLatencyMs
+     * @param jitterMs maximum random time added to each call
+     */
+    public void setLatency(long readLatencyMs, long writeLatencyMs, long jitterMs)
+    {
+        this.readLatencyMs = readLatencyMs;
+        this.writeLatencyMs = writeLatencyMs;
+        this.jitterMs = jitterMs;
+    }
+
+    /**
+     * @param failureRate the fraction of the calls that return a failed result with
+     *        {@link #SIMULATED_FAILURE_MESSAGE}
+     * @param faultRate the fraction of the calls that throw a read timeout fault
+     */
+    public void setErrorRates(double failureRate, double faultRate)
+    {
+        this.failureRate = failureRate;
+        this.faultRate = faultRate;
+    }
+
+    /**
+     * @param maxConcurrentCalls maximum number of calls served at the same time, the other calls wait; 0 for
+     *        no limit
+     */
+    public void setMaxConcurrentCalls(int maxConcurrentCalls)
+    {
+        capacity = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls, true) : null;
+    }
+
+    /**
+     * @param maxCallsPerSecond maximum number of calls per second, the other calls are rejected with a (503)
+     *        fault; 0 for no limit
+     */
+    public void setMaxCallsPerSecond(int maxCallsPerSecond)
+    {
+        this.maxCallsPerSecond = maxCallsPerSecond;
+    }
+
+    /**
+     * @return Returns the number of calls made to the simulator.
+     */
+    public long getCalls()
+    {
+        return calls.get();
+    }
+
+    /**
+     * @return Returns the number of injected failed results.
+     */
+    public long getFailures()
+    {
+        return failures.get();
+    }
+
+    /**
+     * @return Returns the number of injected faults.
+     */
+    public long getFaults()
+    {
+        return faults.get();
+    }
+
+    /**
+     * @return Returns the number of calls rejected because of the rate limit.
+     */
+    public long getRejections()
+    {
+        return rejections.get();
+    }
+
+    /**
+     * @return Returns the highest number of calls served at the same time.
+     */
+    public int getMaxInFlight()
+    {
+        return maxInFlight.get();
+    }
+
+    /**
+     * @param type
+     * @return Returns the number of assets of given type in all the sites
+     */
+    public int count(EntityTypeString type)
+    {
+        lock.readLock().lock();
+        try
+        {
+            int count = 0;
+            for (StoredAsset storedAsset : assetsById.values())
+                if (storedAsset.type.equals(type))
+                    count++;
+            return count;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the rate limit, the capacity limit, the fault injection and the latency to a call
+     *
+     * @param write
+     * @throws RemoteException
+     */
+    private void beginCall(boolean write) throws RemoteException
+    {
+        calls.incrementAndGet();
+        if (isRateLimited())
+        {
+            rejections.incrementAndGet();
+            throw new AxisFault("(503)Service Unavailable");
+        }
+
+        Semaphore capacity = this.capacity;
+        if (capacity != null)
+            capacity.acquireUninterruptibly();
+
+        int current = inFlight.incrementAndGet();
+        int max = maxInFlight.get();
+        while (current > max && !maxInFlight.compareAndSet(max, current))
+            max = maxInFlight.get();
+
+        try
+        {
+            long latency = write ? writeLatencyMs : readLatencyMs;
+            long jitter = jitterMs;
+            double faultRate = this.faultRate;
+            synchronized (random)
+            {
+                if (jitter > 0)
+                    latency += (long) (random.nextDouble() * jitter);
+                if (faultRate > 0 && random.nextDouble() < faultRate)
+                    latency = -1;
+            }
+            if (latency < 0)
+            {
+                faults.incrementAndGet();
+                throw AxisFault.makeFault(new SocketTimeoutException("Read timed out (simulated)"));
+            }
+            if (latency > 0)
+                Thread.sleep(latency);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            endCall();
+            throw AxisFault.makeFault(e);
+        }
+        catch (RemoteException e)
+        {
+            endCall();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the capacity taken by the call
+     */
+    private void endCall()
+    {
+        inFlight.decrementAndGet();
+        Semaphore capacity = this.capacity;
+        if (capacity != null)
+            capacity.release();
+    }
+
+    /**
+     * @return Returns true if the rate limit doesn't allow another call in the current second
+     */
+    private synchronized boolean isRateLimited()
+    {
+        if (maxCallsPerSecond <= 0)
+            return false;
+
+        long second = System.currentTimeMillis() / 1000;
+        if (second != rateSecond)
+        {
+            rateSecond = second;
+            rateCalls = 0;
+        }
+        return ++rateCalls > maxCallsPerSecond;
+    }
+
+    /**
+     * @return Returns true if the current call should return a failed result
+     */
+    private boolean isFailureInjected()
+    {
+        double failureRate = this.failureRate;
+        if (failureRate <= 0)
+            return false;
+
+        boolean failure;
+        synchronized (random)
+        {
+            failure = random.nextDouble() < failureRate;
+        }
+        if (failure)
+            failures.incrementAndGet();
+        return failure;
+    }
+
+    /**
+     * @param identifier
+     * @return Returns the result of reading the asset with given identifier
+     */
+    private ReadResult doRead(Identifier identifier)
+    {
+        lock.readLock().lock();
+        try
+        {
+            StoredAsset storedAsset = find(identifier);
+            if (storedAsset == null)
+                return new ReadResult("false", getNotFoundMessage(identifier), null);
+
+            Asset asset = copy(storedAsset.asset);
+            if (storedAsset.children != null)
+            {
+                List<Identifier> children = new ArrayList<Identifier>();
+                for (String childId : storedAsset.children)
+                    children.add(assetsById.get(childId).toIdentifier());
+                Identifier[] childArray = children.toArray(new Identifier[children.size()]);
+                if (asset.getFolder() != null)
+                    asset.getFolder().setChildren(childArray);
+                else if (asset.getContentTypeContainer() != null)
+                    asset.getContentTypeContainer().setChildren(childArray);
+            }
+            return new ReadResult("true", null, asset);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param asset
+     * @return Returns the result of creating given asset
+     */
+    private CreateResult doCreate(Asset asset)
+    {
+        FolderContainedAsset contained = getFolderContainedAsset(asset);
+        EntityTypeString type = getType(asset);
+        if (contained == null)
+            return new CreateResult("false", "The simulator can create only folders, pages, files and XHTML/Data Definition blocks", null);
+
+        lock.writeLock().lock();
+        try
+        {
+            StoredAsset site = sitesByName.get(contained.getSiteName() == null ? "" : contained.getSiteName().toLowerCase());
+            if (site == null)
+                return new CreateResult("false", "Unable to identify an entity based on provided entity path '" + contained.getSiteName()
+                        + "' and type 'site'", null);
+
+            String parentFolderPath = contained.getParentFolderPath();
+            StoredAsset parent = contained.getParentFolderId() != null ? assetsById.get(contained.getParentFolderId()) : assetsByPath.get(getKey(
+                    site.siteName, parentFolderPath));
+            if (parent == null || !parent.type.equals(EntityTypeString.folder))
+                return new CreateResult("false", "Unable to create the asset: parent folder with path/name: "
+                        + (parentFolderPath == null ? contained.getParentFolderId() : parentFolderPath) + " could not be found", null);
+
+            String name = contained.getName();
+            if (name == null || name.length() == 0)
+                return new CreateResult("false", "The name of the asset is required", null);
+
+            String path = parent.path.length() == 0 ? name : parent.path + "/" + name;
+            if (assetsByPath.containsKey(getKey(site.siteName, path)))
+                return new CreateResult("false", "An asset with the name '" + name + "' already exists in the folder '"
+                        + (parent.path.length() == 0 ? "/" : parent.path) + "'", null);
+
+            StoredAsset storedAsset = store(type, site.siteName, path, parent, null);
+            Asset storedCopy = copy(asset);
+            FolderContainedAsset storedContained = getFolderContainedAsset(storedCopy);
+            storedContained.setId(storedAsset.id);
+            storedContained.setPath(path);
+            storedContained.setParentFolderId(parent.id);
+            storedContained.setParentFolderPath(parent.path.length() == 0 ? "/" : parent.path);
+            storedContained.setSiteId(site.id);
+            storedContained.setSiteName(site.siteName);
+            storedAsset.asset = storedCopy;
+            return new CreateResult("true", null, storedAsset.id);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param asset
+     * @return Returns the result of editing given asset
+     */
+    private OperationResult doEdit(Asset asset)
+    {
+        FolderContainedAsset contained = getFolderContainedAsset(asset);
+        if (contained == null)
+            return new OperationResult("false", "The simulator can edit only folders, pages, files and XHTML/Data Definition blocks");
+
+        lock.writeLock().lock();
+        try
+        {
+            StoredAsset storedAsset = contained.getId() == null ? null : assetsById.get(contained.getId());
+            if (storedAsset == null || !storedAsset.type.equals(getType(asset)))
+                return new OperationResult("false", "Unable to identify an entity based on provided entity id '" + contained.getId()
+                        + "' and type '" + getType(asset) + "'");
+
+            // The location can't be changed by editing
+            FolderContainedAsset stored = getFolderContainedAsset(storedAsset.asset);
+            Asset storedCopy = copy(asset);
+            FolderContainedAsset storedContained = getFolderContainedAsset(storedCopy);
+            storedContained.setName(stored.getName());
+            storedContained.setPath(stored.getPath());
+            storedContained.setParentFolderId(stored.getParentFolderId());
+            storedContained.setParentFolderPath(stored.getParentFolderPath());
+            storedContained.setSiteId(stored.getSiteId());
+            storedContained.setSiteName(stored.getSiteName());
+            storedAsset.asset = storedCopy;
+            return new OperationResult("true", null);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param identifier
+     * @return Returns the result of deleting the asset with given identifier and all its descendants
+     */
+    private OperationResult doDelete(Identifier identifier)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            StoredAsset storedAsset = find(identifier);
+            if (storedAsset == null)
+                return new OperationResult("false", getNotFoundMessage(identifier));
+            if (storedAsset.parent == null)
+                return new OperationResult("false", "The simulator can't delete sites and root folders");
+
+            remove(storedAsset);
+            storedAsset.parent.children.remove(storedAsset.id);
+            return new OperationResult("true", null);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the asset and its descendants from the maps
+     *
+     * @param storedAsset
+     */
+    private void remove(StoredAsset storedAsset)
+    {
+        if (storedAsset.children != null)
+            for (String childId : storedAsset.children)
+                remove(assetsById.get(childId));
+        assetsById.remove(storedAsset.id);
+        assetsByPath.remove(getKey(storedAsset));
+    }
+
+    /**
+     * Stores a new asset. Must be called with the write lock.
+     *
+     * @param type
+     * @param siteName
+     * @param path
+     * @param parent the folder or container of the asset or null
+     * @param asset
+     * @return
+     */
+    private StoredAsset store(EntityTypeString type, String siteName, String path, StoredAsset parent, Asset asset)
+    {
+        StoredAsset storedAsset = new StoredAsset(String.format("%032x", nextId.getAndIncrement()), type, siteName, path, parent);
+        storedAsset.asset = asset;
+        if (type.equals(EntityTypeString.folder) || type.equals(EntityTypeString.contenttypecontainer))
+            storedAsset.children = new LinkedHashSet<String>();
+        if (parent != null)
+            parent.children.add(storedAsset.id);
+
+        assetsById.put(storedAsset.id, storedAsset);
+        assetsByPath.put(getKey(storedAsset), storedAsset);
+        return storedAsset;
+    }
+
+    /**
+     * Finds the asset with given identifier. Must be called with a lock.
+     *
+     * @param identifier
+     * @return Returns the asset or null if it doesn't exist or is of a different type
+     */
+    private StoredAsset find(Identifier identifier)
+    {
+        StoredAsset storedAsset;
+        if (identifier.getId() != null)
+            storedAsset = assetsById.get(identifier.getId());
+        else if (identifier.getPath() == null)
+            return null;
+        else if (EntityTypeString.site.equals(identifier.getType()))
+            storedAsset = sitesByName.get(String.valueOf(identifier.getPath().getPath()).toLowerCase());
+        else if (isFolderContained(identifier.getType()))
+            storedAsset = assetsByPath.get(getKey(identifier.getPath().getSiteName(), identifier.getPath().getPath()));
+        else
+            storedAsset = assetsByPath.get(getKey(identifier.getPath().getSiteName(), identifier.getType() + ":"
+                    + removeSlashes(identifier.getPath().getPath())));
+
+        if (storedAsset == null || !storedAsset.type.equals(identifier.getType()))
+            return null;
+        return storedAsset;
+    }
+
+    /**
+     * @param storedAsset
+     * @param searchInformation
+     * @return Returns true if the asset is of a searched type and matches all the criteria or, with
+     *         "match-any", at least one of them
+     */
+    private static boolean matches(StoredAsset storedAsset, SearchInformation searchInformation)
+    {
+        EntityTypeString type = storedAsset.type;
+        boolean typeSearched = (type.equals(EntityTypeString.page) && Boolean.TRUE.equals(searchInformation.getSearchPages()))
+                || (type.equals(EntityTypeString.file) && Boolean.TRUE.equals(searchInformation.getSearchFiles()))
+                || (type.equals(EntityTypeString.folder) && Boolean.TRUE.equals(searchInformation.getSearchFolders()))
+                || (type.equals(EntityTypeString.block_XHTML_DATADEFINITION) && Boolean.TRUE.equals(searchInformation.getSearchBlocks()));
+        if (!typeSearched || storedAsset.parent == null)
+            return false;
+
+        FolderContainedAsset contained = getFolderContainedAsset(storedAsset.asset);
+        boolean matchAny = SearchMatchType.value2.equals(searchInformation.getMatchType());
+        int criteria = 0;
+        int matched = 0;
+        if (searchInformation.getAssetName() != null)
+        {
+            criteria++;
+            if (contains(contained.getName(), searchInformation.getAssetName()))
+                matched++;
+        }
+        if (searchInformation.getAssetContent() != null)
+        {
+            criteria++;
+            String content = storedAsset.asset.getPage() != null ? storedAsset.asset.getPage().getXhtml()
+                    : storedAsset.asset.getXhtmlDataDefinitionBlock() != null ? storedAsset.asset.getXhtmlDataDefinitionBlock().getXhtml() : null;
+            if (contains(content, searchInformation.getAssetContent()))
+                matched++;
+        }
+        if (searchInformation.getAssetMetadata() != null)
+        {
+            criteria++;
+            if (metadataContains(contained, searchInformation.getAssetMetadata()))
+                matched++;
+        }
+        return matchAny ? matched > 0 || criteria == 0 : matched == criteria;
+    }
+
+    /**
+     * @param contained
+     * @param value
+     * @return Returns true if any of the asset's metadata fields contains given value
+     */
+    private static boolean metadataContains(FolderContainedAsset contained, String value)
+    {
+        Metadata metadata = null;
+        if (contained instanceof Page)
+            metadata = ((Page) contained).getMetadata();
+        else if (contained instanceof XhtmlDataDefinitionBlock)
+            metadata = ((XhtmlDataDefinitionBlock) contained).getMetadata();
+        else if (contained instanceof Folder)
+            metadata = ((Folder) contained).getMetadata();
+        else if (contained instanceof com.hannonhill.www.ws.ns.AssetOperationService.File)
+            metadata = ((com.hannonhill.www.ws.ns.AssetOperationService.File) contained).getMetadata();
+        if (metadata == null)
+            return false;
+
+        if (contains(metadata.getTitle(), value) || contains(metadata.getDisplayName(), value) || contains(metadata.getKeywords(), value)
+                || contains(metadata.getSummary(), value) || contains(metadata.getMetaDescription(), value))
+            return true;
+
+        if (metadata.getDynamicFields() != null)
+            for (DynamicMetadataField field : metadata.getDynamicFields())
+                if (field.getFieldValues() != null)
+                    for (FieldValue fieldValue : field.getFieldValues())
+                        if (contains(fieldValue.getValue(), value))
+                            return true;
+        return false;
+    }
+
+    /**
+     * @param text
+     * @param value
+     * @return Returns true if the text contains the value, ignoring case
+     */
+    private static boolean contains(String text, String value)
+    {
+        return text != null && text.toLowerCase().contains(value.toLowerCase());
+    }
+
+    /**
+     * @param result
+     * @param operationName
+     * @return Returns given result marked as failed because the operation is not supported
+     */
+    private <T extends OperationResult> T unsupported(T result, String operationName) throws RemoteException
+    {
+        beginCall(false);
+        endCall();
+        result.setSuccess("false");
+        result.setMessage("The simulator does not support the " + operationName + " operation");
+        return result;
+    }
+
+    /**
+     * @param identifier
+     * @return Returns the message Cascade returns when an asset with given identifier doesn't exist
+     */
+    private static String getNotFoundMessage(Identifier identifier)
+    {
+        if (identifier.getId() != null)
+            return "Unable to identify an entity based on provided entity id '" + identifier.getId() + "' and type '" + identifier.getType() + "'";
+        return "Unable to identify an entity based on provided entity path '" + (identifier.getPath() == null ? null : identifier.getPath().getPath())
+                + "' and type '" + identifier.getType() + "'";
+    }
+
+    /**
+     * @param storedAsset
+     * @return Returns the key of the asset in {@link #assetsByPath}
+     */
+    private static String getKey(StoredAsset storedAsset)
+    {
+        if (storedAsset.type.equals(EntityTypeString.site))
+            return getKey(storedAsset.siteName, "site:");
+        if (isFolderContained(storedAsset.type))
+            return getKey(storedAsset.siteName, storedAsset.path);
+        return getKey(storedAsset.siteName, storedAsset.type + ":" + storedAsset.path);
+    }
+
+    /**
+     * @param siteName
+     * @param path
+     * @return Returns the key of the asset with given path in {@link #assetsByPath}. The folder contained
+     *         assets share the path, so that two assets in a folder can't have the same name.
+     */
+    private static String getKey(String siteName, String path)
+    {
+        return (siteName == null ? "" : siteName.toLowerCase()) + "|" + removeSlashes(path).toLowerCase();
+    }
+
+    /**
+     * @param path
+     * @return Returns the path without the leading and trailing slashes, the root folder's path is empty
+     */
+    private static String removeSlashes(String path)
+    {
+        if (path == null)
+            return "";
+
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/')
+            start++;
+        while (end > start && path.charAt(end - 1) == '/')
+            end--;
+        return path.substring(start, end);
+    }
+
+    /**
+     * @param type
+     * @return Returns true if assets of given type are located in folders
+     */
+    private static boolean isFolderContained(EntityTypeString type)
+    {
+        return type.equals(EntityTypeString.folder) || type.equals(EntityTypeString.page) || type.equals(EntityTypeString.file)
+                || type.equals(EntityTypeString.block_XHTML_DATADEFINITION);
+    }
+
+    /**
+     * @param asset
+     * @return Returns the folder contained asset (folder, page, file or XHTML block) in the asset or null
+     */
+    private static FolderContainedAsset getFolderContainedAsset(Asset asset)
+    {
+        if (asset.getPage() != null)
+            return asset.getPage();
+        if (asset.getFolder() != null)
+            return asset.getFolder();
+        if (asset.getFile() != null)
+            return asset.getFile();
+        return asset.getXhtmlDataDefinitionBlock();
+    }
+
+    /**
+     * @param asset
+     * @return Returns the type of the folder contained asset in the asset or null
+     */
+    private static EntityTypeString getType(Asset asset)
+    {
+        if (asset.getPage() != null)
+            return EntityTypeString.page;
+        if (asset.getFolder() != null)
+            return EntityTypeString.folder;
+        if (asset.getFile() != null)
+            return EntityTypeString.file;
+        if (asset.getXhtmlDataDefinitionBlock() != null)
+            return EntityTypeString.block_XHTML_DATADEFINITION;
+        return null;
+    }
+
+    /**
+     * Creates an asset wrapping given site, folder, content type, content type container, metadata set or
+     * data definition
+     *
+     * @param object
+     * @return
+     */
+    private static Asset asset(Object object)
+    {
+        Asset asset = new Asset();
+        if (object instanceof Site)
+            asset.setSite((Site) object);
+        else if (object instanceof Folder)
+            asset.setFolder((Folder) object);
+        else if (object instanceof ContentType)
+            asset.setContentType((ContentType) object);
+        else if (object instanceof ContentTypeContainer)
+            asset.setContentTypeContainer((ContentTypeContainer) object);
+        else if (object instanceof MetadataSet)
+            asset.setMetadataSet((MetadataSet) object);
+        else if (object instanceof DataDefinition)
+            asset.setDataDefinition((DataDefinition) object);
+        return asset;
+    }
+
+    /**
+     * Copies the object by serializing it, so that the stored state is never shared with the callers
+     *
+     * @param object
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Serializable> T copy(T object)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(object);
+            out.close();
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            return (T) in.readObject();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Could not copy " + object, e);
+        }
+    }
+
+    /**
+     * An asset stored in the simulator with its location
+     */
+    private static class StoredAsset
+    {
+        private final String id;
+        private final EntityTypeString type;
+        private final String siteName;
+        private final String path; // without leading slash, empty for the root folder
+        private final StoredAsset parent; // folder or container, null for the sites and root folders
+        private Set<String> children; // ids of the children of folders and containers, null for other assets
+        private Asset asset;
+
+        /**
+         * Constructor
+         *
+         * @param id
+         * @param type
+         * @param siteName
+         * @param path
+         * @param parent
+         */
+        private StoredAsset(String id, EntityTypeString type, String siteName, String path, StoredAsset parent)
+        {
+            this.id = id;
+            this.type = type;
+            this.siteName = siteName;
+            this.path = removeSlashes(path);
+            this.parent = parent;
+        }
+
+        /**
+         * @return Returns the identifier of the asset, as Cascade lists it in folders and search results
+         */
+        private Identifier toIdentifier()
+        {
+            return new Identifier(id, new Path(path.length() == 0 ? "/" : path, null, siteName), type, false);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.namespace.QName;
+import javax.xml.rpc.encoding.DeserializerFactory;
+import javax.xml.rpc.encoding.SerializerFactory;
+import javax.xml.rpc.holders.IntHolder;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.Handler;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.configuration.SimpleProvider;
+import org.apache.axis.constants.Style;
+import org.apache.axis.constants.Use;
+import org.apache.axis.description.ElementDesc;
+import org.apache.axis.description.FieldDesc;
+import org.apache.axis.description.JavaServiceDesc;
+import org.apache.axis.description.OperationDesc;
+import org.apache.axis.description.TypeDesc;
+import org.apache.axis.encoding.TypeMapping;
+import org.apache.axis.encoding.TypeMappingRegistry;
+import org.apache.axis.encoding.ser.BaseDeserializerFactory;
+import org.apache.axis.encoding.ser.BaseSerializerFactory;
+import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.providers.java.RPCProvider;
+import org.apache.axis.server.AxisServer;
+
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationServiceSoapBindingStub;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves a {@link CascadeSimulator} as a SOAP endpoint at /ws/services/AssetOperationService, so that the
+ * tool (or several instances of it) can be load tested end to end, including the Axis serialization and the
+ * HTTP connections, by pointing it at http://localhost:port. The operations and the type mappings are taken
+ * from the generated web services stub, so the messages are the same as the ones the stub exchanges with
+ * Cascade Server. A GET of ?wsdl returns wsdl/asset-operation.wsdl.
+ *
+ * Usage: CascadeSimulatorServer [-p port] [-s site name]... [-l read latency ms] [-w write latency ms] [-j
+ * jitter ms] [-f failure rate] [-t fault rate] [-c max concurrent calls] [-r max calls per second]
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class CascadeSimulatorServer
+{
+    public static final String SERVICE_NAME = "AssetOperationService";
+    public static final String SERVICE_PATH = "/ws/services/" + SERVICE_NAME;
+    public static final int DEFAULT_PORT = 8095;
+
+    private static final String NAMESPACE = "http://www.hannonhill.com/ws/ns/AssetOperationService";
+    private static final String WSDL_FILE = "wsdl/asset-operation.wsdl";
+
+    private final CascadeSimulator simulator;
+    private final AxisServer axisServer;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public static void main(String[] args) throws Exception
+    {
+        int port = DEFAULT_PORT;
+        CascadeSimulator simulator = new CascadeSimulator();
+        boolean siteAdded = false;
+        long readLatency = 0;
+        long writeLatency = 0;
+        long jitter = 0;
+        double failureRate = 0;
+        double faultRate = 0;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-p"))
+                port = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-s"))
+            {
+                simulator.addSite(args[++i]);
+                siteAdded = true;
+            }
+            else if (args[i].equals("-l"))
+                readLatency = Long.parseLong(args[++i]);
+            else if (args[i].equals("-w"))
+                writeLatency = Long.parseLong(args[++i]);
+            else if (args[i].equals("-j"))
+                jitter = Long.parseLong(args[++i]);
+            else if (args[i].equals("-f"))
+                failureRate = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-t"))
+                faultRate = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-c"))
+                simulator.setMaxConcurrentCalls(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-r"))
+                simulator.setMaxCallsPerSecond(Integer.parseInt(args[++i]));
+            else
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+        if (!siteAdded)
+            simulator.addSite("www");
+        simulator.setLatency(readLatency, writeLatency, jitter);
+        simulator.setErrorRates(failureRate, faultRate);
+
+        CascadeSimulatorServer server = new CascadeSimulatorServer(simulator);
+        server.start(port);
+        System.out.println("Cascade simulator listening at http://localhost:" + port + SERVICE_PATH);
+    }
+
+    /**
+     * Constructor, deploys the simulator as the AssetOperationService
+     *
+     * @param simulator
+     * @throws Exception
+     */
+    public CascadeSimulatorServer(final CascadeSimulator simulator) throws Exception
+    {
+        this.simulator = simulator;
+
+        // All the calls go to the given simulator instead of a new instance of the class
+        SOAPService service = new SOAPService(new RPCProvider()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Object getServiceObject(MessageContext messageContext, Handler service, String className, IntHolder scopeHolder)
+            {
+                return simulator;
+            }
+        });
+        service.setOption(RPCProvider.OPTION_CLASSNAME, CascadeSimulator.class.getName());
+        service.setOption(RPCProvider.OPTION_ALLOWEDMETHODS, "*");
+        service.setStyle(Style.WRAPPED);
+        service.setUse(Use.LITERAL);
+
+        JavaServiceDesc serviceDesc = (JavaServiceDesc) service.getServiceDescription();
+        serviceDesc.setName(SERVICE_NAME);
+        serviceDesc.setDefaultNamespace(NAMESPACE);
+        serviceDesc.setStyle(Style.WRAPPED);
+        serviceDesc.setUse(Use.LITERAL);
+        serviceDesc.setImplClass(CascadeSimulator.class);
+        registerTypes(service.getTypeMappingRegistry());
+        for (OperationDesc operation : getOperations())
+        {
+            operation.setElementQName(new QName(NAMESPACE, operation.getName()));
+            serviceDesc.addOperationDesc(operation);
+        }
+
+        SimpleProvider provider = new SimpleProvider();
+        provider.deployService(SERVICE_NAME, service);
+        axisServer = new AxisServer(provider);
+        service.setEngine(axisServer);
+    }
+
+    /**
+     * Starts serving the simulator at given port
+     *
+     * @param port
+     * @throws IOException
+     */
+    public void start(int port) throws IOException
+    {
+        executor = Executors.newCachedThreadPool();
+        httpServer = HttpServer.create(new InetSocketAddress(port), 100);
+        httpServer.createContext(SERVICE_PATH, new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                try
+                {
+                    if (exchange.getRequestMethod().equalsIgnoreCase("GET"))
+                        sendWsdl(exchange);
+                    else
+                        invoke(exchange);
+                }
+                finally
+                {
+                    exchange.close();
+                }
+            }
+        });
+        httpServer.setExecutor(executor);
+        httpServer.start();
+    }
+
+    /**
+     * Stops serving the simulator
+     */
+    public void stop()
+    {
+        httpServer.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * @return Returns the simulator.
+     */
+    public CascadeSimulator getSimulator()
+    {
+        return simulator;
+    }
+
+    /**
+     * Passes the SOAP request to the simulator and sends back its response or fault
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void invoke(HttpExchange exchange) throws IOException
+    {
+        MessageContext messageContext = new MessageContext(axisServer);
+        Message response;
+        int status = 200;
+        try
+        {
+            Message request = new Message(exchange.getRequestBody(), false, exchange.getRequestHeaders().getFirst("Content-Type"), null);
+            messageContext.setRequestMessage(request);
+            messageContext.setTargetService(SERVICE_NAME);
+            axisServer.invoke(messageContext);
+            response = messageContext.getResponseMessage();
+        }
+        catch (Exception e)
+        {
+            response = new Message(AxisFault.makeFault(e));
+            status = 500;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try
+        {
+            // Axis logs the serialization errors and writes nothing instead of throwing them
+            response.writeTo(body);
+            if (body.size() == 0)
+                throw new IOException("The response could not be serialized, see the log for the details");
+        }
+        catch (Exception e)
+        {
+            body.reset();
+            response = new Message(AxisFault.makeFault(e));
+            status = 500;
+            try
+            {
+                response.writeTo(body);
+            }
+            catch (Exception faultException)
+            {
+                throw new IOException("Could not write the fault: " + faultException.getMessage());
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", response.getContentType(messageContext.getSOAPConstants()));
+        exchange.sendResponseHeaders(status, body.size());
+        OutputStream out = exchange.getResponseBody();
+        body.writeTo(out);
+        out.close();
+    }
+
+    /**
+     * Sends the WSDL of the web services
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void sendWsdl(HttpExchange exchange) throws IOException
+    {
+        File wsdl = new File(WSDL_FILE);
+        if (!wsdl.isFile())
+        {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, wsdl.length());
+        InputStream in = new FileInputStream(wsdl);
+        OutputStream out = exchange.getResponseBody();
+        try
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+                out.write(buffer, 0, read);
+        }
+        finally
+        {
+            in.close();
+            out.close();
+        }
+    }
+
+    /**
+     * @return Returns the descriptions of the operations from the generated stub
+     * @throws Exception
+     */
+    private static OperationDesc[] getOperations() throws Exception
+    {
+        Field field = AssetOperationServiceSoapBindingStub.class.getDeclaredField("_operations");
+        field.setAccessible(true);
+        return (OperationDesc[]) field.get(null);
+    }
+
+    /**
+     * Registers the serializers and deserializers of all the web services types, as the generated stub does
+     *
+     * @param registry
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    private static void registerTypes(TypeMappingRegistry registry) throws Exception
+    {
+        AssetOperationServiceSoapBindingStub stub = new AssetOperationServiceSoapBindingStub(null);
+        List<Class<?>> classes = (List<Class<?>>) getStubField(stub, "cachedSerClasses");
+        List<QName> qNames = (List<QName>) getStubField(stub, "cachedSerQNames");
+        List<Object> serializerFactories = (List<Object>) getStubField(stub, "cachedSerFactories");
+        List<Object> deserializerFactories = (List<Object>) getStubField(stub, "cachedDeserFactories");
+
+        TypeMapping typeMapping = registry.getOrMakeTypeMapping("");
+        for (int i = 0; i < classes.size(); i++)
+        {
+            Object serializerFactory = serializerFactories.get(i);
+            Object deserializerFactory = deserializerFactories.get(i);
+            // The stub stores the factories of simple and array types as classes to instantiate lazily
+            if (serializerFactory instanceof Class)
+                serializerFactory = BaseSerializerFactory.createFactory((Class<?>) serializerFactory,
+                        classes.get(i), qNames.get(i));
+            if (deserializerFactory instanceof Class)
+                deserializerFactory = BaseDeserializerFactory.createFactory((Class<?>) deserializerFactory,
+                        classes.get(i), qNames.get(i));
+            typeMapping.register(classes.get(i), qNames.get(i), (SerializerFactory) serializerFactory,
+                    (DeserializerFactory) deserializerFactory);
+
+            // Cascade leaves out the asset, the created asset id, the matches etc. of failed results, even though
+            // the WSDL makes them required, so the simulator must be able to leave them out too
+            TypeDesc typeDesc = TypeDesc.getTypeDescForClass(classes.get(i));
+            if (typeDesc != null && classes.get(i).getSimpleName().endsWith("Result"))
+                for (FieldDesc field : typeDesc.getFields())
+                    if (field instanceof ElementDesc)
+                        ((ElementDesc) field).setMinOccurs(0);
+        }
+    }
+
+    /**
+     * @param stub
+     * @param name
+     * @return Returns the value of the stub's private field
+     * @throws Exception
+     */
+    private static Object getStubField(AssetOperationServiceSoapBindingStub stub, String name) throws Exception
+    {
+        Field field = AssetOperationServiceSoapBindingStub.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(stub);
+    }
+}
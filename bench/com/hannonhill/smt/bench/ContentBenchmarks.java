@@ -0,0 +1,175 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.service.JTidy;
+import com.hannonhill.smt.service.LinkRewriter;
+import com.hannonhill.smt.service.XmlAnalyzer;
+import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.smt.util.XmlUtil;
+
+/**
+ * The benchmarks of the content transformations each migrated page and block goes through: tidying,
+ * evaluating the XPath mappings, rewriting links, converting relative links and checking names. The content
+ * comes from the {@link HtmlCorpus}. The link rewriting and XPath benchmarks work on the tidied content, as
+ * the migration does.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class ContentBenchmarks
+{
+    private static final int LARGE_SECTIONS = 60; // about 100 KB
+    private static final int WORD_PARAGRAPHS = 80;
+    private static final int MALFORMED_PARAGRAPHS = 80;
+    private static final String PAGE_PATH = "/academics/departments/history/index";
+
+    /**
+     * @return Returns all the content benchmarks
+     */
+    public static List<MicroBenchmark> create()
+    {
+        final HtmlCorpus corpus = new HtmlCorpus();
+        final String small = corpus.createSmall();
+        final String large = corpus.createLarge(LARGE_SECTIONS);
+        final String word = corpus.createWord(WORD_PARAGRAPHS);
+        final String malformed = corpus.createMalformed(MALFORMED_PARAGRAPHS);
+        final String[] links = corpus.createRelativeLinks(64);
+        final String[] names = corpus.createNames(64);
+
+        List<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+        benchmarks.add(new TidyBenchmark("JTidy.tidyContentConditionally.small", small, false));
+        benchmarks.add(new TidyBenchmark("JTidy.tidyContentConditionally.malformed", malformed, false));
+        benchmarks.add(new TidyBenchmark("JTidy.tidyContentConditionallyFullHtml.large", large, true));
+        benchmarks.add(new TidyBenchmark("JTidy.tidyContentConditionallyFullHtml.word", word, true));
+        benchmarks.add(new LinkRewriterBenchmark("LinkRewriter.rewriteLinksInXml.small", JTidy.tidyContentConditionally(small)));
+        benchmarks.add(new LinkRewriterBenchmark("LinkRewriter.rewriteLinksInXml.large", JTidy.tidyContentConditionally(large)));
+        benchmarks.add(new LinkRewriterBenchmark("LinkRewriter.rewriteLinksInXml.word", JTidy.tidyContentConditionally(word)));
+        benchmarks.add(new XPathBenchmark("XmlUtil.evaluateXPathExpression.large", JTidy.tidyContentConditionallyFullHtml(large),
+                "//div[@id='content']"));
+        benchmarks.add(new XPathBenchmark("XmlUtil.evaluateXPathExpression.word", JTidy.tidyContentConditionallyFullHtml(word),
+                "/html/body"));
+        benchmarks.add(new MicroBenchmark("PathUtil.convertRelativeToAbsolute.64links")
+        {
+            @Override
+            public Object run()
+            {
+                String result = null;
+                for (String link : links)
+                    result = PathUtil.convertRelativeToAbsolute(link, PAGE_PATH);
+                return result;
+            }
+        });
+        benchmarks.add(new MicroBenchmark("XmlAnalyzer.allCharactersLegal.64names")
+        {
+            @Override
+            public Object run()
+            {
+                int legal = 0;
+                for (String name : names)
+                    if (XmlAnalyzer.allCharactersLegal(name))
+                        legal++;
+                return legal;
+            }
+        });
+        return benchmarks;
+    }
+
+    /**
+     * Tidies a body fragment or a full HTML document
+     */
+    private static class TidyBenchmark extends MicroBenchmark
+    {
+        private final String content;
+        private final boolean fullHtml;
+
+        /**
+         * Constructor
+         *
+         * @param name
+         * @param content
+         * @param fullHtml
+         */
+        private TidyBenchmark(String name, String content, boolean fullHtml)
+        {
+            super(name);
+            this.content = content;
+            this.fullHtml = fullHtml;
+        }
+
+        @Override
+        public Object run()
+        {
+            return fullHtml ? JTidy.tidyContentConditionallyFullHtml(content) : JTidy.tidyContentConditionally(content);
+        }
+    }
+
+    /**
+     * Rewrites the links of tidied content
+     */
+    private static class LinkRewriterBenchmark extends MicroBenchmark
+    {
+        private final String xml;
+        private ProjectInformation projectInformation;
+
+        /**
+         * Constructor
+         *
+         * @param name
+         * @param xml
+         */
+        private LinkRewriterBenchmark(String name, String xml)
+        {
+            super(name);
+            this.xml = xml;
+        }
+
+        @Override
+        public void setUp()
+        {
+            projectInformation = new ProjectInformation();
+        }
+
+        @Override
+        public Object run() throws Exception
+        {
+            return LinkRewriter.rewriteLinksInXml(xml, PAGE_PATH, projectInformation);
+        }
+    }
+
+    /**
+     * Evaluates an XPath expression on tidied content
+     */
+    private static class XPathBenchmark extends MicroBenchmark
+    {
+        private final String xml;
+        private final String expression;
+
+        /**
+         * Constructor
+         *
+         * @param name
+         * @param xml
+         * @param expression
+         */
+        private XPathBenchmark(String name, String xml, String expression)
+        {
+            super(name);
+            this.xml = xml;
+            this.expression = expression;
+        }
+
+        @Override
+        public Object run() throws Exception
+        {
+            return XmlUtil.evaluateXPathExpression(xml, expression);
+        }
+    }
+}
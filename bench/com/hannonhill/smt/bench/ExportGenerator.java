@@ -0,0 +1,936 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Generates a synthetic export of a legacy site, so that the analyzer, the migration and the link checker
+ * can be tested at scale (10k, 100k, 1M pages) without customer exports. The export is a folder tree as
+ * {@link com.hannonhill.smt.service.XmlAnalyzer} reads it:
+ * <ul>
+ * <li>folders - a tree with given depth and fan-out</li>
+ * <li>pages - full HTML documents with .html and .php extensions, with a title, meta description and
+ * keywords, a header image, an article and an aside. The article and aside contain relative links (many
+ * with ../), links to binary files, some broken links and ControlWidget elements referencing content
+ * blocks by their ContentID or XSLT templates. Some pages are pasted from Microsoft Word and some have
+ * malformed markup.</li>
+ * <li>blocks - body fragments with the .inc extension, each with its own ContentID</li>
+ * <li>binary files - images, PDF and Word documents with random content</li>
+ * </ul>
+ * A few folders and files get names with characters Cascade doesn't allow.
+ *
+ * The export is the same for the same seed and settings. Every asset is generated from its own index only,
+ * so the tree doesn't have to be kept in memory and changing the number of pages doesn't change the pages
+ * that exist in both exports. The ContentIDs of the blocks and their paths (relative to the export folder,
+ * without the extension) are written to {@link #CONTENT_BLOCKS_FILE}, a hidden file that the tool ignores.
+ *
+ * Usage: ExportGenerator [-seed seed] [-pages count] [-depth depth] [-fanout fan-out] [-blocks blocks per
+ * page] [-binaries binary files per page] [-links links per page] [-widgets content block references per
+ * page] [-illegal illegal name rate] [-word Word page rate] [-malformed malformed page rate] output folder
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class ExportGenerator
+{
+    public static final String CONTENT_BLOCKS_FILE = ".content-blocks.tsv";
+    public static final int CONTENT_ID_BASE = 100000;
+
+    private static final String[] BINARY_EXTENSIONS =
+    {
+            ".jpg", ".gif", ".pdf", ".doc"
+    };
+    static final String[] TEMPLATES =
+    {
+            "/xslt/news-feed.xsl", "/xslt/events-calendar.xsl", "/xslt/staff-directory.xsl"
+    };
+    private static final String[] EXTERNAL_LINKS =
+    {
+            "http://www.example.edu/", "https://apply.example.edu/start", "mailto:webmaster@example.edu", "#top"
+    };
+
+    private long seed = 1;
+    private int pages = 10000;
+    private int depth = 3;
+    private int fanOut = 8;
+    private double blocksPerPage = 0.1;
+    private double binariesPerPage = 0.2;
+    private int linksPerPage = 10;
+    private double sameFolderLinkRate = 0.4; // the other links to pages go anywhere in the site, mostly with ../
+    private double binaryLinkRate = 0.15;
+    private double brokenLinkRate = 0.02;
+    private double externalLinkRate = 0.05;
+    private double widgetsPerPage = 2;
+    private double illegalNameRate = 0.01;
+    private double wordRate = 0.1;
+    private double malformedRate = 0.05;
+    private int paragraphs = 6;
+    private int minBinarySize = 2 * 1024;
+    private int maxBinarySize = 16 * 1024;
+    private String[] pageExtensions =
+    {
+            ".html", ".php"
+    };
+    private String blockExtension = ".inc";
+
+    private int folders; // without the root folder
+    private int blocks;
+    private int binaries;
+
+    public static void main(String[] args) throws Exception
+    {
+        ExportGenerator generator = new ExportGenerator();
+        File outputFolder = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-seed"))
+                generator.setSeed(Long.parseLong(args[++i]));
+            else if (args[i].equals("-pages"))
+                generator.setPages(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-depth"))
+                generator.setDepth(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-fanout"))
+                generator.setFanOut(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-blocks"))
+                generator.setBlocksPerPage(Double.parseDouble(args[++i]));
+            else if (args[i].equals("-binaries"))
+                generator.setBinariesPerPage(Double.parseDouble(args[++i]));
+            else if (args[i].equals("-links"))
+                generator.setLinksPerPage(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-widgets"))
+                generator.setWidgetsPerPage(Double.parseDouble(args[++i]));
+            else if (args[i].equals("-illegal"))
+                generator.setIllegalNameRate(Double.parseDouble(args[++i]));
+            else if (args[i].equals("-word"))
+                generator.setWordRate(Double.parseDouble(args[++i]));
+            else if (args[i].equals("-malformed"))
+                generator.setMalformedRate(Double.parseDouble(args[++i]));
+            else if (args[i].startsWith("-"))
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            else
+                outputFolder = new File(args[i]);
+        }
+        if (outputFolder == null)
+            throw new IllegalArgumentException("The output folder is required");
+
+        long start = System.currentTimeMillis();
+        Summary summary = generator.generate(outputFolder);
+        System.out.println(summary + " in " + (System.currentTimeMillis() - start) + " ms to " + outputFolder.getAbsolutePath());
+    }
+
+    /**
+     * Generates the export in given folder, which must not contain another export
+     *
+     * @param outputFolder
+     * @return Returns the numbers of generated assets and links
+     * @throws IOException
+     */
+    public Summary generate(File outputFolder) throws IOException
+    {
+        folders = 0;
+        long levelSize = 1;
+        for (int level = 1; level <= depth; level++)
+        {
+            levelSize *= fanOut;
+            folders += levelSize;
+        }
+        blocks = (int) Math.round(pages * blocksPerPage);
+        binaries = (int) Math.round(pages * binariesPerPage);
+
+        Summary summary = new Summary();
+        outputFolder.mkdirs();
+        for (int folder = 1; folder <= folders; folder++)
+        {
+            new File(outputFolder, getFolderPath(folder)).mkdirs();
+            summary.folders++;
+            if (hasIllegalName(1, folder))
+                summary.illegalNames++;
+        }
+
+        for (int binary = 0; binary < binaries; binary++)
+            writeBinary(outputFolder, binary, summary);
+
+        Writer contentBlocks = open(new File(outputFolder, CONTENT_BLOCKS_FILE));
+        try
+        {
+            for (int block = 0; block < blocks; block++)
+            {
+                writeBlock(outputFolder, block, summary);
+                String path = getBlockPath(block);
+                contentBlocks.write((CONTENT_ID_BASE + block) + "\t" + path.substring(0, path.length() - blockExtension.length()) + "\n");
+            }
+        }
+        finally
+        {
+            contentBlocks.close();
+        }
+
+        for (int page = 0; page < pages; page++)
+            writePage(outputFolder, page, summary);
+
+        return summary;
+    }
+
+    /**
+     * Writes a full HTML page
+     *
+     * @param outputFolder
+     * @param page
+     * @param summary
+     * @throws IOException
+     */
+    private void writePage(File outputFolder, int page, Summary summary) throws IOException
+    {
+        Random random = random(3, page);
+        int folder = getPageFolder(page);
+        boolean word = random.nextDouble() < wordRate;
+        boolean malformed = !word && random.nextDouble() < malformedRate;
+
+        StringBuilder html = new StringBuilder();
+        if (word)
+        {
+            html.append("<html xmlns:o=\"urn:schemas-microsoft-com:office:office\" xmlns:w=\"urn:schemas-microsoft-com:office:word\" ");
+            html.append("xmlns=\"http://www.w3.org/TR/REC-html40\">\n<head>\n<meta name=ProgId content=Word.Document>\n");
+            html.append("<meta name=Generator content=\"Microsoft Word 11\">\n");
+        }
+        else
+        {
+            html.append("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" ");
+            html.append("\"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">\n");
+            html.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n<head>\n");
+        }
+        html.append("<title>").append(capitalize(sentence(random, 4))).append("</title>\n");
+        html.append("<meta name=\"description\" content=\"").append(sentence(random, 20)).append("\" />\n");
+        html.append("<meta name=\"keywords\" content=\"").append(sentence(random, 5).replace(' ', ',')).append("\" />\n");
+        if (word)
+        {
+            html.append("<!--[if gte mso 9]><xml>\n<w:WordDocument>\n<w:View>Normal</w:View>\n</w:WordDocument>\n</xml><![endif]-->\n");
+            html.append("<style>\n<!--\np.MsoNormal {mso-style-parent:\"\";margin:0in;font-size:12.0pt;font-family:\"Times New Roman\";}\n-->\n");
+            html.append("</style>\n");
+        }
+        html.append("</head>\n<body>\n");
+
+        html.append("<div id=\"header-image\">");
+        if (random.nextDouble() < 0.5)
+            appendWidget(html, random, "Image", summary);
+        html.append("</div>\n");
+
+        html.append("<div id=\"article\">\n<h1>").append(capitalize(sentence(random, 5))).append("</h1>\n");
+        int widgets = count(random, widgetsPerPage);
+        int links = count(random, linksPerPage);
+        for (int paragraph = 0; paragraph < paragraphs; paragraph++)
+        {
+            int paragraphLinks = links / paragraphs + (paragraph < links % paragraphs ? 1 : 0);
+            if (word)
+                appendWordParagraph(html, random, folder, paragraphLinks, summary);
+            else if (malformed)
+                appendMalformedParagraph(html, random, folder, paragraphLinks, summary);
+            else
+                appendParagraph(html, random, folder, paragraphLinks, summary);
+
+            if (paragraph < widgets)
+                appendWidget(html, random, random.nextDouble() < 0.8 ? "ContentBlock" : "Image", summary);
+        }
+        for (int widget = paragraphs; widget < widgets; widget++)
+            appendWidget(html, random, "ContentBlock", summary);
+        html.append("</div>\n");
+
+        html.append("<div class=\"aside\">\n");
+        if (random.nextDouble() < 0.3)
+            appendWidget(html, random, "ContentBlock", summary);
+        if (random.nextDouble() < 0.1)
+        {
+            html.append("<ControlWidget><ControlType>XmlDataTransform</ControlType><Template>");
+            html.append(TEMPLATES[random.nextInt(TEMPLATES.length)]).append("</Template></ControlWidget>\n");
+        }
+        html.append("</div>\n</body>\n</html>\n");
+
+        write(new File(outputFolder, getPagePath(page)), html);
+        summary.pages++;
+        summary.bytes += html.length();
+        if (word)
+            summary.wordPages++;
+        if (malformed)
+            summary.malformedPages++;
+        if (hasIllegalName(3, page))
+            summary.illegalNames++;
+    }
+
+    /**
+     * Writes a block with a body fragment
+     *
+     * @param outputFolder
+     * @param block
+     * @param summary
+     * @throws IOException
+     */
+    private void writeBlock(File outputFolder, int block, Summary summary) throws IOException
+    {
+        Random random = random(2, block);
+        StringBuilder html = new StringBuilder();
+        html.append("<h3>").append(capitalize(sentence(random, 3))).append("</h3>\n");
+        appendParagraph(html, random, getBlockFolder(block), count(random, 2), summary);
+
+        write(new File(outputFolder, getBlockPath(block)), html);
+        summary.blocks++;
+        summary.bytes += html.length();
+        if (hasIllegalName(2, block))
+            summary.illegalNames++;
+    }
+
+    /**
+     * Writes a binary file with random content after the header of its type
+     *
+     * @param outputFolder
+     * @param binary
+     * @param summary
+     * @throws IOException
+     */
+    private void writeBinary(File outputFolder, int binary, Summary summary) throws IOException
+    {
+        Random random = random(4, binary);
+        byte[] content = new byte[minBinarySize + random.nextInt(maxBinarySize - minBinarySize + 1)];
+        random.nextBytes(content);
+        String extension = BINARY_EXTENSIONS[binary % BINARY_EXTENSIONS.length];
+        byte[] header = extension.equals(".jpg") ? new byte[]
+        {
+                (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0
+        } : extension.equals(".gif") ? "GIF89a".getBytes("US-ASCII") : extension.equals(".pdf") ? "%PDF-1.4\n".getBytes("US-ASCII")
+                : new byte[]
+                {
+                        (byte) 0xD0, (byte) 0xCF, (byte) 0x11, (byte) 0xE0
+                };
+        System.arraycopy(header, 0, content, 0, Math.min(header.length, content.length));
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(outputFolder, getBinaryPath(binary))));
+        try
+        {
+            out.write(content);
+        }
+        finally
+        {
+            out.close();
+        }
+        summary.binaries++;
+        summary.bytes += content.length;
+        if (hasIllegalName(4, binary))
+            summary.illegalNames++;
+    }
+
+    /**
+     * Appends a paragraph with given number of links
+     *
+     * @param html
+     * @param random
+     * @param folder the folder of the asset the paragraph is in
+     * @param links
+     * @param summary
+     */
+    private void appendParagraph(StringBuilder html, Random random, int folder, int links, Summary summary)
+    {
+        html.append("<p>").append(capitalize(sentence(random, 15)));
+        for (int i = 0; i < links; i++)
+        {
+            String link = escape(createLink(random, folder, summary));
+            if (isImage(link))
+                html.append(" <img src=\"").append(link).append("\" alt=\"").append(sentence(random, 2)).append("\" />");
+            else
+                html.append(" <a href=\"").append(link).append("\">").append(sentence(random, 3)).append("</a>");
+            html.append(' ').append(sentence(random, 8));
+        }
+        html.append(".</p>\n");
+    }
+
+    /**
+     * Appends a paragraph as Microsoft Word saves it
+     *
+     * @param html
+     * @param random
+     * @param folder
+     * @param links
+     * @param summary
+     */
+    private void appendWordParagraph(StringBuilder html, Random random, int folder, int links, Summary summary)
+    {
+        html.append("<p class=MsoNormal style='margin-bottom:0in;mso-layout-grid-align:none'><span style='font-size:10.0pt;");
+        html.append("font-family:Arial;mso-bidi-font-family:Arial'>").append(capitalize(sentence(random, 15)));
+        for (int i = 0; i < links; i++)
+        {
+            html.append(" <a href=\"").append(escape(createLink(random, folder, summary))).append("\"><span style='color:windowtext'>");
+            html.append(sentence(random, 3)).append("</span></a> ").append(sentence(random, 8));
+        }
+        html.append("<o:p></o:p></span></p>\n");
+        if (random.nextDouble() < 0.3)
+            html.append("<p class=MsoNormal><![if !supportLists]><span style='font-family:Symbol'>&middot;</span><![endif]><o:p>&nbsp;</o:p></p>\n");
+    }
+
+    /**
+     * Appends a paragraph with unclosed and misnested tags, unquoted attributes and naked ampersands
+     *
+     * @param html
+     * @param random
+     * @param folder
+     * @param links
+     * @param summary
+     */
+    private void appendMalformedParagraph(StringBuilder html, Random random, int folder, int links, Summary summary)
+    {
+        html.append("<p><font face=Arial size=2>").append(capitalize(sentence(random, 10))).append(" & ").append(sentence(random, 5));
+        for (int i = 0; i < links; i++)
+        {
+            html.append(" <a href=").append(createLink(random, folder, summary)).append(">").append(sentence(random, 3));
+            if (random.nextBoolean())
+                html.append("</a>");
+            html.append("<b><i>").append(sentence(random, 4)).append("</b></i>");
+        }
+        html.append("<br>\n");
+    }
+
+    /**
+     * Appends a ControlWidget referencing a random block by its ContentID
+     *
+     * @param html
+     * @param random
+     * @param controlType
+     * @param summary
+     */
+    private void appendWidget(StringBuilder html, Random random, String controlType, Summary summary)
+    {
+        if (blocks == 0)
+            return;
+
+        html.append("<ControlWidget><ControlType>").append(controlType).append("</ControlType><ContentID>");
+        html.append(CONTENT_ID_BASE + random.nextInt(blocks)).append("</ContentID></ControlWidget>\n");
+        summary.widgets++;
+    }
+
+    /**
+     * @param random
+     * @param folder the folder of the asset containing the link
+     * @param summary
+     * @return Returns a link to a page, binary file, external location or a broken link
+     */
+    private String createLink(Random random, int folder, Summary summary)
+    {
+        summary.links++;
+        double type = random.nextDouble();
+        if (type < externalLinkRate)
+            return EXTERNAL_LINKS[random.nextInt(EXTERNAL_LINKS.length)];
+
+        type -= externalLinkRate;
+        if (type < brokenLinkRate)
+        {
+            summary.brokenLinks++;
+            return getRelativePath(folder, getFolderPath(random.nextInt(folders + 1)) + "/missing-" + random.nextInt(1000) + ".html");
+        }
+
+        type -= brokenLinkRate;
+        String link;
+        if (type < binaryLinkRate && binaries > 0)
+            link = getRelativePath(folder, getBinaryPath(random.nextInt(binaries)));
+        else if (random.nextDouble() < sameFolderLinkRate)
+            link = getRelativePath(folder, getPagePath(getPageInFolder(random, folder)));
+        else
+            link = getRelativePath(folder, getPagePath(random.nextInt(pages)));
+
+        if (link.startsWith("../"))
+            summary.levelUpLinks++;
+        return link;
+    }
+
+    /**
+     * @param random
+     * @param folder
+     * @return Returns a random page in given folder or a random page if the folder has no pages
+     */
+    private int getPageInFolder(Random random, int folder)
+    {
+        int pagesInFolder = (pages - folder + folders) / (folders + 1);
+        if (pagesInFolder <= 0)
+            return random.nextInt(pages);
+        return folder + random.nextInt(pagesInFolder) * (folders + 1);
+    }
+
+    /**
+     * @param fromFolder
+     * @param path the path of an asset relative to the export folder
+     * @return Returns the link from an asset in given folder to the asset with given path
+     */
+    private String getRelativePath(int fromFolder, String path)
+    {
+        String fromPath = getFolderPath(fromFolder);
+        String[] from = fromPath.length() == 0 ? new String[0] : fromPath.split("/");
+        String[] to = path.split("/");
+        int common = 0;
+        while (common < from.length && common < to.length - 1 && from[common].equals(to[common]))
+            common++;
+
+        StringBuilder link = new StringBuilder();
+        for (int i = common; i < from.length; i++)
+            link.append("../");
+        for (int i = common; i < to.length; i++)
+        {
+            if (i > common)
+                link.append('/');
+            link.append(to[i]);
+        }
+        return link.toString();
+    }
+
+    /**
+     * @param folder the index of the folder, 0 for the export folder itself
+     * @return Returns the path of the folder relative to the export folder, the folders are numbered level by
+     *         level, so the parent of folder n is (n - 1) / fan-out
+     */
+    private String getFolderPath(int folder)
+    {
+        if (folder == 0)
+            return "";
+
+        String parentPath = getFolderPath((folder - 1) / fanOut);
+        String name = hasIllegalName(1, folder) ? "news & events (" + folder + ")" : word(1, folder) + "-" + folder;
+        return parentPath.length() == 0 ? name : parentPath + "/" + name;
+    }
+
+    /**
+     * @param page
+     * @return Returns the path of the page relative to the export folder
+     */
+    private String getPagePath(int page)
+    {
+        String name;
+        if (page <= folders)
+            name = "index";
+        else if (hasIllegalName(3, page))
+            name = word(3, page) + "'s page (" + page + ")";
+        else
+            name = word(3, page) + "-" + page;
+        return getPath(getPageFolder(page), name + pageExtensions[page % pageExtensions.length]);
+    }
+
+    /**
+     * @param block
+     * @return Returns the path of the block relative to the export folder
+     */
+    private String getBlockPath(int block)
+    {
+        String name = hasIllegalName(2, block) ? word(2, block) + " block (" + block + ")" : word(2, block) + "-block-" + block;
+        return getPath(getBlockFolder(block), name + blockExtension);
+    }
+
+    /**
+     * @param binary
+     * @return Returns the path of the binary file relative to the export folder
+     */
+    private String getBinaryPath(int binary)
+    {
+        String extension = BINARY_EXTENSIONS[binary % BINARY_EXTENSIONS.length];
+        String name = hasIllegalName(4, binary) ? word(4, binary) + " file (" + binary + ")" : word(4, binary) + "-" + binary;
+        return getPath(getBinaryFolder(binary), name + extension);
+    }
+
+    /**
+     * @param folder
+     * @param name
+     * @return Returns the path of the asset with given name in given folder
+     */
+    private String getPath(int folder, String name)
+    {
+        String folderPath = getFolderPath(folder);
+        return folderPath.length() == 0 ? name : folderPath + "/" + name;
+    }
+
+    /**
+     * @param page
+     * @return Returns the folder of the page, the pages are spread evenly so that every folder has an index
+     *         page first
+     */
+    private int getPageFolder(int page)
+    {
+        return page % (folders + 1);
+    }
+
+    /**
+     * @param block
+     * @return Returns the folder of the block
+     */
+    private int getBlockFolder(int block)
+    {
+        return (int) ((block * 7919L) % (folders + 1));
+    }
+
+    /**
+     * @param binary
+     * @return Returns the folder of the binary file
+     */
+    private int getBinaryFolder(int binary)
+    {
+        return (int) ((binary * 104729L) % (folders + 1));
+    }
+
+    /**
+     * @param kind 1 for folders, 2 for blocks, 3 for pages and 4 for binary files
+     * @param index
+     * @return Returns true if the asset's name has characters Cascade doesn't allow
+     */
+    private boolean hasIllegalName(int kind, int index)
+    {
+        // The index pages keep their names, so that every folder has one
+        if (kind == 3 && index <= folders)
+            return false;
+        return random(kind * 10, index).nextDouble() < illegalNameRate;
+    }
+
+    /**
+     * @param kind
+     * @param index
+     * @return Returns the word the asset's name starts with
+     */
+    private String word(int kind, int index)
+    {
+        return HtmlCorpus.WORDS[random(kind * 100, index).nextInt(HtmlCorpus.WORDS.length)];
+    }
+
+    /**
+     * @param kind
+     * @param index
+     * @return Returns the random number generator of given asset, which depends only on the seed and the asset
+     */
+    private Random random(int kind, long index)
+    {
+        long mixed = seed * 0x9E3779B97F4A7C15L + kind * 0xC2B2AE3D27D4EB4FL + index;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return new Random(mixed ^ (mixed >>> 33));
+    }
+
+    /**
+     * @param random
+     * @param average
+     * @return Returns a random count between 0 and twice the average
+     */
+    private static int count(Random random, double average)
+    {
+        return (int) Math.round(random.nextDouble() * 2 * average);
+    }
+
+    /**
+     * @param random
+     * @param words
+     * @return Returns a sentence with given number of random words
+     */
+    private static String sentence(Random random, int words)
+    {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++)
+        {
+            if (i > 0)
+                sentence.append(' ');
+            sentence.append(HtmlCorpus.WORDS[random.nextInt(HtmlCorpus.WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * @param text
+     * @return Returns the text with the first letter in upper case
+     */
+    private static String capitalize(String text)
+    {
+        return text.length() == 0 ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    /**
+     * @param link
+     * @return Returns the link escaped for an attribute value
+     */
+    private static String escape(String link)
+    {
+        return link.replace("&", "&amp;");
+    }
+
+    /**
+     * @param link
+     * @return Returns true if the link points to an image
+     */
+    private static boolean isImage(String link)
+    {
+        return link.endsWith(".jpg") || link.endsWith(".gif");
+    }
+
+    /**
+     * Writes the content to given file in UTF-8
+     *
+     * @param file
+     * @param content
+     * @throws IOException
+     */
+    private static void write(File file, CharSequence content) throws IOException
+    {
+        Writer writer = open(file);
+        try
+        {
+            writer.append(content);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * @param file
+     * @return Returns a buffered UTF-8 writer of given file
+     * @throws IOException
+     */
+    private static Writer open(File file) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    }
+
+    /**
+     * @param seed
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @param pages
+     */
+    public void setPages(int pages)
+    {
+        this.pages = pages;
+    }
+
+    /**
+     * @param depth the number of folder levels below the export folder
+     */
+    public void setDepth(int depth)
+    {
+        this.depth = depth;
+    }
+
+    /**
+     * @param fanOut the number of sub-folders of each folder above the last level
+     */
+    public void setFanOut(int fanOut)
+    {
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * @param blocksPerPage
+     */
+    public void setBlocksPerPage(double blocksPerPage)
+    {
+        this.blocksPerPage = blocksPerPage;
+    }
+
+    /**
+     * @param binariesPerPage
+     */
+    public void setBinariesPerPage(double binariesPerPage)
+    {
+        this.binariesPerPage = binariesPerPage;
+    }
+
+    /**
+     * @param linksPerPage the average number of links in a page
+     */
+    public void setLinksPerPage(int linksPerPage)
+    {
+        this.linksPerPage = linksPerPage;
+    }
+
+    /**
+     * @param sameFolderLinkRate the fraction of links to pages that point to pages in the same folder
+     * @param binaryLinkRate the fraction of links that point to binary files
+     * @param brokenLinkRate the fraction of links that point to pages that don't exist
+     * @param externalLinkRate the fraction of links that point outside of the site
+     */
+    public void setLinkRates(double sameFolderLinkRate, double binaryLinkRate, double brokenLinkRate, double externalLinkRate)
+    {
+        this.sameFolderLinkRate = sameFolderLinkRate;
+        this.binaryLinkRate = binaryLinkRate;
+        this.brokenLinkRate = brokenLinkRate;
+        this.externalLinkRate = externalLinkRate;
+    }
+
+    /**
+     * @param widgetsPerPage the average number of ControlWidgets referencing blocks in the article of a page
+     */
+    public void setWidgetsPerPage(double widgetsPerPage)
+    {
+        this.widgetsPerPage = widgetsPerPage;
+    }
+
+    /**
+     * @param illegalNameRate the fraction of folders and files with characters Cascade doesn't allow
+     */
+    public void setIllegalNameRate(double illegalNameRate)
+    {
+        this.illegalNameRate = illegalNameRate;
+    }
+
+    /**
+     * @param wordRate the fraction of pages pasted from Microsoft Word
+     */
+    public void setWordRate(double wordRate)
+    {
+        this.wordRate = wordRate;
+    }
+
+    /**
+     * @param malformedRate the fraction of pages with malformed markup
+     */
+    public void setMalformedRate(double malformedRate)
+    {
+        this.malformedRate = malformedRate;
+    }
+
+    /**
+     * @param paragraphs the number of paragraphs in the article of a page
+     */
+    public void setParagraphs(int paragraphs)
+    {
+        this.paragraphs = paragraphs;
+    }
+
+    /**
+     * @param minBinarySize
+     * @param maxBinarySize
+     */
+    public void setBinarySize(int minBinarySize, int maxBinarySize)
+    {
+        this.minBinarySize = minBinarySize;
+        this.maxBinarySize = maxBinarySize;
+    }
+
+    /**
+     * @param pageExtensions the extensions of the pages, used in turns
+     */
+    public void setPageExtensions(String... pageExtensions)
+    {
+        this.pageExtensions = pageExtensions;
+    }
+
+    /**
+     * @param blockExtension
+     */
+    public void setBlockExtension(String blockExtension)
+    {
+        this.blockExtension = blockExtension;
+    }
+
+    /**
+     * The numbers of generated assets and links
+     */
+    public static class Summary
+    {
+        private int folders;
+        private int pages;
+        private int blocks;
+        private int binaries;
+        private int illegalNames;
+        private int wordPages;
+        private int malformedPages;
+        private long links;
+        private long levelUpLinks;
+        private long brokenLinks;
+        private long widgets;
+        private long bytes;
+
+        /**
+         * @return Returns the folders.
+         */
+        public int getFolders()
+        {
+            return folders;
+        }
+
+        /**
+         * @return Returns the pages.
+         */
+        public int getPages()
+        {
+            return pages;
+        }
+
+        /**
+         * @return Returns the blocks.
+         */
+        public int getBlocks()
+        {
+            return blocks;
+        }
+
+        /**
+         * @return Returns the binaries.
+         */
+        public int getBinaries()
+        {
+            return binaries;
+        }
+
+        /**
+         * @return Returns the number of folders and files with names Cascade doesn't allow.
+         */
+        public int getIllegalNames()
+        {
+            return illegalNames;
+        }
+
+        /**
+         * @return Returns the links.
+         */
+        public long getLinks()
+        {
+            return links;
+        }
+
+        /**
+         * @return Returns the brokenLinks.
+         */
+        public long getBrokenLinks()
+        {
+            return brokenLinks;
+        }
+
+        /**
+         * @return Returns the number of ControlWidgets referencing blocks.
+         */
+        public long getWidgets()
+        {
+            return widgets;
+        }
+
+        /**
+         * @return Returns the total size of the files.
+         */
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Generated " + folders + " folders, " + pages + " pages (" + wordPages + " from Word, " + malformedPages + " malformed), "
+                    + blocks + " blocks, " + binaries + " binary files, " + illegalNames + " illegal names, " + links + " links ("
+                    + levelUpLinks + " with ../, " + brokenLinks + " broken), " + widgets + " block references, " + (bytes / 1024) + " KB";
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.hannonhill.smt.CascadeAssetType;
+import com.hannonhill.smt.FolderListingCache;
+import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.util.FolderOrderComparator;
+import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.www.ws.ns.AssetOperationService.EntityTypeString;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+import com.hannonhill.www.ws.ns.AssetOperationService.Path;
+
+/**
+ * Compares the order in which the files to process used to be migrated (the iteration order of a
+ * {@link HashSet}) with the folder order ({@link FolderOrderComparator}). The existence of each asset is
+ * checked through a {@link FolderListingCache} backed by a simulated site instead of web services, and the
+ * number of folder reads (round trips), the cache hit rate and the number of times the migration moved to a
+ * different folder are reported for both orders.
+ *
+ * Usage: FolderOrderBenchmark [top level folders] [sub-folders per folder] [files per folder] [cached folders]
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class FolderOrderBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int topFolders = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int subFolders = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int filesPerFolder = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int cachedFolders = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        File root = new File("/export");
+        Map<String, List<Identifier>> site = new HashMap<String, List<Identifier>>();
+        List<File> files = new ArrayList<File>();
+        for (int top = 0; top < topFolders; top++)
+            for (int sub = 0; sub < subFolders; sub++)
+            {
+                String folderPath = "section" + top + "/folder" + sub;
+                List<Identifier> children = new ArrayList<Identifier>();
+                site.put(folderPath, children);
+                for (int i = 0; i < filesPerFolder; i++)
+                {
+                    String name = "page" + i;
+                    files.add(new File(root, folderPath + "/" + name));
+
+                    // Every other page already exists in Cascade
+                    if (i % 2 == 0)
+                        children.add(new Identifier(folderPath + "/" + name, new Path(folderPath + "/" + name, null, null), EntityTypeString.page,
+                                false));
+                }
+            }
+
+        Set<File> hashOrder = new HashSet<File>(files);
+        Set<File> folderOrder = new TreeSet<File>(new FolderOrderComparator());
+        folderOrder.addAll(files);
+
+        System.out.println(files.size() + " files in " + site.size() + " folders, " + cachedFolders + " folder listings cached");
+        System.out.println(String.format("%-14s %12s %12s %10s %12s %10s", "order", "round trips", "cache hits", "hit rate", "evictions",
+                "time ms"));
+        run("hash set", hashOrder, root, site, cachedFolders);
+        run("folder", folderOrder, root, site, cachedFolders);
+    }
+
+    /**
+     * Checks the existence of the page created from each of the files in the order of iteration and prints
+     * the results
+     *
+     * @param name
+     * @param order
+     * @param root
+     * @param site
+     * @param cachedFolders
+     * @throws Exception
+     */
+    private static void run(String name, Set<File> order, File root, final Map<String, List<Identifier>> site, int cachedFolders)
+            throws Exception
+    {
+        FolderListingCache cache = new FolderListingCache(cachedFolders)
+        {
+            @Override
+            protected Identifier[] readFolderChildren(String folderPath, ProjectInformation projectInformation)
+            {
+                List<Identifier> children = site.get(PathUtil.removeLeadingSlashes(folderPath));
+                return children == null ? null : children.toArray(new Identifier[children.size()]);
+            }
+        };
+
+        String rootPath = root.getPath();
+        long start = System.currentTimeMillis();
+        int folderSwitches = 0;
+        String previousFolder = null;
+        for (File file : order)
+        {
+            String path = file.getPath().substring(rootPath.length() + 1).replace(File.separatorChar, '/');
+            String folder = PathUtil.getParentFolderPathFromPath(path);
+            if (!folder.equals(previousFolder))
+                folderSwitches++;
+            previousFolder = folder;
+
+            cache.getAssetId(path, CascadeAssetType.PAGE, null);
+        }
+        long time = System.currentTimeMillis() - start;
+
+        long lookups = cache.getHits() + cache.getMisses();
+        System.out.println(String.format("%-14s %12d %12d %9.1f%% %12d %10d", name, cache.getMisses(), cache.getHits(), 100.0 * cache.getHits()
+                / lookups, cache.getEvictions(), time));
+        System.out.println(String.format("%-14s %d folder switches", "", folderSwitches));
+    }
+}
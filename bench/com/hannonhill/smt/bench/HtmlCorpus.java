@@ -0,0 +1,224 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.util.Random;
+
+/**
+ * Generates the HTML documents the content benchmarks work on. The documents are built from a fixed seed, so
+ * every run measures the same content:
+ * <ul>
+ * <li>small - a short body fragment with a few links, like most blocks</li>
+ * <li>large - a long article page with navigation, tables, images and many relative links</li>
+ * <li>word - a page pasted from Microsoft Word with its namespaced elements, conditional comments and mso
+ * styles</li>
+ * <li>malformed - a page with unclosed and misnested tags, unquoted attributes and naked ampersands</li>
+ * </ul>
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class HtmlCorpus
+{
+    static final String[] WORDS =
+    {
+            "university", "students", "campus", "faculty", "research", "admission", "program", "library", "the", "of", "and", "to",
+            "in", "for", "with", "our", "graduate", "degree", "community", "schedule", "tuition", "events", "department", "office"
+    };
+    private static final String[] LINKS =
+    {
+            "about.html", "../index.html", "../../admissions/apply.html", "images/photo.jpg", "docs/catalog.pdf", "/news/2009/story.html",
+            "http://www.example.edu/external.html", "staff/directory.htm#top", "../css/main.css", "mailto:office@example.edu"
+    };
+
+    private final Random random;
+
+    /**
+     * Constructor
+     */
+    public HtmlCorpus()
+    {
+        random = new Random(20091228);
+    }
+
+    /**
+     * @return Returns a short body fragment with a few links
+     */
+    public String createSmall()
+    {
+        StringBuilder html = new StringBuilder();
+        html.append("<h2>").append(sentence(4)).append("</h2>\n");
+        for (int i = 0; i < 3; i++)
+            html.append("<p>").append(sentence(25)).append(" <a href=\"").append(link()).append("\">").append(sentence(3)).append(
+                    "</a>.</p>\n");
+        return html.toString();
+    }
+
+    /**
+     * @param sections
+     * @return Returns a full HTML page with given number of article sections, each with a paragraph, a
+     *         table and a list of links
+     */
+    public String createLarge(int sections)
+    {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" ");
+        html.append("\"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">\n");
+        html.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n<head>\n<title>").append(sentence(5)).append("</title>\n");
+        html.append("<link rel=\"stylesheet\" type=\"text/css\" href=\"../css/main.css\" />\n");
+        html.append("<script type=\"text/javascript\" src=\"../js/menu.js\"></script>\n</head>\n<body>\n");
+        html.append("<div id=\"navigation\"><ul>\n");
+        for (int i = 0; i < 20; i++)
+            html.append("<li><a href=\"").append(link()).append("\">").append(sentence(2)).append("</a></li>\n");
+        html.append("</ul></div>\n<div id=\"content\">\n");
+        for (int section = 0; section < sections; section++)
+        {
+            html.append("<h2>").append(sentence(5)).append("</h2>\n");
+            html.append("<p>").append(sentence(80)).append(" <a href=\"").append(link()).append("\">").append(sentence(3)).append(
+                    "</a> ").append(sentence(30)).append("</p>\n");
+            html.append("<p><img src=\"images/section").append(section).append(".jpg\" alt=\"").append(sentence(3)).append(
+                    "\" width=\"200\" height=\"150\" /></p>\n");
+            html.append("<table border=\"1\" cellpadding=\"2\">\n");
+            for (int row = 0; row < 5; row++)
+            {
+                html.append("<tr>");
+                for (int column = 0; column < 4; column++)
+                    html.append("<td>").append(sentence(3)).append("</td>");
+                html.append("</tr>\n");
+            }
+            html.append("</table>\n<ul>\n");
+            for (int i = 0; i < 5; i++)
+                html.append("<li><a href=\"").append(link()).append("\">").append(sentence(4)).append("</a></li>\n");
+            html.append("</ul>\n");
+        }
+        html.append("</div>\n<div id=\"footer\">").append(sentence(12)).append("</div>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    /**
+     * @param paragraphs
+     * @return Returns a page pasted from Microsoft Word with given number of paragraphs
+     */
+    public String createWord(int paragraphs)
+    {
+        StringBuilder html = new StringBuilder();
+        html.append("<html xmlns:v=\"urn:schemas-microsoft-com:vml\" xmlns:o=\"urn:schemas-microsoft-com:office:office\" ");
+        html.append("xmlns:w=\"urn:schemas-microsoft-com:office:word\" xmlns=\"http://www.w3.org/TR/REC-html40\">\n<head>\n");
+        html.append("<meta name=ProgId content=Word.Document>\n<meta name=Generator content=\"Microsoft Word 11\">\n");
+        html.append("<!--[if gte mso 9]><xml>\n<w:WordDocument>\n<w:View>Normal</w:View>\n<w:Zoom>0</w:Zoom>\n");
+        html.append("</w:WordDocument>\n</xml><![endif]-->\n<style>\n<!--\np.MsoNormal, li.MsoNormal\n");
+        html.append("\t{mso-style-parent:\"\";margin:0in;mso-pagination:widow-orphan;font-size:12.0pt;font-family:\"Times New Roman\";}\n");
+        html.append("-->\n</style>\n</head>\n<body lang=EN-US style='tab-interval:.5in'>\n<div class=Section1>\n");
+        for (int i = 0; i < paragraphs; i++)
+        {
+            html.append("<p class=MsoNormal style='margin-bottom:0in;mso-layout-grid-align:none'><span style='font-size:10.0pt;");
+            html.append("font-family:Arial;mso-bidi-font-family:Arial'>").append(sentence(40));
+            html.append(" <a href=\"").append(link()).append("\"><span style='color:windowtext'>").append(sentence(3));
+            html.append("</span></a><o:p></o:p></span></p>\n");
+            if (i % 5 == 0)
+            {
+                html.append("<p class=MsoNormal><b style='mso-bidi-font-weight:normal'><span style='font-size:14.0pt'>");
+                html.append(sentence(5)).append("<o:p>&nbsp;</o:p></span></b></p>\n");
+                html.append("<![if !supportLists]><span style='font-family:Symbol'>&middot;</span><![endif]>\n");
+            }
+        }
+        html.append("</div>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    /**
+     * @param paragraphs
+     * @return Returns a body fragment with broken markup with given number of paragraphs
+     */
+    public String createMalformed(int paragraphs)
+    {
+        StringBuilder html = new StringBuilder();
+        html.append("<center><font face=Arial size=2>\n");
+        for (int i = 0; i < paragraphs; i++)
+        {
+            html.append("<p>").append(sentence(30)).append(" & ").append(sentence(10));
+            html.append(" <a href=").append(link()).append(">").append(sentence(3));
+            if (i % 3 == 0)
+                html.append("<b><i>").append(sentence(4)).append("</b></i>");
+            else
+                html.append("</a>");
+            html.append("<br>\n");
+            if (i % 4 == 0)
+                html.append("<table><tr><td>").append(sentence(4)).append("<td>").append(sentence(4)).append("</table>\n");
+            if (i % 7 == 0)
+                html.append("<img src=images/photo").append(i).append(".gif border=0>\n");
+        }
+        html.append("</font>\n");
+        return html.toString();
+    }
+
+    /**
+     * @param count
+     * @return Returns given number of relative links of different depths
+     */
+    public String[] createRelativeLinks(int count)
+    {
+        String[] links = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            StringBuilder link = new StringBuilder();
+            for (int level = 0; level < i % 4; level++)
+                link.append("../");
+            for (int folder = 0; folder < i % 3; folder++)
+                link.append(word()).append('/');
+            link.append(word()).append(i).append(".html");
+            links[i] = link.toString();
+        }
+        return links;
+    }
+
+    /**
+     * @param count
+     * @return Returns given number of asset names, a few of them with characters Cascade doesn't allow
+     */
+    public String[] createNames(int count)
+    {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            String name = word() + "-" + word() + "_" + i;
+            names[i] = i % 10 == 0 ? name + " (copy)&" : name;
+        }
+        return names;
+    }
+
+    /**
+     * @param words
+     * @return Returns a sentence with given number of random words
+     */
+    private String sentence(int words)
+    {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++)
+        {
+            if (i > 0)
+                sentence.append(' ');
+            sentence.append(word());
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * @return Returns a random word
+     */
+    private String word()
+    {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * @return Returns a random link
+     */
+    private String link()
+    {
+        return LINKS[random.nextInt(LINKS.length)];
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+/**
+ * A single benchmark run by the {@link MicroBenchmarkRunner}. The runner calls {@link #setUp()} once and then
+ * {@link #run()} repeatedly, measuring the number of calls per second and the memory allocated by each call.
+ * The result of each call is consumed by the runner, so that the JIT can't remove the work.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public abstract class MicroBenchmark
+{
+    private final String name;
+
+    /**
+     * Constructor
+     *
+     * @param name
+     */
+    protected MicroBenchmark(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Prepares the input of the benchmark. Not measured.
+     *
+     * @throws Exception
+     */
+    public void setUp() throws Exception
+    {
+    }
+
+    /**
+     * Performs a single operation
+     *
+     * @return Returns the result of the operation
+     * @throws Exception
+     */
+    public abstract Object run() throws Exception;
+
+    /**
+     * @return Returns the name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+}
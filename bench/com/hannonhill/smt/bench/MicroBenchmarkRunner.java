@@ -0,0 +1,260 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Runs the {@link ContentBenchmarks} in the manner of JMH, which can't be used because the tool runs on Java
+ * versions older than JMH supports: each benchmark is warmed up and then measured in several timed
+ * iterations. The throughput (operations per second) and the memory allocated per operation are printed and
+ * written in the JMH JSON result format, so that the existing JMH tools can read and compare them.
+ *
+ * The allocations are measured with the per thread allocation counter of HotSpot
+ * (com.sun.management.ThreadMXBean), on other JVMs they are reported as -1.
+ *
+ * Usage: MicroBenchmarkRunner [-wi warmup iterations] [-i iterations] [-r seconds per iteration] [-rf results
+ * file] [benchmark name regular expression]
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MicroBenchmarkRunner
+{
+    // Two-sided Student's t values for 99.9% confidence by degrees of freedom, as JMH uses for the score error
+    private static final double[] T_VALUES =
+    {
+            Double.NaN, 636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587
+    };
+    private static final double T_VALUE_LARGE = 3.291;
+
+    private static volatile int sink; // keeps the results of the operations alive
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final Method allocatedBytesMethod = getAllocatedBytesMethod();
+
+    public static void main(String[] args) throws Exception
+    {
+        int warmupIterations = 5;
+        int iterations = 5;
+        int seconds = 1;
+        String resultsFile = null;
+        Pattern filter = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-wi"))
+                warmupIterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-i"))
+                iterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-r"))
+                seconds = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-rf"))
+                resultsFile = args[++i];
+            else
+                filter = Pattern.compile(args[i]);
+        }
+
+        System.out.println(String.format("%-50s %14s %12s %14s", "benchmark", "ops/s", "error", "bytes/op"));
+        JSONArray results = new JSONArray();
+        for (MicroBenchmark benchmark : ContentBenchmarks.create())
+        {
+            if (filter != null && !filter.matcher(benchmark.getName()).find())
+                continue;
+
+            JSONObject result = run(benchmark, warmupIterations, iterations, seconds);
+            results.put(result);
+            JSONObject primaryMetric = result.getJSONObject("primaryMetric");
+            JSONObject allocationMetric = result.getJSONObject("secondaryMetrics").getJSONObject("\u00b7gc.alloc.rate.norm");
+            System.out.println(String.format("%-50s %14.1f %12.1f %14.0f", benchmark.getName(), primaryMetric.getDouble("score"),
+                    primaryMetric.optDouble("scoreError"), allocationMetric.getDouble("score")));
+        }
+
+        if (resultsFile != null)
+        {
+            File file = new File(resultsFile);
+            if (file.getParentFile() != null)
+                file.getParentFile().mkdirs();
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try
+            {
+                writer.write(results.toString(2));
+            }
+            finally
+            {
+                writer.close();
+            }
+            System.out.println("Results written to " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Warms up and measures given benchmark
+     *
+     * @param benchmark
+     * @param warmupIterations
+     * @param iterations
+     * @param seconds
+     * @return Returns the result in the JMH format
+     * @throws Exception
+     */
+    private static JSONObject run(MicroBenchmark benchmark, int warmupIterations, int iterations, int seconds) throws Exception
+    {
+        benchmark.setUp();
+        for (int i = 0; i < warmupIterations; i++)
+            runIteration(benchmark, seconds);
+
+        double[] throughputs = new double[iterations];
+        double[] bytesPerOperation = new double[iterations];
+        double[] allocationRates = new double[iterations];
+        for (int i = 0; i < iterations; i++)
+        {
+            long[] iteration = runIteration(benchmark, seconds);
+            long operations = iteration[0];
+            double iterationSeconds = iteration[1] / 1e9;
+            throughputs[i] = operations / iterationSeconds;
+            bytesPerOperation[i] = iteration[2] < 0 ? -1 : (double) iteration[2] / operations;
+            allocationRates[i] = iteration[2] < 0 ? -1 : iteration[2] / iterationSeconds / (1024 * 1024);
+        }
+
+        JSONObject secondaryMetrics = new JSONObject();
+        secondaryMetrics.put("\u00b7gc.alloc.rate", createMetric(allocationRates, "MB/sec"));
+        secondaryMetrics.put("\u00b7gc.alloc.rate.norm", createMetric(bytesPerOperation, "B/op"));
+
+        JSONObject result = new JSONObject();
+        result.put("benchmark", ContentBenchmarks.class.getName() + "." + benchmark.getName());
+        result.put("mode", "thrpt");
+        result.put("threads", 1);
+        result.put("forks", 1);
+        result.put("jvm", System.getProperty("java.home"));
+        result.put("jdkVersion", System.getProperty("java.version"));
+        result.put("warmupIterations", warmupIterations);
+        result.put("warmupTime", seconds + " s");
+        result.put("measurementIterations", iterations);
+        result.put("measurementTime", seconds + " s");
+        result.put("primaryMetric", createMetric(throughputs, "ops/s"));
+        result.put("secondaryMetrics", secondaryMetrics);
+        return result;
+    }
+
+    /**
+     * Runs the benchmark's operation repeatedly for given number of seconds
+     *
+     * @param benchmark
+     * @param seconds
+     * @return Returns the number of operations, the time in nanoseconds and the bytes allocated or -1 if not
+     *         known
+     * @throws Exception
+     */
+    private static long[] runIteration(MicroBenchmark benchmark, int seconds) throws Exception
+    {
+        long duration = seconds * 1000000000L;
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        long now;
+        long operations = 0;
+        int hash = 0;
+        do
+        {
+            hash += System.identityHashCode(benchmark.run());
+            operations++;
+            now = System.nanoTime();
+        }
+        while (now - start < duration);
+        long allocatedAfter = getAllocatedBytes();
+        sink = hash;
+
+        return new long[]
+        {
+                operations, now - start, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore
+        };
+    }
+
+    /**
+     * @param values
+     * @param unit
+     * @return Returns the metric with the mean, its error and the raw values in the JMH format
+     */
+    private static JSONObject createMetric(double[] values, String unit) throws Exception
+    {
+        double sum = 0;
+        for (double value : values)
+            sum += value;
+        double mean = sum / values.length;
+
+        double squares = 0;
+        JSONArray rawData = new JSONArray();
+        for (double value : values)
+        {
+            squares += (value - mean) * (value - mean);
+            rawData.put(value);
+        }
+        int degreesOfFreedom = values.length - 1;
+        double error = Double.NaN;
+        if (degreesOfFreedom > 0)
+        {
+            double standardDeviation = Math.sqrt(squares / degreesOfFreedom);
+            double t = degreesOfFreedom < T_VALUES.length ? T_VALUES[degreesOfFreedom] : T_VALUE_LARGE;
+            error = t * standardDeviation / Math.sqrt(values.length);
+        }
+
+        JSONObject metric = new JSONObject();
+        metric.put("score", mean);
+        metric.put("scoreError", Double.isNaN(error) ? "NaN" : (Object) error);
+        metric.put("scoreUnit", unit);
+        metric.put("rawData", new JSONArray().put(rawData));
+        return metric;
+    }
+
+    /**
+     * @return Returns the number of bytes the current thread allocated so far or -1 if the JVM doesn't tell
+     */
+    private static long getAllocatedBytes()
+    {
+        if (allocatedBytesMethod == null)
+            return -1;
+
+        try
+        {
+            return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+        }
+        catch (Exception e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * @return Returns the com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long) method or null if not
+     *         available
+     */
+    private static Method getAllocatedBytesMethod()
+    {
+        try
+        {
+            Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (!beanClass.isInstance(threadBean))
+                return null;
+
+            Method method = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+            beanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(threadBean, true);
+            return method;
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,857 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+
+import com.hannonhill.smt.CascadeAssetIndex;
+import com.hannonhill.smt.CascadeAssetType;
+import com.hannonhill.smt.ContentTypeInformation;
+import com.hannonhill.smt.LinkCheckingStatus;
+import com.hannonhill.smt.MigrationStatus;
+import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.service.AssetOperationHandlerFactory;
+import com.hannonhill.smt.service.WebServices;
+import com.hannonhill.smt.service.XmlAnalyzer;
+import com.hannonhill.smt.task.LinkCheckingTask;
+import com.hannonhill.smt.task.MigrationTask;
+import com.hannonhill.smt.util.WebServicesUtil;
+import com.hannonhill.www.ws.ns.AssetOperationService.Asset;
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
+import com.hannonhill.www.ws.ns.AssetOperationService.Authentication;
+import com.hannonhill.www.ws.ns.AssetOperationService.CreateResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.DynamicMetadataField;
+import com.hannonhill.www.ws.ns.AssetOperationService.EntityTypeString;
+import com.hannonhill.www.ws.ns.AssetOperationService.FieldValue;
+import com.hannonhill.www.ws.ns.AssetOperationService.Folder;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+import com.hannonhill.www.ws.ns.AssetOperationService.Metadata;
+import com.hannonhill.www.ws.ns.AssetOperationService.Path;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.StructuredData;
+import com.hannonhill.www.ws.ns.AssetOperationService.StructuredDataNode;
+import com.hannonhill.www.ws.ns.AssetOperationService.StructuredDataType;
+import com.hannonhill.www.ws.ns.AssetOperationService.XhtmlDataDefinitionBlock;
+
+/**
+ * An end-to-end benchmark of the whole migration, meant to tell whether a new build of the tool is faster or
+ * slower than the previous one before a large migration is scheduled. It generates an export of fixed size
+ * with the {@link ExportGenerator} and runs the {@link MigrationTask} and the {@link LinkCheckingTask} on it
+ * headlessly, in this JVM, against a {@link CascadeSimulator} with given latency.
+ *
+ * The simulated site has a content type with the "header", "article" and "aside" block choosers the tool
+ * requires and shared Data Definition blocks with the dynamic metadata field "id" for all the ContentIDs of
+ * the export (every tenth of them a special block) and for its XSLT templates, so the pages reference
+ * existing blocks like in a real migration.
+ *
+ * For each phase (analyzing the export, reading the existing assets, creating and aligning assets, checking
+ * links) the wall time, the assets per second and the web services calls per asset are measured. The peak
+ * heap usage and the time spent in garbage collection are measured for the whole run. The benchmark runs
+ * several times after the warm-up runs and reports the median of each metric.
+ *
+ * The results can be written to a JSON file and compared with a baseline results file. A metric is a
+ * regression if it is worse than the baseline by more than its tolerance in percent. The tolerances can be
+ * given on the command line for all or single metrics and can be stored in the baseline file. The time
+ * metrics of phases that took less than the minimum time in the baseline are not compared. If the
+ * numbers of created assets, errors or links differ from the baseline, the tool doesn't do the same work
+ * anymore and the comparison fails as well. The process exits with status 1 when the comparison fails.
+ *
+ * Usage: MigrationBenchmark [-seed seed] [-pages count] [-runs runs] [-warmup runs] [-l read latency ms] [-w
+ * write latency ms] [-j latency jitter ms] [-work folder] [-rf results file] [-baseline file]
+ * [-save-baseline] [-tolerance percent] [-t metric=percent]... [-min-time ms]
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MigrationBenchmark
+{
+    private static final String SITE_NAME = "www";
+    private static final String URL = "http://localhost:" + CascadeSimulatorServer.DEFAULT_PORT + CascadeSimulatorServer.SERVICE_PATH;
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+    private static final String CONTENT_TYPE_PATH = "Migrated Page";
+    private static final String SHARED_FOLDER = "_shared";
+    private static final String SHARED_DATA_DEFINITION_PATH = "Shared Content";
+    private static final int SPECIAL_BLOCK_INTERVAL = 10; // every tenth shared block is a special block
+    private static final String DATA_DEFINITION_XML = "<system-data-structure>" + "<text identifier=\"main\" label=\"Main\" wysiwyg=\"true\"/>"
+            + "<asset type=\"block\" identifier=\"header\" label=\"Header\" multiple=\"true\"/>"
+            + "<asset type=\"block\" identifier=\"article\" label=\"Article\" multiple=\"true\"/>"
+            + "<asset type=\"block\" identifier=\"aside\" label=\"Aside\" multiple=\"true\"/>" + "</system-data-structure>";
+
+    private static final String[] COUNTS =
+    {
+            "filesAnalyzed", "assetsCreated", "assetsSkipped", "assetsWithErrors", "assetsAligned", "assetsNotAligned", "assetsChecked",
+            "linkCheckingErrors", "correctLinks", "brokenLinks"
+    };
+    private static final String[] SETTINGS =
+    {
+            "seed", "pages", "readLatencyMs", "writeLatencyMs", "jitterMs"
+    };
+
+    private static final double DEFAULT_TOLERANCE = 10;
+    private static final Map<String, Double> METRIC_TOLERANCES = new HashMap<String, Double>();
+    static
+    {
+        // Noisy metrics get more room
+        METRIC_TOLERANCES.put("gcTimeMs", 50.0);
+        METRIC_TOLERANCES.put("peakHeapMb", 25.0);
+    }
+
+    private long seed = 1;
+    private int pages = 2000;
+    private int runs = 3;
+    private int warmupRuns = 1;
+    private long readLatencyMs;
+    private long writeLatencyMs;
+    private long jitterMs;
+    private File workFolder = new File("build/macro-bench");
+    private double defaultTolerance = DEFAULT_TOLERANCE;
+    private long minComparedMs = 100; // shorter phases are not compared, their times are mostly noise
+    private final Map<String, Double> tolerances = new LinkedHashMap<String, Double>();
+
+    public static void main(String[] args) throws Exception
+    {
+        MigrationBenchmark benchmark = new MigrationBenchmark();
+        File resultsFile = null;
+        File baselineFile = null;
+        boolean saveBaseline = false;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-seed"))
+                benchmark.seed = Long.parseLong(args[++i]);
+            else if (args[i].equals("-pages"))
+                benchmark.pages = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-runs"))
+                benchmark.runs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-warmup"))
+                benchmark.warmupRuns = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-l"))
+                benchmark.readLatencyMs = Long.parseLong(args[++i]);
+            else if (args[i].equals("-w"))
+                benchmark.writeLatencyMs = Long.parseLong(args[++i]);
+            else if (args[i].equals("-j"))
+                benchmark.jitterMs = Long.parseLong(args[++i]);
+            else if (args[i].equals("-work"))
+                benchmark.workFolder = new File(args[++i]);
+            else if (args[i].equals("-rf"))
+                resultsFile = new File(args[++i]);
+            else if (args[i].equals("-baseline"))
+                baselineFile = new File(args[++i]);
+            else if (args[i].equals("-save-baseline"))
+                saveBaseline = true;
+            else if (args[i].equals("-min-time"))
+                benchmark.minComparedMs = Long.parseLong(args[++i]);
+            else if (args[i].equals("-tolerance"))
+                benchmark.defaultTolerance = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-t"))
+            {
+                String[] tolerance = args[++i].split("=");
+                if (tolerance.length != 2)
+                    throw new IllegalArgumentException("The tolerance must be given as metric=percent: " + args[i]);
+                benchmark.tolerances.put(tolerance[0], Double.parseDouble(tolerance[1]));
+            }
+            else
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+        if (benchmark.runs < 1)
+            throw new IllegalArgumentException("At least one run is required");
+        if (saveBaseline && baselineFile == null)
+            throw new IllegalArgumentException("The baseline file is required to save the baseline");
+
+        JSONObject results = benchmark.run();
+        if (resultsFile != null)
+        {
+            write(resultsFile, results);
+            System.out.println("Results written to " + resultsFile.getAbsolutePath());
+        }
+
+        if (baselineFile == null)
+            return;
+
+        if (saveBaseline)
+        {
+            write(baselineFile, results);
+            System.out.println("Baseline written to " + baselineFile.getAbsolutePath());
+            return;
+        }
+
+        if (!baselineFile.exists())
+        {
+            System.out.println("There is no baseline " + baselineFile.getAbsolutePath() + " to compare with, it can be saved with -save-baseline");
+            return;
+        }
+
+        if (!benchmark.compare(results, read(baselineFile)))
+            System.exit(1);
+    }
+
+    /**
+     * Generates the export, runs the warm-up runs and the measured runs and prints the results
+     *
+     * @return Returns the results with the settings, the median of each metric, the counts and the tolerances
+     *         given on the command line
+     * @throws Exception
+     */
+    public JSONObject run() throws Exception
+    {
+        File exportFolder = new File(workFolder, "export").getAbsoluteFile();
+        delete(exportFolder);
+        ExportGenerator generator = new ExportGenerator();
+        generator.setSeed(seed);
+        generator.setPages(pages);
+        System.out.println(generator.generate(exportFolder));
+
+        // The tasks write their logs to the logs folder of Tomcat
+        if (System.getProperty("catalina.base") == null)
+            System.setProperty("catalina.base", workFolder.getAbsolutePath());
+        new File(System.getProperty("catalina.base"), "logs").mkdirs();
+
+        List<Map<String, Double>> measuredRuns = new ArrayList<Map<String, Double>>();
+        Map<String, Integer> counts = null;
+        try
+        {
+            for (int i = 0; i < warmupRuns + runs; i++)
+            {
+                boolean warmup = i < warmupRuns;
+                Map<String, Integer> runCounts = new LinkedHashMap<String, Integer>();
+                Map<String, Double> metrics = measure(exportFolder, runCounts);
+                System.out.println((warmup ? "Warm-up run " + (i + 1) : "Run " + (i - warmupRuns + 1)) + ": "
+                        + Math.round(metrics.get("total.timeMs")) + " ms, " + runCounts);
+                if (warmup)
+                    continue;
+
+                measuredRuns.add(metrics);
+                counts = runCounts;
+            }
+        }
+        finally
+        {
+            WebServices.setHandlerFactory(null);
+        }
+
+        JSONObject settings = new JSONObject();
+        settings.put("seed", seed);
+        settings.put("pages", pages);
+        settings.put("readLatencyMs", readLatencyMs);
+        settings.put("writeLatencyMs", writeLatencyMs);
+        settings.put("jitterMs", jitterMs);
+        settings.put("runs", runs);
+        settings.put("warmupRuns", warmupRuns);
+
+        JSONObject metrics = new JSONObject();
+        System.out.println(String.format("%-32s %14s %14s %14s", "metric", "median", "min", "max"));
+        for (String metric : measuredRuns.get(0).keySet())
+        {
+            double[] values = new double[measuredRuns.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = measuredRuns.get(i).get(metric);
+            Arrays.sort(values);
+            double median = values.length % 2 == 1 ? values[values.length / 2] : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+            metrics.put(metric, median);
+            System.out.println(String.format("%-32s %14.2f %14.2f %14.2f", metric, median, values[0], values[values.length - 1]));
+        }
+
+        JSONObject results = new JSONObject();
+        results.put("jdkVersion", System.getProperty("java.version"));
+        results.put("settings", settings);
+        results.put("metrics", metrics);
+        results.put("counts", new JSONObject(counts));
+        if (!tolerances.isEmpty())
+            results.put("tolerances", new JSONObject(tolerances));
+        return results;
+    }
+
+    /**
+     * Runs the migration and the link checker once against a new simulator
+     *
+     * @param exportFolder
+     * @param counts the map the numbers of analyzed, created and checked assets and links are put in
+     * @return Returns the metrics of the run
+     * @throws Exception
+     */
+    private Map<String, Double> measure(File exportFolder, Map<String, Integer> counts) throws Exception
+    {
+        CascadeSimulator simulator = createSimulator(exportFolder);
+        final CallRecorder recorder = new CallRecorder(simulator);
+        WebServices.setHandlerFactory(new AssetOperationHandlerFactory()
+        {
+            public AssetOperationHandler getHandler(String url)
+            {
+                return recorder.getHandler();
+            }
+        });
+        ProjectInformation projectInformation = createProjectInformation(simulator, exportFolder);
+        recorder.setProjectInformation(projectInformation);
+
+        // The latency is only added once the site is set up
+        simulator.setLatency(readLatencyMs, writeLatencyMs, jitterMs);
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            pool.resetPeakUsage();
+        long gcTimeBefore = getGcTime();
+        recorder.reset();
+
+        long start = System.nanoTime();
+        XmlAnalyzer.analyzeFolder(exportFolder, projectInformation);
+        long analyzed = System.nanoTime();
+        recorder.reset();
+
+        new MigrationTask(projectInformation).run();
+        long migrated = System.nanoTime();
+        long migrationCalls = recorder.getCalls();
+        recorder.reset();
+
+        new LinkCheckingTask(projectInformation).run();
+        long checked = System.nanoTime();
+        long linkCheckingCalls = recorder.getCalls();
+
+        MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        LinkCheckingStatus linkCheckingStatus = projectInformation.getLinkCheckingStatus();
+        counts.put("filesAnalyzed", projectInformation.getFilesToProcess().size());
+        counts.put("assetsCreated", migrationStatus.getAssetsCreated());
+        counts.put("assetsSkipped", migrationStatus.getAssetsSkipped());
+        counts.put("assetsWithErrors", migrationStatus.getAssetsWithErrors());
+        counts.put("assetsAligned", migrationStatus.getAssetsAligned());
+        counts.put("assetsNotAligned", migrationStatus.getAssetsNotAligned());
+        counts.put("assetsChecked", linkCheckingStatus.getAssetsChecked());
+        counts.put("linkCheckingErrors", linkCheckingStatus.getAssetsWithErrors());
+        counts.put("correctLinks", linkCheckingStatus.getCorrectLinks());
+        counts.put("brokenLinks", linkCheckingStatus.getBrokenLinks());
+
+        // Reading the existing assets ends with the first call that changes something
+        long readingEnd = recorder.getFirstWriteTime() == 0 ? migrated : recorder.getFirstWriteTime();
+        long readingCalls = recorder.getFirstWriteTime() == 0 ? migrationCalls : recorder.getCallsBeforeFirstWrite();
+
+        Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+        putPhase(metrics, "analysis", analyzed - start, projectInformation.getFilesToProcess().size(), -1);
+        putPhase(metrics, "reading", readingEnd - analyzed, recorder.getExistingAssets(), readingCalls);
+        putPhase(metrics, "migration", migrated - readingEnd, migrationStatus.getAssetsCreated(), migrationCalls - readingCalls);
+        putPhase(metrics, "linkChecking", checked - migrated, linkCheckingStatus.getAssetsChecked(), linkCheckingCalls);
+        putPhase(metrics, "total", checked - start, migrationStatus.getAssetsCreated(), migrationCalls + linkCheckingCalls);
+        metrics.put("peakHeapMb", getPeakHeapUsage() / (1024.0 * 1024));
+        metrics.put("gcTimeMs", (double) (getGcTime() - gcTimeBefore));
+        return metrics;
+    }
+
+    /**
+     * Puts the time, the assets per second and the calls per asset of a phase to given metrics
+     *
+     * @param metrics
+     * @param phase
+     * @param nanos
+     * @param assets
+     * @param calls the number of web services calls or -1 if the phase doesn't make any
+     */
+    private static void putPhase(Map<String, Double> metrics, String phase, long nanos, int assets, long calls)
+    {
+        metrics.put(phase + ".timeMs", nanos / 1e6);
+        metrics.put(phase + ".assetsPerSecond", nanos == 0 ? 0 : assets / (nanos / 1e9));
+        if (calls >= 0)
+            metrics.put(phase + ".callsPerAsset", assets == 0 ? 0 : (double) calls / assets);
+    }
+
+    /**
+     * Compares the results with the baseline and prints each metric's change
+     *
+     * @param results
+     * @param baseline
+     * @return Returns false if a metric got worse by more than its tolerance or the counts differ
+     * @throws Exception
+     */
+    private boolean compare(JSONObject results, JSONObject baseline) throws Exception
+    {
+        JSONObject settings = results.getJSONObject("settings");
+        JSONObject baselineSettings = baseline.getJSONObject("settings");
+        for (String setting : SETTINGS)
+        {
+            if (settings.getLong(setting) != baselineSettings.optLong(setting, -1))
+            {
+                System.out.println("The baseline was measured with " + setting + " " + baselineSettings.opt(setting) + " instead of "
+                        + settings.get(setting) + ", the results can't be compared");
+                return false;
+            }
+        }
+
+        boolean passed = true;
+        JSONObject counts = results.getJSONObject("counts");
+        JSONObject baselineCounts = baseline.getJSONObject("counts");
+        for (String count : COUNTS)
+        {
+            if (counts.getInt(count) != baselineCounts.optInt(count, -1))
+            {
+                System.out.println("The migration does different work than in the baseline: " + count + " is " + counts.get(count) + " instead of "
+                        + baselineCounts.opt(count));
+                passed = false;
+            }
+        }
+
+        JSONObject baselineTolerances = baseline.optJSONObject("tolerances");
+        JSONObject metrics = results.getJSONObject("metrics");
+        JSONObject baselineMetrics = baseline.getJSONObject("metrics");
+        System.out.println(String.format("%-32s %14s %14s %10s %10s  %s", "metric", "baseline", "current", "change", "tolerance", "status"));
+        List<String> metricNames = new ArrayList<String>();
+        for (Iterator<?> iterator = metrics.keys(); iterator.hasNext();)
+            metricNames.add((String) iterator.next());
+        Collections.sort(metricNames);
+        for (String metric : metricNames)
+        {
+            if (!baselineMetrics.has(metric))
+                continue;
+
+            double value = metrics.getDouble(metric);
+            double baselineValue = baselineMetrics.getDouble(metric);
+            double tolerance = getTolerance(metric, baselineTolerances);
+            String status;
+            double change = baselineValue == 0 ? 0 : 100 * (value - baselineValue) / baselineValue;
+            if (baselineValue == 0 || isTooShort(metric, baselineMetrics))
+                status = "n/a";
+            else
+            {
+                double worsening = isHigherBetter(metric) ? -change : change;
+                if (worsening > tolerance)
+                {
+                    status = "WORSE";
+                    passed = false;
+                }
+                else if (worsening < -tolerance)
+                    status = "better";
+                else
+                    status = "ok";
+            }
+            System.out.println(String.format("%-32s %14.2f %14.2f %9.1f%% %9.1f%%  %s", metric, baselineValue, value, change, tolerance, status));
+        }
+
+        System.out.println(passed ? "No regressions against the baseline" : "The results are worse than the baseline");
+        return passed;
+    }
+
+    /**
+     * Returns the tolerance of given metric in percent. The tolerances given on the command line win over the
+     * ones stored in the baseline, which win over the defaults.
+     *
+     * @param metric
+     * @param baselineTolerances the tolerances stored in the baseline or null
+     * @return
+     */
+    private double getTolerance(String metric, JSONObject baselineTolerances)
+    {
+        if (tolerances.containsKey(metric))
+            return tolerances.get(metric);
+        if (baselineTolerances != null && baselineTolerances.has(metric))
+            return baselineTolerances.optDouble(metric, defaultTolerance);
+        if (METRIC_TOLERANCES.containsKey(metric))
+            return Math.max(defaultTolerance, METRIC_TOLERANCES.get(metric));
+        return defaultTolerance;
+    }
+
+    /**
+     * @param metric
+     * @param baselineMetrics
+     * @return Returns true if given metric measures the time of a phase that took less than the minimum time
+     *         in the baseline or is the speed of such phase
+     */
+    private boolean isTooShort(String metric, JSONObject baselineMetrics)
+    {
+        String phaseTime;
+        if (metric.endsWith(".timeMs"))
+            phaseTime = metric;
+        else if (metric.endsWith(".assetsPerSecond"))
+            phaseTime = metric.substring(0, metric.length() - ".assetsPerSecond".length()) + ".timeMs";
+        else
+            return false;
+
+        return baselineMetrics.optDouble(phaseTime, 0) < minComparedMs;
+    }
+
+    /**
+     * @param metric
+     * @return Returns true if a higher value of given metric is better
+     */
+    private static boolean isHigherBetter(String metric)
+    {
+        return metric.endsWith(".assetsPerSecond");
+    }
+
+    /**
+     * Creates the simulator with the content type the migration uses and the shared blocks the pages
+     * reference: a block for each ContentID of the export, some of them special blocks, and for each XSLT
+     * template
+     *
+     * @param exportFolder
+     * @return
+     * @throws Exception
+     */
+    private static CascadeSimulator createSimulator(File exportFolder) throws Exception
+    {
+        CascadeSimulator simulator = new CascadeSimulator(SITE_NAME);
+        simulator.addDataDefinitionContentType(SITE_NAME, CONTENT_TYPE_PATH, DATA_DEFINITION_XML);
+
+        Set<String> folders = new HashSet<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(exportFolder,
+                ExportGenerator.CONTENT_BLOCKS_FILE)), "UTF-8"));
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] columns = line.split("\t");
+                createSharedBlock(simulator, SHARED_FOLDER + "/" + columns[1], columns[0], Integer.parseInt(columns[0]) % SPECIAL_BLOCK_INTERVAL == 0,
+                        folders);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        for (String template : ExportGenerator.TEMPLATES)
+            createSharedBlock(simulator, getTemplateBlockPath(template), null, false, folders);
+
+        return simulator;
+    }
+
+    /**
+     * Creates a Data Definition block with given path and its missing parent folders
+     *
+     * @param simulator
+     * @param path
+     * @param id the value of the block's dynamic metadata field "id" or null
+     * @param special true if the block's content should be copied to the pages referencing it
+     * @param folders the paths of the folders created so far
+     * @throws Exception
+     */
+    private static void createSharedBlock(CascadeSimulator simulator, String path, String id, boolean special, Set<String> folders)
+            throws Exception
+    {
+        Authentication authentication = new Authentication(PASSWORD, USERNAME);
+        String[] names = path.split("/");
+        String parentFolderPath = "/";
+        for (int i = 0; i < names.length - 1; i++)
+        {
+            String folderPath = parentFolderPath.equals("/") ? names[i] : parentFolderPath + "/" + names[i];
+            if (folders.add(folderPath))
+            {
+                Folder folder = new Folder();
+                folder.setName(names[i]);
+                folder.setParentFolderPath(parentFolderPath);
+                folder.setSiteName(SITE_NAME);
+                Asset asset = new Asset();
+                asset.setFolder(folder);
+                check(simulator.create(authentication, asset), folderPath);
+            }
+            parentFolderPath = folderPath;
+        }
+
+        XhtmlDataDefinitionBlock block = new XhtmlDataDefinitionBlock();
+        block.setName(names[names.length - 1]);
+        block.setParentFolderPath(parentFolderPath);
+        block.setSiteName(SITE_NAME);
+        StructuredDataNode content = new StructuredDataNode();
+        content.setType(StructuredDataType.text);
+        content.setIdentifier("content");
+        content.setText("<p>Shared content " + names[names.length - 1] + "</p>");
+        block.setStructuredData(new StructuredData(null, special ? WebServicesUtil.SPECIAL_DATA_DEFINITION_PATH : SHARED_DATA_DEFINITION_PATH,
+                new StructuredDataNode[]
+                {
+                    content
+                }));
+        Metadata metadata = new Metadata();
+        if (id != null)
+            metadata.setDynamicFields(new DynamicMetadataField[]
+            {
+                new DynamicMetadataField("id", new FieldValue[]
+                {
+                    new FieldValue(id)
+                })
+            });
+        block.setMetadata(metadata);
+        Asset asset = new Asset();
+        asset.setXhtmlDataDefinitionBlock(block);
+        check(simulator.create(authentication, asset), path);
+    }
+
+    /**
+     * @param result
+     * @param path
+     * @throws Exception if the asset could not be created
+     */
+    private static void check(CreateResult result, String path) throws Exception
+    {
+        if (!result.getSuccess().equals("true"))
+            throw new Exception("Could not create the shared asset '" + path + "': " + result.getMessage());
+    }
+
+    /**
+     * @param template
+     * @return Returns the path of the block the XSLT template with given path is replaced with
+     */
+    private static String getTemplateBlockPath(String template)
+    {
+        String name = template.substring(template.lastIndexOf('/') + 1, template.lastIndexOf('.'));
+        return SHARED_FOLDER + "/templates/" + name;
+    }
+
+    /**
+     * Sets up the project as the user would in the screens of the tool: the site, the export folder, the
+     * content type, the field mappings and the template to block mappings
+     *
+     * @param simulator
+     * @param exportFolder
+     * @return
+     * @throws Exception
+     */
+    private static ProjectInformation createProjectInformation(CascadeSimulator simulator, File exportFolder) throws Exception
+    {
+        ProjectInformation projectInformation = new ProjectInformation();
+        projectInformation.setUrl(URL);
+        projectInformation.setUsername(USERNAME);
+        projectInformation.setPassword(PASSWORD);
+        projectInformation.setSiteName(SITE_NAME);
+        projectInformation.setXmlDirectory(exportFolder.getAbsolutePath());
+
+        ReadResult readResult = simulator.read(new Authentication(PASSWORD, USERNAME), new Identifier(null, new Path(CONTENT_TYPE_PATH, null,
+                SITE_NAME), EntityTypeString.contenttype, false));
+        ContentTypeInformation contentType = new ContentTypeInformation(readResult.getAsset().getContentType(), projectInformation);
+        Map<String, ContentTypeInformation> contentTypes = new HashMap<String, ContentTypeInformation>();
+        contentTypes.put(CONTENT_TYPE_PATH, contentType);
+        projectInformation.setContentTypes(contentTypes);
+        projectInformation.setContentTypePath(CONTENT_TYPE_PATH);
+
+        projectInformation.getFieldMapping().put("//title", contentType.getMetadataFields().get("title"));
+        projectInformation.getFieldMapping().put("//meta[@name='description']/@content", contentType.getMetadataFields().get("metaDescription"));
+        projectInformation.getFieldMapping().put("//meta[@name='keywords']/@content", contentType.getMetadataFields().get("keywords"));
+        projectInformation.getFieldMapping().put(WebServicesUtil.ARTICLE_XPATH, contentType.getDataDefinitionFields().get("main"));
+        for (String template : ExportGenerator.TEMPLATES)
+            projectInformation.getTemplateToBlockMapping().put(template, getTemplateBlockPath(template));
+
+        return projectInformation;
+    }
+
+    /**
+     * @return Returns the sum of the peak usages of the heap memory pools since their peaks were reset
+     */
+    private static long getPeakHeapUsage()
+    {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    /**
+     * @return Returns the time in milliseconds all the garbage collectors spent collecting so far
+     */
+    private static long getGcTime()
+    {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            time += Math.max(0, collector.getCollectionTime());
+        return time;
+    }
+
+    /**
+     * Deletes given file or folder with its contents
+     *
+     * @param file
+     */
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+
+    /**
+     * @param file
+     * @return Returns the JSON object stored in given file
+     * @throws Exception
+     */
+    private static JSONObject read(File file) throws Exception
+    {
+        StringBuilder content = new StringBuilder();
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try
+        {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1)
+                content.append(buffer, 0, read);
+        }
+        finally
+        {
+            reader.close();
+        }
+        return new JSONObject(content.toString());
+    }
+
+    /**
+     * Writes given JSON object to given file
+     *
+     * @param file
+     * @param object
+     * @throws Exception
+     */
+    private static void write(File file, JSONObject object) throws Exception
+    {
+        if (file.getAbsoluteFile().getParentFile() != null)
+            file.getAbsoluteFile().getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try
+        {
+            writer.write(object.toString(2));
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Passes the calls to the simulator and counts them. Remembers when the first call that changes something
+     * is made, which ends the reading of the existing assets, and how many existing assets were read by then.
+     */
+    private static class CallRecorder implements InvocationHandler
+    {
+        private static final Set<String> WRITE_OPERATIONS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList("create", "edit",
+                "delete", "batch", "move", "copy")));
+
+        private final CascadeSimulator simulator;
+        private final AssetOperationHandler handler;
+        private final AtomicLong calls;
+        private final AtomicLong firstWriteTime;
+        private volatile long callsBeforeFirstWrite;
+        private volatile int existingAssets;
+        private volatile ProjectInformation projectInformation;
+
+        /**
+         * Constructor
+         *
+         * @param simulator
+         */
+        private CallRecorder(CascadeSimulator simulator)
+        {
+            this.simulator = simulator;
+            handler = (AssetOperationHandler) Proxy.newProxyInstance(AssetOperationHandler.class.getClassLoader(), new Class<?>[]
+            {
+                AssetOperationHandler.class
+            }, this);
+            calls = new AtomicLong();
+            firstWriteTime = new AtomicLong();
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(this, args);
+
+            long callsBefore = calls.getAndIncrement();
+            if (WRITE_OPERATIONS.contains(method.getName()) && firstWriteTime.get() == 0 && firstWriteTime.compareAndSet(0, System.nanoTime()))
+            {
+                callsBeforeFirstWrite = callsBefore;
+                CascadeAssetIndex existingCascadeAssets = projectInformation.getExistingCascadeAssets();
+                existingAssets = existingCascadeAssets.size(CascadeAssetType.FILE) + existingCascadeAssets.size(CascadeAssetType.XHTML_BLOCK)
+                        + existingCascadeAssets.size(CascadeAssetType.PAGE);
+            }
+
+            try
+            {
+                return method.invoke(simulator, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Starts counting the calls from zero
+         */
+        private void reset()
+        {
+            calls.set(0);
+        }
+
+        /**
+         * @return Returns the handler that passes the calls to the simulator.
+         */
+        private AssetOperationHandler getHandler()
+        {
+            return handler;
+        }
+
+        /**
+         * @param projectInformation the projectInformation to set
+         */
+        private void setProjectInformation(ProjectInformation projectInformation)
+        {
+            this.projectInformation = projectInformation;
+        }
+
+        /**
+         * @return Returns the calls made since the last reset.
+         */
+        private long getCalls()
+        {
+            return calls.get();
+        }
+
+        /**
+         * @return Returns the time of the first call that changed something or 0 if there was none.
+         */
+        private long getFirstWriteTime()
+        {
+            return firstWriteTime.get();
+        }
+
+        /**
+         * @return Returns the calls made before the first call that changed something.
+         */
+        private long getCallsBeforeFirstWrite()
+        {
+            return callsBeforeFirstWrite;
+        }
+
+        /**
+         * @return Returns the number of existing files, blocks and pages read before the first call that
+         *         changed something.
+         */
+        private int getExistingAssets()
+        {
+            return existingAssets;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.util.FlightRecorderEvents;
+import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.smt.util.SingleFlight;
+
+/**
+ * Supports the lookups of asset ids by path (whether a page, file or block with given path exists in Cascade
+ * Server). Concurrent lookups of the same asset share a single web services call and paths that were not
+ * found are remembered for {@link #DEFAULT_MISS_TTL_MS}, so that a missing asset linked from hundreds of pages
+ * is not read hundreds of times. A remembered miss is forgotten as soon as an asset with that path gets
+ * created, and a miss found by a lookup during which an asset with that path got created is not remembered.
+ *
+ * Found assets are not cached here - they are stored in the {@link CascadeAssetIndex}.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class AssetLookupCache
+{
+    private static final long DEFAULT_MISS_TTL_MS = 10 * 60 * 1000;
+
+    private final long missTtl;
+    private final Map<String, Long> misses; // key to the time the miss expires
+    private final SingleFlight<String> lookups;
+    private final AtomicLong missHits;
+    private final AtomicLong calls;
+    private final ConcurrentMap<String, Boolean> lookupsInProgress; // key to whether the asset got created
+                                                                    // during the lookup - such a miss is not
+                                                                    // remembered
+
+    /**
+     * Constructor
+     */
+    public AssetLookupCache()
+    {
+        this(DEFAULT_MISS_TTL_MS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param missTtl number of milliseconds a path that was not found is remembered as missing
+     */
+    public AssetLookupCache(long missTtl)
+    {
+        this.missTtl = missTtl;
+        misses = new ConcurrentHashMap<String, Long>();
+        lookups = new SingleFlight<String>();
+        missHits = new AtomicLong();
+        calls = new AtomicLong();
+        lookupsInProgress = new ConcurrentHashMap<String, Boolean>();
+    }
+
+    /**
+     * Returns the id of the asset of given type and path using the lookup to find it. Returns null without
+     * calling the lookup if the asset is remembered as missing. If the same asset is being looked up by
+     * another thread, waits for that lookup and returns its result.
+     *
+     * @param path
+     * @param type
+     * @param lookup a call that returns the asset's id or null if the asset doesn't exist
+     * @return
+     * @throws Exception
+     */
+    public String getAssetId(String path, CascadeAssetType type, final Callable<String> lookup) throws Exception
+    {
+        final String key = getKey(path, type);
+        Long expires = misses.get(key);
+        if (expires != null)
+        {
+            if (expires > System.currentTimeMillis())
+            {
+                missHits.incrementAndGet();
+                FlightRecorderEvents.cacheLookup("asset lookup", key, true);
+                return null;
+            }
+            misses.remove(key);
+        }
+
+        return lookups.execute(key, new Callable<String>()
+        {
+            public String call() throws Exception
+            {
+                calls.incrementAndGet();
+                FlightRecorderEvents.cacheLookup("asset lookup", key, false);
+                lookupsInProgress.put(key, Boolean.FALSE);
+                String id;
+                try
+                {
+                    id = lookup.call();
+                }
+                catch (Exception e)
+                {
+                    lookupsInProgress.remove(key);
+                    throw e;
+                }
+
+                if (id == null)
+                {
+                    // The miss is put first, so that a creation either sees it or is seen by the lookup
+                    misses.put(key, System.currentTimeMillis() + missTtl);
+                    if (!lookupsInProgress.remove(key, Boolean.FALSE))
+                    {
+                        lookupsInProgress.remove(key);
+                        misses.remove(key);
+                    }
+                }
+                else
+                    lookupsInProgress.remove(key);
+                return id;
+            }
+        });
+    }
+
+    /**
+     * Forgets that the asset with given path was missing. Should be called when an asset gets created.
+     *
+     * @param path
+     * @param type
+     */
+    public void assetCreated(String path, CascadeAssetType type)
+    {
+        String key = getKey(path, type);
+        lookupsInProgress.replace(key, Boolean.TRUE);
+        misses.remove(key);
+    }
+
+    /**
+     * Forgets all the misses and resets the miss hit and call counts
+     */
+    public void clear()
+    {
+        misses.clear();
+        missHits.set(0);
+        calls.set(0);
+    }
+
+    /**
+     * @return Returns the number of lookups answered from the remembered misses
+     */
+    public long getMissHits()
+    {
+        return missHits.get();
+    }
+
+    /**
+     * @return Returns the number of lookups that waited for the same lookup made by another thread
+     */
+    public long getSharedLookups()
+    {
+        return lookups.getSharedCalls();
+    }
+
+    /**
+     * @return Returns the number of lookups that actually called web services
+     */
+    public long getCalls()
+    {
+        return calls.get();
+    }
+
+    /**
+     * @param path
+     * @param type
+     * @return
+     */
+    private static String getKey(String path, CascadeAssetType type)
+    {
+        return type.name() + ":" + PathUtil.removeLeadingSlashes(path).toLowerCase();
+    }
+}
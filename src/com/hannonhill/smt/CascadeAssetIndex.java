@@ -0,0 +1,899 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A compact, case-insensitive index of existing Cascade asset paths. Paths are stored in a radix trie, so
+ * the common folder prefixes of a site are stored only once, and each trie node holds the asset type(s) and
+ * id(s) of the asset(s) that end at that node. Lookups fold the case of the provided path character by
+ * character, so no lower case copy of the path is ever allocated.
+ *
+ * The index also maps block's dynamic metadata field "id" to the block's node, which replaces a separate map
+ * from the block identifier to the full block path.
+ *
+ * Leading slashes are ignored, so "/a/b" and "a/b" are the same path. Paths returned by the index keep the
+ * letter case they were stored with.
+ *
+ * The index is safe to use by multiple threads.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class CascadeAssetIndex
+{
+    // Rough object sizes on a 64-bit JVM with compressed references, used to estimate the memory footprint
+    private static final int OBJECT_HEADER_SIZE = 12;
+    private static final int ARRAY_HEADER_SIZE = 16;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int NODE_SIZE = align(OBJECT_HEADER_SIZE + 5 * REFERENCE_SIZE + 1);
+    private static final int HASH_MAP_ENTRY_SIZE = align(OBJECT_HEADER_SIZE + 3 * REFERENCE_SIZE + 4);
+
+    private static final int TYPE_COUNT = CascadeAssetType.values().length;
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final char[] EMPTY_LABEL = new char[0];
+
+    private final Node root;
+    private final Map<String, Node> blockIdentifiers; // block's dynamic metadata field "id" to the block's node
+    private final int[] typeCounts;
+    private int nodeCount;
+    private final ReadWriteLock lock;
+
+    /**
+     * Constructor
+     */
+    public CascadeAssetIndex()
+    {
+        root = new Node(EMPTY_LABEL, null);
+        blockIdentifiers = new HashMap<String, Node>();
+        typeCounts = new int[TYPE_COUNT];
+        nodeCount = 1;
+        lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Stores the id of an asset of given type with given path. If an asset of the same type and path was
+     * already stored, its id gets replaced.
+     *
+     * @param path
+     * @param type
+     * @param id
+     */
+    public void put(String path, CascadeAssetType type, String id)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Node node = findOrCreateNode(path);
+            rememberLetterCase(node, path);
+            int bit = 1 << type.ordinal();
+            if ((node.types & bit) == 0)
+                typeCounts[type.ordinal()]++;
+
+            setId(node, type, packId(id));
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the id of an asset of given type with given path or null if such asset is not in the index.
+     *
+     * @param path
+     * @param type
+     * @return
+     */
+    public String getId(String path, CascadeAssetType type)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Node node = findNode(path);
+            return node == null ? null : unpackId(getPackedId(node, type));
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the id of an asset with given path or null if no asset with that path is in the index. If
+     * assets of multiple types share the path, the types are checked in the order of {@link CascadeAssetType}
+     * constants.
+     *
+     * @param path
+     * @return
+     */
+    public String getId(String path)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Node node = findNode(path);
+            if (node == null || node.types == 0)
+                return null;
+
+            for (CascadeAssetType type : CascadeAssetType.values())
+            {
+                Object packedId = getPackedId(node, type);
+                if (packedId != null)
+                    return unpackId(packedId);
+            }
+
+            return null;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns true if an asset of given type with given path is in the index
+     *
+     * @param path
+     * @param type
+     * @return
+     */
+    public boolean contains(String path, CascadeAssetType type)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Node node = findNode(path);
+            return node != null && (node.types & (1 << type.ordinal())) != 0;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Assigns a block's dynamic metadata field "id" value to the block with given path
+     *
+     * @param blockIdentifier
+     * @param blockPath
+     */
+    public void putBlockIdentifier(String blockIdentifier, String blockPath)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Node node = findOrCreateNode(blockPath);
+            rememberLetterCase(node, blockPath);
+            blockIdentifiers.put(blockIdentifier, node);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the path of a block whose dynamic metadata field "id" has given value or null if there is no
+     * such block
+     *
+     * @param blockIdentifier
+     * @return
+     */
+    public String getBlockPath(String blockIdentifier)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Node node = blockIdentifiers.get(blockIdentifier);
+            return node == null ? null : buildPath(node);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Returns the number of blocks with dynamic metadata field "id" assigned
+     */
+    public int getBlockIdentifierCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return blockIdentifiers.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param type
+     * @return Returns the number of assets of given type in the index
+     */
+    public int size(CascadeAssetType type)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return typeCounts[type.ordinal()];
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of assets of given type that are located in given folder or any of its descendant
+     * folders. The folder itself is not counted.
+     *
+     * @param folderPath
+     * @param type
+     * @return
+     */
+    public int countInFolder(String folderPath, CascadeAssetType type)
+    {
+        lock.readLock().lock();
+        try
+        {
+            FolderPosition position = findFolderPosition(folderPath);
+            if (position == null)
+                return 0;
+
+            int bit = 1 << type.ordinal();
+            int count = 0;
+            for (Node child : getDescendantRoots(position))
+                count += countInSubtree(child, bit);
+
+            return count;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns paths of all assets of given type that are located in given folder or any of its descendant
+     * folders
+     *
+     * @param folderPath
+     * @param type
+     * @return
+     */
+    public List<String> getPathsInFolder(String folderPath, CascadeAssetType type)
+    {
+        lock.readLock().lock();
+        try
+        {
+            List<String> result = new ArrayList<String>();
+            FolderPosition position = findFolderPosition(folderPath);
+            if (position == null)
+                return result;
+
+            int bit = 1 << type.ordinal();
+            for (Node child : getDescendantRoots(position))
+                collectPaths(child, bit, result);
+
+            return result;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the assets and block identifiers from the index
+     */
+    public void clear()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            root.children = NO_CHILDREN;
+            root.types = 0;
+            root.ids = null;
+            blockIdentifiers.clear();
+            for (int i = 0; i < TYPE_COUNT; i++)
+                typeCounts[i] = 0;
+            nodeCount = 1;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Returns an estimate of the number of bytes of heap memory used by the index
+     */
+    public long estimateMemoryFootprint()
+    {
+        lock.readLock().lock();
+        try
+        {
+            long blockIdentifiersSize = ARRAY_HEADER_SIZE + REFERENCE_SIZE * Math.max(16, blockIdentifiers.size() * 2);
+            for (String blockIdentifier : blockIdentifiers.keySet())
+                blockIdentifiersSize += HASH_MAP_ENTRY_SIZE + estimateStringSize(blockIdentifier.length());
+
+            return estimateSubtreeSize(root) + blockIdentifiersSize;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Returns the number of trie nodes
+     */
+    public int getNodeCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return nodeCount;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a node that matches given path exactly. Returns null if there is no such node.
+     *
+     * @param path
+     * @return
+     */
+    private Node findNode(String path)
+    {
+        if (path == null)
+            return null;
+
+        int length = path.length();
+        int index = skipLeadingSlashes(path);
+        Node node = root;
+        while (index < length)
+        {
+            Node child = findChild(node, path.charAt(index));
+            if (child == null)
+                return null;
+
+            int matched = matchLabel(child.label, path, index);
+            if (matched < child.label.length)
+                return null;
+
+            index += matched;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Finds a node that matches given path exactly, creating it (and splitting an existing node if
+     * necessary) if it does not exist.
+     *
+     * @param path
+     * @return
+     */
+    private Node findOrCreateNode(String path)
+    {
+        int length = path.length();
+        int index = skipLeadingSlashes(path);
+        Node node = root;
+        while (index < length)
+        {
+            Node child = findChild(node, path.charAt(index));
+            if (child == null)
+            {
+                Node newNode = new Node(path.substring(index).toCharArray(), node);
+                addChild(node, newNode);
+                nodeCount++;
+                return newNode;
+            }
+
+            int matched = matchLabel(child.label, path, index);
+            if (matched < child.label.length)
+                child = splitNode(child, matched);
+
+            index += matched;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Splits the node into two nodes, where the first one gets the first <code>at</code> characters of the
+     * label and the second one, a child of the first one, gets the rest of the label, the node's children and
+     * the node's assets. Returns the first node.
+     *
+     * @param node
+     * @param at
+     * @return
+     */
+    private Node splitNode(Node node, int at)
+    {
+        char[] label = node.label;
+        char[] prefix = new char[at];
+        char[] suffix = new char[label.length - at];
+        System.arraycopy(label, 0, prefix, 0, at);
+        System.arraycopy(label, at, suffix, 0, suffix.length);
+
+        Node parent = node.parent;
+        Node prefixNode = new Node(prefix, parent);
+        replaceChild(parent, node, prefixNode);
+
+        node.label = suffix;
+        node.parent = prefixNode;
+        prefixNode.children = new Node[]
+        {
+            node
+        };
+        nodeCount++;
+        return prefixNode;
+    }
+
+    /**
+     * Labels keep the letter case of the first path that created them, so if given path differs from it only
+     * by letter case, the path is stored in the node as it is
+     *
+     * @param node
+     * @param path
+     */
+    private static void rememberLetterCase(Node node, String path)
+    {
+        int index = path.length();
+        for (Node current = node; current != null; current = current.parent)
+        {
+            char[] label = current.label;
+            for (int i = label.length - 1; i >= 0; i--)
+                if (label[i] != path.charAt(--index))
+                {
+                    node.exactPath = path.substring(skipLeadingSlashes(path));
+                    return;
+                }
+        }
+        node.exactPath = null;
+    }
+
+    /**
+     * Finds the position in the trie right after "folderPath/". Returns null if no asset path starts with
+     * that prefix.
+     *
+     * @param folderPath
+     * @return
+     */
+    private FolderPosition findFolderPosition(String folderPath)
+    {
+        int start = folderPath == null ? 0 : skipLeadingSlashes(folderPath);
+        int length = folderPath == null ? 0 : folderPath.length();
+        while (length > start && folderPath.charAt(length - 1) == '/')
+            length--;
+
+        // The root folder contains everything
+        if (length == start)
+            return new FolderPosition(root, 0);
+
+        // Walk the folder path followed by a slash
+        Node node = root;
+        int offset = 0;
+        for (int index = start; index <= length; index++)
+        {
+            char c = index == length ? '/' : folderPath.charAt(index);
+            if (offset == node.label.length)
+            {
+                Node child = findChild(node, c);
+                if (child == null)
+                    return null;
+
+                node = child;
+                offset = 0;
+            }
+
+            if (fold(node.label[offset]) != fold(c))
+                return null;
+
+            offset++;
+        }
+
+        return new FolderPosition(node, offset);
+    }
+
+    /**
+     * Returns nodes whose subtrees contain all the assets below the folder position
+     *
+     * @param position
+     * @return
+     */
+    private Node[] getDescendantRoots(FolderPosition position)
+    {
+        if (position.node == root || position.offset == position.node.label.length)
+            return position.node.children;
+
+        // The folder prefix ends in the middle of the node's label, so the whole node is below the folder
+        return new Node[]
+        {
+            position.node
+        };
+    }
+
+    /**
+     * Counts the assets with given type bit in the subtree
+     *
+     * @param node
+     * @param bit
+     * @return
+     */
+    private static int countInSubtree(Node node, int bit)
+    {
+        int count = (node.types & bit) != 0 ? 1 : 0;
+        for (Node child : node.children)
+            count += countInSubtree(child, bit);
+        return count;
+    }
+
+    /**
+     * Collects paths of the assets with given type bit in the subtree
+     *
+     * @param node
+     * @param bit
+     * @param result
+     */
+    private static void collectPaths(Node node, int bit, List<String> result)
+    {
+        if ((node.types & bit) != 0)
+            result.add(buildPath(node));
+        for (Node child : node.children)
+            collectPaths(child, bit, result);
+    }
+
+    /**
+     * Estimates the number of bytes used by the subtree
+     *
+     * @param node
+     * @return
+     */
+    private static long estimateSubtreeSize(Node node)
+    {
+        long size = NODE_SIZE + align(ARRAY_HEADER_SIZE + 2 * node.label.length);
+        if (node.children.length > 0)
+            size += align(ARRAY_HEADER_SIZE + REFERENCE_SIZE * node.children.length);
+
+        if (node.exactPath != null)
+            size += estimateStringSize(node.exactPath.length());
+
+        if (node.ids instanceof Object[])
+        {
+            Object[] ids = (Object[]) node.ids;
+            size += align(ARRAY_HEADER_SIZE + REFERENCE_SIZE * ids.length);
+            for (Object id : ids)
+                size += estimatePackedIdSize(id);
+        }
+        else
+            size += estimatePackedIdSize(node.ids);
+
+        for (Node child : node.children)
+            size += estimateSubtreeSize(child);
+        return size;
+    }
+
+    /**
+     * @param packedId
+     * @return Returns the estimated size of a packed id
+     */
+    private static long estimatePackedIdSize(Object packedId)
+    {
+        if (packedId instanceof long[])
+            return align(ARRAY_HEADER_SIZE + 16);
+        if (packedId instanceof String)
+            return estimateStringSize(((String) packedId).length());
+        return 0;
+    }
+
+    /**
+     * @param length
+     * @return Returns the estimated size of a String with given length
+     */
+    private static long estimateStringSize(int length)
+    {
+        return align(OBJECT_HEADER_SIZE + REFERENCE_SIZE + 3 * 4) + align(ARRAY_HEADER_SIZE + 2 * length);
+    }
+
+    /**
+     * @param size
+     * @return Returns the size aligned to 8 bytes
+     */
+    private static int align(int size)
+    {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Rebuilds the full path of the node by walking up to the root
+     *
+     * @param node
+     * @return
+     */
+    private static String buildPath(Node node)
+    {
+        if (node.exactPath != null)
+            return node.exactPath;
+
+        int length = 0;
+        for (Node current = node; current != null; current = current.parent)
+            length += current.label.length;
+
+        char[] path = new char[length];
+        for (Node current = node; current != null; current = current.parent)
+        {
+            length -= current.label.length;
+            System.arraycopy(current.label, 0, path, length, current.label.length);
+        }
+        return new String(path);
+    }
+
+    /**
+     * Returns the child of the node whose label starts with given character (case-insensitive) or null if
+     * there is no such child. Children are sorted by their folded first character.
+     *
+     * @param node
+     * @param c
+     * @return
+     */
+    private static Node findChild(Node node, char c)
+    {
+        char folded = fold(c);
+        Node[] children = node.children;
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            char middleChar = fold(children[middle].label[0]);
+            if (middleChar < folded)
+                low = middle + 1;
+            else if (middleChar > folded)
+                high = middle - 1;
+            else
+                return children[middle];
+        }
+        return null;
+    }
+
+    /**
+     * Adds a child to the node keeping the children sorted by their folded first character
+     *
+     * @param node
+     * @param child
+     */
+    private static void addChild(Node node, Node child)
+    {
+        char folded = fold(child.label[0]);
+        Node[] children = node.children;
+        int position = 0;
+        while (position < children.length && fold(children[position].label[0]) < folded)
+            position++;
+
+        Node[] newChildren = new Node[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, position);
+        newChildren[position] = child;
+        System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+        node.children = newChildren;
+    }
+
+    /**
+     * Replaces the old child of the node with the new child. Both children start with the same character.
+     *
+     * @param node
+     * @param oldChild
+     * @param newChild
+     */
+    private static void replaceChild(Node node, Node oldChild, Node newChild)
+    {
+        Node[] children = node.children;
+        for (int i = 0; i < children.length; i++)
+            if (children[i] == oldChild)
+            {
+                children[i] = newChild;
+                return;
+            }
+    }
+
+    /**
+     * Returns the number of characters of the label that match the path starting at given index
+     * (case-insensitive)
+     *
+     * @param label
+     * @param path
+     * @param index
+     * @return
+     */
+    private static int matchLabel(char[] label, String path, int index)
+    {
+        int max = Math.min(label.length, path.length() - index);
+        int matched = 0;
+        while (matched < max && fold(label[matched]) == fold(path.charAt(index + matched)))
+            matched++;
+        return matched;
+    }
+
+    /**
+     * @param path
+     * @return Returns the index of the first character that is not a slash
+     */
+    private static int skipLeadingSlashes(String path)
+    {
+        int index = 0;
+        while (index < path.length() && path.charAt(index) == '/')
+            index++;
+        return index;
+    }
+
+    /**
+     * @param c
+     * @return Returns the case folded character
+     */
+    private static char fold(char c)
+    {
+        return c < 128 ? (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) : Character.toLowerCase(c);
+    }
+
+    /**
+     * Assigns the packed id of given type to the node
+     *
+     * @param node
+     * @param type
+     * @param packedId
+     */
+    private static void setId(Node node, CascadeAssetType type, Object packedId)
+    {
+        int bit = 1 << type.ordinal();
+
+        // Most nodes hold a single asset, so a single id is stored directly
+        if (node.types == 0 || node.types == bit)
+        {
+            node.ids = packedId;
+            node.types = (byte) bit;
+            return;
+        }
+
+        Object[] ids;
+        if (node.ids instanceof Object[])
+            ids = (Object[]) node.ids;
+        else
+        {
+            ids = new Object[TYPE_COUNT];
+            ids[Integer.numberOfTrailingZeros(node.types)] = node.ids;
+        }
+        ids[type.ordinal()] = packedId;
+        node.ids = ids;
+        node.types |= bit;
+    }
+
+    /**
+     * @param node
+     * @param type
+     * @return Returns the packed id of given type assigned to the node or null if there isn't one
+     */
+    private static Object getPackedId(Node node, CascadeAssetType type)
+    {
+        int bit = 1 << type.ordinal();
+        if ((node.types & bit) == 0)
+            return null;
+
+        if (node.ids instanceof Object[])
+            return ((Object[]) node.ids)[type.ordinal()];
+
+        return node.ids;
+    }
+
+    /**
+     * Cascade ids are 32 lower case hexadecimal characters, which fit in two longs. Other ids are kept as
+     * they are.
+     *
+     * @param id
+     * @return
+     */
+    private static Object packId(String id)
+    {
+        if (id == null || id.length() != 32)
+            return id;
+
+        long[] packed = new long[2];
+        for (int i = 0; i < 32; i++)
+        {
+            char c = id.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9')
+                digit = c - '0';
+            else if (c >= 'a' && c <= 'f')
+                digit = c - 'a' + 10;
+            else
+                return id;
+
+            packed[i / 16] = (packed[i / 16] << 4) | digit;
+        }
+        return packed;
+    }
+
+    /**
+     * @param packedId
+     * @return Returns the id in its original form
+     */
+    private static String unpackId(Object packedId)
+    {
+        if (!(packedId instanceof long[]))
+            return (String) packedId;
+
+        long[] packed = (long[]) packedId;
+        char[] id = new char[32];
+        for (int i = 31; i >= 0; i--)
+        {
+            int digit = (int) (packed[i / 16] >>> (4 * (15 - i % 16))) & 0xf;
+            id[i] = (char) (digit < 10 ? '0' + digit : 'a' + digit - 10);
+        }
+        return new String(id);
+    }
+
+    /**
+     * A trie node. The path of the node is the concatenation of the labels from the root to the node.
+     */
+    private static final class Node
+    {
+        private char[] label;
+        private Node parent;
+        private Node[] children;
+        private byte types; // bit mask of CascadeAssetType ordinals of assets that end at this node
+        private Object ids; // a single packed id or an array of packed ids indexed by CascadeAssetType ordinal
+        private String exactPath; // the node's path if it differs from the labels by letter case, null otherwise
+
+        /**
+         * Constructor
+         *
+         * @param label
+         * @param parent
+         */
+        private Node(char[] label, Node parent)
+        {
+            this.label = label;
+            this.parent = parent;
+            this.children = NO_CHILDREN;
+        }
+    }
+
+    /**
+     * A position in the trie - a node and the number of matched characters of its label
+     */
+    private static final class FolderPosition
+    {
+        private final Node node;
+        private final int offset;
+
+        /**
+         * Constructor
+         *
+         * @param node
+         * @param offset
+         */
+        private FolderPosition(Node node, int offset)
+        {
+            this.node = node;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+/**
+ * Type of an existing Cascade asset stored in the {@link CascadeAssetIndex}. The order of the constants is
+ * the order in which {@link CascadeAssetIndex#getId(String)} looks for an asset with given path.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public enum CascadeAssetType
+{
+    FILE, XHTML_BLOCK, PAGE, FOLDER
+}
@@ -5,6 +5,7 @@
  */
 package com.hannonhill.smt;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,8 +19,10 @@ import com.hannonhill.www.ws.ns.AssetOperationService.ContentType;
  * @author Artur Tomusiak
  * @since 1.0
  */
-public class ContentTypeInformation
+public class ContentTypeInformation implements Serializable
 {
+    private static final long serialVersionUID = 6094899594861335018L;
+
     private final Map<String, MetadataSetField> metadataFields; // mapping from the metadata field identifier
                                                                 // to the actual field
     private final Map<String, DataDefinitionField> dataDefinitionFields; // mapping from the data definition
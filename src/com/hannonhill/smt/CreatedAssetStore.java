@@ -0,0 +1,701 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only store of the assets created during migration. Instead of keeping an object per asset on the
+ * heap (and in the HTTP session) for the whole migration, each asset is written as a fixed-width record to a
+ * memory-mapped temporary file and its path is written to a separate memory-mapped paths file. Paths are
+ * interned - a path that is already in the store is not written again.
+ *
+ * A memory-mapped open addressing hash table (also kept in a temporary file) is used to quickly check if an
+ * asset with given path (case-insensitive) is in the store.
+ *
+ * Iteration over the assets streams the records from the files, creating {@link CascadeAssetInformation}
+ * objects only for the record being currently processed, so heap usage does not grow with the size of the
+ * migration. The files are created only when the first asset is added and they are deleted by
+ * {@link #dispose()}, which unmaps them first (a mapped file can't be deleted on Windows). The files are also
+ * deleted when the JVM exits, in case the store never gets disposed.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class CreatedAssetStore
+{
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024; // size of a single mapped region of a file
+
+    // Record layout: type (1 byte), flags (1 byte), unused (2 bytes), path length in chars (4 bytes), path
+    // offset (8 bytes), packed id (16 bytes) or id offset (8 bytes) and id length in chars (4 bytes)
+    private static final int RECORD_SIZE = 32;
+    private static final int RECORD_FLAGS = 1;
+    private static final int RECORD_PATH_LENGTH = 4;
+    private static final int RECORD_PATH_OFFSET = 8;
+    private static final int RECORD_ID = 16;
+    private static final int RECORD_ID_LENGTH = 24;
+    private static final byte FLAG_ALREADY_EXISTED = 1;
+    private static final byte FLAG_TEXT_ID = 2; // the id is not a 32 character hex string and is stored as text
+
+    // Hash table slot layout: path offset + 1 (8 bytes, 0 means an empty slot), path length in chars (4 bytes)
+    // and path hash (4 bytes)
+    private static final int SLOT_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private SegmentedFile records;
+    private SegmentedFile paths;
+    private File pathTableFile;
+    private RandomAccessFile pathTableRandomAccessFile;
+    private MappedByteBuffer pathTable;
+    private int pathTableCapacity;
+    private int pathCount;
+    private int recordCount;
+    private final int[] typeCounts;
+    private boolean disposed;
+
+    /**
+     * Constructor
+     */
+    public CreatedAssetStore()
+    {
+        typeCounts = new int[CascadeAssetType.values().length];
+        recordCount = 0;
+        pathCount = 0;
+        disposed = false;
+    }
+
+    /**
+     * Appends the asset of given type to the store
+     *
+     * @param type
+     * @param asset
+     * @throws IOException
+     */
+    public synchronized void add(CascadeAssetType type, CascadeAssetInformation asset) throws IOException
+    {
+        if (disposed)
+            throw new IOException("Created asset store has already been disposed");
+
+        if (records == null)
+            open();
+
+        String path = asset.getPath();
+        long pathOffset = internPath(path);
+
+        long recordOffset = records.reserve(RECORD_SIZE);
+        MappedByteBuffer buffer = records.getSegment(recordOffset);
+        int position = SegmentedFile.getPositionInSegment(recordOffset);
+        byte flags = asset.isAlreadyExisted() ? FLAG_ALREADY_EXISTED : 0;
+
+        String id = asset.getId();
+        if (isPackableId(id))
+        {
+            buffer.putLong(position + RECORD_ID, parseHex(id, 0));
+            buffer.putLong(position + RECORD_ID + 8, parseHex(id, 16));
+        }
+        else
+        {
+            flags |= FLAG_TEXT_ID;
+            String textId = id == null ? "" : id;
+            buffer.putLong(position + RECORD_ID, paths.appendChars(textId));
+            buffer.putInt(position + RECORD_ID_LENGTH, textId.length());
+        }
+
+        buffer.put(position, (byte) type.ordinal());
+        buffer.put(position + RECORD_FLAGS, flags);
+        buffer.putInt(position + RECORD_PATH_LENGTH, path.length());
+        buffer.putLong(position + RECORD_PATH_OFFSET, pathOffset);
+
+        recordCount++;
+        typeCounts[type.ordinal()]++;
+    }
+
+    /**
+     * Returns true if an asset with given path (case-insensitive) is in the store
+     *
+     * @param path
+     * @return
+     */
+    public synchronized boolean containsPath(String path)
+    {
+        if (records == null || path == null)
+            return false;
+
+        return findPathSlot(path, hashPath(path)) >= 0;
+    }
+
+    /**
+     * @param type
+     * @return Returns the number of assets of given type in the store
+     */
+    public synchronized int size(CascadeAssetType type)
+    {
+        return typeCounts[type.ordinal()];
+    }
+
+    /**
+     * Returns the assets of given type in the order they were added. The assets are read from the disk while
+     * iterating. Assets added after an iterator is created are not returned by that iterator.
+     *
+     * @param type
+     * @return
+     */
+    public Iterable<CascadeAssetInformation> getAssets(final CascadeAssetType type)
+    {
+        return new Iterable<CascadeAssetInformation>()
+        {
+            public Iterator<CascadeAssetInformation> iterator()
+            {
+                return new RecordIterator(type);
+            }
+        };
+    }
+
+    /**
+     * @return Returns the number of bytes used by the files of the store
+     */
+    public synchronized long getDiskUsage()
+    {
+        if (records == null)
+            return 0;
+
+        return records.getLength() + paths.getLength() + (long) pathTableCapacity * SLOT_SIZE;
+    }
+
+    /**
+     * Closes and deletes the files of the store. Assets can't be added to the store after it gets disposed
+     * and the store appears empty.
+     */
+    public synchronized void dispose()
+    {
+        disposed = true;
+        if (records == null)
+            return;
+
+        records.delete();
+        paths.delete();
+        deletePathTable();
+        records = null;
+        paths = null;
+        recordCount = 0;
+        pathCount = 0;
+        for (int i = 0; i < typeCounts.length; i++)
+            typeCounts[i] = 0;
+    }
+
+    /**
+     * Creates the files of the store
+     *
+     * @throws IOException
+     */
+    private void open() throws IOException
+    {
+        records = new SegmentedFile("smt-created-assets", ".dat");
+        paths = new SegmentedFile("smt-created-paths", ".dat");
+        createPathTable(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the offset of given path in the paths file, writing the path to the file and adding it to the
+     * hash table if it is not there yet
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    private long internPath(String path) throws IOException
+    {
+        int hash = hashPath(path);
+        int slot = findPathSlot(path, hash);
+        if (slot >= 0)
+            return pathTable.getLong(slot * SLOT_SIZE) - 1;
+
+        if ((pathCount + 1) * 2 > pathTableCapacity)
+        {
+            growPathTable();
+            slot = findPathSlot(path, hash);
+        }
+
+        long offset = paths.appendChars(path);
+        int position = (-slot - 1) * SLOT_SIZE;
+        pathTable.putLong(position, offset + 1);
+        pathTable.putInt(position + 8, path.length());
+        pathTable.putInt(position + 12, hash);
+        pathCount++;
+        return offset;
+    }
+
+    /**
+     * Returns the slot with given path if the path is in the hash table or (-slot - 1) of the empty slot where
+     * it should be inserted otherwise
+     *
+     * @param path
+     * @param hash
+     * @return
+     */
+    private int findPathSlot(String path, int hash)
+    {
+        int mask = pathTableCapacity - 1;
+        int slot = hash & mask;
+        while (true)
+        {
+            int position = slot * SLOT_SIZE;
+            long storedOffset = pathTable.getLong(position);
+            if (storedOffset == 0)
+                return -slot - 1;
+
+            if (pathTable.getInt(position + 12) == hash && pathTable.getInt(position + 8) == path.length()
+                    && paths.equalsIgnoreCase(storedOffset - 1, path))
+                return slot;
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Creates a new hash table file with given capacity
+     *
+     * @param capacity
+     * @throws IOException
+     */
+    private void createPathTable(int capacity) throws IOException
+    {
+        pathTableFile = File.createTempFile("smt-created-path-table", ".dat");
+        pathTableFile.deleteOnExit();
+        pathTableRandomAccessFile = new RandomAccessFile(pathTableFile, "rw");
+        pathTable = pathTableRandomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * SLOT_SIZE);
+        pathTableCapacity = capacity;
+    }
+
+    /**
+     * Doubles the capacity of the hash table, moving all the slots to a new file
+     *
+     * @throws IOException
+     */
+    private void growPathTable() throws IOException
+    {
+        if (pathTableCapacity >= Integer.MAX_VALUE / SLOT_SIZE / 2)
+            throw new IOException("Too many created assets");
+
+        MappedByteBuffer oldTable = pathTable;
+        int oldCapacity = pathTableCapacity;
+        File oldFile = pathTableFile;
+        RandomAccessFile oldRandomAccessFile = pathTableRandomAccessFile;
+
+        createPathTable(oldCapacity * 2);
+        int mask = pathTableCapacity - 1;
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++)
+        {
+            int oldPosition = oldSlot * SLOT_SIZE;
+            long storedOffset = oldTable.getLong(oldPosition);
+            if (storedOffset == 0)
+                continue;
+
+            int hash = oldTable.getInt(oldPosition + 12);
+            int slot = hash & mask;
+            while (pathTable.getLong(slot * SLOT_SIZE) != 0)
+                slot = (slot + 1) & mask;
+
+            int position = slot * SLOT_SIZE;
+            pathTable.putLong(position, storedOffset);
+            pathTable.putInt(position + 8, oldTable.getInt(oldPosition + 8));
+            pathTable.putInt(position + 12, hash);
+        }
+
+        unmap(oldTable);
+        closeQuietly(oldRandomAccessFile);
+        deleteFile(oldFile);
+    }
+
+    /**
+     * Unmaps, closes and deletes the hash table file
+     */
+    private void deletePathTable()
+    {
+        unmap(pathTable);
+        closeQuietly(pathTableRandomAccessFile);
+        deleteFile(pathTableFile);
+        pathTable = null;
+        pathTableCapacity = 0;
+    }
+
+    /**
+     * Reads the record with given index and returns it if it is of given type. Returns null if it is of a
+     * different type or if the store got disposed.
+     *
+     * @param index
+     * @param type
+     * @return
+     */
+    private synchronized CascadeAssetInformation readRecord(int index, CascadeAssetType type)
+    {
+        if (records == null || index >= recordCount)
+            return null;
+
+        long recordOffset = (long) index * RECORD_SIZE;
+        MappedByteBuffer buffer = records.getSegment(recordOffset);
+        int position = SegmentedFile.getPositionInSegment(recordOffset);
+        if (buffer.get(position) != type.ordinal())
+            return null;
+
+        byte flags = buffer.get(position + RECORD_FLAGS);
+        String path = paths.readChars(buffer.getLong(position + RECORD_PATH_OFFSET), buffer.getInt(position + RECORD_PATH_LENGTH));
+        String id;
+        if ((flags & FLAG_TEXT_ID) != 0)
+            id = paths.readChars(buffer.getLong(position + RECORD_ID), buffer.getInt(position + RECORD_ID_LENGTH));
+        else
+            id = formatHex(buffer.getLong(position + RECORD_ID), buffer.getLong(position + RECORD_ID + 8));
+
+        return new CascadeAssetInformation(id, path, (flags & FLAG_ALREADY_EXISTED) != 0);
+    }
+
+    /**
+     * @return Returns the number of records at the moment
+     */
+    private synchronized int getRecordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * FNV-1a hash of the lower case characters of the path
+     *
+     * @param path
+     * @return
+     */
+    private static int hashPath(String path)
+    {
+        int hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < path.length(); i++)
+        {
+            char c = Character.toLowerCase(path.charAt(i));
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Cascade ids are 32 lower case hexadecimal characters
+     *
+     * @param id
+     * @return
+     */
+    private static boolean isPackableId(String id)
+    {
+        if (id == null || id.length() != 32)
+            return false;
+
+        for (int i = 0; i < 32; i++)
+        {
+            char c = id.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param id
+     * @param start
+     * @return Returns the 16 hexadecimal characters starting at given position as a long
+     */
+    private static long parseHex(String id, int start)
+    {
+        long value = 0;
+        for (int i = start; i < start + 16; i++)
+            value = (value << 4) | Character.digit(id.charAt(i), 16);
+        return value;
+    }
+
+    /**
+     * @param high
+     * @param low
+     * @return Returns the two longs as 32 lower case hexadecimal characters
+     */
+    private static String formatHex(long high, long low)
+    {
+        char[] id = new char[32];
+        for (int i = 0; i < 16; i++)
+        {
+            id[15 - i] = Character.forDigit((int) (high >>> (4 * i)) & 0xf, 16);
+            id[31 - i] = Character.forDigit((int) (low >>> (4 * i)) & 0xf, 16);
+        }
+        return new String(id);
+    }
+
+    /**
+     * Releases the memory mapping of given buffer right away instead of waiting for the buffer to be garbage
+     * collected, so that the file can be deleted. The buffer must not be used afterwards. There is no public
+     * API for it, so the JDK internals are used - if they are not available, the mapping is released by the
+     * garbage collector.
+     *
+     * @param buffer
+     */
+    private static void unmap(MappedByteBuffer buffer)
+    {
+        try
+        {
+            // Java 9 and newer
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        }
+        catch (NoSuchMethodException e)
+        {
+            // Java 8 and older
+            try
+            {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+            catch (Exception e2)
+            {
+                e2.printStackTrace();
+            }
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deletes given file, reporting a failure
+     *
+     * @param file
+     */
+    private static void deleteFile(File file)
+    {
+        if (!file.delete())
+            new IOException("Could not delete created asset store file " + file.getAbsolutePath()).printStackTrace();
+    }
+
+    /**
+     * Closes given file ignoring any errors
+     *
+     * @param file
+     */
+    private static void closeQuietly(RandomAccessFile file)
+    {
+        try
+        {
+            file.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Iterator over the records of given type that streams the records from the records file
+     */
+    private class RecordIterator implements Iterator<CascadeAssetInformation>
+    {
+        private final CascadeAssetType type;
+        private final int end; // records added after the iterator got created are not included
+        private int index;
+        private CascadeAssetInformation next;
+
+        /**
+         * Constructor
+         *
+         * @param type
+         */
+        private RecordIterator(CascadeAssetType type)
+        {
+            this.type = type;
+            this.end = getRecordCount();
+            this.index = 0;
+        }
+
+        public boolean hasNext()
+        {
+            while (next == null && index < end)
+                next = readRecord(index++, type);
+            return next != null;
+        }
+
+        public CascadeAssetInformation next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            CascadeAssetInformation result = next;
+            next = null;
+            return result;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException("Created asset store is append-only");
+        }
+    }
+
+    /**
+     * An append-only temporary file mapped into memory in segments of {@link CreatedAssetStore#SEGMENT_SIZE}
+     * bytes. Nothing written to the file crosses a segment boundary.
+     */
+    private static class SegmentedFile
+    {
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final List<MappedByteBuffer> segments;
+        private long length; // number of bytes used
+
+        /**
+         * Constructor
+         *
+         * @param prefix
+         * @param suffix
+         * @throws IOException
+         */
+        private SegmentedFile(String prefix, String suffix) throws IOException
+        {
+            file = File.createTempFile(prefix, suffix);
+            file.deleteOnExit();
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            segments = new ArrayList<MappedByteBuffer>();
+            length = 0;
+        }
+
+        /**
+         * Reserves given number of bytes at the end of the file and returns the offset of the reserved bytes
+         *
+         * @param size
+         * @return
+         * @throws IOException
+         */
+        private long reserve(int size) throws IOException
+        {
+            if (size > SEGMENT_SIZE)
+                throw new IOException("Value is too large to be stored: " + size + " bytes");
+
+            // Start a new segment if the value doesn't fit into the current one
+            if (getPositionInSegment(length) + size > SEGMENT_SIZE)
+                length = (length / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+
+            long offset = length;
+            length += size;
+            while (segments.size() * (long) SEGMENT_SIZE < length)
+                segments.add(randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, segments.size() * (long) SEGMENT_SIZE,
+                        SEGMENT_SIZE));
+            return offset;
+        }
+
+        /**
+         * Appends the characters of given string and returns their offset
+         *
+         * @param value
+         * @return
+         * @throws IOException
+         */
+        private long appendChars(String value) throws IOException
+        {
+            long offset = reserve(value.length() * 2);
+            MappedByteBuffer buffer = getSegment(offset);
+            int position = getPositionInSegment(offset);
+            for (int i = 0; i < value.length(); i++)
+                buffer.putChar(position + i * 2, value.charAt(i));
+            return offset;
+        }
+
+        /**
+         * @param offset
+         * @param charCount
+         * @return Returns the string stored at given offset
+         */
+        private String readChars(long offset, int charCount)
+        {
+            MappedByteBuffer buffer = getSegment(offset);
+            int position = getPositionInSegment(offset);
+            char[] value = new char[charCount];
+            for (int i = 0; i < charCount; i++)
+                value[i] = buffer.getChar(position + i * 2);
+            return new String(value);
+        }
+
+        /**
+         * Compares the string stored at given offset with given value ignoring the letter case. The stored
+         * string must have the same length as the value.
+         *
+         * @param offset
+         * @param value
+         * @return
+         */
+        private boolean equalsIgnoreCase(long offset, String value)
+        {
+            MappedByteBuffer buffer = getSegment(offset);
+            int position = getPositionInSegment(offset);
+            for (int i = 0; i < value.length(); i++)
+            {
+                char stored = buffer.getChar(position + i * 2);
+                char c = value.charAt(i);
+                if (stored != c && Character.toLowerCase(stored) != Character.toLowerCase(c))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @param offset
+         * @return Returns the mapped segment that contains given offset
+         */
+        private MappedByteBuffer getSegment(long offset)
+        {
+            return segments.get((int) (offset / SEGMENT_SIZE));
+        }
+
+        /**
+         * @param offset
+         * @return Returns the position of given offset within its segment
+         */
+        private static int getPositionInSegment(long offset)
+        {
+            return (int) (offset % SEGMENT_SIZE);
+        }
+
+        /**
+         * @return Returns the number of bytes used
+         */
+        private long getLength()
+        {
+            return length;
+        }
+
+        /**
+         * Unmaps, closes and deletes the file
+         */
+        private void delete()
+        {
+            for (MappedByteBuffer segment : segments)
+                unmap(segment);
+            segments.clear();
+            closeQuietly(randomAccessFile);
+            deleteFile(file);
+        }
+    }
+}
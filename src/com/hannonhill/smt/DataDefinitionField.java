@@ -13,6 +13,8 @@ package com.hannonhill.smt;
  */
 public class DataDefinitionField extends Field
 {
+    private static final long serialVersionUID = 7731139802112268035L;
+
     // Null if not a chooser field
     private final ChooserType chooserType;
     private final boolean multiple;
@@ -5,6 +5,8 @@
  */
 package com.hannonhill.smt;
 
+import java.io.Serializable;
+
 /**
  * Represents a Cascade field (metadata or data definition)
  * 
@@ -12,8 +14,10 @@ package com.hannonhill.smt;
  * @version $Id$
  * @since   1.0
  */
-public abstract class Field
+public abstract class Field implements Serializable
 {
+    private static final long serialVersionUID = 1638792715541697100L;
+
     private final String identifier;
     private final String label;
 
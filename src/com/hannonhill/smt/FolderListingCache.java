@@ -0,0 +1,394 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.service.WebServices;
+import com.hannonhill.smt.util.FlightRecorderEvents;
+import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.smt.util.SingleFlight;
+import com.hannonhill.www.ws.ns.AssetOperationService.EntityTypeString;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+
+/**
+ * A bounded cache of the child listings of Cascade folders in the project's site, used to answer whether a
+ * page, file or block with given path exists. The first lookup in a folder reads the folder (a single
+ * lightweight call that returns the identifiers of all its children) and all the lookups of its siblings are
+ * answered from that listing, instead of reading each asset by path.
+ *
+ * The least recently used folders are evicted when there are more than the maximum number of folders. Assets
+ * created or deleted during the migration are added to or removed from the cached listings. A listing that was
+ * being read while an asset got created in or deleted from its folder is not cached, as it might not include
+ * the change - changes in other folders don't affect it.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class FolderListingCache
+{
+    private static final int DEFAULT_MAX_FOLDERS = 1000;
+
+    private final int maxFolders;
+    private final LinkedHashMap<String, FolderListing> listings; // lower case folder path to listing, in access
+                                                                 // order
+    private final SingleFlight<FolderListing> loads;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final Map<String, int[]> loadingFolders; // lower case path of a folder being read to the number of
+                                                     // threads reading it (index 0) and the number of changes
+                                                     // in the folder since (index 1)
+
+    /**
+     * Constructor
+     */
+    public FolderListingCache()
+    {
+        this(DEFAULT_MAX_FOLDERS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxFolders maximum number of folder listings kept in the cache
+     */
+    public FolderListingCache(int maxFolders)
+    {
+        this.maxFolders = maxFolders;
+        listings = new LinkedHashMap<String, FolderListing>(16, 0.75f, true);
+        loads = new SingleFlight<FolderListing>();
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        evictions = new AtomicLong();
+        loadingFolders = new HashMap<String, int[]>();
+    }
+
+    /**
+     * Returns the id of the asset of given type and path in the project's site or null if it doesn't exist.
+     * Reads the listing of the asset's parent folder if it is not in the cache.
+     *
+     * @param path path of the asset without the site name
+     * @param type
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    public String getAssetId(String path, CascadeAssetType type, ProjectInformation projectInformation) throws Exception
+    {
+        path = PathUtil.removeLeadingSlashes(path);
+        FolderListing listing = getListing(getFolderKey(PathUtil.getParentFolderPathFromPath(path)), projectInformation);
+        return listing.getId(type, PathUtil.getNameFromPath(path));
+    }
+
+    /**
+     * Adds the asset to the listing of its parent folder if it is in the cache. Should be called when an
+     * asset gets created.
+     *
+     * @param path
+     * @param type
+     * @param id
+     */
+    public synchronized void assetCreated(String path, CascadeAssetType type, String id)
+    {
+        path = PathUtil.removeLeadingSlashes(path);
+        String folderKey = getFolderKey(PathUtil.getParentFolderPathFromPath(path));
+        folderChanged(folderKey);
+        FolderListing listing = listings.get(folderKey);
+        if (listing != null)
+        {
+            // The parent folder was cached as missing, so it must have been created since
+            if (!listing.isExisting())
+                listings.remove(folderKey);
+            else
+                listing.put(type, PathUtil.getNameFromPath(path), id);
+        }
+
+        // A newly created folder is empty
+        if (type == CascadeAssetType.FOLDER)
+        {
+            folderChanged(getFolderKey(path));
+            FolderListing folderListing = listings.get(getFolderKey(path));
+            if (folderListing != null && !folderListing.isExisting())
+                listings.put(getFolderKey(path), new FolderListing(true));
+        }
+    }
+
+    /**
+     * Removes the asset from the listing of its parent folder if it is in the cache. Should be called when an
+     * asset gets deleted.
+     *
+     * @param path
+     * @param type
+     */
+    public synchronized void assetDeleted(String path, CascadeAssetType type)
+    {
+        path = PathUtil.removeLeadingSlashes(path);
+        String folderKey = getFolderKey(PathUtil.getParentFolderPathFromPath(path));
+        folderChanged(folderKey);
+        FolderListing listing = listings.get(folderKey);
+        if (listing != null)
+            listing.remove(type, PathUtil.getNameFromPath(path));
+    }
+
+    /**
+     * Removes all the listings and resets the hit, miss and eviction counts
+     */
+    public synchronized void clear()
+    {
+        listings.clear();
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    /**
+     * @return Returns the number of lookups answered from a cached listing or a listing being read by another
+     *         thread
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns the number of folders that had to be read
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns the number of listings evicted to stay within the limit
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the listing of the folder, reading it if it is not in the cache
+     *
+     * @param folderKey
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    private FolderListing getListing(final String folderKey, final ProjectInformation projectInformation) throws Exception
+    {
+        int changesBefore;
+        synchronized (this)
+        {
+            FolderListing listing = listings.get(folderKey);
+            if (listing != null)
+            {
+                hits.incrementAndGet();
+                FlightRecorderEvents.cacheLookup("folder listing", folderKey, true);
+                return listing;
+            }
+
+            int[] loadingFolder = loadingFolders.get(folderKey);
+            if (loadingFolder == null)
+            {
+                loadingFolder = new int[2];
+                loadingFolders.put(folderKey, loadingFolder);
+            }
+            loadingFolder[0]++;
+            changesBefore = loadingFolder[1];
+        }
+
+        final boolean[] loaded = new boolean[1];
+        FolderListing listing = null;
+        try
+        {
+            listing = loads.execute(folderKey, new Callable<FolderListing>()
+            {
+                public FolderListing call() throws Exception
+                {
+                    loaded[0] = true;
+                    misses.incrementAndGet();
+                    Identifier[] children = readFolderChildren(folderKey, projectInformation);
+                    FolderListing listing = new FolderListing(children != null);
+                    if (children != null)
+                        for (Identifier child : children)
+                        {
+                            CascadeAssetType type = getType(child.getType());
+                            if (type != null)
+                                listing.put(type, PathUtil.getNameFromPath(child.getPath().getPath()), child.getId());
+                        }
+                    return listing;
+                }
+            });
+        }
+        finally
+        {
+            finishLoad(folderKey, loaded[0] ? listing : null, changesBefore);
+        }
+
+        FlightRecorderEvents.cacheLookup("folder listing", folderKey, !loaded[0]);
+        if (!loaded[0])
+            hits.incrementAndGet();
+        return listing;
+    }
+
+    /**
+     * Reads the identifiers of the children of the folder with given path. Returns null if the folder doesn't
+     * exist.
+     *
+     * @param folderPath
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    protected Identifier[] readFolderChildren(String folderPath, ProjectInformation projectInformation) throws Exception
+    {
+        return WebServices.readFolderChildren(folderPath, projectInformation);
+    }
+
+    /**
+     * Registers a change in the folder, so that its listings being read don't get cached
+     *
+     * @param folderKey
+     */
+    private void folderChanged(String folderKey)
+    {
+        int[] loadingFolder = loadingFolders.get(folderKey);
+        if (loadingFolder != null)
+            loadingFolder[1]++;
+    }
+
+    /**
+     * Unregisters the thread reading the folder and adds the listing read by it (if any) to the cache,
+     * evicting the least recently used listings if there are too many. The listing is not added if an asset
+     * got created in or deleted from the folder since the listing started being read.
+     *
+     * @param folderKey
+     * @param listing the listing read by the thread or null if it didn't read one
+     * @param changesBefore number of changes in the folder when the thread started reading it
+     */
+    private synchronized void finishLoad(String folderKey, FolderListing listing, int changesBefore)
+    {
+        int[] loadingFolder = loadingFolders.get(folderKey);
+        boolean changed = loadingFolder[1] != changesBefore;
+        if (--loadingFolder[0] == 0)
+            loadingFolders.remove(folderKey);
+
+        if (listing == null || changed)
+            return;
+
+        listings.put(folderKey, listing);
+
+        Iterator<FolderListing> iterator = listings.values().iterator();
+        while (listings.size() > maxFolders && iterator.hasNext())
+        {
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param folderPath
+     * @return Returns the key of the folder in the cache - lower case path without leading slashes, "/" for
+     *         the root folder
+     */
+    private static String getFolderKey(String folderPath)
+    {
+        String key = PathUtil.removeLeadingSlashes(folderPath).toLowerCase();
+        return key.equals("") ? "/" : key;
+    }
+
+    /**
+     * @param entityType
+     * @return Returns the asset type of given entity type or null if it is not one of the types stored in the
+     *         listings
+     */
+    private static CascadeAssetType getType(EntityTypeString entityType)
+    {
+        if (EntityTypeString.page.equals(entityType))
+            return CascadeAssetType.PAGE;
+        if (EntityTypeString.file.equals(entityType))
+            return CascadeAssetType.FILE;
+        if (EntityTypeString.block_XHTML_DATADEFINITION.equals(entityType))
+            return CascadeAssetType.XHTML_BLOCK;
+        if (EntityTypeString.folder.equals(entityType))
+            return CascadeAssetType.FOLDER;
+        return null;
+    }
+
+    /**
+     * Children of a single folder
+     */
+    private static class FolderListing
+    {
+        private final boolean existing; // false if the folder itself doesn't exist
+        private final Map<String, String> ids; // type and lower case name to asset id
+
+        /**
+         * Constructor
+         *
+         * @param existing
+         */
+        private FolderListing(boolean existing)
+        {
+            this.existing = existing;
+            ids = new HashMap<String, String>();
+        }
+
+        /**
+         * @param type
+         * @param name
+         * @return Returns the id of the child of given type and name or null if there is no such child
+         */
+        private synchronized String getId(CascadeAssetType type, String name)
+        {
+            return ids.get(getKey(type, name));
+        }
+
+        /**
+         * @param type
+         * @param name
+         * @param id
+         */
+        private synchronized void put(CascadeAssetType type, String name, String id)
+        {
+            ids.put(getKey(type, name), id);
+        }
+
+        /**
+         * @param type
+         * @param name
+         */
+        private synchronized void remove(CascadeAssetType type, String name)
+        {
+            ids.remove(getKey(type, name));
+        }
+
+        /**
+         * @return Returns the existing.
+         */
+        private boolean isExisting()
+        {
+            return existing;
+        }
+
+        /**
+         * @param type
+         * @param name
+         * @return
+         */
+        private static String getKey(CascadeAssetType type, String name)
+        {
+            return type.ordinal() + ":" + name.toLowerCase();
+        }
+    }
+}
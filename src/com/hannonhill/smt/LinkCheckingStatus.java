@@ -8,6 +8,8 @@ package com.hannonhill.smt;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.hannonhill.smt.util.StripedCounter;
+
 /**
  * An object containing information about the current status of the actual link checking process
  * 
@@ -16,12 +18,12 @@ import java.util.Set;
  */
 public class LinkCheckingStatus extends TaskStatus
 {
-    private int assetsChecked; // number of assets that were already checked for broken links
-    private int assetsWithErrors; // number of assets that couldn't be read or whose XML couldn't be parsed
-                                  // (or/ any other major problem occurred)
+    private final StripedCounter assetsChecked; // number of assets that were already checked for broken links
+    private final StripedCounter assetsWithErrors; // number of assets that couldn't be read or whose XML couldn't
+                                                   // be parsed (or/ any other major problem occurred)
 
-    private int correctLinks; // number of valid links total
-    private int brokenLinks; // number of broken links total
+    private final StripedCounter correctLinks; // number of valid links total
+    private final StripedCounter brokenLinks; // number of broken links total
 
     private final Set<String> validLinkCache; // A cache containing a set of valid links
     private final Set<String> invalidLinkCache; // A cache containing a set of broken links
@@ -33,11 +35,11 @@ public class LinkCheckingStatus extends TaskStatus
     {
         super();
 
-        assetsChecked = 0;
-        assetsWithErrors = 0;
+        assetsChecked = new StripedCounter();
+        assetsWithErrors = new StripedCounter();
 
-        correctLinks = 0;
-        brokenLinks = 0;
+        correctLinks = new StripedCounter();
+        brokenLinks = new StripedCounter();
 
         validLinkCache = new HashSet<String>();
         invalidLinkCache = new HashSet<String>();
@@ -48,7 +50,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public int getAssetsChecked()
     {
-        return assetsChecked;
+        return (int) assetsChecked.sum();
     }
 
     /**
@@ -56,7 +58,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public void incrementAssetsChecked()
     {
-        assetsChecked++;
+        assetsChecked.increment();
     }
 
     /**
@@ -64,7 +66,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public int getAssetsWithErrors()
     {
-        return assetsWithErrors;
+        return (int) assetsWithErrors.sum();
     }
 
     /**
@@ -72,7 +74,8 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public void incrementAssetsWithErrors()
     {
-        assetsWithErrors++;
+        assetsWithErrors.increment();
+        errorOccurred();
     }
 
     /**
@@ -80,7 +83,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public int getCorrectLinks()
     {
-        return correctLinks;
+        return (int) correctLinks.sum();
     }
 
     /**
@@ -88,7 +91,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public void incrementsCorrectLinks()
     {
-        correctLinks++;
+        correctLinks.increment();
     }
 
     /**
@@ -96,7 +99,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public int getBrokenLinks()
     {
-        return brokenLinks;
+        return (int) brokenLinks.sum();
     }
 
     /**
@@ -104,7 +107,7 @@ public class LinkCheckingStatus extends TaskStatus
      */
     public void incrementBrokenLinks()
     {
-        brokenLinks++;
+        brokenLinks.increment();
     }
 
     /**
@@ -14,6 +14,8 @@ package com.hannonhill.smt;
  */
 public class MetadataSetField extends Field
 {
+    private static final long serialVersionUID = 3629997960468920313L;
+
     private final boolean isDynamic;
 
     /**
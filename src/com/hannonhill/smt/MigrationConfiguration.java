@@ -0,0 +1,191 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the user's choices in {@link ProjectInformation} (mappings, extensions, root level
+ * folder assignments and migration options) taken when a task starts. The migration threads read the
+ * configuration from the snapshot, so they don't need any locks and are not affected by the user changing the
+ * project in the meantime.
+ *
+ * The mappings are split up front by the kind of field they map to, and static values are already escaped,
+ * so that this work is not repeated for each page.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MigrationConfiguration
+{
+    private final String contentTypePath;
+    private final ContentTypeInformation contentType;
+    private final String overwriteBehavior;
+    private final String blockDiscoveryMode;
+    private final Map<String, DataDefinitionField> dataDefinitionFieldMapping; // XPath to data definition field
+    private final Map<String, MetadataSetField> metadataFieldMapping; // XPath to metadata field
+    private final Map<DataDefinitionField, String> dataDefinitionStaticValues; // field to its escaped value
+    private final Map<MetadataSetField, String> metadataStaticValues; // field to its escaped value
+    private final Map<String, String> templateToBlockMapping;
+    private final Set<String> pageExtensions;
+    private final Set<String> blockExtensions;
+    private final Map<String, ExternalRootLevelFolderAssignment> rootLevelFolderAssignments; // root level folder
+                                                                                             // name to assignment
+
+    /**
+     * Constructor. Copies the configuration from the project information.
+     *
+     * @param projectInformation
+     */
+    public MigrationConfiguration(ProjectInformation projectInformation)
+    {
+        contentTypePath = projectInformation.getContentTypePath();
+        contentType = contentTypePath == null ? null : projectInformation.getContentTypes().get(contentTypePath);
+        overwriteBehavior = projectInformation.getOverwriteBehavior();
+        blockDiscoveryMode = projectInformation.getBlockDiscoveryMode();
+
+        Map<String, DataDefinitionField> dataDefinitionFieldMapping = new LinkedHashMap<String, DataDefinitionField>();
+        Map<String, MetadataSetField> metadataFieldMapping = new LinkedHashMap<String, MetadataSetField>();
+        for (Map.Entry<String, Field> entry : projectInformation.getFieldMapping().entrySet())
+        {
+            if (entry.getValue() instanceof DataDefinitionField)
+                dataDefinitionFieldMapping.put(entry.getKey(), (DataDefinitionField) entry.getValue());
+            else if (entry.getValue() instanceof MetadataSetField)
+                metadataFieldMapping.put(entry.getKey(), (MetadataSetField) entry.getValue());
+        }
+        this.dataDefinitionFieldMapping = Collections.unmodifiableMap(dataDefinitionFieldMapping);
+        this.metadataFieldMapping = Collections.unmodifiableMap(metadataFieldMapping);
+
+        Map<DataDefinitionField, String> dataDefinitionStaticValues = new LinkedHashMap<DataDefinitionField, String>();
+        Map<MetadataSetField, String> metadataStaticValues = new LinkedHashMap<MetadataSetField, String>();
+        for (Map.Entry<Field, String> entry : projectInformation.getStaticValueMapping().entrySet())
+        {
+            // Escape ampersands to make it a valid xml
+            String value = entry.getValue().replaceAll("&", "&amp;");
+            if (entry.getKey() instanceof DataDefinitionField)
+                dataDefinitionStaticValues.put((DataDefinitionField) entry.getKey(), value);
+            else if (entry.getKey() instanceof MetadataSetField)
+                metadataStaticValues.put((MetadataSetField) entry.getKey(), value);
+        }
+        this.dataDefinitionStaticValues = Collections.unmodifiableMap(dataDefinitionStaticValues);
+        this.metadataStaticValues = Collections.unmodifiableMap(metadataStaticValues);
+
+        templateToBlockMapping = Collections.unmodifiableMap(new HashMap<String, String>(projectInformation.getTemplateToBlockMapping()));
+        pageExtensions = Collections.unmodifiableSet(new HashSet<String>(projectInformation.getPageExtensions()));
+        blockExtensions = Collections.unmodifiableSet(new HashSet<String>(projectInformation.getBlockExtensions()));
+        rootLevelFolderAssignments = Collections.unmodifiableMap(new HashMap<String, ExternalRootLevelFolderAssignment>(projectInformation
+                .getExternalRootLevelFolderAssignemnts()));
+    }
+
+    /**
+     * @param extension
+     * @return Returns true if files with given extension are converted to pages
+     */
+    public boolean isPageExtension(String extension)
+    {
+        return pageExtensions.contains(extension);
+    }
+
+    /**
+     * @param extension
+     * @return Returns true if files with given extension are converted to XHTML blocks
+     */
+    public boolean isBlockExtension(String extension)
+    {
+        return blockExtensions.contains(extension);
+    }
+
+    /**
+     * Returns the assignment of the root level folder the absolute path starts with or null if that folder is
+     * not assigned to an external location or if the path points to an asset in the root folder
+     *
+     * @param path absolute path, for example /folder/page
+     * @return
+     */
+    public ExternalRootLevelFolderAssignment getRootLevelFolderAssignment(String path)
+    {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end == -1 ? null : rootLevelFolderAssignments.get(path.substring(start, end));
+    }
+
+    /**
+     * @return Returns the contentTypePath.
+     */
+    public String getContentTypePath()
+    {
+        return contentTypePath;
+    }
+
+    /**
+     * @return Returns the contentType.
+     */
+    public ContentTypeInformation getContentType()
+    {
+        return contentType;
+    }
+
+    /**
+     * @return Returns the overwriteBehavior.
+     */
+    public String getOverwriteBehavior()
+    {
+        return overwriteBehavior;
+    }
+
+    /**
+     * @return Returns the blockDiscoveryMode.
+     */
+    public String getBlockDiscoveryMode()
+    {
+        return blockDiscoveryMode;
+    }
+
+    /**
+     * @return Returns the dataDefinitionFieldMapping.
+     */
+    public Map<String, DataDefinitionField> getDataDefinitionFieldMapping()
+    {
+        return dataDefinitionFieldMapping;
+    }
+
+    /**
+     * @return Returns the metadataFieldMapping.
+     */
+    public Map<String, MetadataSetField> getMetadataFieldMapping()
+    {
+        return metadataFieldMapping;
+    }
+
+    /**
+     * @return Returns the dataDefinitionStaticValues.
+     */
+    public Map<DataDefinitionField, String> getDataDefinitionStaticValues()
+    {
+        return dataDefinitionStaticValues;
+    }
+
+    /**
+     * @return Returns the metadataStaticValues.
+     */
+    public Map<MetadataSetField, String> getMetadataStaticValues()
+    {
+        return metadataStaticValues;
+    }
+
+    /**
+     * @return Returns the templateToBlockMapping.
+     */
+    public Map<String, String> getTemplateToBlockMapping()
+    {
+        return templateToBlockMapping;
+    }
+}
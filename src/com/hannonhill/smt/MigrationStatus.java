@@ -5,10 +5,9 @@
  */
 package com.hannonhill.smt;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.IOException;
+
+import com.hannonhill.smt.util.StripedCounter;
 
 /**
  * An object containing information about the current status of the actual migration process
@@ -18,17 +17,18 @@ import java.util.Set;
  */
 public class MigrationStatus extends TaskStatus
 {
-    private int assetsCreated;
-    private int assetsSkipped;
-    private int assetsWithErrors;
-
-    private int assetsAligned;
-    private int assetsNotAligned;
+    private final StripedCounter assetsCreated;
+    private final StripedCounter assetsSkipped;
+    private final StripedCounter assetsWithErrors;
 
-    private final List<CascadeAssetInformation> createdPages; // a list of ids and paths of created pages
-    private final List<CascadeAssetInformation> createdBlocks; // a list of ids of created blocks
+    private final StripedCounter assetsAligned;
+    private final StripedCounter assetsNotAligned;
 
-    private final Set<String> createdAssetPaths; // to quickly check for duplicates
+    private final CreatedAssetStore createdAssets; // ids and paths of created pages and blocks - kept on disk
+                                                   // rather than on the heap, also used to quickly check for
+                                                   // duplicate paths
+    private final StageReport stageReport; // time spent in each stage of creating and aligning the assets
+    private boolean disposeWhenCompleted; // true if the created assets are not needed after the migration
 
     /**
      * Constructor
@@ -37,17 +37,23 @@ public class MigrationStatus extends TaskStatus
     {
         super();
 
-        assetsCreated = 0;
-        assetsSkipped = 0;
-        assetsWithErrors = 0;
+        assetsCreated = new StripedCounter();
+        assetsSkipped = new StripedCounter();
+        assetsWithErrors = new StripedCounter();
 
-        assetsAligned = 0;
-        assetsNotAligned = 0;
+        assetsAligned = new StripedCounter();
+        assetsNotAligned = new StripedCounter();
 
-        createdPages = new ArrayList<CascadeAssetInformation>();
-        createdBlocks = new ArrayList<CascadeAssetInformation>();
+        createdAssets = new CreatedAssetStore();
+        stageReport = new StageReport();
+    }
 
-        createdAssetPaths = new HashSet<String>();
+    /**
+     * @return Returns the stageReport.
+     */
+    public StageReport getStageReport()
+    {
+        return stageReport;
     }
 
     /**
@@ -55,7 +61,7 @@ public class MigrationStatus extends TaskStatus
      */
     public int getAssetsCreated()
     {
-        return assetsCreated;
+        return (int) assetsCreated.sum();
     }
 
     /**
@@ -63,7 +69,7 @@ public class MigrationStatus extends TaskStatus
      */
     public void incrementAssetsCreated()
     {
-        assetsCreated++;
+        assetsCreated.increment();
     }
 
     /**
@@ -71,7 +77,7 @@ public class MigrationStatus extends TaskStatus
      */
     public int getAssetsSkipped()
     {
-        return assetsSkipped;
+        return (int) assetsSkipped.sum();
     }
 
     /**
@@ -79,7 +85,7 @@ public class MigrationStatus extends TaskStatus
      */
     public void incrementAssetsSkipped()
     {
-        assetsSkipped++;
+        assetsSkipped.increment();
     }
 
     /**
@@ -87,7 +93,7 @@ public class MigrationStatus extends TaskStatus
      */
     public int getAssetsWithErrors()
     {
-        return assetsWithErrors;
+        return (int) assetsWithErrors.sum();
     }
 
     /**
@@ -95,7 +101,8 @@ public class MigrationStatus extends TaskStatus
      */
     public void incrementAssetsWithErrors()
     {
-        assetsWithErrors++;
+        assetsWithErrors.increment();
+        errorOccurred();
     }
 
     /**
@@ -103,7 +110,7 @@ public class MigrationStatus extends TaskStatus
      */
     public int getAssetsAligned()
     {
-        return assetsAligned;
+        return (int) assetsAligned.sum();
     }
 
     /**
@@ -111,7 +118,7 @@ public class MigrationStatus extends TaskStatus
      */
     public void incrementAssetsAligned()
     {
-        assetsAligned++;
+        assetsAligned.increment();
     }
 
     /**
@@ -119,7 +126,7 @@ public class MigrationStatus extends TaskStatus
      */
     public int getAssetsNotAligned()
     {
-        return assetsNotAligned;
+        return (int) assetsNotAligned.sum();
     }
 
     /**
@@ -127,52 +134,101 @@ public class MigrationStatus extends TaskStatus
      */
     public void incrementAssetsNotAligned()
     {
-        assetsNotAligned++;
+        assetsNotAligned.increment();
+        errorOccurred();
     }
 
     /**
-     * @return Returns the createdPages.
+     * @return Returns the created pages. The pages are read from the disk while iterating.
      */
-    public List<CascadeAssetInformation> getCreatedPages()
+    public Iterable<CascadeAssetInformation> getCreatedPages()
     {
-        return createdPages;
+        return createdAssets.getAssets(CascadeAssetType.PAGE);
     }
 
     /**
-     * Adds the created page to the list and its path to the set
+     * @return Returns the number of created pages
+     */
+    public int getCreatedPageCount()
+    {
+        return createdAssets.size(CascadeAssetType.PAGE);
+    }
+
+    /**
+     * Adds the created page to the created assets
      * 
      * @param page
+     * @throws IOException
+     */
+    public void addCreatedPage(CascadeAssetInformation page) throws IOException
+    {
+        createdAssets.add(CascadeAssetType.PAGE, page);
+    }
+
+    /**
+     * @return Returns the created blocks. The blocks are read from the disk while iterating.
      */
-    public void addCreatedPage(CascadeAssetInformation page)
+    public Iterable<CascadeAssetInformation> getCreatedBlocks()
     {
-        createdPages.add(page);
-        createdAssetPaths.add(page.getPath().toLowerCase());
+        return createdAssets.getAssets(CascadeAssetType.XHTML_BLOCK);
     }
 
     /**
-     * @return Returns the createdBlocks.
+     * @return Returns the number of created blocks
      */
-    public List<CascadeAssetInformation> getCreatedBlocks()
+    public int getCreatedBlockCount()
     {
-        return createdBlocks;
+        return createdAssets.size(CascadeAssetType.XHTML_BLOCK);
     }
 
     /**
-     * Adds the created block to the list and its path to the set
+     * Adds the created block to the created assets
      * 
      * @param block
+     * @throws IOException
+     */
+    public void addCreatedBlock(CascadeAssetInformation block) throws IOException
+    {
+        createdAssets.add(CascadeAssetType.XHTML_BLOCK, block);
+    }
+
+    /**
+     * Returns true if a page or block with given path (case-insensitive) got created during this migration
+     * 
+     * @param path
+     * @return
      */
-    public void addCreatedBlock(CascadeAssetInformation block)
+    public boolean isCreatedAssetPath(String path)
     {
-        createdBlocks.add(block);
-        createdAssetPaths.add(block.getPath().toLowerCase());
+        return createdAssets.containsPath(path);
     }
 
     /**
-     * @return Returns the createdAssetPaths.
+     * Deletes the files that store the created assets. Should be called when this status is no longer used.
      */
-    public Set<String> getCreatedAssetPaths()
+    public void dispose()
+    {
+        createdAssets.dispose();
+    }
+
+    /**
+     * Deletes the files that store the created assets once the migration is completed, or right away if it is
+     * already completed. Used when nobody will look at this status anymore, but its migration may still be
+     * running.
+     */
+    public synchronized void disposeWhenCompleted()
+    {
+        if (isCompleted())
+            dispose();
+        else
+            disposeWhenCompleted = true;
+    }
+
+    @Override
+    public synchronized void setCompleted(boolean completed)
     {
-        return createdAssetPaths;
+        super.setCompleted(completed);
+        if (completed && disposeWhenCompleted)
+            dispose();
     }
 }
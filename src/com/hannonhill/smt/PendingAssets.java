@@ -0,0 +1,216 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hannonhill.smt.service.MemoryAdmissionController;
+import com.hannonhill.smt.util.PathUtil;
+
+/**
+ * Paths of assets (files, blocks and pages) that are scheduled to be created during the migration but are
+ * not created yet. An asset that depends on a pending asset can either wait for it (for example a page whose
+ * file chooser references a file that is still being uploaded) or register an action to be run once the
+ * pending assets it depends on are created (for example aligning the links of a page once the pages it links
+ * to exist).
+ *
+ * A pending asset is completed whether its creation succeeded or not - the dependent assets only need to know
+ * that there is no point in waiting any longer.
+ *
+ * Only files and blocks can be waited for. They are scheduled before the pages and don't wait for anything
+ * themselves, so the waits always end. Pages can reference each other (even in a cycle) and are queued behind
+ * the pages waiting for them, so waiting for a page could deadlock - the assets depending on pages register
+ * actions instead. A wait also ends when the task is stopped.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class PendingAssets
+{
+    private static final long STOP_CHECK_INTERVAL_MS = 1000; // how often a waiting thread checks if the task got stopped
+
+    private final Map<String, PendingAsset> pendingAssets; // lower case path to the pending asset
+
+    /**
+     * Constructor
+     */
+    public PendingAssets()
+    {
+        pendingAssets = new HashMap<String, PendingAsset>();
+    }
+
+    /**
+     * Registers an asset that is about to be scheduled for creation
+     *
+     * @param path
+     * @param awaitable true if the asset is a file or a block, which other assets can wait for
+     */
+    public synchronized void register(String path, boolean awaitable)
+    {
+        String key = getKey(path);
+        if (!pendingAssets.containsKey(key))
+            pendingAssets.put(key, new PendingAsset(awaitable));
+    }
+
+    /**
+     * Marks the asset as created (or failed to be created) and runs the actions that were waiting only for
+     * this asset
+     *
+     * @param path
+     */
+    public void complete(String path)
+    {
+        PendingAsset pendingAsset;
+        synchronized (this)
+        {
+            pendingAsset = pendingAssets.remove(getKey(path));
+        }
+
+        if (pendingAsset == null)
+            return;
+
+        pendingAsset.latch.countDown();
+        for (Runnable listener : pendingAsset.listeners)
+            listener.run();
+    }
+
+    /**
+     * Waits until the file or block with given path is created or the task is stopped. Returns immediately if
+     * there is no such file or block pending - pending pages are never waited for. The memory admission of the
+     * current thread is given up while waiting.
+     *
+     * @param path
+     * @param taskStatus status of the task that waits
+     * @return Returns true if the asset was pending and got created
+     * @throws InterruptedException
+     */
+    public boolean await(String path, TaskStatus taskStatus) throws InterruptedException
+    {
+        PendingAsset pendingAsset;
+        synchronized (this)
+        {
+            pendingAsset = pendingAssets.get(getKey(path));
+        }
+
+        if (pendingAsset == null || !pendingAsset.awaitable)
+            return false;
+
+        if (pendingAsset.latch.getCount() == 0)
+            return true;
+
+        // The asset being waited for might need the memory held by this one to be admitted
+        long estimate = MemoryAdmissionController.suspend();
+        try
+        {
+            while (!pendingAsset.latch.await(STOP_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                if (taskStatus.isShouldStop())
+                    return false;
+            return true;
+        }
+        finally
+        {
+            MemoryAdmissionController.resume(estimate);
+        }
+    }
+
+    /**
+     * Runs the action once all the assets with given paths that are pending now are created. If none of them
+     * is pending, runs the action right away on the current thread. Otherwise the action is run on the
+     * thread that completes the last of them.
+     *
+     * @param paths
+     * @param action
+     */
+    public void whenCreated(Collection<String> paths, final Runnable action)
+    {
+        // Starts at 1 so that the action cannot run before all the listeners are registered
+        final AtomicInteger remaining = new AtomicInteger(1);
+        Runnable listener = new Runnable()
+        {
+            public void run()
+            {
+                if (remaining.decrementAndGet() == 0)
+                    action.run();
+            }
+        };
+
+        Set<String> keys = new HashSet<String>();
+        for (String path : paths)
+            keys.add(getKey(path));
+
+        synchronized (this)
+        {
+            for (String key : keys)
+            {
+                PendingAsset pendingAsset = pendingAssets.get(key);
+                if (pendingAsset != null)
+                {
+                    remaining.incrementAndGet();
+                    pendingAsset.listeners.add(listener);
+                }
+            }
+        }
+
+        listener.run();
+    }
+
+    /**
+     * @return Returns the number of pending assets
+     */
+    public synchronized int size()
+    {
+        return pendingAssets.size();
+    }
+
+    /**
+     * Forgets all the pending assets without running their actions
+     */
+    public synchronized void clear()
+    {
+        for (PendingAsset pendingAsset : pendingAssets.values())
+            pendingAsset.latch.countDown();
+        pendingAssets.clear();
+    }
+
+    /**
+     * @param path
+     * @return
+     */
+    private static String getKey(String path)
+    {
+        return PathUtil.removeLeadingSlashes(path).toLowerCase();
+    }
+
+    /**
+     * An asset that is not created yet
+     */
+    private static class PendingAsset
+    {
+        private final boolean awaitable;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final List<Runnable> listeners = new ArrayList<Runnable>(); // modified only while the asset
+                                                                             // is in the map
+
+        /**
+         * Constructor
+         *
+         * @param awaitable
+         */
+        private PendingAsset(boolean awaitable)
+        {
+            this.awaitable = awaitable;
+        }
+    }
+}
@@ -6,18 +6,27 @@
 package com.hannonhill.smt;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import com.hannonhill.smt.util.FolderOrderComparator;
 
 /**
- * This object holds all the current project information
+ * This object holds all the current project information. It is kept in the user's session and when the
+ * session ends (it expires or Tomcat shuts down), the files of the created assets are deleted.
  * 
  * @author Artur Tomusiak
  * @since 1.0
  */
-public class ProjectInformation
+public class ProjectInformation implements HttpSessionBindingListener
 {
     private static final String UPLOADS_DIR = "uploads";
     private static final String LOGS_DIR = "logs";
@@ -25,6 +34,8 @@ public class ProjectInformation
     public static final String OVERWRITE_BEHAVIOR_OVERWRITE_EXISTING = "Overwrite existing (deletes and re-creates them)";
     public static final String OVERWRITE_BEHAVIOR_UPDATE_EXISTING = "Update existing (edits existing assets)";
     public static final String OVERWRITE_BEHAVIOR_SKIP_EXISTING = "Skip existing (does nothing if asset already exists, always on for files)";
+    public static final String BLOCK_DISCOVERY_READ_ALL = "Read all blocks before migration (slow for sites with many blocks)";
+    public static final String BLOCK_DISCOVERY_SEARCH = "Search for blocks when pages reference them (reads only the referenced blocks)";
 
     // user entered information
     private String url;
@@ -35,6 +46,7 @@ public class ProjectInformation
     private String contentTypePath;
     private String overwriteBehavior; // Matches one of the constants
                                       // ProjectInformation.OVERWRITE_BEHAVIOR_???
+    private String blockDiscoveryMode; // Matches one of the constants ProjectInformation.BLOCK_DISCOVERY_???
     private Map<String, ExternalRootLevelFolderAssignment> externalRootLevelFolderAssignemnts;
     private final Map<String, Field> fieldMapping = new HashMap<String, Field>(); // a mapping from an XPath
                                                                                   // to a Cascade field
@@ -49,29 +61,31 @@ public class ProjectInformation
                                                               // information (with the available metadata and
                                                               // dd fields)
     private final Set<File> filesToProcess; // All the files that need to be processed during migration -
-                                            // it is a set to avoid duplicates and because order doesn't
-                                            // really matter
+                                            // it is a set to avoid duplicates, ordered by folder so that
+                                            // the assets of a folder are migrated together
     Set<String> gatheredExtensions = new HashSet<String>();
 
-    // path to id map
-    private final Map<String, String> existingCascadeFiles; // Used for Luminis file import and link checking
-    private final Map<String, String> existingCascadeXhtmlBlocks;// performance reasons - file paths are
-                                                                 // checked first
-    private final Map<String, String> blockIdToPathMap; // Maps from block's dynamic metadata field "id" to
-                                                        // the block's path
+    // path to id index of existing files, xhtml blocks and pages (used for Luminis file import, link
+    // checking performance reasons and to avoid having to check if an asset exists each time a new asset is
+    // brought in). It also maps block's dynamic metadata field "id" to the block's path.
+    private final CascadeAssetIndex existingCascadeAssets;
     private final Set<String> specialBlockIds; // Ids of blocks whose content should be copied to pages rather
                                                // than blocks themselve being assigned to the pages' block
                                                // choosers
-
-    // to avoid having to check if file exists each time a new
-    // file is brought in
-    private final Map<String, String> existingCascadePages; // Also used for link checking performance reasons
+    private final Set<String> undiscoveredBlockIds; // Block ids that were searched for and no block was found
+    private final SpecialBlockCache specialBlockCache; // Content of special blocks by block's asset id
+    private final AssetLookupCache assetLookupCache; // Lookups of assets by path that are in progress or found
+                                                     // nothing
+    private final FolderListingCache folderListingCache; // Children of recently used folders
+    private final PendingAssets pendingAssets; // Assets scheduled to be created and not created yet
 
     private final Set<String> pageExtensions; // Extensions of files that need to be converted to pages
     private final Set<String> blockExtensions; // Extensions of files that need to be converted to xhtml
                                                // blocks
 
     // other useful information
+    private volatile MigrationConfiguration configuration; // Snapshot of the configuration taken when the
+                                                           // current task started
     private MigrationStatus migrationStatus;
     private LinkCheckingStatus linkCheckingStatus;
     private String currentTask;
@@ -88,19 +102,23 @@ public class ProjectInformation
         uploadsDir = tomcatDir + "/" + UPLOADS_DIR + "/";
         logsDir = tomcatDir + "/" + LOGS_DIR + "/";
         overwriteBehavior = OVERWRITE_BEHAVIOR_KEEP_EXISTING;
+        blockDiscoveryMode = BLOCK_DISCOVERY_READ_ALL;
         migrationStatus = new MigrationStatus();
         linkCheckingStatus = new LinkCheckingStatus();
         currentTask = null;
-        filesToProcess = new HashSet<File>();
+        filesToProcess = new TreeSet<File>(new FolderOrderComparator());
         contentTypes = new HashMap<String, ContentTypeInformation>();
         externalRootLevelFolderAssignemnts = new HashMap<String, ExternalRootLevelFolderAssignment>();
-        existingCascadeFiles = new HashMap<String, String>();
-        existingCascadeXhtmlBlocks = new HashMap<String, String>();
-        blockIdToPathMap = new HashMap<String, String>();
-        existingCascadePages = new HashMap<String, String>();
+        existingCascadeAssets = new CascadeAssetIndex();
         pageExtensions = new HashSet<String>();
         blockExtensions = new HashSet<String>();
-        specialBlockIds = new HashSet<String>();
+        // both are modified by the migration lane threads
+        specialBlockIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        undiscoveredBlockIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        specialBlockCache = new SpecialBlockCache();
+        assetLookupCache = new AssetLookupCache();
+        folderListingCache = new FolderListingCache();
+        pendingAssets = new PendingAssets();
 
         setDefaultExtensions();
     }
@@ -227,6 +245,22 @@ public class ProjectInformation
         this.overwriteBehavior = overwriteBehavior;
     }
 
+    /**
+     * @return Returns the blockDiscoveryMode.
+     */
+    public String getBlockDiscoveryMode()
+    {
+        return blockDiscoveryMode;
+    }
+
+    /**
+     * @param blockDiscoveryMode the blockDiscoveryMode to set
+     */
+    public void setBlockDiscoveryMode(String blockDiscoveryMode)
+    {
+        this.blockDiscoveryMode = blockDiscoveryMode;
+    }
+
     /**
      * @return Returns the contentTypes.
      */
@@ -264,9 +298,23 @@ public class ProjectInformation
      */
     public void setMigrationStatus(MigrationStatus migrationStatus)
     {
+        // The created assets of the previous migration are stored on disk, so the files need to be removed
+        if (this.migrationStatus != null && this.migrationStatus != migrationStatus)
+            this.migrationStatus.dispose();
+
         this.migrationStatus = migrationStatus;
     }
 
+    public void valueBound(HttpSessionBindingEvent event)
+    {
+    }
+
+    public void valueUnbound(HttpSessionBindingEvent event)
+    {
+        // The migration can outlive the session, so the created assets are deleted once it finishes
+        migrationStatus.disposeWhenCompleted();
+    }
+
     /**
      * @return Returns the gatheredExtensions.
      */
@@ -340,27 +388,11 @@ public class ProjectInformation
     }
 
     /**
-     * @return Returns the existingCascadeFiles.
-     */
-    public Map<String, String> getExistingCascadeFiles()
-    {
-        return existingCascadeFiles;
-    }
-
-    /**
-     * @return Returns the existingCascadeXhtmlBlocks.
+     * @return Returns the existingCascadeAssets.
      */
-    public Map<String, String> getExistingCascadeXhtmlBlocks()
+    public CascadeAssetIndex getExistingCascadeAssets()
     {
-        return existingCascadeXhtmlBlocks;
-    }
-
-    /**
-     * @return Returns the existingCascadePages.
-     */
-    public Map<String, String> getExistingCascadePages()
-    {
-        return existingCascadePages;
+        return existingCascadeAssets;
     }
 
     /**
@@ -458,19 +490,70 @@ public class ProjectInformation
     }
 
     /**
-     * @return Returns the blockIdToPathMap.
+     * @return Returns the specialBlockIds.
+     */
+    public Set<String> getSpecialBlockIds()
+    {
+        return specialBlockIds;
+    }
+
+    /**
+     * @return Returns the undiscoveredBlockIds.
      */
-    public Map<String, String> getBlockIdToPathMap()
+    public Set<String> getUndiscoveredBlockIds()
     {
-        return blockIdToPathMap;
+        return undiscoveredBlockIds;
     }
 
     /**
-     * @return Returns the specialBlockIds.
+     * @return Returns the specialBlockCache.
      */
-    public Set<String> getSpecialBlockIds()
+    public SpecialBlockCache getSpecialBlockCache()
     {
-        return specialBlockIds;
+        return specialBlockCache;
+    }
+
+    /**
+     * @return Returns the assetLookupCache.
+     */
+    public AssetLookupCache getAssetLookupCache()
+    {
+        return assetLookupCache;
+    }
+
+    /**
+     * @return Returns the folderListingCache.
+     */
+    public FolderListingCache getFolderListingCache()
+    {
+        return folderListingCache;
+    }
+
+    /**
+     * Takes a snapshot of the current configuration to be used by the task that is starting. Changes made to
+     * the project after this call don't affect the task.
+     */
+    public void freezeConfiguration()
+    {
+        configuration = new MigrationConfiguration(this);
+    }
+
+    /**
+     * @return Returns the configuration snapshot taken when the current task started or a snapshot of the
+     *         current configuration if no task has started yet
+     */
+    public MigrationConfiguration getConfiguration()
+    {
+        MigrationConfiguration configuration = this.configuration;
+        return configuration != null ? configuration : new MigrationConfiguration(this);
+    }
+
+    /**
+     * @return Returns the pendingAssets.
+     */
+    public PendingAssets getPendingAssets()
+    {
+        return pendingAssets;
     }
 
     /**
@@ -0,0 +1,341 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.service.WebServices;
+import com.hannonhill.smt.util.FlightRecorderEvents;
+import com.hannonhill.www.ws.ns.AssetOperationService.DynamicMetadataField;
+import com.hannonhill.www.ws.ns.AssetOperationService.FieldValue;
+import com.hannonhill.www.ws.ns.AssetOperationService.Metadata;
+import com.hannonhill.www.ws.ns.AssetOperationService.StructuredDataNode;
+import com.hannonhill.www.ws.ns.AssetOperationService.XhtmlDataDefinitionBlock;
+
+/**
+ * A bounded cache of the content (structured data nodes and metadata) of special blocks, keyed by the block's
+ * asset id. A special block can be referenced by thousands of pages, so this avoids reading it over and over
+ * again.
+ *
+ * The least recently used entries are evicted when the estimated size of all the entries exceeds the limit.
+ * If multiple threads ask for the same block that is not in the cache, the block is read only once and all
+ * of them get the result of that read. Failed reads are not cached.
+ *
+ * The cached objects are shared by all the pages that use them and must not be modified.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class SpecialBlockCache
+{
+    private static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024; // estimated bytes
+    private static final int OBJECT_SIZE = 16; // rough size of an object without its fields
+    private static final int REFERENCE_SIZE = 4;
+
+    private final long maxSize;
+    private final LinkedHashMap<String, SpecialBlockContent> entries; // in access order
+    private final Map<String, FutureTask<SpecialBlockContent>> loads;
+    private long size;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    /**
+     * Constructor
+     */
+    public SpecialBlockCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxSize maximum estimated size of all the entries in bytes
+     */
+    public SpecialBlockCache(long maxSize)
+    {
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<String, SpecialBlockContent>(16, 0.75f, true);
+        loads = new ConcurrentHashMap<String, FutureTask<SpecialBlockContent>>();
+        size = 0;
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        evictions = new AtomicLong();
+    }
+
+    /**
+     * Returns the content of the block with given id, reading the block through web services if it is not in
+     * the cache
+     *
+     * @param blockId
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    public SpecialBlockContent getContent(final String blockId, final ProjectInformation projectInformation) throws Exception
+    {
+        synchronized (this)
+        {
+            SpecialBlockContent content = entries.get(blockId);
+            if (content != null)
+            {
+                hits.incrementAndGet();
+                FlightRecorderEvents.cacheLookup("special block", blockId, true);
+                return content;
+            }
+        }
+
+        // Join a read of the same block that is already in progress or start a new one
+        FutureTask<SpecialBlockContent> newLoad = new FutureTask<SpecialBlockContent>(new Callable<SpecialBlockContent>()
+        {
+            public SpecialBlockContent call() throws Exception
+            {
+                XhtmlDataDefinitionBlock block = WebServices.readXhtmlBlock(blockId, projectInformation);
+                return new SpecialBlockContent(block.getStructuredData().getStructuredDataNodes(), block.getMetadata());
+            }
+        });
+
+        FutureTask<SpecialBlockContent> load;
+        synchronized (loads)
+        {
+            load = loads.get(blockId);
+            if (load == null)
+            {
+                load = newLoad;
+                loads.put(blockId, load);
+            }
+        }
+
+        if (load != newLoad)
+        {
+            hits.incrementAndGet();
+            FlightRecorderEvents.cacheLookup("special block", blockId, true);
+            return getResult(load);
+        }
+
+        misses.incrementAndGet();
+        FlightRecorderEvents.cacheLookup("special block", blockId, false);
+        try
+        {
+            load.run();
+            SpecialBlockContent content = getResult(load);
+            put(blockId, content);
+            return content;
+        }
+        finally
+        {
+            loads.remove(blockId);
+        }
+    }
+
+    /**
+     * Removes all the entries and resets the hit, miss and eviction counts
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        size = 0;
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    /**
+     * @return Returns the number of times the content was found in the cache or was being read by another
+     *         thread
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns the number of times the block had to be read
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns the number of entries evicted to stay within the size limit
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * @return Returns the estimated size of all the entries in bytes
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return Returns the number of entries
+     */
+    public synchronized int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Adds the content to the cache and evicts the least recently used entries if the cache is too big. A
+     * content that alone is bigger than the limit is not cached.
+     *
+     * @param blockId
+     * @param content
+     */
+    private synchronized void put(String blockId, SpecialBlockContent content)
+    {
+        if (content.getEstimatedSize() > maxSize)
+            return;
+
+        SpecialBlockContent previous = entries.put(blockId, content);
+        if (previous != null)
+            size -= previous.getEstimatedSize();
+        size += content.getEstimatedSize();
+
+        Iterator<SpecialBlockContent> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext())
+        {
+            size -= iterator.next().getEstimatedSize();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits for the load and returns its result, rethrowing the original exception if it failed
+     *
+     * @param load
+     * @return
+     * @throws Exception
+     */
+    private static SpecialBlockContent getResult(FutureTask<SpecialBlockContent> load) throws Exception
+    {
+        try
+        {
+            return load.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * @param nodes
+     * @return Returns the estimated size of the structured data nodes and their descendants in bytes
+     */
+    private static long estimateSize(StructuredDataNode[] nodes)
+    {
+        if (nodes == null)
+            return 0;
+
+        long result = OBJECT_SIZE + REFERENCE_SIZE * nodes.length;
+        for (StructuredDataNode node : nodes)
+        {
+            result += OBJECT_SIZE * 2 + estimateSize(node.getIdentifier()) + estimateSize(node.getText())
+                    + estimateSize(node.getAssetType() == null ? null : node.getAssetType().getValue()) + estimateSize(node.getBlockId())
+                    + estimateSize(node.getBlockPath()) + estimateSize(node.getFileId()) + estimateSize(node.getFilePath())
+                    + estimateSize(node.getPageId()) + estimateSize(node.getPagePath()) + estimateSize(node.getSymlinkId())
+                    + estimateSize(node.getSymlinkPath()) + estimateSize(node.getStructuredDataNodes());
+        }
+        return result;
+    }
+
+    /**
+     * @param metadata
+     * @return Returns the estimated size of the metadata in bytes
+     */
+    private static long estimateSize(Metadata metadata)
+    {
+        if (metadata == null)
+            return 0;
+
+        long result = OBJECT_SIZE * 2 + estimateSize(metadata.getAuthor()) + estimateSize(metadata.getDisplayName())
+                + estimateSize(metadata.getKeywords()) + estimateSize(metadata.getMetaDescription()) + estimateSize(metadata.getSummary())
+                + estimateSize(metadata.getTeaser()) + estimateSize(metadata.getTitle());
+        if (metadata.getDynamicFields() != null)
+            for (DynamicMetadataField field : metadata.getDynamicFields())
+            {
+                result += OBJECT_SIZE + REFERENCE_SIZE + estimateSize(field.getName());
+                if (field.getFieldValues() != null)
+                    for (FieldValue value : field.getFieldValues())
+                        result += OBJECT_SIZE + REFERENCE_SIZE + estimateSize(value.getValue());
+            }
+        return result;
+    }
+
+    /**
+     * @param value
+     * @return Returns the estimated size of the string in bytes
+     */
+    private static long estimateSize(String value)
+    {
+        return value == null ? 0 : OBJECT_SIZE * 2 + 2l * value.length();
+    }
+
+    /**
+     * The cached content of a special block
+     */
+    public static class SpecialBlockContent
+    {
+        private final StructuredDataNode[] structuredDataNodes;
+        private final Metadata metadata;
+        private final long estimatedSize;
+
+        /**
+         * Constructor
+         *
+         * @param structuredDataNodes
+         * @param metadata
+         */
+        public SpecialBlockContent(StructuredDataNode[] structuredDataNodes, Metadata metadata)
+        {
+            this.structuredDataNodes = structuredDataNodes == null ? new StructuredDataNode[0] : structuredDataNodes;
+            this.metadata = metadata;
+            this.estimatedSize = OBJECT_SIZE + estimateSize(this.structuredDataNodes) + estimateSize(metadata);
+        }
+
+        /**
+         * @return Returns the structuredDataNodes.
+         */
+        public StructuredDataNode[] getStructuredDataNodes()
+        {
+            return structuredDataNodes;
+        }
+
+        /**
+         * @return Returns the metadata.
+         */
+        public Metadata getMetadata()
+        {
+            return metadata;
+        }
+
+        /**
+         * @return Returns the estimatedSize.
+         */
+        public long getEstimatedSize()
+        {
+            return estimatedSize;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.hannonhill.smt.util.StageTimer;
+
+/**
+ * Collects the {@link StageTimer.AssetTiming}s of the assets of a migration: the total time spent in each
+ * stage and the {@link #SLOWEST_ASSETS} slowest assets with their stage breakdown, so that it is easy to see
+ * which stage, mapping or file slows the migration down. Only the slowest assets are kept, so the memory taken
+ * doesn't depend on the number of assets.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class StageReport
+{
+    public static final int SLOWEST_ASSETS = 10;
+
+    private static final Comparator<TimedAsset> BY_TOTAL_TIME = new Comparator<TimedAsset>()
+    {
+        public int compare(TimedAsset o1, TimedAsset o2)
+        {
+            long total1 = o1.getTiming().getTotalNanos();
+            long total2 = o2.getTiming().getTotalNanos();
+            return total1 < total2 ? -1 : total1 > total2 ? 1 : 0;
+        }
+    };
+
+    private final long[] stageNanos;
+    private long otherNanos;
+    private long totalNanos;
+    private int assets;
+    private final PriorityQueue<TimedAsset> slowestAssets; // the fastest of the slowest assets first
+
+    /**
+     * Constructor
+     */
+    public StageReport()
+    {
+        stageNanos = new long[StageTimer.Stage.values().length];
+        otherNanos = 0;
+        totalNanos = 0;
+        assets = 0;
+        slowestAssets = new PriorityQueue<TimedAsset>(SLOWEST_ASSETS + 1, BY_TOTAL_TIME);
+    }
+
+    /**
+     * Adds the timing of an asset to the report
+     *
+     * @param name the name of the asset shown in the report
+     * @param kind what was done with the asset, for example "page" or "page alignment"
+     * @param timing the timing returned by {@link StageTimer#end()}, ignored if null
+     */
+    public synchronized void add(String name, String kind, StageTimer.AssetTiming timing)
+    {
+        if (timing == null)
+            return;
+
+        for (StageTimer.Stage stage : StageTimer.Stage.values())
+            stageNanos[stage.ordinal()] += timing.getStageNanos(stage);
+        otherNanos += timing.getOtherNanos();
+        totalNanos += timing.getTotalNanos();
+        assets++;
+
+        if (slowestAssets.size() < SLOWEST_ASSETS || timing.getTotalNanos() > slowestAssets.peek().getTiming().getTotalNanos())
+        {
+            slowestAssets.add(new TimedAsset(name, kind, timing));
+            if (slowestAssets.size() > SLOWEST_ASSETS)
+                slowestAssets.poll();
+        }
+    }
+
+    /**
+     * @param stage
+     * @return Returns the time spent in given stage by all the assets in nanoseconds
+     */
+    public synchronized long getStageNanos(StageTimer.Stage stage)
+    {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * @return Returns the time spent by all the assets outside of the stages in nanoseconds
+     */
+    public synchronized long getOtherNanos()
+    {
+        return otherNanos;
+    }
+
+    /**
+     * @return Returns the time spent on all the assets in nanoseconds
+     */
+    public synchronized long getTotalNanos()
+    {
+        return totalNanos;
+    }
+
+    /**
+     * @return Returns the number of assets in the report
+     */
+    public synchronized int getAssets()
+    {
+        return assets;
+    }
+
+    /**
+     * @return Returns the slowest assets, slowest first
+     */
+    public synchronized List<TimedAsset> getSlowestAssets()
+    {
+        List<TimedAsset> result = new ArrayList<TimedAsset>(slowestAssets);
+        Collections.sort(result, Collections.reverseOrder(BY_TOTAL_TIME));
+        return result;
+    }
+
+    /**
+     * An asset with its timing
+     */
+    public static class TimedAsset
+    {
+        private final String name;
+        private final String kind;
+        private final StageTimer.AssetTiming timing;
+
+        /**
+         * Constructor
+         *
+         * @param name
+         * @param kind
+         * @param timing
+         */
+        private TimedAsset(String name, String kind, StageTimer.AssetTiming timing)
+        {
+            this.name = name;
+            this.kind = kind;
+            this.timing = timing;
+        }
+
+        /**
+         * @return Returns the name.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return Returns the kind.
+         */
+        public String getKind()
+        {
+            return kind;
+        }
+
+        /**
+         * @return Returns the timing.
+         */
+        public StageTimer.AssetTiming getTiming()
+        {
+            return timing;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The log of a task kept in a fixed size ring buffer, so that the memory it takes stays the same no matter
+ * how long the task runs and whether or not anybody reads it. Each message gets a sequence number and readers
+ * (the browser and the log file writer) keep their own cursor - the sequence number of the next message they
+ * want to read. A reader that falls more than {@link #DEFAULT_CAPACITY} messages behind loses the oldest
+ * messages and is told how many it lost.
+ *
+ * Adding and reading messages doesn't use locks, so threads of the task don't wait for each other or for the
+ * readers. Readers that want to wait for new messages (long polling browsers) are woken up only when there is
+ * somebody waiting.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class TaskLog
+{
+    private static final int DEFAULT_CAPACITY = 8192; // must be a power of 2
+    private static final AtomicLong nextId = new AtomicLong();
+
+    private final long id; // unique among the logs, so that readers know when a new task started a new log
+    private final AtomicReferenceArray<LogEvent> events;
+    private final int mask;
+    private final AtomicLong nextSequence;
+    private final AtomicInteger waitingReaders;
+    private final Object waitLock;
+
+    /**
+     * Constructor
+     */
+    public TaskLog()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity maximum number of messages kept, must be a power of 2
+     */
+    public TaskLog(int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+
+        id = nextId.incrementAndGet();
+        events = new AtomicReferenceArray<LogEvent>(capacity);
+        mask = capacity - 1;
+        nextSequence = new AtomicLong();
+        waitingReaders = new AtomicInteger();
+        waitLock = new Object();
+    }
+
+    /**
+     * Adds a message to the log
+     *
+     * @param message
+     */
+    public void add(String message)
+    {
+        long sequence = nextSequence.getAndIncrement();
+        events.set((int) (sequence & mask), new LogEvent(sequence, System.currentTimeMillis(), message));
+        if (waitingReaders.get() > 0)
+            wakeUpReaders();
+    }
+
+    /**
+     * Waits until there are messages at or after given cursor, the timeout passes or the readers get woken up
+     * by {@link #wakeUpReaders()}
+     *
+     * @param cursor sequence number of the first message the reader wants to read
+     * @param timeoutMs
+     * @throws InterruptedException
+     */
+    public void await(long cursor, long timeoutMs) throws InterruptedException
+    {
+        waitingReaders.incrementAndGet();
+        try
+        {
+            synchronized (waitLock)
+            {
+                if (nextSequence.get() <= cursor)
+                    waitLock.wait(timeoutMs);
+            }
+        }
+        finally
+        {
+            waitingReaders.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wakes up the readers waiting in {@link #await(long, long)}, for example when the task completes
+     */
+    public void wakeUpReaders()
+    {
+        synchronized (waitLock)
+        {
+            waitLock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the messages added since given cursor. Stops at the first message that is still being added by
+     * another thread - it will be returned by the next read.
+     *
+     * @param cursor sequence number of the first message to read
+     * @return
+     */
+    public Batch read(long cursor)
+    {
+        long end = nextSequence.get();
+        long start = Math.max(cursor, end - events.length());
+        List<LogEvent> batchEvents = new ArrayList<LogEvent>((int) Math.max(0, end - start));
+        long sequence = start;
+        while (sequence < end)
+        {
+            LogEvent event = events.get((int) (sequence & mask));
+            if (event == null || event.getSequence() < sequence)
+                break; // not added yet
+
+            if (event.getSequence() > sequence)
+            {
+                // Overwritten by a newer message while reading, skip to the oldest message still in the buffer
+                sequence = Math.max(sequence + 1, nextSequence.get() - events.length());
+                continue;
+            }
+
+            batchEvents.add(event);
+            sequence++;
+        }
+
+        long lost = sequence - cursor - batchEvents.size();
+        return new Batch(batchEvents, sequence, lost);
+    }
+
+    /**
+     * @return Returns the id.
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return Returns the number of messages added so far
+     */
+    public long size()
+    {
+        return nextSequence.get();
+    }
+
+    /**
+     * A single log message
+     */
+    public static class LogEvent
+    {
+        private final long sequence;
+        private final long time;
+        private final String message;
+
+        /**
+         * Constructor
+         *
+         * @param sequence
+         * @param time
+         * @param message
+         */
+        private LogEvent(long sequence, long time, String message)
+        {
+            this.sequence = sequence;
+            this.time = time;
+            this.message = message;
+        }
+
+        /**
+         * @return Returns the sequence.
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        /**
+         * @return Returns the time.
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * @return Returns the message.
+         */
+        public String getMessage()
+        {
+            return message;
+        }
+    }
+
+    /**
+     * Messages returned by a single read
+     */
+    public static class Batch
+    {
+        private final List<LogEvent> events;
+        private final long nextCursor;
+        private final long lost;
+
+        /**
+         * Constructor
+         *
+         * @param events
+         * @param nextCursor
+         * @param lost
+         */
+        private Batch(List<LogEvent> events, long nextCursor, long lost)
+        {
+            this.events = events;
+            this.nextCursor = nextCursor;
+            this.lost = lost;
+        }
+
+        /**
+         * @return Returns the events.
+         */
+        public List<LogEvent> getEvents()
+        {
+            return events;
+        }
+
+        /**
+         * @return Returns the cursor to use for the next read
+         */
+        public long getNextCursor()
+        {
+            return nextCursor;
+        }
+
+        /**
+         * @return Returns the number of messages that were overwritten before they could be read
+         */
+        public long getLost()
+        {
+            return lost;
+        }
+    }
+}
@@ -5,7 +5,8 @@
  */
 package com.hannonhill.smt;
 
-import java.io.PrintWriter;
+import com.hannonhill.smt.util.RateWindow;
+import com.hannonhill.smt.util.StripedCounter;
 
 /**
  * An object containing basic information about the current status of a task
@@ -16,20 +17,25 @@ import java.io.PrintWriter;
  */
 public abstract class TaskStatus
 {
-    private StringBuilder log; // this is only the part of the log that did not get loaded through AJAX yet - it appears on the screen
-    private PrintWriter logWriter; // this is a log writer for the log html file saved to the logs folder on the file system
-    private int progress; // number of progress points, total number of progress points depends on the actual task
+    private final TaskLog log; // the most recent messages, read by the screen and written to the log html file
+    private final StripedCounter progress; // number of progress points, total number of progress points depends on the actual task
+    private volatile long totalProgress; // number of progress points when the task is done, 0 if not known yet
+    private final RateWindow progressRate; // progress points per second
+    private final RateWindow errorRate; // assets with errors per second
 
-    private boolean completed; // indicates whether or not the task has finished working
-    private boolean shouldStop; // if true, the task should stop running as soon as it can
+    private volatile boolean completed; // indicates whether or not the task has finished working
+    private volatile boolean shouldStop; // if true, the task should stop running as soon as it can
 
     /**
      * Constructor
      */
     public TaskStatus()
     {
-        log = new StringBuilder();
-        progress = 0;
+        log = new TaskLog();
+        progress = new StripedCounter();
+        totalProgress = 0;
+        progressRate = new RateWindow();
+        errorRate = new RateWindow();
         completed = false;
         shouldStop = false;
     }
@@ -37,35 +43,88 @@ public abstract class TaskStatus
     /**
      * @return Returns the log.
      */
-    public StringBuilder getLog()
+    public TaskLog getLog()
     {
         return log;
     }
 
     /**
-     * @param log the log to set
+     * @return Returns the progress.
      */
-    public void setLog(StringBuilder log)
+    public int getProgress()
     {
-        this.log = log;
+        return (int) progress.sum();
     }
 
     /**
-     * @return Returns the progress.
+     * Increments the progress by given amount
+     * 
+     * @param progress
      */
-    public int getProgress()
+    public void incrementProgress(int progress)
+    {
+        this.progress.add(progress);
+        progressRate.record(progress);
+    }
+
+    /**
+     * @return Returns the totalProgress.
+     */
+    public long getTotalProgress()
+    {
+        return totalProgress;
+    }
+
+    /**
+     * @param totalProgress the totalProgress to set
+     */
+    public void setTotalProgress(long totalProgress)
+    {
+        this.totalProgress = totalProgress;
+    }
+
+    /**
+     * @return Returns the number of progress points per second in the last {@link RateWindow#WINDOW_SECONDS}
+     *         seconds
+     */
+    public double getProgressRate()
+    {
+        return progressRate.getRate();
+    }
+
+    /**
+     * @return Returns the number of assets with errors per second in the last
+     *         {@link RateWindow#WINDOW_SECONDS} seconds
+     */
+    public double getErrorRate()
     {
-        return progress;
+        return errorRate.getRate();
     }
 
     /**
-     *  Increments the progress by given amount
+     * Returns the number of seconds until the task is done at the current progress rate or -1 if it can't be
+     * estimated (the total is not known or nothing progressed recently)
      * 
-     * @param progress
+     * @return
      */
-    public void incrementProgress(int progress)
+    public double getEstimatedSecondsLeft()
     {
-        this.progress += progress;
+        if (completed)
+            return 0;
+
+        double rate = progressRate.getRate();
+        if (totalProgress == 0 || rate == 0)
+            return -1;
+
+        return Math.max(0, totalProgress - progress.sum()) / rate;
+    }
+
+    /**
+     * Records an asset with an error for the error rate. Called by the subclasses when they count one.
+     */
+    protected void errorOccurred()
+    {
+        errorRate.record(1);
     }
 
     /**
@@ -82,6 +141,8 @@ public abstract class TaskStatus
     public void setCompleted(boolean completed)
     {
         this.completed = completed;
+        if (completed)
+            log.wakeUpReaders();
     }
 
     /**
@@ -99,20 +160,4 @@ public abstract class TaskStatus
     {
         this.shouldStop = shouldStop;
     }
-
-    /**
-     * @return Returns the logWriter.
-     */
-    public PrintWriter getLogWriter()
-    {
-        return logWriter;
-    }
-
-    /**
-     * @param logWriter the logWriter to set
-     */
-    public void setLogWriter(PrintWriter logWriter)
-    {
-        this.logWriter = logWriter;
-    }
 }
@@ -0,0 +1,30 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
+
+/**
+ * Creates the {@link AssetOperationHandler} that {@link WebServices} sends the calls to. By default the calls
+ * go to the Cascade Server through the Axis web services stub. Another factory can be set with
+ * {@link WebServices#setHandlerFactory(AssetOperationHandlerFactory)}, for example to run the migration
+ * against an in-memory simulator of Cascade Server in benchmarks. The calls made to the handler still pass
+ * through all the interceptors.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public interface AssetOperationHandlerFactory
+{
+    /**
+     * Returns the handler for given web services url
+     *
+     * @param url
+     * @return
+     * @throws Exception
+     */
+    AssetOperationHandler getHandler(String url) throws Exception;
+}
@@ -0,0 +1,28 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+/**
+ * Intercepts calls to the Cascade web services (any method of
+ * {@link com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler}) made through
+ * {@link WebServices}. Interceptors are chained - each interceptor calls
+ * {@link AssetOperationInvocation#proceed()} to pass the call to the next interceptor, and the last one
+ * passes it to the actual web services stub.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public interface AssetOperationInterceptor
+{
+    /**
+     * Handles the invocation and returns its result
+     *
+     * @param invocation
+     * @return
+     * @throws Exception
+     */
+    Object intercept(AssetOperationInvocation invocation) throws Exception;
+}
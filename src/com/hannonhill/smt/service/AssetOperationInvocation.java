@@ -0,0 +1,138 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
+
+/**
+ * A single call to the Cascade web services passing through the chain of {@link AssetOperationInterceptor}s
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class AssetOperationInvocation
+{
+    private final String endpoint; // the web services URL
+    private final AssetOperationHandler target;
+    private final Method method;
+    private final Object[] arguments;
+    private final List<AssetOperationInterceptor> interceptors;
+    private int nextInterceptor;
+
+    /**
+     * Constructor
+     *
+     * @param endpoint
+     * @param target
+     * @param method
+     * @param arguments
+     * @param interceptors
+     */
+    public AssetOperationInvocation(String endpoint, AssetOperationHandler target, Method method, Object[] arguments,
+            List<AssetOperationInterceptor> interceptors)
+    {
+        this.endpoint = endpoint;
+        this.target = target;
+        this.method = method;
+        this.arguments = arguments;
+        this.interceptors = interceptors;
+        this.nextInterceptor = 0;
+    }
+
+    /**
+     * Passes the call to the next interceptor or, if there are no more interceptors, calls the web services.
+     * An interceptor may call this method more than once (for example to retry the call).
+     *
+     * @return
+     * @throws Exception
+     */
+    public Object proceed() throws Exception
+    {
+        if (nextInterceptor < interceptors.size())
+        {
+            AssetOperationInterceptor interceptor = interceptors.get(nextInterceptor);
+            nextInterceptor++;
+            try
+            {
+                return interceptor.intercept(this);
+            }
+            finally
+            {
+                nextInterceptor--;
+            }
+        }
+
+        try
+        {
+            return method.invoke(target, arguments);
+        }
+        catch (InvocationTargetException e)
+        {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes another web services call from within an interceptor. The call passes through the interceptors that
+     * come after the current one, so it is limited and measured like any other call.
+     *
+     * @param method
+     * @param arguments
+     * @return
+     * @throws Exception
+     */
+    public Object call(Method method, Object[] arguments) throws Exception
+    {
+        return new AssetOperationInvocation(endpoint, target, method, arguments, interceptors.subList(nextInterceptor, interceptors.size()))
+                .proceed();
+    }
+
+    /**
+     * @return Returns the endpoint.
+     */
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    /**
+     * @return Returns the target - the web services stub that is called at the end of the chain
+     */
+    public AssetOperationHandler getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * @return Returns the name of the operation (for example "read" or "create")
+     */
+    public String getOperationName()
+    {
+        return method.getName();
+    }
+
+    /**
+     * @return Returns the method.
+     */
+    public Method getMethod()
+    {
+        return method;
+    }
+
+    /**
+     * @return Returns the arguments.
+     */
+    public Object[] getArguments()
+    {
+        return arguments;
+    }
+}
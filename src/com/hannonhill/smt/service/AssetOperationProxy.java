@@ -0,0 +1,95 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.util.List;
+
+import com.hannonhill.smt.util.StageTimer;
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
+
+/**
+ * Wraps an {@link AssetOperationHandler} so that every call goes through a chain of
+ * {@link AssetOperationInterceptor}s
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class AssetOperationProxy implements InvocationHandler
+{
+    private final String endpoint;
+    private final AssetOperationHandler target;
+    private final List<AssetOperationInterceptor> interceptors;
+
+    /**
+     * Returns an {@link AssetOperationHandler} that passes the calls through given interceptors to the
+     * target
+     *
+     * @param endpoint
+     * @param target
+     * @param interceptors
+     * @return
+     */
+    public static AssetOperationHandler wrap(String endpoint, AssetOperationHandler target, List<AssetOperationInterceptor> interceptors)
+    {
+        if (interceptors.size() == 0)
+            return target;
+
+        return (AssetOperationHandler) Proxy.newProxyInstance(AssetOperationHandler.class.getClassLoader(), new Class<?>[]
+        {
+            AssetOperationHandler.class
+        }, new AssetOperationProxy(endpoint, target, interceptors));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param endpoint
+     * @param target
+     * @param interceptors
+     */
+    private AssetOperationProxy(String endpoint, AssetOperationHandler target, List<AssetOperationInterceptor> interceptors)
+    {
+        this.endpoint = endpoint;
+        this.target = target;
+        this.interceptors = interceptors;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable
+    {
+        // Methods of Object (toString, equals, hashCode) are not web services calls
+        if (method.getDeclaringClass() == Object.class)
+            return method.invoke(target, arguments);
+
+        // The time spent in the interceptors before the actual call (retry delays, waiting for the limiter) is
+        // counted as waiting, the call itself is counted by the MetricsInterceptor
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.WAITING);
+        try
+        {
+            return new AssetOperationInvocation(endpoint, target, method, arguments, interceptors).proceed();
+        }
+        catch (RemoteException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            // The web services methods can only throw a RemoteException
+            throw new RemoteException(e.getMessage(), e);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+}
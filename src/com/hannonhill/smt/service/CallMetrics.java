@@ -0,0 +1,257 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.util.LatencyHistogram;
+
+/**
+ * Collects the metrics of the web services calls recorded by the {@link MetricsInterceptor}: number of calls,
+ * errors, bytes sent and received and a latency histogram for each operation and asset type (for example
+ * "create page" or "read folder").
+ *
+ * The metrics are kept for each endpoint since the tool started and for each running job (see
+ * {@link ConcurrencyLimiter#getCurrentJob()}), so that a task can report the calls it made itself. A task
+ * removes its job's metrics with {@link #removeJob(String)} when it finishes.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class CallMetrics
+{
+    private static final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> endpointMetrics = new ConcurrentHashMap<String, ConcurrentMap<String, OperationMetrics>>();
+    private static final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> jobMetrics = new ConcurrentHashMap<String, ConcurrentMap<String, OperationMetrics>>();
+
+    /**
+     * Records a single call
+     *
+     * @param endpoint
+     * @param jobId the job that made the call or null for an interactive call
+     * @param operationName
+     * @param assetType
+     * @param latencyMicros
+     * @param error true if the call threw an exception or returned a failed result
+     * @param bytesSent size of the request or -1 if not known
+     * @param bytesReceived size of the response or -1 if not known
+     */
+    public static void record(String endpoint, String jobId, String operationName, String assetType, long latencyMicros, boolean error,
+            long bytesSent, long bytesReceived)
+    {
+        getOperationMetrics(endpointMetrics, endpoint, operationName, assetType).record(latencyMicros, error, bytesSent, bytesReceived);
+        if (jobId != null)
+            getOperationMetrics(jobMetrics, jobId, operationName, assetType).record(latencyMicros, error, bytesSent, bytesReceived);
+    }
+
+    /**
+     * Returns the metrics of the calls made to given endpoint since the tool started, sorted by the total
+     * time spent in the calls, longest first
+     *
+     * @param endpoint
+     * @return
+     */
+    public static List<OperationMetrics> getEndpointMetrics(String endpoint)
+    {
+        return sort(endpoint == null ? null : endpointMetrics.get(endpoint));
+    }
+
+    /**
+     * @return Returns the endpoints calls were made to since the tool started
+     */
+    public static Set<String> getEndpoints()
+    {
+        return new TreeSet<String>(endpointMetrics.keySet());
+    }
+
+    /**
+     * Returns the metrics of the calls made by given job, sorted by the total time spent in the calls,
+     * longest first
+     *
+     * @param jobId
+     * @return
+     */
+    public static List<OperationMetrics> getJobMetrics(String jobId)
+    {
+        return sort(jobId == null ? null : jobMetrics.get(jobId));
+    }
+
+    /**
+     * Forgets the metrics of given job
+     *
+     * @param jobId
+     */
+    public static void removeJob(String jobId)
+    {
+        if (jobId != null)
+            jobMetrics.remove(jobId);
+    }
+
+    /**
+     * Returns the metrics of given operation and asset type under given key, creating them if needed
+     *
+     * @param metrics
+     * @param key
+     * @param operationName
+     * @param assetType
+     * @return
+     */
+    private static OperationMetrics getOperationMetrics(ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> metrics, String key,
+            String operationName, String assetType)
+    {
+        ConcurrentMap<String, OperationMetrics> operations = metrics.get(key);
+        if (operations == null)
+        {
+            ConcurrentMap<String, OperationMetrics> newOperations = new ConcurrentHashMap<String, OperationMetrics>();
+            operations = metrics.putIfAbsent(key, newOperations);
+            if (operations == null)
+                operations = newOperations;
+        }
+
+        String operationKey = operationName + " " + assetType;
+        OperationMetrics operationMetrics = operations.get(operationKey);
+        if (operationMetrics == null)
+        {
+            OperationMetrics newOperationMetrics = new OperationMetrics(operationName, assetType);
+            operationMetrics = operations.putIfAbsent(operationKey, newOperationMetrics);
+            if (operationMetrics == null)
+                operationMetrics = newOperationMetrics;
+        }
+        return operationMetrics;
+    }
+
+    /**
+     * @param operations
+     * @return Returns the operations sorted by the total time spent in the calls, longest first
+     */
+    private static List<OperationMetrics> sort(Map<String, OperationMetrics> operations)
+    {
+        List<OperationMetrics> result = operations == null ? new ArrayList<OperationMetrics>() : new ArrayList<OperationMetrics>(operations
+                .values());
+        Collections.sort(result, new Comparator<OperationMetrics>()
+        {
+            public int compare(OperationMetrics o1, OperationMetrics o2)
+            {
+                long total1 = o1.getLatencies().getTotal();
+                long total2 = o2.getLatencies().getTotal();
+                return total1 > total2 ? -1 : total1 < total2 ? 1 : 0;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Metrics of the calls of a single operation on a single asset type
+     */
+    public static class OperationMetrics
+    {
+        private final String operationName;
+        private final String assetType;
+        private final AtomicLong errors;
+        private final AtomicLong bytesSent;
+        private final AtomicLong bytesReceived;
+        private final LatencyHistogram latencies; // in microseconds, also counts the calls
+
+        /**
+         * Constructor
+         *
+         * @param operationName
+         * @param assetType
+         */
+        private OperationMetrics(String operationName, String assetType)
+        {
+            this.operationName = operationName;
+            this.assetType = assetType;
+            errors = new AtomicLong();
+            bytesSent = new AtomicLong();
+            bytesReceived = new AtomicLong();
+            latencies = new LatencyHistogram();
+        }
+
+        /**
+         * Records a single call
+         *
+         * @param latencyMicros
+         * @param error
+         * @param sent
+         * @param received
+         */
+        private void record(long latencyMicros, boolean error, long sent, long received)
+        {
+            latencies.record(latencyMicros);
+            if (error)
+                errors.incrementAndGet();
+            if (sent > 0)
+                bytesSent.addAndGet(sent);
+            if (received > 0)
+                bytesReceived.addAndGet(received);
+        }
+
+        /**
+         * @return Returns the operationName.
+         */
+        public String getOperationName()
+        {
+            return operationName;
+        }
+
+        /**
+         * @return Returns the assetType.
+         */
+        public String getAssetType()
+        {
+            return assetType;
+        }
+
+        /**
+         * @return Returns the number of calls
+         */
+        public long getCalls()
+        {
+            return latencies.getCount();
+        }
+
+        /**
+         * @return Returns the errors.
+         */
+        public long getErrors()
+        {
+            return errors.get();
+        }
+
+        /**
+         * @return Returns the bytesSent.
+         */
+        public long getBytesSent()
+        {
+            return bytesSent.get();
+        }
+
+        /**
+         * @return Returns the bytesReceived.
+         */
+        public long getBytesReceived()
+        {
+            return bytesReceived.get();
+        }
+
+        /**
+         * @return Returns the latencies in microseconds.
+         */
+        public LatencyHistogram getLatencies()
+        {
+            return latencies;
+        }
+    }
+}
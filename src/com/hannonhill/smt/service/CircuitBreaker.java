@@ -0,0 +1,165 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A circuit breaker for a single Cascade Server endpoint. After {@link #FAILURE_THRESHOLD} consecutive
+ * transient failures (timeouts, dropped connections) the circuit opens and no calls should be made to the
+ * endpoint for {@link #OPEN_PERIOD_MS}. After that a single trial call is allowed (half-open state) - if it
+ * succeeds the circuit closes, otherwise it opens again.
+ *
+ * There is one circuit breaker per endpoint shared by all the sessions.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class CircuitBreaker
+{
+    public static final String STATE_CLOSED = "closed";
+    public static final String STATE_OPEN = "open";
+    public static final String STATE_HALF_OPEN = "half-open";
+
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long OPEN_PERIOD_MS = 30 * 1000;
+
+    private static final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private String state; // one of the STATE_??? constants
+    private int consecutiveFailures;
+    private long openedTime;
+    private boolean trialInProgress; // in half-open state only one call is allowed
+    private int timesOpened;
+
+    /**
+     * Returns the circuit breaker for given endpoint, creating it if necessary
+     *
+     * @param endpoint
+     * @return
+     */
+    public static CircuitBreaker forEndpoint(String endpoint)
+    {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+        if (circuitBreaker != null)
+            return circuitBreaker;
+
+        synchronized (circuitBreakers)
+        {
+            circuitBreaker = circuitBreakers.get(endpoint);
+            if (circuitBreaker == null)
+            {
+                circuitBreaker = new CircuitBreaker();
+                circuitBreakers.put(endpoint, circuitBreaker);
+            }
+            return circuitBreaker;
+        }
+    }
+
+    /**
+     * Returns the circuit breaker for given endpoint or null if no calls have been made to it yet
+     *
+     * @param endpoint
+     * @return
+     */
+    public static CircuitBreaker getExisting(String endpoint)
+    {
+        return endpoint == null ? null : circuitBreakers.get(endpoint);
+    }
+
+    /**
+     * Constructor
+     */
+    private CircuitBreaker()
+    {
+        state = STATE_CLOSED;
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        timesOpened = 0;
+    }
+
+    /**
+     * Returns 0 if a call can be made now. Otherwise returns the number of milliseconds after which the caller
+     * should ask again.
+     *
+     * @return
+     */
+    public synchronized long tryAcquire()
+    {
+        if (state.equals(STATE_OPEN))
+        {
+            long remaining = openedTime + OPEN_PERIOD_MS - System.currentTimeMillis();
+            if (remaining > 0)
+                return remaining;
+
+            state = STATE_HALF_OPEN;
+            trialInProgress = false;
+        }
+
+        if (state.equals(STATE_HALF_OPEN))
+        {
+            if (trialInProgress)
+                return 1000;
+
+            trialInProgress = true;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Registers a successful call (including calls that returned a failed result - the server responded)
+     */
+    public synchronized void recordSuccess()
+    {
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        state = STATE_CLOSED;
+    }
+
+    /**
+     * Registers a call that failed with a transient failure
+     */
+    public synchronized void recordFailure()
+    {
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (state.equals(STATE_HALF_OPEN) || consecutiveFailures >= FAILURE_THRESHOLD)
+        {
+            if (!state.equals(STATE_OPEN))
+                timesOpened++;
+
+            state = STATE_OPEN;
+            openedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Registers a call that was allowed but failed with a non-transient failure. Only releases the trial call
+     * in half-open state.
+     */
+    public synchronized void recordIgnored()
+    {
+        trialInProgress = false;
+    }
+
+    /**
+     * @return Returns the state, one of the STATE_??? constants
+     */
+    public synchronized String getState()
+    {
+        return state;
+    }
+
+    /**
+     * @return Returns the number of times the circuit got opened
+     */
+    public synchronized int getTimesOpened()
+    {
+        return timesOpened;
+    }
+}
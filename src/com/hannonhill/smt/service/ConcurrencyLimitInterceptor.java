@@ -0,0 +1,88 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import com.hannonhill.www.ws.ns.AssetOperationService.CreateResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.OperationResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadResult;
+
+/**
+ * Makes each web services call wait for the {@link ConcurrencyLimiter} of its endpoint and reports the call's
+ * latency and outcome back to the limiter
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class ConcurrencyLimitInterceptor implements AssetOperationInterceptor
+{
+    // Messages of failed results that are expected during migration and say nothing about the server's health.
+    // Reads of assets that don't exist (for example folders in a new site) and creates of assets that already
+    // exist are part of a normal migration, so these messages are only expected for their result types.
+    private static final String[] EXPECTED_READ_FAILURE_MESSAGES = new String[]
+    {
+            "unable to identify an entity", "not found", "does not exist"
+    };
+    private static final String[] EXPECTED_CREATE_FAILURE_MESSAGES = new String[]
+    {
+            "already exists", "could not be found"
+    };
+    private static final String[] EXPECTED_FAILURE_MESSAGES = new String[]
+    {
+            "unable to identify an entity", "not found", "could not be found", "does not exist", "already exists"
+    };
+
+    public Object intercept(AssetOperationInvocation invocation) throws Exception
+    {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.forEndpoint(invocation.getEndpoint());
+        limiter.acquire();
+
+        long start = System.currentTimeMillis();
+        boolean exception = true;
+        boolean failedResult = false;
+        try
+        {
+            Object result = invocation.proceed();
+            exception = false;
+            failedResult = isServerFailure(result);
+            return result;
+        }
+        finally
+        {
+            limiter.release(invocation.getOperationName(), MetricsInterceptor.getAssetType(invocation.getArguments()), System.currentTimeMillis()
+                    - start, exception, failedResult);
+        }
+    }
+
+    /**
+     * Returns true if the result is a failed operation result whose message doesn't look like a failure
+     * expected for its type (for example a read of an asset that doesn't exist)
+     *
+     * @param result
+     * @return
+     */
+    static boolean isServerFailure(Object result)
+    {
+        if (!(result instanceof OperationResult))
+            return false;
+
+        OperationResult operationResult = (OperationResult) result;
+        if ("true".equals(operationResult.getSuccess()))
+            return false;
+
+        String[] expectedMessages = EXPECTED_FAILURE_MESSAGES;
+        if (result instanceof ReadResult)
+            expectedMessages = EXPECTED_READ_FAILURE_MESSAGES;
+        else if (result instanceof CreateResult)
+            expectedMessages = EXPECTED_CREATE_FAILURE_MESSAGES;
+
+        String message = operationResult.getMessage() == null ? "" : operationResult.getMessage().toLowerCase();
+        for (String expectedMessage : expectedMessages)
+            if (message.contains(expectedMessage))
+                return false;
+
+        return true;
+    }
+}
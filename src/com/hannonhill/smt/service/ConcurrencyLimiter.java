@@ -0,0 +1,600 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the number of web services calls in progress to a single Cascade Server endpoint and adjusts that
+ * limit automatically using AIMD (additive increase, multiplicative decrease). While calls succeed and the
+ * limit is actually reached, the limit grows by 1/limit per call (about 1 per limit's worth of calls). When a
+ * call fails with an exception, when the recent rate of failed results gets too high or when the calls get
+ * slower, the limit is multiplied by {@link #DECREASE_FACTOR}. Decreases are spaced by a cooldown, so that a
+ * burst of slow calls caused by a single event does not collapse the limit.
+ *
+ * Single slow calls are normal (the latencies have a long tail), so the latencies are compared in batches of
+ * {@link #LATENCY_BATCH} calls of the same operation on the same type of asset: the calls got slower when the
+ * {@link #LATENCY_PERCENTILE}th percentile of a batch is more than {@link #LATENCY_TOLERANCE} times the
+ * baseline - a moving average of that percentile over the previous batches. Calls transferring large files
+ * (see {@link #setLargeTransfers(boolean)}) take as long as their size requires, so their latency is not
+ * compared and they never decrease the limit for being slow.
+ *
+ * There is one limiter per endpoint shared by all the sessions, as they all talk to the same server. The calls
+ * in progress are shared fairly between the jobs (migrations and link checkers) running against the endpoint:
+ * while calls of another job are waiting, a job cannot have more than its fair share of the limit in
+ * progress. Calls made outside of a job (interactive calls such as listing the sites when the user sets up a
+ * project) go first - they are let through before any waiting job call and may exceed the limit by
+ * {@link #INTERACTIVE_RESERVE}, so that the user interface stays responsive during a migration.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class ConcurrencyLimiter
+{
+    private static final double INITIAL_LIMIT = 4;
+    private static final double MIN_LIMIT = 1;
+    private static final double MAX_LIMIT = 32;
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final long DECREASE_COOLDOWN_MS = 2000;
+    private static final int LATENCY_BATCH = 100; // number of calls whose latencies are compared at once
+    private static final int LATENCY_PERCENTILE = 90;
+    private static final double LATENCY_TOLERANCE = 2; // a batch this many times slower than the baseline is
+                                                       // treated as a sign of an overloaded server
+    private static final double BASELINE_WEIGHT = 0.1; // weight of the latest batch in the baseline
+    private static final int MIN_BASELINE_BATCHES = 3; // number of batches needed before comparing
+    private static final double MAX_FAILURE_RATE = 0.2;
+    private static final int OUTCOME_WINDOW = 50; // number of recent results used to compute the failure rate
+    private static final int LATENCY_WINDOW = 256; // number of recent latencies reported per operation and
+                                                   // asset type
+    private static final int MAX_DECISIONS = 20;
+    private static final int INTERACTIVE_RESERVE = 2; // number of interactive calls allowed over the limit
+
+    // Id of the job the current thread works for, null for interactive calls
+    private static final ThreadLocal<String> currentJob = new ThreadLocal<String>();
+
+    // True if the current thread transfers large files, whose latency depends on their size
+    private static final ThreadLocal<Boolean> largeTransfers = new ThreadLocal<Boolean>();
+
+    private static final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<String, ConcurrencyLimiter>();
+
+    private final String endpoint;
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private int interactiveWaiting;
+    private final Map<String, int[]> jobCalls; // job id to the number of its calls in progress and waiting
+    private long lastDecreaseTime;
+    private final boolean[] outcomes; // ring buffer of recent results, true means failed
+    private int outcomeCount;
+    private int outcomeFailures;
+    private int nextOutcome;
+    private final Map<String, LatencyWindow> latencies; // operation name and asset type to recent latencies
+    private final LinkedList<Decision> decisions; // most recent first
+
+    /**
+     * Returns the limiter for given endpoint, creating it if necessary
+     *
+     * @param endpoint
+     * @return
+     */
+    public static ConcurrencyLimiter forEndpoint(String endpoint)
+    {
+        ConcurrencyLimiter limiter = limiters.get(endpoint);
+        if (limiter != null)
+            return limiter;
+
+        synchronized (limiters)
+        {
+            limiter = limiters.get(endpoint);
+            if (limiter == null)
+            {
+                limiter = new ConcurrencyLimiter(endpoint);
+                limiters.put(endpoint, limiter);
+            }
+            return limiter;
+        }
+    }
+
+    /**
+     * Returns the limiter for given endpoint or null if no calls have been made to it yet
+     *
+     * @param endpoint
+     * @return
+     */
+    public static ConcurrencyLimiter getExisting(String endpoint)
+    {
+        return endpoint == null ? null : limiters.get(endpoint);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param endpoint
+     */
+    private ConcurrencyLimiter(String endpoint)
+    {
+        this.endpoint = endpoint;
+        limit = INITIAL_LIMIT;
+        inFlight = 0;
+        waiting = 0;
+        interactiveWaiting = 0;
+        jobCalls = new HashMap<String, int[]>();
+        lastDecreaseTime = 0;
+        outcomes = new boolean[OUTCOME_WINDOW];
+        latencies = new HashMap<String, LatencyWindow>();
+        decisions = new LinkedList<Decision>();
+    }
+
+    /**
+     * Sets the job the calls made by the current thread belong to
+     *
+     * @param jobId the job's id or null if the thread makes interactive calls
+     */
+    public static void setCurrentJob(String jobId)
+    {
+        if (jobId == null)
+            currentJob.remove();
+        else
+            currentJob.set(jobId);
+    }
+
+    /**
+     * Sets whether the calls made by the current thread transfer large files, so that their latency is not
+     * taken as a sign of an overloaded server
+     *
+     * @param large
+     */
+    public static void setLargeTransfers(boolean large)
+    {
+        if (large)
+            largeTransfers.set(Boolean.TRUE);
+        else
+            largeTransfers.remove();
+    }
+
+    /**
+     * @return Returns the id of the job the calls made by the current thread belong to or null if they are
+     *         interactive calls
+     */
+    public static String getCurrentJob()
+    {
+        return currentJob.get();
+    }
+
+    /**
+     * Waits until the call can be made and registers a new call. An interactive call waits only until the
+     * number of calls in progress is below the limit plus the reserve. A job call waits until the number of
+     * calls in progress is below the limit, no interactive call is waiting and the job does not have more
+     * than its fair share of calls in progress while another job is waiting.
+     *
+     * @throws InterruptedException
+     */
+    public synchronized void acquire() throws InterruptedException
+    {
+        String jobId = currentJob.get();
+        int[] calls = null;
+        if (jobId == null)
+            interactiveWaiting++;
+        else
+        {
+            calls = jobCalls.get(jobId);
+            if (calls == null)
+            {
+                calls = new int[2];
+                jobCalls.put(jobId, calls);
+            }
+            calls[1]++;
+        }
+
+        waiting++;
+        try
+        {
+            if (jobId == null)
+                while (inFlight >= getCurrentLimit() + INTERACTIVE_RESERVE)
+                    wait();
+            else
+                while (inFlight >= getCurrentLimit() || interactiveWaiting > 0 || isOverFairShare(jobId, calls))
+                    wait();
+        }
+        finally
+        {
+            waiting--;
+            if (jobId == null)
+                interactiveWaiting--;
+            else
+                removeJobCall(jobId, calls, 1);
+            notifyAll();
+        }
+
+        if (calls != null)
+        {
+            // The job could have been forgotten when its waiting call was removed
+            calls[0]++;
+            jobCalls.put(jobId, calls);
+        }
+        inFlight++;
+    }
+
+    /**
+     * Registers the end of a call and adjusts the limit
+     *
+     * @param operationName
+     * @param assetType type of the asset the call works on, for example "page" or "file"
+     * @param latencyMs
+     * @param exception true if the call threw an exception (for example a timeout)
+     * @param failedResult true if the call returned a result that indicates a server side failure
+     */
+    public synchronized void release(String operationName, String assetType, long latencyMs, boolean exception, boolean failedResult)
+    {
+        // Whether the calls were actually limited - there is no point in growing the limit otherwise
+        boolean limited = inFlight >= getCurrentLimit() || waiting > 0;
+        inFlight--;
+        String jobId = currentJob.get();
+        if (jobId != null)
+        {
+            int[] calls = jobCalls.get(jobId);
+            if (calls != null)
+                removeJobCall(jobId, calls, 0);
+        }
+
+        recordOutcome(exception || failedResult);
+        String slowdown = null;
+        if (largeTransfers.get() == null)
+        {
+            String latencyKey = operationName + " " + assetType;
+            LatencyWindow latencyWindow = latencies.get(latencyKey);
+            if (latencyWindow == null)
+            {
+                latencyWindow = new LatencyWindow();
+                latencies.put(latencyKey, latencyWindow);
+            }
+
+            long baseline = latencyWindow.getBaseline();
+            long batchPercentile = latencyWindow.add(latencyMs);
+            if (batchPercentile >= 0 && baseline >= 0 && batchPercentile > LATENCY_TOLERANCE * baseline)
+                slowdown = LATENCY_PERCENTILE + "th percentile of recent calls to '" + operationName + "' of a " + assetType + " is "
+                        + batchPercentile + " ms, usually it is " + baseline + " ms";
+        }
+
+        if (exception)
+            decrease("Call to '" + operationName + "' failed with an exception");
+        else if (outcomeCount >= OUTCOME_WINDOW / 2 && outcomeFailures > MAX_FAILURE_RATE * outcomeCount)
+            decrease("Failure rate of recent calls is " + (100 * outcomeFailures / outcomeCount) + "%");
+        else if (slowdown != null)
+            decrease(slowdown);
+        else if (limited)
+            increase();
+
+        notifyAll();
+    }
+
+    /**
+     * @return Returns the current limit rounded down - the number of calls that can be in progress at once
+     */
+    public synchronized int getCurrentLimit()
+    {
+        return (int) limit;
+    }
+
+    /**
+     * @return Returns the number of calls in progress
+     */
+    public synchronized int getInFlight()
+    {
+        return inFlight;
+    }
+
+    /**
+     * @return Returns the number of calls waiting for the limit
+     */
+    public synchronized int getWaiting()
+    {
+        return waiting;
+    }
+
+    /**
+     * @return Returns the failure rate of recent calls (between 0 and 1)
+     */
+    public synchronized double getFailureRate()
+    {
+        return outcomeCount == 0 ? 0 : (double) outcomeFailures / outcomeCount;
+    }
+
+    /**
+     * @return Returns the most recent limit changes, most recent first
+     */
+    public synchronized List<Decision> getDecisions()
+    {
+        return new ArrayList<Decision>(decisions);
+    }
+
+    /**
+     * Returns the 50th, 95th and 99th percentile of recent latencies in milliseconds for each operation and
+     * asset type, for example "create page"
+     *
+     * @return
+     */
+    public synchronized Map<String, long[]> getLatencyPercentiles()
+    {
+        Map<String, long[]> result = new HashMap<String, long[]>();
+        for (Map.Entry<String, LatencyWindow> entry : latencies.entrySet())
+        {
+            long[] sorted = entry.getValue().getSorted();
+            result.put(entry.getKey(), new long[]
+            {
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99)
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return Returns the endpoint.
+     */
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    /**
+     * @return Returns the number of jobs with calls in progress or waiting
+     */
+    public synchronized int getActiveJobs()
+    {
+        return jobCalls.size();
+    }
+
+    /**
+     * Returns true if the job has its fair share of the limit (the limit divided by the number of active jobs,
+     * rounded up) in progress and another job is waiting
+     *
+     * @param jobId
+     * @param calls
+     * @return
+     */
+    private boolean isOverFairShare(String jobId, int[] calls)
+    {
+        int fairShare = (getCurrentLimit() + jobCalls.size() - 1) / jobCalls.size();
+        if (calls[0] < fairShare)
+            return false;
+
+        for (Map.Entry<String, int[]> entry : jobCalls.entrySet())
+            if (!entry.getKey().equals(jobId) && entry.getValue()[1] > 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * Decrements the job's number of calls in progress (index 0) or waiting (index 1) and forgets the job if
+     * it has no calls left
+     *
+     * @param jobId
+     * @param calls
+     * @param index
+     */
+    private void removeJobCall(String jobId, int[] calls, int index)
+    {
+        calls[index]--;
+        if (calls[0] <= 0 && calls[1] <= 0)
+            jobCalls.remove(jobId);
+    }
+
+    /**
+     * Adds the result of a call to the ring buffer of recent results
+     *
+     * @param failed
+     */
+    private void recordOutcome(boolean failed)
+    {
+        if (outcomeCount == OUTCOME_WINDOW)
+        {
+            if (outcomes[nextOutcome])
+                outcomeFailures--;
+        }
+        else
+            outcomeCount++;
+
+        outcomes[nextOutcome] = failed;
+        if (failed)
+            outcomeFailures++;
+        nextOutcome = (nextOutcome + 1) % OUTCOME_WINDOW;
+    }
+
+    /**
+     * Grows the limit by 1/limit
+     */
+    private void increase()
+    {
+        int oldLimit = getCurrentLimit();
+        limit = Math.min(MAX_LIMIT, limit + 1 / limit);
+        if (getCurrentLimit() != oldLimit)
+            addDecision(oldLimit, "Calls succeeded at the limit");
+    }
+
+    /**
+     * Multiplies the limit by {@link #DECREASE_FACTOR} unless it was decreased recently
+     *
+     * @param reason
+     */
+    private void decrease(String reason)
+    {
+        long now = System.currentTimeMillis();
+        if (now - lastDecreaseTime < DECREASE_COOLDOWN_MS)
+            return;
+
+        int oldLimit = getCurrentLimit();
+        limit = Math.max(MIN_LIMIT, limit * DECREASE_FACTOR);
+        lastDecreaseTime = now;
+        if (getCurrentLimit() != oldLimit)
+            addDecision(oldLimit, reason);
+    }
+
+    /**
+     * Remembers a limit change
+     *
+     * @param oldLimit
+     * @param reason
+     */
+    private void addDecision(int oldLimit, String reason)
+    {
+        decisions.addFirst(new Decision(System.currentTimeMillis(), oldLimit, getCurrentLimit(), reason));
+        if (decisions.size() > MAX_DECISIONS)
+            decisions.removeLast();
+    }
+
+    /**
+     * @param sorted
+     * @param percentile
+     * @return Returns given percentile of the sorted values or 0 if there are no values
+     */
+    private static long percentile(long[] sorted, int percentile)
+    {
+        if (sorted.length == 0)
+            return 0;
+
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * A change of the limit
+     */
+    public static class Decision
+    {
+        private final long time;
+        private final int oldLimit;
+        private final int newLimit;
+        private final String reason;
+
+        /**
+         * Constructor
+         *
+         * @param time
+         * @param oldLimit
+         * @param newLimit
+         * @param reason
+         */
+        private Decision(long time, int oldLimit, int newLimit, String reason)
+        {
+            this.time = time;
+            this.oldLimit = oldLimit;
+            this.newLimit = newLimit;
+            this.reason = reason;
+        }
+
+        /**
+         * @return Returns the time.
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * @return Returns the oldLimit.
+         */
+        public int getOldLimit()
+        {
+            return oldLimit;
+        }
+
+        /**
+         * @return Returns the newLimit.
+         */
+        public int getNewLimit()
+        {
+            return newLimit;
+        }
+
+        /**
+         * @return Returns the reason.
+         */
+        public String getReason()
+        {
+            return reason;
+        }
+    }
+
+    /**
+     * Recent latencies of an operation: a ring buffer of the most recent latencies for reporting, the current
+     * batch and the baseline the batches are compared with
+     */
+    private static class LatencyWindow
+    {
+        private final long[] values;
+        private int count;
+        private int next;
+        private final long[] batch;
+        private int batchCount;
+        private double baseline; // moving average of the percentile of the batches
+        private int batches;
+
+        /**
+         * Constructor
+         */
+        private LatencyWindow()
+        {
+            values = new long[LATENCY_WINDOW];
+            count = 0;
+            next = 0;
+            batch = new long[LATENCY_BATCH];
+            batchCount = 0;
+            baseline = 0;
+            batches = 0;
+        }
+
+        /**
+         * Adds the latency. When it completes a batch, the batch's percentile is added to the baseline and
+         * returned, so the sorting is done only once per batch.
+         *
+         * @param latencyMs
+         * @return Returns the {@link ConcurrencyLimiter#LATENCY_PERCENTILE}th percentile of the batch completed
+         *         by the latency or -1 if the batch is not complete yet
+         */
+        private long add(long latencyMs)
+        {
+            values[next] = latencyMs;
+            next = (next + 1) % values.length;
+            if (count < values.length)
+                count++;
+
+            batch[batchCount++] = latencyMs;
+            if (batchCount < batch.length)
+                return -1;
+
+            batchCount = 0;
+            Arrays.sort(batch);
+            long batchPercentile = percentile(batch, LATENCY_PERCENTILE);
+            baseline = batches == 0 ? batchPercentile : baseline + BASELINE_WEIGHT * (batchPercentile - baseline);
+            batches++;
+            return batchPercentile;
+        }
+
+        /**
+         * @return Returns the baseline in milliseconds or -1 if there were not enough batches yet
+         */
+        private long getBaseline()
+        {
+            return batches < MIN_BASELINE_BATCHES ? -1 : Math.round(baseline);
+        }
+
+        /**
+         * @return Returns a sorted copy of the latencies
+         */
+        private long[] getSorted()
+        {
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
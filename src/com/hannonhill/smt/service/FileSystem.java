@@ -26,6 +26,7 @@ import java.util.zip.ZipFile;
 
 import com.hannonhill.smt.ProjectInformation;
 import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.smt.util.StageTimer;
 
 /**
  * A service responsible for tasks related with files and folders
@@ -202,6 +203,26 @@ public class FileSystem
      * @throws Exception
      */
     public static String getFileContents(File file) throws Exception
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.READ);
+        try
+        {
+            return readFileContents(file);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Reads file and returns its contents as String
+     * 
+     * @param file
+     * @return
+     * @throws Exception
+     */
+    private static String readFileContents(File file) throws Exception
     {
         BufferedReader reader = new BufferedReader(new FileReader(file));
         String line = null;
@@ -15,6 +15,7 @@ import java.util.regex.Pattern;
 import org.w3c.tidy.Tidy;
 import org.xml.sax.InputSource;
 
+import com.hannonhill.smt.util.StageTimer;
 import com.hannonhill.smt.util.XmlUtil;
 
 /**
@@ -35,6 +36,26 @@ public class JTidy
      * @return
      */
     public static String tidyContentConditionally(String content)
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.TIDY);
+        try
+        {
+            return tidyConditionally(content);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Runs JTidy on the provided content if it is not a valid XML and returns the result. If it is valid XML,
+     * it will stay untouched.
+     * 
+     * @param content
+     * @return
+     */
+    private static String tidyConditionally(String content)
     {
         try
         {
@@ -62,6 +83,26 @@ public class JTidy
      * @return
      */
     public static String tidyContentConditionallyFullHtml(String content)
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.TIDY);
+        try
+        {
+            return tidyConditionallyFullHtml(content);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Runs JTidy on the provided full html content if it is not a valid XML and returns the result. If it is
+     * valid XML, it will stay untouched.
+     * 
+     * @param content
+     * @return
+     */
+    private static String tidyConditionallyFullHtml(String content)
     {
         content = stripDoctype(content);
 
@@ -7,7 +7,9 @@ package com.hannonhill.smt.service;
 
 import java.io.ByteArrayInputStream;
 import java.io.StringWriter;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -21,9 +23,12 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
+import com.hannonhill.smt.CascadeAssetType;
 import com.hannonhill.smt.ExternalRootLevelFolderAssignment;
+import com.hannonhill.smt.MigrationConfiguration;
 import com.hannonhill.smt.ProjectInformation;
 import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.smt.util.StageTimer;
 import com.hannonhill.smt.util.XmlUtil;
 
 /**
@@ -37,6 +42,31 @@ public class LinkRewriter
     private static final String DEFAULT_FILES_FOLDER = "files"; // Used when there is no webViewUrl to decide
                                                                 // where a file should go
 
+    // Paths the links rewritten by the current thread point to, see beginCollectingLinkTargets()
+    private static final ThreadLocal<Set<String>> linkTargets = new ThreadLocal<Set<String>>();
+
+    /**
+     * Starts collecting the paths that the links rewritten by the current thread point to. This way the
+     * migration knows which assets the asset being created links to without parsing its content again.
+     */
+    public static void beginCollectingLinkTargets()
+    {
+        linkTargets.set(new HashSet<String>());
+    }
+
+    /**
+     * Stops collecting the link targets on the current thread and returns the paths (within the site) that
+     * the links rewritten since {@link #beginCollectingLinkTargets()} point to
+     * 
+     * @return
+     */
+    public static Set<String> endCollectingLinkTargets()
+    {
+        Set<String> result = linkTargets.get();
+        linkTargets.remove();
+        return result == null ? new HashSet<String>() : result;
+    }
+
     /**
      * Recursively tries to figure out webViewUrl of a folder by looking for linkFile.xml in that folder and
      * reading webViewUrl from there. If no linkFile.xml is present in that folder, ancestor folders will be
@@ -78,6 +108,30 @@ public class LinkRewriter
      * @throws Exception
      */
     public static String rewriteLinksInXml(String xml, String assetPath, ProjectInformation projectInformation) throws Exception
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.REWRITE);
+        try
+        {
+            return rewriteLinks(xml, assetPath, projectInformation);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Rewrites all the file and page links in the xml. If it is a page link (ends with any of the
+     * {@link XmlAnalyzer#FILE_TO_PAGE_EXTENSIONS} extension and is a relative), the extension will be
+     * stripped.
+     * 
+     * @param xml
+     * @param assetPath
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    private static String rewriteLinks(String xml, String assetPath, ProjectInformation projectInformation) throws Exception
     {
         // To make things faster, if it's an empty string, just quit
         if (xml == null || xml.equals(""))
@@ -221,7 +275,7 @@ public class LinkRewriter
 
         String withoutExtension = PathUtil.truncateExtension(withoutAnchor);
         String pathOnly = PathUtil.removeLeadingSlashes(withoutExtension);
-        if (projectInformation.getExistingCascadePages().keySet().contains(pathOnly.toLowerCase()))
+        if (projectInformation.getExistingCascadeAssets().contains(pathOnly, CascadeAssetType.PAGE))
             attribute.setNodeValue(withoutExtension + anchor);
     }
 
@@ -248,14 +302,31 @@ public class LinkRewriter
         String anchor = PathUtil.getAnchorPart(oldPath);
 
         if (!PathUtil.isLinkRelative(withoutAnchor))
+        {
+            addLinkTarget(withoutAnchor);
             return;
+        }
 
         String newPath = rewriteLink(withoutAnchor, pagePath, projectInformation);
+        addLinkTarget(newPath);
 
         // add the anchor part
         attribute.setNodeValue(newPath + anchor);
     }
 
+    /**
+     * Remembers the path as a link target if the current thread is collecting link targets and the path is an
+     * absolute path within the site
+     * 
+     * @param path
+     */
+    private static void addLinkTarget(String path)
+    {
+        Set<String> targets = linkTargets.get();
+        if (targets != null && path.startsWith("/") && !path.startsWith("//"))
+            targets.add(path);
+    }
+
     /**
      * Rewrites the prefix part of the link and if needed, trunkates the extension.
      * For example, for a page with path /folder/page and a link ../folder2/page2.html, the link will be
@@ -276,8 +347,9 @@ public class LinkRewriter
     private static String rewriteLink(String link, String pagePath, ProjectInformation projectInformation)
     {
         String newPath = PathUtil.convertRelativeToAbsolute(link, pagePath);
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
         String extension = PathUtil.getExtension(newPath);
-        if (projectInformation.getPageExtensions().contains(extension) || projectInformation.getBlockExtensions().contains(extension))
+        if (configuration.isPageExtension(extension) || configuration.isBlockExtension(extension))
             newPath = PathUtil.truncateExtension(newPath);
 
         int deployPathLevels = pagePath.split("/").length - 1;
@@ -289,9 +361,7 @@ public class LinkRewriter
         if (goesToRoot)
         {
             // check the root level folder and see if there is an assignment for it
-            String withoutLeadingSlash = newPath.substring(1);
-            String rootLevelFolder = withoutLeadingSlash.substring(0, withoutLeadingSlash.indexOf('/'));
-            ExternalRootLevelFolderAssignment assignment = projectInformation.getExternalRootLevelFolderAssignemnts().get(rootLevelFolder);
+            ExternalRootLevelFolderAssignment assignment = configuration.getRootLevelFolderAssignment(newPath);
 
             // if no assignment, leave it as it is, if there is an assignment, rewrite the link
             if (assignment != null)
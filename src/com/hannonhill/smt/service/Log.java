@@ -5,8 +5,8 @@
  */
 package com.hannonhill.smt.service;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
-import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
@@ -22,29 +22,54 @@ import com.hannonhill.smt.TaskStatus;
  */
 public class Log
 {
+    // Messages of the entry that the current thread is working on, see beginEntry()
+    private static final ThreadLocal<StringBuilder> entries = new ThreadLocal<StringBuilder>();
+
     /**
-     * Escapes \ and ' characters in the logMessage and adds that message to the log for the task status and in the file system.
+     * Adds the message to the log for the task status, from which it is shown on the screen and written to the
+     * file system. If the current thread has begun an entry, the message is added to the entry instead.
      * 
      * @param logMessage
      * @param taskStatus
      */
     public static void add(String logMessage, TaskStatus taskStatus)
     {
-        logMessage = logMessage.replaceAll("\\\\", "\\\\\\\\");
-        logMessage = logMessage.replaceAll("'", "\\\\'");
-        taskStatus.getLog().append(logMessage);
+        StringBuilder entry = entries.get();
+        if (entry != null)
+            entry.append(logMessage);
+        else
+            taskStatus.getLog().add(logMessage);
+    }
+
+    /**
+     * Begins a log entry on the current thread. Until {@link #endEntry(TaskStatus)} is called, messages added by
+     * this thread are collected and then added to the log all at once, so that messages about an asset
+     * processed by one thread are not mixed with messages from other threads.
+     */
+    public static void beginEntry()
+    {
+        entries.set(new StringBuilder());
+    }
 
-        PrintWriter logWriter = taskStatus.getLogWriter();
-        if (logWriter != null)
-            logWriter.print(logMessage);
+    /**
+     * Ends the log entry begun on the current thread and adds its messages to the log
+     * 
+     * @param taskStatus
+     */
+    public static void endEntry(TaskStatus taskStatus)
+    {
+        StringBuilder entry = entries.get();
+        entries.remove();
+        if (entry != null && entry.length() > 0)
+            taskStatus.getLog().add(entry.toString());
     }
 
     /**
-     * Creates a log html file in the logs folder and assigns the log writer to the migration status object. Later on, the writer
-     * will need to be closed. 
+     * Creates a log html file in the logs folder and starts writing the task status's log to it in the
+     * background. Later on, the file will need to be closed.
      * 
      * If problem occurs, the eror message will be added to the log which will be only accessible through the web interface
-     * at this point. Also, the log writer will be null and at that point it won't need to be closed.
+     * at this point.
      * 
      * @param projectInformation
      * @param taskStatus
@@ -60,9 +85,7 @@ public class Log
             String datetime = sdf.format(cal.getTime());
             logFilePath = projectInformation.getLogsDir() + prefix + " " + datetime + ".log.html";
 
-            FileWriter outFile = new FileWriter(logFilePath);
-            PrintWriter printWriter = new PrintWriter(outFile);
-            taskStatus.setLogWriter(printWriter);
+            LogWriter.open(taskStatus.getLog(), new BufferedWriter(new FileWriter(logFilePath)));
         }
         catch (Exception e)
         {
@@ -72,14 +95,12 @@ public class Log
     }
 
     /**
-     * Closes the log writer. Must be called at the end of the task.
+     * Writes the rest of the log to the log file and closes it. Must be called at the end of the task.
      * 
      * @param taskStatus
      */
     public static void close(TaskStatus taskStatus)
     {
-        PrintWriter logWriter = taskStatus.getLogWriter();
-        if (logWriter != null)
-            taskStatus.getLogWriter().close();
+        LogWriter.close(taskStatus.getLog());
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.hannonhill.smt.TaskLog;
+
+/**
+ * Writes the logs of the running tasks to their log files on a single background thread. Every
+ * {@link #WRITE_INTERVAL_MS} the thread writes all the messages added to each log since the last time in one
+ * batch and flushes the file once per batch, so the threads of the tasks never wait for the disk.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class LogWriter
+{
+    private static final long WRITE_INTERVAL_MS = 200;
+
+    private static final List<LogFile> logFiles = new CopyOnWriteArrayList<LogFile>();
+    private static Thread thread;
+
+    /**
+     * Starts writing the log to given writer
+     *
+     * @param log
+     * @param writer
+     */
+    public static void open(TaskLog log, Writer writer)
+    {
+        logFiles.add(new LogFile(log, writer));
+        startThread();
+    }
+
+    /**
+     * Writes the rest of the log and closes its writer
+     *
+     * @param log
+     */
+    public static void close(TaskLog log)
+    {
+        for (LogFile logFile : logFiles)
+            if (logFile.log == log)
+            {
+                logFiles.remove(logFile);
+                logFile.close();
+            }
+    }
+
+    /**
+     * Starts the writing thread if it is not running yet
+     */
+    private static synchronized void startThread()
+    {
+        if (thread != null)
+            return;
+
+        thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                while (true)
+                {
+                    for (LogFile logFile : logFiles)
+                        logFile.write();
+
+                    try
+                    {
+                        Thread.sleep(WRITE_INTERVAL_MS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                }
+            }
+        }, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * A log being written to a file
+     */
+    private static class LogFile
+    {
+        private final TaskLog log;
+        private final Writer writer;
+        private long cursor; // sequence number of the first message not written yet
+        private boolean closed;
+
+        /**
+         * Constructor
+         *
+         * @param log
+         * @param writer
+         */
+        private LogFile(TaskLog log, Writer writer)
+        {
+            this.log = log;
+            this.writer = writer;
+            cursor = 0;
+            closed = false;
+        }
+
+        /**
+         * Writes the messages added since the last write and flushes the writer
+         */
+        private synchronized void write()
+        {
+            if (closed)
+                return;
+
+            TaskLog.Batch batch = log.read(cursor);
+            if (batch.getEvents().isEmpty() && batch.getLost() == 0)
+                return;
+
+            cursor = batch.getNextCursor();
+            try
+            {
+                if (batch.getLost() > 0)
+                    writer.write("<span style=\"color:red;\">(" + batch.getLost() + " messages were lost, the log was written too slowly)</span><br/>");
+                for (TaskLog.LogEvent event : batch.getEvents())
+                    writer.write(event.getMessage());
+                writer.flush();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Writes the rest of the log and closes the writer
+         */
+        private synchronized void close()
+        {
+            write();
+            closed = true;
+            try
+            {
+                writer.close();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
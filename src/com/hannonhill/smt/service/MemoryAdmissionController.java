@@ -0,0 +1,297 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Decides when the migration jobs can start working on another asset, so that the migrations running in this
+ * Tomcat (which shares its heap with the user interface) slow down instead of running out of memory.
+ *
+ * Two things are watched:
+ * <ul>
+ * <li>the estimated number of bytes held by the assets being worked on - the size of an asset's file
+ * multiplied by {@link #ESTIMATE_FACTOR}, because the content is held as a string, tidied and base64 encoded.
+ * The estimates of all the assets in progress cannot exceed {@link #BUDGET_FRACTION} of the maximum heap. An
+ * estimate larger than the budget is capped at the budget, so that such an asset gets admitted once the other
+ * assets are finished.</li>
+ * <li>the heap occupancy after garbage collection, using the collection usage thresholds of the heap memory
+ * pools. When a pool is still more than {@link #HIGH_OCCUPANCY} full after a collection, no new assets are
+ * admitted until it drops below {@link #LOW_OCCUPANCY}.</li>
+ * </ul>
+ * Assets are admitted in the order they arrive - a small asset is not let in past a large one that is waiting
+ * for the bytes to drain. An asset is always admitted when no other asset is in progress, and an asset that
+ * has waited for {@link #MAX_WAIT_MS} is admitted anyway, so that assets waiting for each other cannot stop the
+ * migration. An asset that waits for another asset to be created gives its admission up while waiting (see
+ * {@link #suspend()}).
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MemoryAdmissionController
+{
+    private static final long ESTIMATE_FACTOR = 4;
+    private static final double BUDGET_FRACTION = 0.25;
+    private static final double HIGH_OCCUPANCY = 0.75;
+    private static final double LOW_OCCUPANCY = 0.6;
+    private static final long CHECK_INTERVAL_MS = 1000; // how often waiting assets check if the pressure is gone
+    private static final long MAX_WAIT_MS = 2 * 60 * 1000;
+
+    private static final long budget = (long) (Runtime.getRuntime().maxMemory() * BUDGET_FRACTION);
+    private static final List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+    private static final Object lock = new Object();
+
+    // Estimate admitted by the current thread, null if the thread doesn't hold an admission
+    private static final ThreadLocal<Long> admittedEstimate = new ThreadLocal<Long>();
+
+    private static long bytesInFlight;
+    private static int assetsInFlight;
+    private static long nextTicket; // ticket of the next arriving asset
+    private static long nextToAdmit; // ticket of the asset whose turn it is to be admitted
+    private static final Set<Long> abandonedTickets = new HashSet<Long>(); // tickets of interrupted waits
+    private static boolean underPressure;
+    private static long pauses; // number of times the admission got paused because of the heap occupancy
+    private static long forcedAdmissions;
+
+    static
+    {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported() || max <= 0)
+                continue;
+
+            pool.setCollectionUsageThreshold((long) (max * HIGH_OCCUPANCY));
+            heapPools.add(pool);
+        }
+
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(new NotificationListener()
+        {
+            public void handleNotification(Notification notification, Object handback)
+            {
+                if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+                    setUnderPressure();
+            }
+        }, null, null);
+    }
+
+    /**
+     * Waits until an asset of given size can be worked on and registers it
+     *
+     * @param size size of the asset's file in bytes
+     * @return Returns the estimated number of bytes to be passed to {@link #release(long)} when the work on
+     *         the asset is finished
+     * @throws InterruptedException
+     */
+    public static long admit(long size) throws InterruptedException
+    {
+        long estimate = Math.min(size * ESTIMATE_FACTOR, budget);
+        waitForAdmission(estimate);
+        return estimate;
+    }
+
+    /**
+     * Registers the end of the work on an asset
+     *
+     * @param estimate the estimate returned by {@link #admit(long)}
+     */
+    public static void release(long estimate)
+    {
+        // The admission might have been given up by a suspend that got interrupted before resuming
+        if (admittedEstimate.get() == null)
+            return;
+
+        admittedEstimate.remove();
+        synchronized (lock)
+        {
+            assetsInFlight--;
+            bytesInFlight -= estimate;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Gives up the admission of the current thread while it waits for another asset, so that the waiting
+     * asset's bytes don't keep the asset it waits for out. Does nothing if the thread doesn't hold an
+     * admission.
+     *
+     * @return Returns the estimate to be passed to {@link #resume(long)} or -1 if nothing was given up
+     */
+    public static long suspend()
+    {
+        Long estimate = admittedEstimate.get();
+        if (estimate == null)
+            return -1;
+
+        release(estimate);
+        return estimate;
+    }
+
+    /**
+     * Waits until the admission given up by {@link #suspend()} is granted again
+     *
+     * @param estimate the value returned by {@link #suspend()}
+     * @throws InterruptedException
+     */
+    public static void resume(long estimate) throws InterruptedException
+    {
+        if (estimate >= 0)
+            waitForAdmission(estimate);
+    }
+
+    /**
+     * Waits for the turn of the current thread and until the estimate fits into the budget (or the heap is
+     * not too full), then registers the estimate
+     *
+     * @param estimate
+     * @throws InterruptedException
+     */
+    private static void waitForAdmission(long estimate) throws InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        synchronized (lock)
+        {
+            long ticket = nextTicket++;
+            try
+            {
+                while (ticket != nextToAdmit || (assetsInFlight > 0 && (isUnderPressure() || bytesInFlight + estimate > budget)))
+                {
+                    if (ticket == nextToAdmit && System.currentTimeMillis() - start >= MAX_WAIT_MS)
+                    {
+                        forcedAdmissions++;
+                        break;
+                    }
+                    lock.wait(CHECK_INTERVAL_MS);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                if (ticket == nextToAdmit)
+                    nextTurn();
+                else
+                    abandonedTickets.add(ticket);
+                throw e;
+            }
+
+            nextTurn();
+            assetsInFlight++;
+            bytesInFlight += estimate;
+        }
+        admittedEstimate.set(estimate);
+    }
+
+    /**
+     * Gives the turn to the next asset that is still waiting. Must be called while holding the lock.
+     */
+    private static void nextTurn()
+    {
+        nextToAdmit++;
+        while (abandonedTickets.remove(nextToAdmit))
+            nextToAdmit++;
+        lock.notifyAll();
+    }
+
+    /**
+     * @return Returns true if the heap was too full after the last garbage collection and new assets are not
+     *         admitted
+     */
+    public static boolean isPaused()
+    {
+        synchronized (lock)
+        {
+            return isUnderPressure();
+        }
+    }
+
+    /**
+     * @return Returns the estimated number of bytes held by the assets being worked on
+     */
+    public static long getBytesInFlight()
+    {
+        synchronized (lock)
+        {
+            return bytesInFlight;
+        }
+    }
+
+    /**
+     * @return Returns the maximum estimated number of bytes the assets being worked on can hold
+     */
+    public static long getBudget()
+    {
+        return budget;
+    }
+
+    /**
+     * @return Returns the number of times the admission got paused because the heap was too full
+     */
+    public static long getPauses()
+    {
+        synchronized (lock)
+        {
+            return pauses;
+        }
+    }
+
+    /**
+     * @return Returns the number of assets admitted because they waited too long
+     */
+    public static long getForcedAdmissions()
+    {
+        synchronized (lock)
+        {
+            return forcedAdmissions;
+        }
+    }
+
+    /**
+     * Starts rejecting new assets. Called when a heap pool is still above the threshold after a collection.
+     */
+    private static void setUnderPressure()
+    {
+        synchronized (lock)
+        {
+            if (!underPressure)
+                pauses++;
+            underPressure = true;
+        }
+    }
+
+    /**
+     * Returns true if the heap is too full. Once the admission is paused, it resumes only when all the heap
+     * pools are below the low occupancy after a collection. Must be called while holding the lock.
+     *
+     * @return
+     */
+    private static boolean isUnderPressure()
+    {
+        if (!underPressure)
+            return false;
+
+        for (MemoryPoolMXBean pool : heapPools)
+        {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getMax() > 0 && usage.getUsed() > usage.getMax() * LOW_OCCUPANCY)
+                return true;
+        }
+
+        underPressure = false;
+        lock.notifyAll();
+        return false;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.SOAPPart;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.Stub;
+
+import com.hannonhill.smt.util.FlightRecorderEvents;
+import com.hannonhill.smt.util.StageTimer;
+import com.hannonhill.www.ws.ns.AssetOperationService.Asset;
+import com.hannonhill.www.ws.ns.AssetOperationService.FolderContainedAsset;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+import com.hannonhill.www.ws.ns.AssetOperationService.OperationResult;
+
+/**
+ * Records the latency, outcome and message sizes of each web services call in {@link CallMetrics}. It is the
+ * last interceptor of the chain, so each retry is recorded as a separate call and the time spent waiting for
+ * the circuit breaker or the concurrency limiter is not included.
+ *
+ * The sizes of the messages are taken from the Axis call only when they are known without serializing the
+ * message again - when the message is already held as bytes or the HTTP headers contain its length. Calls
+ * with chunked messages do not add to the bytes sent and received.
+ *
+ * Each call is also committed as a {@link FlightRecorderEvents.Kind#WEB_SERVICES_CALL} event when the flight
+ * recorder is recording.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MetricsInterceptor implements AssetOperationInterceptor
+{
+    public Object intercept(AssetOperationInvocation invocation) throws Exception
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.WEB_SERVICES);
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.WEB_SERVICES_CALL);
+        long start = System.nanoTime();
+        boolean error = true;
+        try
+        {
+            Object result = invocation.proceed();
+            error = result instanceof OperationResult && !"true".equals(((OperationResult) result).getSuccess());
+            return result;
+        }
+        finally
+        {
+            long latencyMicros = (System.nanoTime() - start) / 1000;
+            long bytesSent = -1;
+            long bytesReceived = -1;
+            if (invocation.getTarget() instanceof Stub)
+            {
+                Call call = ((Stub) invocation.getTarget())._getCall();
+                MessageContext messageContext = call == null ? null : call.getMessageContext();
+                if (messageContext != null)
+                {
+                    bytesSent = getSize(messageContext.getRequestMessage());
+                    bytesReceived = getSize(messageContext.getResponseMessage());
+                }
+            }
+
+            CallMetrics.record(invocation.getEndpoint(), ConcurrencyLimiter.getCurrentJob(), invocation.getOperationName(),
+                    getAssetType(invocation.getArguments()), latencyMicros, error, bytesSent, bytesReceived);
+            if (event != null)
+                FlightRecorderEvents.commit(event, invocation.getOperationName(), getAssetType(invocation.getArguments()),
+                        getAssetPath(invocation.getArguments()), bytesSent, bytesReceived, !error);
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Returns the type of the asset the call works on, for example "page" or "folder", or "none" if the call
+     * is not about a single asset
+     *
+     * @param arguments
+     * @return
+     */
+    static String getAssetType(Object[] arguments)
+    {
+        if (arguments == null || arguments.length < 2)
+            return "none";
+
+        Object argument = arguments[1];
+        if (argument instanceof Identifier)
+        {
+            Identifier identifier = (Identifier) argument;
+            return identifier.getType() == null ? "unknown" : identifier.getType().getValue();
+        }
+
+        if (argument instanceof Asset)
+        {
+            Asset asset = (Asset) argument;
+            if (asset.getPage() != null)
+                return "page";
+            if (asset.getXhtmlDataDefinitionBlock() != null)
+                return "block_XHTML_DATADEFINITION";
+            if (asset.getFile() != null)
+                return "file";
+            if (asset.getFolder() != null)
+                return "folder";
+            return "other";
+        }
+
+        return "none";
+    }
+
+    /**
+     * Returns the path of the asset the call works on or null if it is not known
+     *
+     * @param arguments
+     * @return
+     */
+    static String getAssetPath(Object[] arguments)
+    {
+        if (arguments == null || arguments.length < 2)
+            return null;
+
+        Object argument = arguments[1];
+        if (argument instanceof Identifier)
+        {
+            Identifier identifier = (Identifier) argument;
+            return identifier.getPath() != null ? identifier.getPath().getPath() : identifier.getId();
+        }
+
+        if (argument instanceof Asset)
+        {
+            Asset asset = (Asset) argument;
+            FolderContainedAsset containedAsset = asset.getPage() != null ? asset.getPage() : asset.getXhtmlDataDefinitionBlock() != null ? asset
+                    .getXhtmlDataDefinitionBlock() : asset.getFile() != null ? asset.getFile() : asset.getFolder();
+            if (containedAsset == null)
+                return null;
+
+            String parentFolderPath = containedAsset.getParentFolderPath() == null ? "" : containedAsset.getParentFolderPath();
+            return parentFolderPath.endsWith("/") || parentFolderPath.equals("") ? parentFolderPath + containedAsset.getName() : parentFolderPath
+                    + "/" + containedAsset.getName();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the size of the message in bytes if it is known without serializing the message or -1
+     *
+     * @param message
+     * @return
+     */
+    private static long getSize(Message message)
+    {
+        if (message == null)
+            return -1;
+
+        try
+        {
+            SOAPPart soapPart = (SOAPPart) message.getSOAPPart();
+            if (soapPart.getCurrentForm() == SOAPPart.FORM_BYTES || soapPart.getCurrentForm() == SOAPPart.FORM_OPTIMIZED)
+                return message.getContentLength();
+
+            String[] contentLength = message.getMimeHeaders().getHeader("Content-Length");
+            return contentLength == null || contentLength.length == 0 ? -1 : Long.parseLong(contentLength[0].trim());
+        }
+        catch (Exception e)
+        {
+            return -1;
+        }
+    }
+}
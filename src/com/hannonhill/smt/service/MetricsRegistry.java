@@ -0,0 +1,142 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.PendingAssets;
+import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.TaskStatus;
+
+/**
+ * Keeps track of the latest task of each project, so that the metrics of all the tasks can be exported
+ * without a session (see {@link com.hannonhill.smt.struts.PrometheusAction}). A project's task stays
+ * registered after it completes until the project starts another task or the project's session expires - the
+ * projects are held weakly.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MetricsRegistry
+{
+    private static final Map<ProjectInformation, RegisteredTask> tasks = new WeakHashMap<ProjectInformation, RegisteredTask>();
+    private static final AtomicLong nextProjectId = new AtomicLong();
+
+    /**
+     * Registers the task as the latest task of given project
+     *
+     * @param projectInformation
+     * @param taskName
+     * @param status
+     */
+    public static void register(ProjectInformation projectInformation, String taskName, TaskStatus status)
+    {
+        synchronized (tasks)
+        {
+            RegisteredTask previous = tasks.get(projectInformation);
+            long projectId = previous == null ? nextProjectId.incrementAndGet() : previous.getProjectId();
+            tasks.put(projectInformation, new RegisteredTask(projectId, projectInformation.getSiteName(), projectInformation.getUrl(), taskName,
+                    status, projectInformation.getPendingAssets()));
+        }
+    }
+
+    /**
+     * @return Returns the latest task of each project
+     */
+    public static List<RegisteredTask> getTasks()
+    {
+        synchronized (tasks)
+        {
+            return new ArrayList<RegisteredTask>(tasks.values());
+        }
+    }
+
+    /**
+     * A task with the information identifying its project. Doesn't reference the project, so that the
+     * project can be garbage collected.
+     */
+    public static class RegisteredTask
+    {
+        private final long projectId;
+        private final String siteName;
+        private final String url;
+        private final String taskName;
+        private final TaskStatus status;
+        private final PendingAssets pendingAssets;
+
+        /**
+         * Constructor
+         *
+         * @param projectId
+         * @param siteName
+         * @param url
+         * @param taskName
+         * @param status
+         * @param pendingAssets
+         */
+        private RegisteredTask(long projectId, String siteName, String url, String taskName, TaskStatus status, PendingAssets pendingAssets)
+        {
+            this.projectId = projectId;
+            this.siteName = siteName;
+            this.url = url;
+            this.taskName = taskName;
+            this.status = status;
+            this.pendingAssets = pendingAssets;
+        }
+
+        /**
+         * @return Returns the projectId.
+         */
+        public long getProjectId()
+        {
+            return projectId;
+        }
+
+        /**
+         * @return Returns the siteName.
+         */
+        public String getSiteName()
+        {
+            return siteName;
+        }
+
+        /**
+         * @return Returns the url.
+         */
+        public String getUrl()
+        {
+            return url;
+        }
+
+        /**
+         * @return Returns the taskName.
+         */
+        public String getTaskName()
+        {
+            return taskName;
+        }
+
+        /**
+         * @return Returns the status.
+         */
+        public TaskStatus getStatus()
+        {
+            return status;
+        }
+
+        /**
+         * @return Returns the pendingAssets.
+         */
+        public PendingAssets getPendingAssets()
+        {
+            return pendingAssets;
+        }
+    }
+}
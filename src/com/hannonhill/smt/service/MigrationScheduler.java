@@ -0,0 +1,287 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.hannonhill.smt.util.DaemonThreadFactory;
+
+/**
+ * Runs the migration jobs in two lanes: a lane for small assets (pages, blocks and small files) and a lane
+ * for large binary files. Each lane has its own threads and its own budget of bytes that its jobs can be
+ * working on at once, so a few big uploads cannot hold up thousands of small pages and the memory needed for
+ * the file contents stays bounded. On top of that, the {@link MemoryAdmissionController} holds back new jobs of
+ * all the migrations while the heap is too full.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MigrationScheduler
+{
+    public static final long LARGE_FILE_SIZE = 2 * 1024 * 1024; // files at least this big go to the large lane
+
+    private static final int SMALL_LANE_THREADS = 4;
+    private static final long SMALL_LANE_BYTES = 32 * 1024 * 1024;
+    private static final int LARGE_LANE_THREADS = 2;
+    private static final long LARGE_LANE_BYTES = 512 * 1024 * 1024;
+
+    private final Lane smallLane;
+    private final Lane largeLane;
+
+    /**
+     * Constructor
+     */
+    public MigrationScheduler()
+    {
+        // The lanes' calls belong to the job the migration runs in
+        String jobId = ConcurrencyLimiter.getCurrentJob();
+        smallLane = new Lane("small", SMALL_LANE_THREADS, SMALL_LANE_BYTES, jobId, false);
+        largeLane = new Lane("large", LARGE_LANE_THREADS, LARGE_LANE_BYTES, jobId, true);
+    }
+
+    /**
+     * @param size size of the asset's content in bytes
+     * @return Returns the lane for a file of given size
+     */
+    public Lane getLaneForFile(long size)
+    {
+        return size >= LARGE_FILE_SIZE ? largeLane : smallLane;
+    }
+
+    /**
+     * @return Returns the smallLane.
+     */
+    public Lane getSmallLane()
+    {
+        return smallLane;
+    }
+
+    /**
+     * @return Returns the largeLane.
+     */
+    public Lane getLargeLane()
+    {
+        return largeLane;
+    }
+
+    /**
+     * Waits until the jobs in both lanes are finished. Jobs in the large lane may submit jobs to the small
+     * lane when they finish (but not the other way around), so the large lane is checked first.
+     *
+     * @throws InterruptedException
+     */
+    public void awaitIdle() throws InterruptedException
+    {
+        do
+        {
+            largeLane.awaitIdle();
+            smallLane.awaitIdle();
+        }
+        while (largeLane.getPendingJobs() > 0 || smallLane.getPendingJobs() > 0);
+    }
+
+    /**
+     * Stops the threads of both lanes. Jobs that have not started yet are not run.
+     */
+    public void shutdown()
+    {
+        smallLane.shutdown();
+        largeLane.shutdown();
+    }
+
+    /**
+     * A set of threads running jobs in the order they were submitted, with a limit of bytes the running jobs
+     * can be working on at once. A job bigger than the whole budget is allowed to run alone.
+     *
+     * Jobs get into the budget strictly in the order they were submitted, so a job can safely wait for a job
+     * submitted before it (for example a page waiting for a block it references) - the earlier job is never
+     * kept out of the budget by the later one.
+     */
+    public static class Lane
+    {
+        private final String name;
+        private final long byteBudget;
+        private final ExecutorService executor;
+        private final String jobId; // job the web services calls made by the lane's jobs belong to
+        private final boolean largeTransfers; // true if the lane's jobs upload large files
+        private int pendingJobs; // submitted and not finished yet
+        private long nextTicket; // ticket of the next submitted job
+        private long nextToAcquire; // ticket of the job whose turn it is to get into the budget
+        private long bytesInFlight;
+        private int jobsInFlight;
+
+        /**
+         * Constructor
+         *
+         * @param name
+         * @param threads
+         * @param byteBudget
+         * @param jobId
+         * @param largeTransfers
+         */
+        private Lane(String name, int threads, long byteBudget, String jobId, boolean largeTransfers)
+        {
+            this.name = name;
+            this.byteBudget = byteBudget;
+            this.jobId = jobId;
+            this.largeTransfers = largeTransfers;
+            executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("migration-" + name));
+            pendingJobs = 0;
+            nextTicket = 0;
+            nextToAcquire = 0;
+            bytesInFlight = 0;
+            jobsInFlight = 0;
+        }
+
+        /**
+         * Schedules a job
+         *
+         * @param job
+         * @param bytes number of bytes the job will be working on (for example size of the file)
+         */
+        public synchronized void submit(final Runnable job, final long bytes)
+        {
+            // The job is queued while holding the lock, so the executor's queue is always in the order of
+            // the tickets and the threads cannot all end up waiting for a ticket that is still in the queue
+            final long ticket = nextTicket;
+            try
+            {
+                executor.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        ConcurrencyLimiter.setCurrentJob(jobId);
+                        ConcurrencyLimiter.setLargeTransfers(largeTransfers);
+                        try
+                        {
+                            acquire(ticket, bytes);
+                            try
+                            {
+                                long estimate = MemoryAdmissionController.admit(bytes);
+                                try
+                                {
+                                    job.run();
+                                }
+                                finally
+                                {
+                                    MemoryAdmissionController.release(estimate);
+                                }
+                            }
+                            finally
+                            {
+                                release(bytes);
+                            }
+                        }
+                        catch (InterruptedException e)
+                        {
+                            // The lane is being shut down
+                        }
+                        catch (RuntimeException e)
+                        {
+                            e.printStackTrace();
+                        }
+                        finally
+                        {
+                            ConcurrencyLimiter.setCurrentJob(null);
+                            ConcurrencyLimiter.setLargeTransfers(false);
+                            finished();
+                        }
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                // The lane got shut down, the job will never run
+                return;
+            }
+
+            nextTicket++;
+            pendingJobs++;
+        }
+
+        /**
+         * Waits until all the submitted jobs are finished
+         *
+         * @throws InterruptedException
+         */
+        public synchronized void awaitIdle() throws InterruptedException
+        {
+            while (pendingJobs > 0)
+                wait();
+        }
+
+        /**
+         * @return Returns the number of jobs submitted and not finished yet
+         */
+        public synchronized int getPendingJobs()
+        {
+            return pendingJobs;
+        }
+
+        /**
+         * @return Returns the number of bytes the running jobs are working on
+         */
+        public synchronized long getBytesInFlight()
+        {
+            return bytesInFlight;
+        }
+
+        /**
+         * @return Returns the name.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Waits until it is the job's turn and the job fits in the byte budget
+         *
+         * @param ticket
+         * @param bytes
+         * @throws InterruptedException
+         */
+        private synchronized void acquire(long ticket, long bytes) throws InterruptedException
+        {
+            while (ticket != nextToAcquire || (jobsInFlight > 0 && bytesInFlight + bytes > byteBudget))
+                wait();
+
+            nextToAcquire++;
+            notifyAll();
+            jobsInFlight++;
+            bytesInFlight += bytes;
+        }
+
+        /**
+         * @param bytes
+         */
+        private synchronized void release(long bytes)
+        {
+            jobsInFlight--;
+            bytesInFlight -= bytes;
+            notifyAll();
+        }
+
+        /**
+         * Registers a finished job
+         */
+        private synchronized void finished()
+        {
+            pendingJobs--;
+            notifyAll();
+        }
+
+        /**
+         * Stops the threads. Jobs that have not started yet are not run.
+         */
+        private void shutdown()
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -6,13 +6,18 @@
 package com.hannonhill.smt.service;
 
 import java.io.File;
-import java.util.List;
 import java.util.Set;
 
+import com.hannonhill.smt.CascadeAssetIndex;
 import com.hannonhill.smt.CascadeAssetInformation;
+import com.hannonhill.smt.CascadeAssetType;
+import com.hannonhill.smt.MigrationConfiguration;
 import com.hannonhill.smt.MigrationStatus;
+import com.hannonhill.smt.PendingAssets;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.util.FlightRecorderEvents;
 import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.smt.util.StageTimer;
 
 /**
  * A service responsible for the actual migration
@@ -24,120 +29,317 @@ public class Migrator
 {
 
     /**
-     * Re-edits each page to align the links to make them tracked by Cascade Server
+     * Re-edits the page to align the links to make them tracked by Cascade Server
+     * 
+     * @param page
+     * @param projectInformation
      */
-    public static void alignLinks(ProjectInformation projectInformation)
+    private static void alignPage(CascadeAssetInformation page, ProjectInformation projectInformation)
     {
         MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
-        List<CascadeAssetInformation> blocks = migrationStatus.getCreatedBlocks();
-        List<CascadeAssetInformation> pages = migrationStatus.getCreatedPages();
-
-        for (CascadeAssetInformation block : blocks)
+        Log.beginEntry();
+        StageTimer.begin();
+        Object assetEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.ASSET);
+        try
         {
-            if (migrationStatus.isShouldStop())
-                return;
+            Log.add("Aligning links in page " + PathUtil.generatePageLink(page, projectInformation.getUrl()) + "... ", migrationStatus);
+            WebServices.realignLinks(page.getId(), projectInformation);
+            migrationStatus.incrementProgress(1);
+            migrationStatus.incrementAssetsAligned();
+            Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
+        }
+        catch (Exception e)
+        {
+            // Sometimes the exception message is null, so we get the message from the parent exception
+            String message = e.getMessage();
+            if (message == null && e.getCause() != null)
+                message = e.getCause().getMessage();
 
-            try
-            {
-                Log.add("Aligning links in block " + PathUtil.generateBlockLink(block, projectInformation.getUrl()) + "... ", migrationStatus);
-                WebServices.realignXhtmlBlockLinks(block.getId(), projectInformation);
-                migrationStatus.incrementProgress(1);
-                migrationStatus.incrementAssetsAligned();
-                Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
-            }
-            catch (Exception e)
-            {
-                // Sometimes the exception message is null, so we get the message from the parent exception
-                String message = e.getMessage();
-                if (message == null && e.getCause() != null)
-                    message = e.getCause().getMessage();
+            migrationStatus.incrementProgress(1);
+            migrationStatus.incrementAssetsNotAligned();
+            Log.add("<span class=\"text-error\">Error: " + message + "</span><br/>", migrationStatus);
+            e.printStackTrace();
+        }
+        finally
+        {
+            String name = page.getPath();
+            migrationStatus.getStageReport().add(name, "page alignment", StageTimer.end());
+            if (assetEvent != null)
+                FlightRecorderEvents.commit(assetEvent, name, "page alignment");
+            Log.endEntry(migrationStatus);
+        }
+    }
 
-                migrationStatus.incrementProgress(1);
-                migrationStatus.incrementAssetsNotAligned();
-                Log.add("<span class=\"text-error\">Error: " + message + "</span><br/>", migrationStatus);
-                e.printStackTrace();
-            }
+    /**
+     * Re-edits the block to align the links to make them tracked by Cascade Server
+     * 
+     * @param block
+     * @param projectInformation
+     */
+    private static void alignBlock(CascadeAssetInformation block, ProjectInformation projectInformation)
+    {
+        MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        Log.beginEntry();
+        StageTimer.begin();
+        Object assetEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.ASSET);
+        try
+        {
+            Log.add("Aligning links in block " + PathUtil.generateBlockLink(block, projectInformation.getUrl()) + "... ", migrationStatus);
+            WebServices.realignXhtmlBlockLinks(block.getId(), projectInformation);
+            migrationStatus.incrementProgress(1);
+            migrationStatus.incrementAssetsAligned();
+            Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
         }
+        catch (Exception e)
+        {
+            // Sometimes the exception message is null, so we get the message from the parent exception
+            String message = e.getMessage();
+            if (message == null && e.getCause() != null)
+                message = e.getCause().getMessage();
 
-        for (CascadeAssetInformation page : pages)
+            migrationStatus.incrementProgress(1);
+            migrationStatus.incrementAssetsNotAligned();
+            Log.add("<span class=\"text-error\">Error: " + message + "</span><br/>", migrationStatus);
+            e.printStackTrace();
+        }
+        finally
         {
-            if (migrationStatus.isShouldStop())
-                return;
+            String name = block.getPath();
+            migrationStatus.getStageReport().add(name, "block alignment", StageTimer.end());
+            if (assetEvent != null)
+                FlightRecorderEvents.commit(assetEvent, name, "block alignment");
+            Log.endEntry(migrationStatus);
+        }
+    }
 
-            try
-            {
-                Log.add("Aligning links in page " + PathUtil.generatePageLink(page, projectInformation.getUrl()) + "... ", migrationStatus);
-                WebServices.realignLinks(page.getId(), projectInformation);
-                migrationStatus.incrementProgress(1);
-                migrationStatus.incrementAssetsAligned();
-                Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
-            }
-            catch (Exception e)
+    /**
+     * Schedules aligning the links of the page or block once all the assets it links to that are still
+     * pending are created. Cascade Server can only track a link to an asset that exists, so aligning earlier
+     * would leave the link untracked.
+     * 
+     * @param asset
+     * @param block whether the asset is an XHTML block or a page
+     * @param linkTargets
+     * @param projectInformation
+     * @param scheduler
+     */
+    private static void scheduleAlignment(final CascadeAssetInformation asset, final boolean block, Set<String> linkTargets,
+            final ProjectInformation projectInformation, final MigrationScheduler scheduler)
+    {
+        projectInformation.getPendingAssets().whenCreated(linkTargets, new Runnable()
+        {
+            public void run()
             {
-                // Sometimes the exception message is null, so we get the message from the parent exception
-                String message = e.getMessage();
-                if (message == null && e.getCause() != null)
-                    message = e.getCause().getMessage();
-
-                migrationStatus.incrementProgress(1);
-                migrationStatus.incrementAssetsNotAligned();
-                Log.add("<span class=\"text-error\">Error: " + message + "</span><br/>", migrationStatus);
-                e.printStackTrace();
+                scheduler.getSmallLane().submit(new Runnable()
+                {
+                    public void run()
+                    {
+                        if (projectInformation.getMigrationStatus().isShouldStop())
+                            return;
+
+                        if (block)
+                            alignBlock(asset, projectInformation);
+                        else
+                            alignPage(asset, projectInformation);
+                    }
+                }, 0);
             }
-        }
+        });
     }
 
     /**
-     * Creates files in Cascade that do not end with {@link XmlAnalyzer#FILE_TO_PAGE_EXTENSIONS} or
-     * {@link XmlAnalyzer#FILE_TO_BLOCK_EXTENSIONS} extension and are not hidden (do not start with "."). Uses
-     * {@link ProjectInformation#getFilesToProcess()} to get the actual files.
+     * Schedules creation of files in Cascade that do not end with {@link XmlAnalyzer#FILE_TO_PAGE_EXTENSIONS}
+     * or {@link XmlAnalyzer#FILE_TO_BLOCK_EXTENSIONS} extension and are not hidden (do not start with ".").
+     * Uses {@link ProjectInformation#getFilesToProcess()} to get the actual files. Large files are uploaded
+     * in the large lane.
      * 
-     * @param files
      * @param projectInformation
      * @param metadataSetId
+     * @param scheduler
      */
-    private static void createFiles(ProjectInformation projectInformation, String metadataSetId)
+    private static void createFiles(final ProjectInformation projectInformation, final String metadataSetId, MigrationScheduler scheduler)
     {
-        for (File folderFile : projectInformation.getFilesToProcess())
+        for (final File folderFile : projectInformation.getFilesToProcess())
         {
             if (projectInformation.getMigrationStatus().isShouldStop())
                 return;
 
-            String name = folderFile.getName();
-
-            // Skip hidden files and folders
-            if (name.startsWith("."))
+            if (!isFileAsset(folderFile, projectInformation))
                 continue;
 
-            String extension = PathUtil.getExtension(name);
-            if (projectInformation.getPageExtensions().contains(extension) || projectInformation.getBlockExtensions().contains(extension))
+            final String path = WebServices.getFilePath(folderFile, projectInformation);
+            long size = folderFile.length();
+            scheduler.getLaneForFile(size).submit(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        if (projectInformation.getMigrationStatus().isShouldStop())
+                            return;
+
+                        createFile(folderFile, projectInformation, metadataSetId);
+                        projectInformation.getMigrationStatus().incrementProgress(2);
+                    }
+                    finally
+                    {
+                        projectInformation.getPendingAssets().complete(path);
+                    }
+                }
+            }, size);
+        }
+    }
+
+    /**
+     * Goes through a set of files to process and schedules creation of Cascade Blocks out of them if the file
+     * ends with any of the {@link XmlAnalyzer#FILE_TO_BLOCK_EXTENSIONS} extensions.
+     * 
+     * @param projectInformation
+     * @param metadataSetId
+     * @param scheduler
+     */
+    private static void createXhtmlBlocks(final ProjectInformation projectInformation, final String metadataSetId,
+            final MigrationScheduler scheduler)
+    {
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+        for (final File file : projectInformation.getFilesToProcess())
+        {
+            if (projectInformation.getMigrationStatus().isShouldStop())
+                return;
+
+            String extension = PathUtil.getExtension(file.getName());
+            if (!configuration.isBlockExtension(extension))
                 continue;
 
-            createFile(folderFile, projectInformation, metadataSetId);
-            projectInformation.getMigrationStatus().incrementProgress(2);
+            final String path = WebServices.getPagePath(file, projectInformation);
+            scheduler.getSmallLane().submit(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        if (projectInformation.getMigrationStatus().isShouldStop())
+                            return;
+
+                        LinkRewriter.beginCollectingLinkTargets();
+                        CascadeAssetInformation cascadeBlock;
+                        Set<String> linkTargets;
+                        try
+                        {
+                            cascadeBlock = createXhtmlBlock(file, projectInformation, metadataSetId);
+                        }
+                        finally
+                        {
+                            linkTargets = LinkRewriter.endCollectingLinkTargets();
+                        }
+
+                        if (cascadeBlock != null)
+                            scheduleAlignment(cascadeBlock, true, linkTargets, projectInformation, scheduler);
+                    }
+                    finally
+                    {
+                        projectInformation.getPendingAssets().complete(path);
+                    }
+                }
+            }, file.length());
         }
     }
 
     /**
-     * Goes through a set of files to process and creates Cascade Blocks out of them if the file ends with any
-     * of the {@link XmlAnalyzer#FILE_TO_BLOCK_EXTENSIONS} extensions.
+     * Schedules creation of pages based on the information provided in {@link ProjectInformation}
      * 
      * @param projectInformation
-     * @param metadataSetId
+     * @param scheduler
      */
-    public static void createXhtmlBlocks(ProjectInformation projectInformation, String metadataSetId)
+    private static void createPages(final ProjectInformation projectInformation, final MigrationScheduler scheduler)
     {
-        for (File file : projectInformation.getFilesToProcess())
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+        for (final File file : projectInformation.getFilesToProcess())
         {
             if (projectInformation.getMigrationStatus().isShouldStop())
                 return;
 
             String extension = PathUtil.getExtension(file.getName());
-            if (projectInformation.getBlockExtensions().contains(extension))
-                createXhtmlBlock(file, projectInformation, metadataSetId);
+            if (!configuration.isPageExtension(extension))
+                continue;
+
+            final String path = WebServices.getPagePath(file, projectInformation);
+            scheduler.getSmallLane().submit(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        if (projectInformation.getMigrationStatus().isShouldStop())
+                            return;
+
+                        LinkRewriter.beginCollectingLinkTargets();
+                        CascadeAssetInformation cascadePage;
+                        Set<String> linkTargets;
+                        try
+                        {
+                            cascadePage = createPage(file, projectInformation);
+                        }
+                        finally
+                        {
+                            linkTargets = LinkRewriter.endCollectingLinkTargets();
+                        }
+
+                        if (cascadePage != null)
+                            scheduleAlignment(cascadePage, false, linkTargets, projectInformation, scheduler);
+                    }
+                    finally
+                    {
+                        projectInformation.getPendingAssets().complete(path);
+                    }
+                }
+            }, file.length());
+        }
+    }
+
+    /**
+     * Registers the paths of all the files, blocks and pages that are going to be created as pending, so
+     * that the assets depending on them know to wait for the files and blocks and to align the links to the
+     * pages once they are created.
+     * 
+     * @param projectInformation
+     */
+    private static void registerPendingAssets(ProjectInformation projectInformation)
+    {
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+        PendingAssets pendingAssets = projectInformation.getPendingAssets();
+        pendingAssets.clear();
+        for (File file : projectInformation.getFilesToProcess())
+        {
+            String extension = PathUtil.getExtension(file.getName());
+            if (configuration.isPageExtension(extension))
+                pendingAssets.register(WebServices.getPagePath(file, projectInformation), false);
+            else if (configuration.isBlockExtension(extension))
+                pendingAssets.register(WebServices.getPagePath(file, projectInformation), true);
+            else if (isFileAsset(file, projectInformation))
+                pendingAssets.register(WebServices.getFilePath(file, projectInformation), true);
         }
     }
 
+    /**
+     * @param file
+     * @param projectInformation
+     * @return Returns true if the file gets migrated as a Cascade file (it is not hidden and it is not turned
+     *         into a page or a block)
+     */
+    private static boolean isFileAsset(File file, ProjectInformation projectInformation)
+    {
+        String name = file.getName();
+
+        // Skip hidden files and folders
+        if (name.startsWith("."))
+            return false;
+
+        String extension = PathUtil.getExtension(name);
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+        return !configuration.isPageExtension(extension) && !configuration.isBlockExtension(extension);
+    }
+
     /**
      * Creates a file asset in Cascade based on the information from the passed filesystem {@link File}.
      * 
@@ -148,6 +350,7 @@ public class Migrator
     private static void createFile(File folderFile, ProjectInformation projectInformation, String metadataSetId)
     {
         MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        Log.beginEntry();
         try
         {
             WebServices.createFile(folderFile, projectInformation, metadataSetId);
@@ -164,6 +367,10 @@ public class Migrator
             e.printStackTrace();
             migrationStatus.incrementAssetsWithErrors();
         }
+        finally
+        {
+            Log.endEntry(migrationStatus);
+        }
     }
 
     /**
@@ -172,11 +379,15 @@ public class Migrator
      * @param file
      * @param projectInformation
      * @param metadataSetId
+     * @return Returns the created block or null if it could not be created
      */
-    private static void createXhtmlBlock(File file, ProjectInformation projectInformation, String metadataSetId)
+    private static CascadeAssetInformation createXhtmlBlock(File file, ProjectInformation projectInformation, String metadataSetId)
     {
         // web services create xhtml block
         MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        Log.beginEntry();
+        StageTimer.begin();
+        Object assetEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.ASSET);
         try
         {
             CascadeAssetInformation cascadeBlock = WebServices.createXhtmlBlock(file, projectInformation, metadataSetId);
@@ -193,6 +404,7 @@ public class Migrator
                 migrationStatus.incrementAssetsCreated();
                 Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
             }
+            return cascadeBlock;
         }
         catch (Exception e)
         {
@@ -208,17 +420,31 @@ public class Migrator
             migrationStatus.incrementAssetsWithErrors();
 
             e.printStackTrace();
+            return null;
+        }
+        finally
+        {
+            String name = PathUtil.getRelativePath(file, projectInformation.getXmlDirectory());
+            migrationStatus.getStageReport().add(name, "block", StageTimer.end());
+            if (assetEvent != null)
+                FlightRecorderEvents.commit(assetEvent, name, "block");
+            Log.endEntry(migrationStatus);
         }
     }
 
     /**
-     * Creates pages based on the information provided in {@link ProjectInformation}
+     * Creates files, blocks and pages based on the information provided in {@link ProjectInformation} and
+     * aligns their links.
+     * 
+     * The assets are not created in strict phases. All the files, blocks and pages are scheduled up front and
+     * each asset waits only for the assets it actually depends on: a page waits for the files and blocks its
+     * structured data references, and the links of a page or block are aligned as soon as the assets they
+     * point to are created.
      * 
      * @param projectInformation
      */
-    public static void createPages(ProjectInformation projectInformation)
+    public static void migrate(ProjectInformation projectInformation)
     {
-        Set<File> filesToProcess = projectInformation.getFilesToProcess();
         MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
         String metadataSetId = null;
 
@@ -241,86 +467,136 @@ public class Migrator
             return;
         }
 
-        // Create file assets
+        MigrationScheduler scheduler = new MigrationScheduler();
         try
         {
             // Store existing file paths first to speed up creation of files
-            Log.add("Reading Cascade folder structure and blocks. This might take a while...<br/>", migrationStatus);
-            WebServices.populateExistingCascadeAssets(projectInformation);
+            Object phaseEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.PHASE);
+            try
+            {
+                Log.add("Reading Cascade folder structure and blocks. This might take a while...<br/>", migrationStatus);
+                projectInformation.getSpecialBlockCache().clear();
+                projectInformation.getAssetLookupCache().clear();
+                projectInformation.getFolderListingCache().clear();
+                WebServices.populateExistingCascadeAssets(projectInformation);
+                CascadeAssetIndex existingCascadeAssets = projectInformation.getExistingCascadeAssets();
+                Log.add("Found " + existingCascadeAssets.size(CascadeAssetType.FILE) + " files, "
+                        + existingCascadeAssets.size(CascadeAssetType.XHTML_BLOCK) + " blocks and " + existingCascadeAssets.size(CascadeAssetType.PAGE)
+                        + " pages (path index uses approximately " + (existingCascadeAssets.estimateMemoryFootprint() / 1024) + " KB of memory)<br/>",
+                        migrationStatus);
+            }
+            catch (Exception e)
+            {
+                // Sometimes the exception message is null, so we get the message from the parent exception
+                String message = e.getMessage();
+                if (message == null && e.getCause() != null)
+                    message = e.getCause().getMessage();
 
-            // Create files that do not exist in Cascade
-            createFiles(projectInformation, metadataSetId);
+                Log.add("<span class=\"text-error\">Error when reading Cascade folder structure: " + message + "</span><br/>", migrationStatus);
+                e.printStackTrace();
+            }
+            finally
+            {
+                FlightRecorderEvents.commit(phaseEvent, "reading existing assets", projectInformation.getSiteName());
+            }
+
+            // Everything is registered before anything is scheduled, so that no asset can miss a dependency
+            // that simply has not been scheduled yet. Each lane starts its jobs in the order they were
+            // scheduled, so the files and blocks a page waits for are always started before the page.
+            phaseEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.PHASE);
+            try
+            {
+                registerPendingAssets(projectInformation);
+                createFiles(projectInformation, metadataSetId, scheduler);
+                createXhtmlBlocks(projectInformation, metadataSetId, scheduler);
+                createPages(projectInformation, scheduler);
+
+                scheduler.awaitIdle();
+            }
+            finally
+            {
+                FlightRecorderEvents.commit(phaseEvent, "creating and aligning assets", projectInformation.getSiteName());
+            }
         }
-        catch (Exception e)
+        catch (InterruptedException e)
         {
-            // Sometimes the exception message is null, so we get the message from the parent exception
-            String message = e.getMessage();
-            if (message == null && e.getCause() != null)
-                message = e.getCause().getMessage();
-
-            Log.add("<span class=\"text-error\">Error when uploading files: " + message + "</span><br/>", migrationStatus);
+            Log.add("<span class=\"text-error\">Migration got interrupted</span><br/>", migrationStatus);
             e.printStackTrace();
         }
-
-        // Create XHTML Blocks
-        createXhtmlBlocks(projectInformation, metadataSetId);
-
-        for (File file : filesToProcess)
+        finally
         {
-            if (migrationStatus.isShouldStop())
-                return;
-
-            String name = file.getName();
-            String extension = PathUtil.getExtension(name);
-
-            if (!projectInformation.getPageExtensions().contains(extension))
-                continue;
+            scheduler.shutdown();
+            projectInformation.getPendingAssets().clear();
+        }
+    }
 
-            try
-            {
-                // To build the file path that needs to be displayed, we show only the part of the abosute
-                // path after the xml directory
-                String relativePath = PathUtil.getRelativePath(file, projectInformation.getXmlDirectory());
+    /**
+     * Creates a page from given file
+     * 
+     * @param file
+     * @param projectInformation
+     * @return Returns the created page or null if it could not be created
+     */
+    private static CascadeAssetInformation createPage(File file, ProjectInformation projectInformation)
+    {
+        MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        Log.beginEntry();
+        StageTimer.begin();
+        Object assetEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.ASSET);
+        try
+        {
+            // To build the file path that needs to be displayed, we show only the part of the abosute
+            // path after the xml directory
+            String relativePath = PathUtil.getRelativePath(file, projectInformation.getXmlDirectory());
 
-                if (!XmlAnalyzer.allCharactersLegal(relativePath))
-                    relativePath = XmlAnalyzer.removeIllegalCharacters(relativePath);
+            if (!XmlAnalyzer.allCharactersLegal(relativePath))
+                relativePath = XmlAnalyzer.removeIllegalCharacters(relativePath);
 
-                Log.add("Creating a page from file " + relativePath + "... ", migrationStatus);
+            Log.add("Creating a page from file " + relativePath + "... ", migrationStatus);
 
-                CascadeAssetInformation cascadePage = WebServices.createPage(file, projectInformation);
+            CascadeAssetInformation cascadePage = WebServices.createPage(file, projectInformation);
 
-                Log.add(PathUtil.generatePageLink(cascadePage, projectInformation.getUrl()), migrationStatus);
+            Log.add(PathUtil.generatePageLink(cascadePage, projectInformation.getUrl()), migrationStatus);
 
-                migrationStatus.incrementProgress(1);
-                migrationStatus.addCreatedPage(cascadePage);
+            migrationStatus.incrementProgress(1);
+            migrationStatus.addCreatedPage(cascadePage);
 
-                // Add the page to the list because links will need to be realigned.
-                if (cascadePage.isAlreadyExisted())
-                {
-                    migrationStatus.incrementAssetsSkipped();
-                    Log.add("<span class=\"text-warning\">already existed.</span><br/>", migrationStatus);
-                }
-                else
-                {
-                    migrationStatus.incrementAssetsCreated();
-                    Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
-                }
+            // Add the page to the list because links will need to be realigned.
+            if (cascadePage.isAlreadyExisted())
+            {
+                migrationStatus.incrementAssetsSkipped();
+                Log.add("<span class=\"text-warning\">already existed.</span><br/>", migrationStatus);
             }
-            catch (Exception e)
+            else
             {
-                // Sometimes the exception message is null, so we get the message from the parent exception
-                String message = e.getMessage();
-                if (message == null && e.getCause() != null)
-                    message = e.getCause().getMessage();
+                migrationStatus.incrementAssetsCreated();
+                Log.add("<span class=\"text-success\">success.</span><br/>", migrationStatus);
+            }
+            return cascadePage;
+        }
+        catch (Exception e)
+        {
+            // Sometimes the exception message is null, so we get the message from the parent exception
+            String message = e.getMessage();
+            if (message == null && e.getCause() != null)
+                message = e.getCause().getMessage();
 
-                Log.add("<span class=\"text-error\">Error: " + message + "</span><br/>", migrationStatus);
+            Log.add("<span class=\"text-error\">Error: " + message + "</span><br/>", migrationStatus);
 
-                // Increment progress by 2, because no link alignment will be needed for it
-                migrationStatus.incrementProgress(2);
-                migrationStatus.incrementAssetsWithErrors();
+            // Increment progress by 2, because no link alignment will be needed for it
+            migrationStatus.incrementProgress(2);
+            migrationStatus.incrementAssetsWithErrors();
 
-                e.printStackTrace();
-            }
+            e.printStackTrace();
+            return null;
+        }
+        finally
+        {
+            String name = PathUtil.getRelativePath(file, projectInformation.getXmlDirectory());
+            migrationStatus.getStageReport().add(name, "page", StageTimer.end());
+            if (assetEvent != null)
+                FlightRecorderEvents.commit(assetEvent, name, "page");
+            Log.endEntry(migrationStatus);
         }
     }
 }
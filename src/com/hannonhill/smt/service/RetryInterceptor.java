@@ -0,0 +1,296 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.io.EOFException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.util.PathUtil;
+import com.hannonhill.www.ws.ns.AssetOperationService.Asset;
+import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
+import com.hannonhill.www.ws.ns.AssetOperationService.Authentication;
+import com.hannonhill.www.ws.ns.AssetOperationService.CreateResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.EntityTypeString;
+import com.hannonhill.www.ws.ns.AssetOperationService.FolderContainedAsset;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+import com.hannonhill.www.ws.ns.AssetOperationService.Path;
+import com.hannonhill.www.ws.ns.AssetOperationService.ReadResult;
+
+/**
+ * Retries web services calls that failed with a transient failure (a timeout, a dropped or refused connection
+ * or a 502/503/504 response from a proxy) using exponential backoff with jitter, and makes the calls wait
+ * while the {@link CircuitBreaker} of the endpoint is open.
+ *
+ * A failed create is not simply retried if the request could have reached the server - the asset might have
+ * been created and the response lost. In that case the asset is first looked up in the listing of its parent
+ * folder (a lightweight read that passes through the rest of the interceptors) and if it exists, a successful
+ * result with its id is returned instead of creating a duplicate.
+ *
+ * Failed results (the server responded with success="false") are never retried.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class RetryInterceptor implements AssetOperationInterceptor
+{
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_DELAY_MS = 1000;
+    private static final long MAX_DELAY_MS = 60 * 1000;
+    private static final long MAX_CIRCUIT_WAIT_MS = 15 * 60 * 1000; // how long a call waits for an open circuit
+
+    // Operations that are not safe to repeat when the outcome of the first attempt is unknown
+    private static final Set<String> NON_RETRYABLE_OPERATIONS = new HashSet<String>(Arrays.asList("batch", "copy", "siteCopy",
+            "sendMessage"));
+
+    // Fragments of fault messages of HTTP responses that indicate a temporarily unavailable server
+    private static final String[] TRANSIENT_FAULT_MESSAGES = new String[]
+    {
+            "(502)", "(503)", "(504)"
+    };
+
+    private static final Map<String, AtomicLong> retryCounts = new ConcurrentHashMap<String, AtomicLong>();
+
+    private static final Method READ_METHOD;
+
+    static
+    {
+        try
+        {
+            READ_METHOD = AssetOperationHandler.class.getMethod("read", Authentication.class, Identifier.class);
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final Random random = new Random();
+
+    public Object intercept(AssetOperationInvocation invocation) throws Exception
+    {
+        CircuitBreaker circuitBreaker = CircuitBreaker.forEndpoint(invocation.getEndpoint());
+        boolean retryable = !NON_RETRYABLE_OPERATIONS.contains(invocation.getOperationName());
+        boolean createOutcomeUnknown = false;
+        int attempt = 1;
+        while (true)
+        {
+            waitForCircuit(circuitBreaker, invocation);
+
+            Object result;
+            try
+            {
+                // The previous attempt to create the asset could have succeeded on the server
+                if (createOutcomeUnknown && (result = findCreatedAsset(invocation)) != null)
+                {
+                    circuitBreaker.recordSuccess();
+                    return result;
+                }
+
+                result = invocation.proceed();
+            }
+            catch (Exception e)
+            {
+                if (!isTransientFailure(e))
+                {
+                    circuitBreaker.recordIgnored();
+                    throw e;
+                }
+
+                circuitBreaker.recordFailure();
+                if (!retryable || attempt >= MAX_ATTEMPTS)
+                    throw e;
+
+                // A refused connection means the request never reached the server
+                if (invocation.getOperationName().equals("create") && !isConnectionRefused(e))
+                    createOutcomeUnknown = true;
+
+                incrementRetryCount(invocation.getEndpoint());
+                Thread.sleep(getDelay(attempt));
+                attempt++;
+                continue;
+            }
+
+            circuitBreaker.recordSuccess();
+            return result;
+        }
+    }
+
+    /**
+     * Returns the number of calls to given endpoint that were retried
+     *
+     * @param endpoint
+     * @return
+     */
+    public static long getRetryCount(String endpoint)
+    {
+        AtomicLong retryCount = endpoint == null ? null : retryCounts.get(endpoint);
+        return retryCount == null ? 0 : retryCount.get();
+    }
+
+    /**
+     * Returns true if the exception was caused by a timeout, a dropped or refused connection or a proxy
+     * reporting that the server is temporarily unavailable
+     *
+     * @param e
+     * @return
+     */
+    static boolean isTransientFailure(Throwable e)
+    {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause())
+        {
+            if (cause instanceof SocketTimeoutException || cause instanceof SocketException || cause instanceof EOFException
+                    || cause instanceof InterruptedIOException)
+                return true;
+
+            String message = cause.getMessage();
+            if (message != null)
+                for (String transientMessage : TRANSIENT_FAULT_MESSAGES)
+                    if (message.contains(transientMessage))
+                        return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param e
+     * @return Returns true if the exception was caused by a refused connection
+     */
+    private static boolean isConnectionRefused(Throwable e)
+    {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause())
+            if (cause instanceof ConnectException)
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns the delay before the next attempt: exponential backoff capped at {@link #MAX_DELAY_MS} where
+     * the second half of the delay is random, so that calls that failed together do not retry together
+     *
+     * @param attempt
+     * @return
+     */
+    private long getDelay(int attempt)
+    {
+        long delay = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 1, 16));
+        synchronized (random)
+        {
+            return delay / 2 + (long) (random.nextDouble() * (delay / 2));
+        }
+    }
+
+    /**
+     * Waits until the circuit breaker allows a call
+     *
+     * @param circuitBreaker
+     * @param invocation
+     * @throws Exception
+     */
+    private static void waitForCircuit(CircuitBreaker circuitBreaker, AssetOperationInvocation invocation) throws Exception
+    {
+        long start = System.currentTimeMillis();
+        long wait;
+        while ((wait = circuitBreaker.tryAcquire()) > 0)
+        {
+            if (System.currentTimeMillis() - start > MAX_CIRCUIT_WAIT_MS)
+                throw new Exception("Web services at " + invocation.getEndpoint() + " have been unavailable for more than "
+                        + MAX_CIRCUIT_WAIT_MS / 60000 + " minutes");
+
+            Thread.sleep(wait);
+        }
+    }
+
+    /**
+     * Looks for the asset that the create call was supposed to create in the listing of its parent folder.
+     * Returns a successful create result with the asset's id if it exists or null if it doesn't or if the
+     * asset type is not supported.
+     *
+     * @param invocation
+     * @return
+     * @throws Exception
+     */
+    private static CreateResult findCreatedAsset(AssetOperationInvocation invocation) throws Exception
+    {
+        Authentication authentication = (Authentication) invocation.getArguments()[0];
+        Asset asset = (Asset) invocation.getArguments()[1];
+
+        FolderContainedAsset createdAsset;
+        EntityTypeString type;
+        if (asset.getPage() != null)
+        {
+            createdAsset = asset.getPage();
+            type = EntityTypeString.page;
+        }
+        else if (asset.getXhtmlDataDefinitionBlock() != null)
+        {
+            createdAsset = asset.getXhtmlDataDefinitionBlock();
+            type = EntityTypeString.block_XHTML_DATADEFINITION;
+        }
+        else if (asset.getFile() != null)
+        {
+            createdAsset = asset.getFile();
+            type = EntityTypeString.file;
+        }
+        else if (asset.getFolder() != null)
+        {
+            createdAsset = asset.getFolder();
+            type = EntityTypeString.folder;
+        }
+        else
+            return null;
+
+        String parentFolderPath = createdAsset.getParentFolderPath() == null || createdAsset.getParentFolderPath().equals("") ? "/"
+                : createdAsset.getParentFolderPath();
+        Identifier folderIdentifier = new Identifier(null, new Path(parentFolderPath, null, createdAsset.getSiteName()), EntityTypeString.folder,
+                false);
+        ReadResult readResult = (ReadResult) invocation.call(READ_METHOD, new Object[]
+        {
+                authentication, folderIdentifier
+        });
+        if (!"true".equals(readResult.getSuccess()) || readResult.getAsset() == null || readResult.getAsset().getFolder() == null
+                || readResult.getAsset().getFolder().getChildren() == null)
+            return null;
+
+        for (Identifier child : readResult.getAsset().getFolder().getChildren())
+            if (type.equals(child.getType()) && child.getPath() != null
+                    && PathUtil.getNameFromPath(child.getPath().getPath()).equalsIgnoreCase(createdAsset.getName()))
+                return new CreateResult("true", null, child.getId());
+
+        return null;
+    }
+
+    /**
+     * @param endpoint
+     */
+    private static void incrementRetryCount(String endpoint)
+    {
+        AtomicLong retryCount = retryCounts.get(endpoint);
+        if (retryCount == null)
+        {
+            synchronized (retryCounts)
+            {
+                retryCount = retryCounts.get(endpoint);
+                if (retryCount == null)
+                {
+                    retryCount = new AtomicLong();
+                    retryCounts.put(endpoint, retryCount);
+                }
+            }
+        }
+        retryCount.incrementAndGet();
+    }
+}
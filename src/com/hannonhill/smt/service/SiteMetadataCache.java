@@ -0,0 +1,531 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.hannonhill.smt.ContentTypeInformation;
+import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.util.DaemonThreadFactory;
+import com.hannonhill.www.ws.ns.AssetOperationService.ContentType;
+import com.hannonhill.www.ws.ns.AssetOperationService.EntityTypeString;
+import com.hannonhill.www.ws.ns.AssetOperationService.Identifier;
+import com.hannonhill.www.ws.ns.AssetOperationService.Site;
+
+/**
+ * A server-wide cache of site metadata - content types with their metadata set fields and data definition
+ * fields - shared by all the sessions. Entries are keyed by the Cascade URL and site name.
+ *
+ * Missing entries are fetched with multiple web services calls running in parallel. The calls belong to a
+ * job of their own (see {@link ConcurrencyLimiter#setCurrentJob(String)}), so that they share the server
+ * fairly with the running migrations and don't use up the reserve of the interactive calls. A content type
+ * that can't be read is skipped and reported as an error - such an incomplete fetch is not cached.
+ *
+ * Entries older than {@link #FRESH_PERIOD_MS} are returned right away and refreshed in the background using
+ * credentials of the user who requested them. Entries are also saved in the cache folder of Tomcat, so that a
+ * restart doesn't require fetching everything again. Credentials are never saved.
+ *
+ * The cache should only be used after the user's access to the site has been verified, as the cached
+ * information does not depend on who fetched it.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class SiteMetadataCache
+{
+    private static final long FRESH_PERIOD_MS = 10 * 60 * 1000; // entries older than that get refreshed in
+                                                                // the background
+    private static final long MAX_AGE_MS = 7 * 24 * 60 * 60 * 1000l; // entries older than that are not used
+    private static final int FETCH_THREADS = 8;
+    private static final String CACHE_DIR = "cache";
+    private static final String FILE_PREFIX = "site-metadata-";
+    private static final String FILE_EXTENSION = ".ser";
+    private static final String JOB_ID_PREFIX = "site-metadata-";
+
+    private static final Map<String, SiteMetadata> entries = new ConcurrentHashMap<String, SiteMetadata>();
+    private static final Map<String, FutureTask<SiteMetadata>> fetches = new ConcurrentHashMap<String, FutureTask<SiteMetadata>>();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(FETCH_THREADS, new DaemonThreadFactory("site-metadata-fetch"));
+    // Background refreshes run on a separate thread, as they wait for the reads submitted to the executor
+    private static final ExecutorService refresher = Executors.newSingleThreadExecutor(new DaemonThreadFactory("site-metadata-refresh"));
+
+    /**
+     * Returns a map of content type path to content type information of all content types with a data
+     * definition in the site specified in the projectInformation. Uses the cached information if available.
+     * The content types that could not be read are left out and the reasons are added to the errors.
+     *
+     * @param projectInformation
+     * @param errors
+     * @return
+     * @throws Exception
+     */
+    public static Map<String, ContentTypeInformation> getContentTypes(ProjectInformation projectInformation, List<String> errors)
+            throws Exception
+    {
+        String key = getKey(projectInformation.getUrl(), projectInformation.getSiteName());
+        SiteMetadata siteMetadata = entries.get(key);
+        if (siteMetadata == null)
+        {
+            siteMetadata = loadFromDisk(key);
+            if (siteMetadata != null)
+                entries.put(key, siteMetadata);
+        }
+
+        long age = siteMetadata == null ? Long.MAX_VALUE : System.currentTimeMillis() - siteMetadata.getFetchedTime();
+        if (age > MAX_AGE_MS)
+        {
+            siteMetadata = fetch(key, projectInformation);
+            errors.addAll(siteMetadata.getErrors());
+            return siteMetadata.getContentTypes();
+        }
+
+        if (age > FRESH_PERIOD_MS)
+            refreshInBackground(key, projectInformation);
+
+        return siteMetadata.getContentTypes();
+    }
+
+    /**
+     * Fetches the site metadata and waits for it. If the site metadata is already being fetched by another
+     * request, waits for that fetch instead of starting a new one.
+     *
+     * @param key
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    private static SiteMetadata fetch(String key, ProjectInformation projectInformation) throws Exception
+    {
+        FutureTask<SiteMetadata> fetchTask = registerFetch(key, projectInformation);
+        if (fetchTask == null)
+            fetchTask = fetches.get(key);
+        else
+            fetchTask.run();
+
+        // The fetch might have completed and got removed in the meantime
+        if (fetchTask == null)
+            return entries.get(key) != null ? entries.get(key) : fetch(key, projectInformation);
+
+        return getResult(fetchTask);
+    }
+
+    /**
+     * Starts fetching the site metadata in the background unless it is already being fetched
+     *
+     * @param key
+     * @param projectInformation
+     */
+    private static void refreshInBackground(String key, ProjectInformation projectInformation)
+    {
+        final FutureTask<SiteMetadata> fetchTask = registerFetch(key, projectInformation);
+        if (fetchTask == null)
+            return;
+
+        refresher.execute(new Runnable()
+        {
+            public void run()
+            {
+                fetchTask.run();
+                try
+                {
+                    fetchTask.get();
+                }
+                catch (Exception e)
+                {
+                    // The stale information stays in the cache
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Registers a new fetch of the site metadata and returns it, so that the caller can run it. Returns null if
+     * the site metadata is already being fetched. The fetch stores the result in the cache and on the disk
+     * when it completes successfully and all the content types could be read.
+     *
+     * @param key
+     * @param projectInformation
+     * @return
+     */
+    private static FutureTask<SiteMetadata> registerFetch(final String key, ProjectInformation projectInformation)
+    {
+        // Only the connection information is kept for the duration of the fetch
+        final ProjectInformation connectionInformation = new ProjectInformation();
+        connectionInformation.setUrl(projectInformation.getUrl());
+        connectionInformation.setUsername(projectInformation.getUsername());
+        connectionInformation.setPassword(projectInformation.getPassword());
+        connectionInformation.setSiteName(projectInformation.getSiteName());
+
+        FutureTask<SiteMetadata> newFetchTask = new FutureTask<SiteMetadata>(new Callable<SiteMetadata>()
+        {
+            public SiteMetadata call() throws Exception
+            {
+                String previousJobId = ConcurrencyLimiter.getCurrentJob();
+                ConcurrencyLimiter.setCurrentJob(JOB_ID_PREFIX + key);
+                try
+                {
+                    SiteMetadata siteMetadata = fetchSiteMetadata(connectionInformation, JOB_ID_PREFIX + key);
+                    if (siteMetadata.getErrors().size() == 0)
+                    {
+                        entries.put(key, siteMetadata);
+                        saveToDisk(key, siteMetadata);
+                    }
+                    return siteMetadata;
+                }
+                finally
+                {
+                    ConcurrencyLimiter.setCurrentJob(previousJobId);
+                    fetches.remove(key);
+                }
+            }
+        });
+
+        synchronized (fetches)
+        {
+            if (fetches.containsKey(key))
+                return null;
+
+            fetches.put(key, newFetchTask);
+            return newFetchTask;
+        }
+    }
+
+    /**
+     * Reads all the content types of the site with their metadata sets and data definitions. Each level of
+     * content type containers, the content types and the content types' metadata sets and data definitions
+     * are read in parallel. A content type that can't be read is skipped and the reason is added to the
+     * errors of the result.
+     *
+     * @param projectInformation
+     * @param jobId job the web services calls belong to
+     * @return
+     * @throws Exception
+     */
+    private static SiteMetadata fetchSiteMetadata(final ProjectInformation projectInformation, String jobId) throws Exception
+    {
+        Site site = WebServices.readSite(projectInformation.getUsername(), projectInformation.getPassword(), projectInformation.getUrl(),
+                projectInformation.getSiteName());
+
+        // Walk the content type containers level by level
+        List<String> contentTypeIds = new ArrayList<String>();
+        List<String> containerIds = Collections.singletonList(site.getRootContentTypeContainerId());
+        while (containerIds.size() > 0)
+        {
+            List<Future<Identifier[]>> containerReads = new ArrayList<Future<Identifier[]>>();
+            for (final String containerId : containerIds)
+                containerReads.add(submit(jobId, new Callable<Identifier[]>()
+                {
+                    public Identifier[] call() throws Exception
+                    {
+                        return WebServices.readContentTypeContainerChildren(projectInformation, containerId);
+                    }
+                }));
+
+            List<String> childContainerIds = new ArrayList<String>();
+            for (Future<Identifier[]> containerRead : containerReads)
+                for (Identifier child : getResult(containerRead))
+                    if (child.getType().equals(EntityTypeString.contenttypecontainer))
+                        childContainerIds.add(child.getId());
+                    else
+                        contentTypeIds.add(child.getId());
+
+            containerIds = childContainerIds;
+        }
+
+        // Read the content types
+        List<Future<ContentType>> contentTypeReads = new ArrayList<Future<ContentType>>();
+        for (final String contentTypeId : contentTypeIds)
+            contentTypeReads.add(submit(jobId, new Callable<ContentType>()
+            {
+                public ContentType call() throws Exception
+                {
+                    return WebServices.readContentType(projectInformation, contentTypeId);
+                }
+            }));
+
+        // Read metadata sets and data definitions of the content types with data definitions
+        List<String> errors = new ArrayList<String>();
+        List<ContentType> contentTypes = new ArrayList<ContentType>();
+        List<Future<ContentTypeInformation>> contentTypeInformationReads = new ArrayList<Future<ContentTypeInformation>>();
+        for (Future<ContentType> contentTypeRead : contentTypeReads)
+        {
+            final ContentType contentType;
+            try
+            {
+                contentType = getResult(contentTypeRead);
+            }
+            catch (Exception e)
+            {
+                errors.add(e.getMessage());
+                continue;
+            }
+
+            if (contentType.getDataDefinitionId() == null)
+                continue;
+
+            contentTypes.add(contentType);
+            contentTypeInformationReads.add(submit(jobId, new Callable<ContentTypeInformation>()
+            {
+                public ContentTypeInformation call() throws Exception
+                {
+                    return new ContentTypeInformation(contentType, projectInformation);
+                }
+            }));
+        }
+
+        Map<String, ContentTypeInformation> result = new LinkedHashMap<String, ContentTypeInformation>();
+        for (int i = 0; i < contentTypes.size(); i++)
+            try
+            {
+                result.put(contentTypes.get(i).getPath(), getResult(contentTypeInformationReads.get(i)));
+            }
+            catch (Exception e)
+            {
+                errors.add(e.getMessage());
+            }
+
+        return new SiteMetadata(Collections.unmodifiableMap(result), Collections.unmodifiableList(errors), System.currentTimeMillis());
+    }
+
+    /**
+     * Submits the callable to the executor to be run as a part of the job with given id
+     *
+     * @param jobId
+     * @param callable
+     * @return
+     */
+    private static <T> Future<T> submit(final String jobId, final Callable<T> callable)
+    {
+        return executor.submit(new Callable<T>()
+        {
+            public T call() throws Exception
+            {
+                ConcurrencyLimiter.setCurrentJob(jobId);
+                try
+                {
+                    return callable.call();
+                }
+                finally
+                {
+                    ConcurrencyLimiter.setCurrentJob(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for the future and returns its result, rethrowing the original exception if it failed
+     *
+     * @param future
+     * @return
+     * @throws Exception
+     */
+    private static <T> T getResult(Future<T> future) throws Exception
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the site metadata with given key from the disk. Returns null if it is not there or if it can't be
+     * read.
+     *
+     * @param key
+     * @return
+     */
+    private static SiteMetadata loadFromDisk(String key)
+    {
+        File file = getCacheFile(key);
+        if (!file.exists())
+            return null;
+
+        ObjectInputStream in = null;
+        try
+        {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            return (SiteMetadata) in.readObject();
+        }
+        catch (Exception e)
+        {
+            // A file saved by an incompatible version just gets fetched again
+            e.printStackTrace();
+            file.delete();
+            return null;
+        }
+        finally
+        {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Saves the site metadata with given key to the disk. Errors are ignored as the cache file is optional.
+     *
+     * @param key
+     * @param siteMetadata
+     */
+    private static void saveToDisk(String key, SiteMetadata siteMetadata)
+    {
+        File file = getCacheFile(key);
+        File tempFile = new File(file.getPath() + ".tmp");
+        ObjectOutputStream out = null;
+        try
+        {
+            file.getParentFile().mkdirs();
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeObject(siteMetadata);
+            out.close();
+            out = null;
+
+            // Replace the file only when the new one is complete
+            file.delete();
+            if (!tempFile.renameTo(file))
+                tempFile.delete();
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            tempFile.delete();
+        }
+        finally
+        {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * @param key
+     * @return Returns the file in which the site metadata with given key is saved
+     */
+    private static File getCacheFile(String key)
+    {
+        String tomcatDir = System.getProperty("catalina.base");
+        return new File(tomcatDir + "/" + CACHE_DIR + "/" + FILE_PREFIX + key + FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the cache key for given url and site name. The key is a hash, so that it can be used as a file
+     * name.
+     *
+     * @param url
+     * @param siteName
+     * @return
+     */
+    private static String getKey(String url, String siteName)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest((url + "\n" + siteName).getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder();
+            for (byte b : hash)
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return key.toString();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Could not create a site metadata cache key", e);
+        }
+    }
+
+    /**
+     * Closes given stream ignoring any errors
+     *
+     * @param stream
+     */
+    private static void closeQuietly(java.io.Closeable stream)
+    {
+        if (stream == null)
+            return;
+
+        try
+        {
+            stream.close();
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Cached information about a site
+     */
+    private static class SiteMetadata implements Serializable
+    {
+        private static final long serialVersionUID = -6311738521492157848L;
+
+        private final Map<String, ContentTypeInformation> contentTypes; // content type path to content type
+        private final List<String> errors; // reasons why content types could not be read, empty when cached
+        private final long fetchedTime;
+
+        /**
+         * Constructor
+         *
+         * @param contentTypes
+         * @param errors
+         * @param fetchedTime
+         */
+        private SiteMetadata(Map<String, ContentTypeInformation> contentTypes, List<String> errors, long fetchedTime)
+        {
+            this.contentTypes = contentTypes;
+            this.errors = errors;
+            this.fetchedTime = fetchedTime;
+        }
+
+        /**
+         * @return Returns the contentTypes.
+         */
+        private Map<String, ContentTypeInformation> getContentTypes()
+        {
+            return contentTypes;
+        }
+
+        /**
+         * @return Returns the errors.
+         */
+        private List<String> getErrors()
+        {
+            return errors;
+        }
+
+        /**
+         * @return Returns the fetchedTime.
+         */
+        private long getFetchedTime()
+        {
+            return fetchedTime;
+        }
+    }
+}
@@ -7,24 +7,33 @@ package com.hannonhill.smt.service;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
+import com.hannonhill.smt.AssetLookupCache;
+import com.hannonhill.smt.CascadeAssetIndex;
 import com.hannonhill.smt.CascadeAssetInformation;
+import com.hannonhill.smt.CascadeAssetType;
 import com.hannonhill.smt.DataDefinitionField;
 import com.hannonhill.smt.Field;
+import com.hannonhill.smt.FolderListingCache;
 import com.hannonhill.smt.MetadataSetField;
 import com.hannonhill.smt.MigrationStatus;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.util.FlightRecorderEvents;
 import com.hannonhill.smt.util.PathUtil;
 import com.hannonhill.smt.util.WebServicesUtil;
 import com.hannonhill.www.ws.ns.AssetOperationService.Asset;
 import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandler;
 import com.hannonhill.www.ws.ns.AssetOperationService.AssetOperationHandlerServiceLocator;
 import com.hannonhill.www.ws.ns.AssetOperationService.Authentication;
+import com.hannonhill.www.ws.ns.AssetOperationService.BaseAsset;
 import com.hannonhill.www.ws.ns.AssetOperationService.ContentType;
 import com.hannonhill.www.ws.ns.AssetOperationService.ContentTypeContainer;
 import com.hannonhill.www.ws.ns.AssetOperationService.CreateResult;
@@ -43,6 +52,9 @@ import com.hannonhill.www.ws.ns.AssetOperationService.OperationResult;
 import com.hannonhill.www.ws.ns.AssetOperationService.Page;
 import com.hannonhill.www.ws.ns.AssetOperationService.Path;
 import com.hannonhill.www.ws.ns.AssetOperationService.ReadResult;
+import com.hannonhill.www.ws.ns.AssetOperationService.SearchInformation;
+import com.hannonhill.www.ws.ns.AssetOperationService.SearchMatchType;
+import com.hannonhill.www.ws.ns.AssetOperationService.SearchResult;
 import com.hannonhill.www.ws.ns.AssetOperationService.Site;
 import com.hannonhill.www.ws.ns.AssetOperationService.XhtmlDataDefinitionBlock;
 
@@ -70,6 +82,14 @@ public class WebServices
 
     public static final DataDefinitionField XHTML_DATA_DEFINITION_FIELD = new DataDefinitionField("xhtml", "XHTML", null, false, true);
 
+    // Interceptors that all web services calls pass through, in order. Retries are outside of the concurrency
+    // limit, so that a call waiting to be retried doesn't hold a slot. Metrics are recorded for each attempt.
+    private static final List<AssetOperationInterceptor> INTERCEPTORS = Collections.unmodifiableList(Arrays.<AssetOperationInterceptor> asList(
+            new RetryInterceptor(), new ConcurrencyLimitInterceptor(), new MetricsInterceptor()));
+
+    // Creates the handlers the calls go to instead of the web services stub, null in production
+    private static volatile AssetOperationHandlerFactory handlerFactory;
+
     // Identifiers of the standard metadata fields
     public static final List<String> STANDARD_METADATA_FIELD_IDENTIFIERS;
 
@@ -116,24 +136,6 @@ public class WebServices
         return readResult.getAsset().getSite();
     }
 
-    /**
-     * Gets all content types from given site
-     * 
-     * @param projectInformation
-     * @return
-     * @throws Exception
-     */
-    public static List<ContentType> getContentTypesFromSite(ProjectInformation projectInformation) throws Exception
-    {
-        Site site = readSite(projectInformation.getUsername(), projectInformation.getPassword(), projectInformation.getUrl(),
-                projectInformation.getSiteName());
-
-        // Recursively collect all ancestor content types
-        List<ContentType> contentTypes = new ArrayList<ContentType>();
-        collectContentTypes(projectInformation, site.getRootContentTypeContainerId(), contentTypes);
-        return contentTypes;
-    }
-
     /**
      * Returns a map of metadata field identifiers to actual fields of a metadata set that is assigned to a
      * content type with given contentTypePath
@@ -210,14 +212,12 @@ public class WebServices
      */
     public static CascadeAssetInformation createPage(java.io.File pageFile, ProjectInformation projectInformation) throws Exception
     {
-        String path = PathUtil.createPagePathFromFileSystemFile(pageFile, projectInformation);
-        if (!XmlAnalyzer.allCharactersLegal(path))
-            path = XmlAnalyzer.removeIllegalCharacters(path);
+        String path = getPagePath(pageFile, projectInformation);
 
         String parentFolderPath = PathUtil.getParentFolderPathFromPath(path);
-        String contentTypePath = projectInformation.getContentTypePath();
+        String contentTypePath = projectInformation.getConfiguration().getContentTypePath();
 
-        String overwriteBehavior = projectInformation.getOverwriteBehavior();
+        String overwriteBehavior = projectInformation.getConfiguration().getOverwriteBehavior();
         if (overwriteBehavior.equals(ProjectInformation.OVERWRITE_BEHAVIOR_SKIP_EXISTING))
         {
             String pageId = getAssetId(path, projectInformation);
@@ -230,7 +230,7 @@ public class WebServices
             return null;
 
         // Check for duplicate paths
-        if (projectInformation.getMigrationStatus().getCreatedAssetPaths().contains(path.toLowerCase()))
+        if (projectInformation.getMigrationStatus().isCreatedAssetPath(path))
             throw new Exception("Duplicate path found - asset with given path already got created during this migration: " + path.toLowerCase());
 
         // Set up the page object and assign it to the asset object
@@ -271,7 +271,9 @@ public class WebServices
                         + parentFolderPath + "-");
             }
 
-            projectInformation.getExistingCascadePages().put(path.toLowerCase(), createResult.getCreatedAssetId());
+            projectInformation.getExistingCascadeAssets().put(path, CascadeAssetType.PAGE, createResult.getCreatedAssetId());
+            projectInformation.getAssetLookupCache().assetCreated(path, CascadeAssetType.PAGE);
+            projectInformation.getFolderListingCache().assetCreated(path, CascadeAssetType.PAGE, createResult.getCreatedAssetId());
             return new CascadeAssetInformation(createResult.getCreatedAssetId(), path);
         }
 
@@ -293,9 +295,7 @@ public class WebServices
     public static CascadeAssetInformation createXhtmlBlock(java.io.File file, ProjectInformation projectInformation, String metadataSetId)
             throws Exception
     {
-        String blockPath = PathUtil.createPagePathFromFileSystemFile(file, projectInformation);
-        if (!XmlAnalyzer.allCharactersLegal(blockPath))
-            blockPath = XmlAnalyzer.removeIllegalCharacters(blockPath);
+        String blockPath = getPagePath(file, projectInformation);
         String parentFolderPath = PathUtil.getParentFolderPathFromPath(blockPath);
         // Don't create static components in the root folder. Instead, create them in
         // "_internal/blocks/static" folder
@@ -303,7 +303,7 @@ public class WebServices
             parentFolderPath = "_cascade/blocks/static";
         String blockName = PathUtil.truncateExtension(file.getName());
 
-        String overwriteBehavior = projectInformation.getOverwriteBehavior();
+        String overwriteBehavior = projectInformation.getConfiguration().getOverwriteBehavior();
         if (overwriteBehavior.equals(ProjectInformation.OVERWRITE_BEHAVIOR_SKIP_EXISTING))
         {
             String blockId = getAssetId(blockPath, projectInformation);
@@ -315,9 +315,9 @@ public class WebServices
         Log.add("Creating XHTML block in Cascade " + blockPath + "... ", migrationStatus);
 
         // Check for duplicate paths
-        if (projectInformation.getMigrationStatus().getCreatedAssetPaths().contains(blockPath.toLowerCase()))
+        if (projectInformation.getMigrationStatus().isCreatedAssetPath(blockPath))
         {
-            blockPath = getUniquePath(blockPath, projectInformation.getMigrationStatus().getCreatedAssetPaths());
+            blockPath = getUniquePath(blockPath, projectInformation.getMigrationStatus());
             blockName = PathUtil.getNameFromPath(blockPath);
             parentFolderPath = PathUtil.getParentFolderPathFromPath(blockPath);
         }
@@ -326,14 +326,14 @@ public class WebServices
 
         if (overwriteBehavior.equals(ProjectInformation.OVERWRITE_BEHAVIOR_UPDATE_EXISTING))
         {
-            if (projectInformation.getExistingCascadeXhtmlBlocks().keySet().contains(blockPath.toLowerCase()))
+            if (projectInformation.getExistingCascadeAssets().contains(blockPath, CascadeAssetType.XHTML_BLOCK))
                 existingBlockId = getXhtmlBlockId(blockPath, projectInformation);
         }
         // If overwite existing is selected, we need to delete the existing block and ignore an error if it
         // did not exists and we attempted to delete it
         else if (overwriteBehavior.equals(ProjectInformation.OVERWRITE_BEHAVIOR_OVERWRITE_EXISTING))
         {
-            if (projectInformation.getExistingCascadeXhtmlBlocks().keySet().contains(blockPath.toLowerCase()))
+            if (projectInformation.getExistingCascadeAssets().contains(blockPath, CascadeAssetType.XHTML_BLOCK))
                 deleteXhtmlBlock(blockPath, projectInformation);
         }
 
@@ -369,7 +369,9 @@ public class WebServices
                         + " - Parent folder path is: -" + parentFolderPath + "-");
             }
 
-            projectInformation.getExistingCascadeXhtmlBlocks().put(blockPath.toLowerCase(), createResult.getCreatedAssetId());
+            projectInformation.getExistingCascadeAssets().put(blockPath, CascadeAssetType.XHTML_BLOCK, createResult.getCreatedAssetId());
+            projectInformation.getAssetLookupCache().assetCreated(blockPath, CascadeAssetType.XHTML_BLOCK);
+            projectInformation.getFolderListingCache().assetCreated(blockPath, CascadeAssetType.XHTML_BLOCK, createResult.getCreatedAssetId());
             return new CascadeAssetInformation(createResult.getCreatedAssetId(), blockPath);
         }
 
@@ -380,18 +382,19 @@ public class WebServices
     }
 
     /**
-     * Adds a number to the end of given path and if that path doesn't exist in existingPaths, returns it.
+     * Adds a number to the end of given path and if no asset with that path got created during this
+     * migration, returns it.
      * 
      * @param path
-     * @param existingPaths
+     * @param migrationStatus
      * @return
      */
-    private static String getUniquePath(String path, Set<String> existingPaths)
+    private static String getUniquePath(String path, MigrationStatus migrationStatus)
     {
         String lowerCasePath = path.toLowerCase();
 
         for (int i = 1; true; i++)
-            if (!existingPaths.contains(lowerCasePath + i))
+            if (!migrationStatus.isCreatedAssetPath(lowerCasePath + i))
                 return lowerCasePath + i;
     }
 
@@ -410,6 +413,36 @@ public class WebServices
         createFile(filesystemFile, projectInformation, metadataSetId, true);
     }
 
+    /**
+     * Returns the path of the Cascade page or XHTML block that gets created from given filesystem file
+     * 
+     * @param file
+     * @param projectInformation
+     * @return
+     */
+    public static String getPagePath(java.io.File file, ProjectInformation projectInformation)
+    {
+        String path = PathUtil.createPagePathFromFileSystemFile(file, projectInformation);
+        if (!XmlAnalyzer.allCharactersLegal(path))
+            path = XmlAnalyzer.removeIllegalCharacters(path);
+        return path;
+    }
+
+    /**
+     * Returns the path of the Cascade file that gets created from given filesystem file
+     * 
+     * @param filesystemFile
+     * @param projectInformation
+     * @return
+     */
+    public static String getFilePath(java.io.File filesystemFile, ProjectInformation projectInformation)
+    {
+        String filePath = PathUtil.getRelativePath(filesystemFile, projectInformation.getXmlDirectory());
+        if (!XmlAnalyzer.allCharactersLegal(filePath))
+            filePath = XmlAnalyzer.removeIllegalCharacters(filePath);
+        return filePath;
+    }
+
     /**
      * See {@link #createFile(java.io.File, ProjectInformation, String)}
      * 
@@ -422,10 +455,7 @@ public class WebServices
     private static void createFile(java.io.File filesystemFile, ProjectInformation projectInformation, String metadataSetId, boolean logCreatingFile)
             throws Exception
     {
-        String filePath = PathUtil.getRelativePath(filesystemFile, projectInformation.getXmlDirectory());
-        if (!XmlAnalyzer.allCharactersLegal(filePath))
-            filePath = XmlAnalyzer.removeIllegalCharacters(filePath);
-
+        String filePath = getFilePath(filesystemFile, projectInformation);
         String parentFolderPath = PathUtil.getParentFolderPathFromPath(filePath);
         String fileName = filesystemFile.getName();
 
@@ -433,7 +463,7 @@ public class WebServices
         if (logCreatingFile)
             Log.add("Creating file in Cascade " + filePath + "... ", migrationStatus);
 
-        if (projectInformation.getExistingCascadeFiles().keySet().contains(filePath.toLowerCase()))
+        if (projectInformation.getExistingCascadeAssets().contains(filePath, CascadeAssetType.FILE))
         {
             migrationStatus.incrementAssetsSkipped();
             Log.add("<span style=\"color:blue;\">file already exists</span><br/>", migrationStatus);
@@ -478,7 +508,9 @@ public class WebServices
         Identifier cascadeFile = new Identifier(createResult.getCreatedAssetId(), new Path(filePath, null, projectInformation.getSiteName()),
                 EntityTypeString.file, false);
 
-        projectInformation.getExistingCascadeFiles().put(filePath.toLowerCase(), createResult.getCreatedAssetId());
+        projectInformation.getExistingCascadeAssets().put(filePath, CascadeAssetType.FILE, createResult.getCreatedAssetId());
+        projectInformation.getAssetLookupCache().assetCreated(filePath, CascadeAssetType.FILE);
+        projectInformation.getFolderListingCache().assetCreated(filePath, CascadeAssetType.FILE, createResult.getCreatedAssetId());
 
         Log.add(PathUtil.generateFileLink(cascadeFile, projectInformation.getUrl()), migrationStatus);
 
@@ -562,44 +594,68 @@ public class WebServices
     public static String getAssetId(String path, ProjectInformation projectInformation) throws Exception
     {
         path = PathUtil.removeLeadingSlashes(path).toLowerCase();
-        // Check confirmed paths first
-        String fileId = projectInformation.getExistingCascadeFiles().get(path);
-        if (fileId != null)
-            return fileId;
-
-        String blockId = projectInformation.getExistingCascadeXhtmlBlocks().get(path);
-        if (blockId != null)
-            return blockId;
 
-        String pageId = projectInformation.getExistingCascadePages().get(path);
-        if (pageId != null)
-            return pageId;
+        // Check confirmed paths first - files, then blocks, then pages
+        String assetId = projectInformation.getExistingCascadeAssets().getId(path);
+        FlightRecorderEvents.cacheLookup("asset index", path, assetId != null);
+        if (assetId != null)
+            return assetId;
 
         // If not found, try reading the asset by path
-        Page readPage = readPageByPath(path, projectInformation);
-        if (readPage != null)
-        {
-            projectInformation.getExistingCascadePages().put(path, readPage.getId());
-            return readPage.getId();
-        }
-
-        File readFile = readFileByPath(path, projectInformation);
-        if (readFile != null)
+        for (CascadeAssetType type : new CascadeAssetType[]
         {
-            projectInformation.getExistingCascadeFiles().put(path, readFile.getId());
-            return readFile.getId();
-        }
-
-        XhtmlDataDefinitionBlock readBlock = readXhtmlBlockByPath(path, projectInformation);
-        if (readBlock != null)
+                CascadeAssetType.PAGE, CascadeAssetType.FILE, CascadeAssetType.XHTML_BLOCK
+        })
         {
-            projectInformation.getExistingCascadeXhtmlBlocks().put(path, readBlock.getId());
-            return readBlock.getId();
+            assetId = lookupAssetId(path, type, projectInformation);
+            if (assetId != null)
+            {
+                projectInformation.getExistingCascadeAssets().put(path, type, assetId);
+                return assetId;
+            }
         }
 
         return null;
     }
 
+    /**
+     * Returns the id of the asset of given type with given path or null if it doesn't exist. Assets in the
+     * project's site are looked up in the listing of their parent folder (see {@link FolderListingCache}),
+     * assets in other sites are read by path. Concurrent lookups of the same asset share one read and assets
+     * that were not found are remembered as missing for a while (see {@link AssetLookupCache}).
+     * 
+     * @param path
+     * @param type
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    private static String lookupAssetId(final String path, final CascadeAssetType type, final ProjectInformation projectInformation)
+            throws Exception
+    {
+        return projectInformation.getAssetLookupCache().getAssetId(path, type, new Callable<String>()
+        {
+            public String call() throws Exception
+            {
+                // Assets in the project's site are looked up in the listing of their parent folder
+                if (PathUtil.getSiteNameFromPath(path) == null)
+                    return projectInformation.getFolderListingCache().getAssetId(path, type, projectInformation);
+
+                BaseAsset asset;
+                if (type == CascadeAssetType.PAGE)
+                    asset = readPageByPath(path, projectInformation);
+                else if (type == CascadeAssetType.FILE)
+                    asset = readFileByPath(path, projectInformation);
+                else if (type == CascadeAssetType.XHTML_BLOCK)
+                    asset = readXhtmlBlockByPath(path, projectInformation);
+                else
+                    throw new Exception("Assets of type " + type + " cannot be looked up by path");
+
+                return asset == null ? null : asset.getId();
+            }
+        });
+    }
+
     /**
      * Reads all files, blocks and pages in selected site and stores their paths in projectInformation so that
      * later it doesn't have to read whole the asset only to see if it exists (as it can be very slow if the
@@ -611,6 +667,9 @@ public class WebServices
     public static void populateExistingCascadeAssets(ProjectInformation projectInformation) throws Exception
     {
         Identifier identifier = new Identifier(null, new Path("/", null, projectInformation.getSiteName()), EntityTypeString.folder, false);
+
+        // Blocks might have been added since the last search
+        projectInformation.getUndiscoveredBlockIds().clear();
         populateExistingCascadeAssetsOfFolder(identifier, projectInformation);
     }
 
@@ -641,9 +700,7 @@ public class WebServices
 
     /**
      * Recursively reads all assets from given folder and its descendants and stores their paths in
-     * {@link ProjectInformation#getExistingCascadeFiles()},
-     * {@link ProjectInformation#getExistingCascadeXhtmlBlocks()} and
-     * {@link ProjectInformation#getExistingCascadePages()}
+     * {@link ProjectInformation#getExistingCascadeAssets()}
      * 
      * @param folderIdentifier
      * @param projectInformation
@@ -664,21 +721,74 @@ public class WebServices
         for (Identifier child : children)
         {
             if (child.getType().equals(EntityTypeString.file))
-                projectInformation.getExistingCascadeFiles().put(child.getPath().getPath().toLowerCase(), child.getId());
+                projectInformation.getExistingCascadeAssets().put(child.getPath().getPath(), CascadeAssetType.FILE, child.getId());
             else if (child.getType().equals(EntityTypeString.block_XHTML_DATADEFINITION))
-                populateBlockMaps(projectInformation, child);
+            {
+                projectInformation.getExistingCascadeAssets().put(child.getPath().getPath(), CascadeAssetType.XHTML_BLOCK, child.getId());
+
+                // In search mode blocks are read only when a page references their id
+                if (ProjectInformation.BLOCK_DISCOVERY_READ_ALL.equals(projectInformation.getConfiguration().getBlockDiscoveryMode()))
+                    populateBlockMaps(projectInformation, child);
+            }
             else if (child.getType().equals(EntityTypeString.page))
-                projectInformation.getExistingCascadePages().put(child.getPath().getPath().toLowerCase(), child.getId());
+                projectInformation.getExistingCascadeAssets().put(child.getPath().getPath(), CascadeAssetType.PAGE, child.getId());
             else if (child.getType().equals(EntityTypeString.folder))
                 populateExistingCascadeAssetsOfFolder(child, projectInformation);
         }
     }
 
+    /**
+     * Reads the block and if it has the dynamic metadata field "id", assigns that id to the block's path and
+     * remembers if it is a special block
+     * 
+     * @param projectInformation
+     * @param blockIdentifier
+     * @throws Exception
+     */
     private static void populateBlockMaps(ProjectInformation projectInformation, Identifier blockIdentifier) throws Exception
     {
-        projectInformation.getExistingCascadeXhtmlBlocks().put(blockIdentifier.getPath().getPath().toLowerCase(), blockIdentifier.getId());
-
         XhtmlDataDefinitionBlock block = WebServices.readXhtmlBlock(blockIdentifier.getId(), projectInformation);
+        if (getBlockIdentifier(block) == null)
+            return;
+
+        populateBlockMaps(projectInformation, block);
+        CascadeAssetIndex existingCascadeAssets = projectInformation.getExistingCascadeAssets();
+        if (existingCascadeAssets.getBlockIdentifierCount() % 100 == 0)
+            Log.add(existingCascadeAssets.getBlockIdentifierCount() + " blocks found...</br>", projectInformation.getMigrationStatus());
+    }
+
+    /**
+     * Assigns the block's dynamic metadata field "id" to the block's path and remembers if it is a special
+     * block. Returns the id or null if the block doesn't have one.
+     * 
+     * @param projectInformation
+     * @param block
+     * @return
+     */
+    private static String populateBlockMaps(ProjectInformation projectInformation, XhtmlDataDefinitionBlock block)
+    {
+        String id = getBlockIdentifier(block);
+        if (id == null)
+            return null;
+
+        if (block.getStructuredData() != null && WebServicesUtil.SPECIAL_DATA_DEFINITION_PATH.equals(block.getStructuredData().getDefinitionPath()))
+            projectInformation.getSpecialBlockIds().add(id);
+
+        projectInformation.getExistingCascadeAssets().putBlockIdentifier(id, block.getPath());
+        return id;
+    }
+
+    /**
+     * Returns the value of the block's dynamic metadata field "id" or null if the block doesn't have one
+     * 
+     * @param block
+     * @return
+     */
+    private static String getBlockIdentifier(XhtmlDataDefinitionBlock block)
+    {
+        if (block.getMetadata() == null || block.getMetadata().getDynamicFields() == null)
+            return null;
+
         for (DynamicMetadataField dynamicField : block.getMetadata().getDynamicFields())
         {
             if (!"id".equals(dynamicField.getName()))
@@ -692,16 +802,130 @@ public class WebServices
             if (id == null || id.equals(""))
                 continue;
 
-            if (block.getStructuredData() != null
-                    && WebServicesUtil.SPECIAL_DATA_DEFINITION_PATH.equals(block.getStructuredData().getDefinitionPath()))
-                projectInformation.getSpecialBlockIds().add(id);
+            return id;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the path of the block whose dynamic metadata field "id" has given value or null if there is no
+     * such block. In {@link ProjectInformation#BLOCK_DISCOVERY_SEARCH} mode, a block that hasn't been read yet
+     * is looked up with the search operation.
+     * 
+     * @param blockId
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    public static String getBlockPathByBlockId(String blockId, ProjectInformation projectInformation) throws Exception
+    {
+        discoverBlock(blockId, projectInformation);
+        return projectInformation.getExistingCascadeAssets().getBlockPath(blockId);
+    }
+
+    /**
+     * Returns true if the block whose dynamic metadata field "id" has given value is a special block (its
+     * content should be copied to pages). In {@link ProjectInformation#BLOCK_DISCOVERY_SEARCH} mode, a block
+     * that hasn't been read yet is looked up with the search operation.
+     * 
+     * @param blockId
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    public static boolean isSpecialBlockId(String blockId, ProjectInformation projectInformation) throws Exception
+    {
+        discoverBlock(blockId, projectInformation);
+        return projectInformation.getSpecialBlockIds().contains(blockId);
+    }
 
-            projectInformation.getBlockIdToPathMap().put(id, block.getPath());
-            if (projectInformation.getBlockIdToPathMap().size() % 100 == 0)
-                Log.add(projectInformation.getBlockIdToPathMap().size() + " blocks found...</br>", projectInformation.getMigrationStatus());
+    /**
+     * In {@link ProjectInformation#BLOCK_DISCOVERY_SEARCH} mode, if no block with given dynamic metadata field
+     * "id" value is known yet, searches for blocks in the site whose metadata contains that value and reads
+     * them to find the one that actually has that id. Ids that could not be found are remembered, so that they
+     * are searched for only once.
+     * 
+     * @param blockId
+     * @param projectInformation
+     * @throws Exception
+     */
+    private static void discoverBlock(String blockId, ProjectInformation projectInformation) throws Exception
+    {
+        if (blockId == null || !ProjectInformation.BLOCK_DISCOVERY_SEARCH.equals(projectInformation.getConfiguration().getBlockDiscoveryMode()))
+            return;
 
+        CascadeAssetIndex existingCascadeAssets = projectInformation.getExistingCascadeAssets();
+        if (existingCascadeAssets.getBlockPath(blockId) != null || projectInformation.getUndiscoveredBlockIds().contains(blockId))
             return;
+
+        for (Identifier match : searchXhtmlBlocksByMetadata(blockId, projectInformation))
+        {
+            // Only blocks from the migrated site count
+            if (!projectInformation.getSiteName().equals(match.getPath().getSiteName())
+                    || !existingCascadeAssets.contains(match.getPath().getPath(), CascadeAssetType.XHTML_BLOCK))
+                continue;
+
+            XhtmlDataDefinitionBlock block = readXhtmlBlock(match.getId(), projectInformation);
+            if (blockId.equals(populateBlockMaps(projectInformation, block)))
+                return;
         }
+
+        projectInformation.getUndiscoveredBlockIds().add(blockId);
+    }
+
+    /**
+     * Returns identifiers of XHTML/Data Definition blocks whose metadata contains given value
+     * 
+     * @param value
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    private static Identifier[] searchXhtmlBlocksByMetadata(String value, ProjectInformation projectInformation) throws Exception
+    {
+        SearchInformation searchInformation = new SearchInformation();
+        searchInformation.setMatchType(SearchMatchType.value1);
+        searchInformation.setAssetMetadata(value);
+        searchInformation.setSearchBlocks(true);
+
+        SearchResult searchResult = getServer(projectInformation.getUrl()).search(getAuthentication(projectInformation), searchInformation);
+        if (!searchResult.getSuccess().equals("true"))
+            throw new Exception("Error occured when searching for a block with id '" + value + "': " + searchResult.getMessage());
+
+        List<Identifier> blocks = new ArrayList<Identifier>();
+        if (searchResult.getMatches() != null)
+            for (Identifier match : searchResult.getMatches())
+                if (match.getType().equals(EntityTypeString.block_XHTML_DATADEFINITION))
+                    blocks.add(match);
+
+        return blocks.toArray(new Identifier[0]);
+    }
+
+    /**
+     * Reads a folder with given path in the project's site and returns identifiers of its children. If the
+     * folder doesn't exist, returns null.
+     * 
+     * @param path
+     * @param projectInformation
+     * @return
+     * @throws Exception
+     */
+    public static Identifier[] readFolderChildren(String path, ProjectInformation projectInformation) throws Exception
+    {
+        Authentication authentication = getAuthentication(projectInformation);
+        Identifier identifier = new Identifier(null, new Path(path, null, projectInformation.getSiteName()), EntityTypeString.folder, false);
+        ReadResult readResult = getServer(projectInformation.getUrl()).read(authentication, identifier);
+        if (!readResult.getSuccess().equals("true")
+                && (readResult.getMessage() == null || !readResult.getMessage().equals(
+                        "Unable to identify an entity based on provided entity path '" + path + "' and type 'folder'")))
+            throw new Exception("Error occured when reading a Folder with path '" + path + "': " + readResult.getMessage());
+
+        if (!readResult.getSuccess().equals("true"))
+            return null;
+
+        Identifier[] children = readResult.getAsset().getFolder().getChildren();
+        return children == null ? new Identifier[0] : children;
     }
 
     /**
@@ -714,11 +938,7 @@ public class WebServices
      */
     private static String getPageId(String path, ProjectInformation projectInformation) throws Exception
     {
-        Page existingPage = readPageByPath(path, projectInformation);
-        if (existingPage != null)
-            return existingPage.getId();
-
-        return null;
+        return lookupAssetId(path, CascadeAssetType.PAGE, projectInformation);
     }
 
     /**
@@ -731,11 +951,7 @@ public class WebServices
      */
     private static String getXhtmlBlockId(String path, ProjectInformation projectInformation) throws Exception
     {
-        XhtmlDataDefinitionBlock existingBlock = readXhtmlBlockByPath(path, projectInformation);
-        if (existingBlock != null)
-            return existingBlock.getId();
-
-        return null;
+        return lookupAssetId(path, CascadeAssetType.XHTML_BLOCK, projectInformation);
     }
 
     /**
@@ -866,6 +1082,8 @@ public class WebServices
                 && (deleteResult.getMessage() == null || !deleteResult.getMessage().equals(
                         "Unable to identify an entity based on provided entity path '" + path + "' and type 'page'")))
             throw new Exception("Error occured when deleting a Page with path '" + path + "': " + deleteResult.getMessage());
+
+        projectInformation.getFolderListingCache().assetDeleted(path, CascadeAssetType.PAGE);
     }
 
     /**
@@ -887,6 +1105,8 @@ public class WebServices
                 && (deleteResult.getMessage() == null || !deleteResult.getMessage().equals(
                         "Unable to identify an entity based on provided entity path '" + path + "' and type 'block_XHTML_DATADEFINITION'")))
             throw new Exception("Error occured when deleting an XHTML Block with path '" + path + "': " + deleteResult.getMessage());
+
+        projectInformation.getFolderListingCache().assetDeleted(path, CascadeAssetType.XHTML_BLOCK);
     }
 
     /**
@@ -922,22 +1142,27 @@ public class WebServices
                 createFolder(parentFolderPath, projectInformation);
                 createFolder(path, projectInformation);
             }
+            // Another thread might have just created the same folder
+            else if (message != null && message.contains("already exists"))
+                return;
             else
                 throw new Exception("Parent folder " + path + " could not be created: " + createResult.getMessage() + " - Parent folder path is: -"
                         + parentFolderPath + "-");
         }
+        else
+            projectInformation.getFolderListingCache().assetCreated(path, CascadeAssetType.FOLDER, createResult.getCreatedAssetId());
     }
 
     /**
-     * Adds all ancestor content types of content type container with given id to the contentTypes list
+     * Reads a content type container with given id and returns identifiers of its children (content types and
+     * content type containers)
      * 
      * @param projectInformation
      * @param containerId
-     * @param contentTypes
+     * @return
      * @throws Exception
      */
-    private static void collectContentTypes(ProjectInformation projectInformation, String containerId, List<ContentType> contentTypes)
-            throws Exception
+    public static Identifier[] readContentTypeContainerChildren(ProjectInformation projectInformation, String containerId) throws Exception
     {
         Authentication authentication = getAuthentication(projectInformation);
         Identifier identifier = new Identifier(containerId, null, EntityTypeString.contenttypecontainer, false);
@@ -946,12 +1171,8 @@ public class WebServices
             throw new Exception("Error occured when getting a list of available Content Types in the Site: " + readResult.getMessage());
 
         ContentTypeContainer container = readResult.getAsset().getContentTypeContainer();
-        Identifier[] childIdentifiers = container.getChildren();
-        for (Identifier childIdentifier : childIdentifiers)
-            if (childIdentifier.getType().equals(EntityTypeString.contenttypecontainer))
-                collectContentTypes(projectInformation, childIdentifier.getId(), contentTypes);
-            else
-                contentTypes.add(readContentType(projectInformation, childIdentifier.getId()));
+        Identifier[] children = container.getChildren();
+        return children == null ? new Identifier[0] : children;
     }
 
     /**
@@ -962,7 +1183,7 @@ public class WebServices
      * @return
      * @throws Exception
      */
-    private static ContentType readContentType(ProjectInformation projectInformation, String contentTypeId) throws Exception
+    public static ContentType readContentType(ProjectInformation projectInformation, String contentTypeId) throws Exception
     {
         Authentication authentication = getAuthentication(projectInformation);
         Identifier identifier = new Identifier(contentTypeId, null, EntityTypeString.contenttype, false);
@@ -974,7 +1195,8 @@ public class WebServices
     }
 
     /**
-     * Returns the AssetOperationHandler object based on given url
+     * Returns the AssetOperationHandler object based on given url. All the calls made through it pass through
+     * the {@link #INTERCEPTORS}.
      * 
      * @param urlString
      * @return
@@ -982,8 +1204,23 @@ public class WebServices
      */
     private static AssetOperationHandler getServer(String urlString) throws Exception
     {
+        AssetOperationHandlerFactory factory = handlerFactory;
+        if (factory != null)
+            return AssetOperationProxy.wrap(urlString, factory.getHandler(urlString), INTERCEPTORS);
+
         URL url = new URL(urlString);
-        return new AssetOperationHandlerServiceLocator().getAssetOperationService(url);
+        return AssetOperationProxy.wrap(urlString, new AssetOperationHandlerServiceLocator().getAssetOperationService(url), INTERCEPTORS);
+    }
+
+    /**
+     * Makes all the web services calls go to the handlers created by given factory instead of the Cascade
+     * Server's web services. Meant for benchmarks and load tests only.
+     * 
+     * @param factory the factory or null to call the Cascade Server again
+     */
+    public static void setHandlerFactory(AssetOperationHandlerFactory factory)
+    {
+        handlerFactory = factory;
     }
 
     /**
@@ -0,0 +1,73 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.struts;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.hannonhill.smt.service.CallMetrics;
+import com.hannonhill.smt.util.LatencyHistogram;
+
+/**
+ * Action sending the metrics of the web services calls made to the Cascade Server of the current project as
+ * JSON: number of calls, errors, bytes sent and received and latency percentiles in milliseconds for each
+ * operation and asset type.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class MetricsAction extends BaseAction
+{
+    private static final long serialVersionUID = -3188163720745386207L;
+    private InputStream inputStream;
+
+    @Override
+    public String execute() throws Exception
+    {
+        String endpoint = getProjectInformation().getUrl();
+
+        JSONArray operations = new JSONArray();
+        for (CallMetrics.OperationMetrics metrics : CallMetrics.getEndpointMetrics(endpoint))
+        {
+            LatencyHistogram latencies = metrics.getLatencies();
+            JSONObject latency = new JSONObject();
+            latency.put("mean", latencies.getMean() / 1000);
+            latency.put("p50", latencies.getPercentile(50) / 1000.0);
+            latency.put("p90", latencies.getPercentile(90) / 1000.0);
+            latency.put("p99", latencies.getPercentile(99) / 1000.0);
+            latency.put("p999", latencies.getPercentile(99.9) / 1000.0);
+            latency.put("max", latencies.getMax() / 1000.0);
+            latency.put("total", latencies.getTotal() / 1000.0);
+
+            JSONObject operation = new JSONObject();
+            operation.put("operation", metrics.getOperationName());
+            operation.put("assetType", metrics.getAssetType());
+            operation.put("calls", metrics.getCalls());
+            operation.put("errors", metrics.getErrors());
+            operation.put("bytesSent", metrics.getBytesSent());
+            operation.put("bytesReceived", metrics.getBytesReceived());
+            operation.put("latency", latency);
+            operations.put(operation);
+        }
+
+        JSONObject object = new JSONObject();
+        object.put("endpoint", endpoint);
+        object.put("operations", operations);
+        inputStream = new ByteArrayInputStream(object.toString().getBytes("UTF-8"));
+        return SUCCESS;
+    }
+
+    /**
+     * @return Returns the input stream for AJAX
+     */
+    public InputStream getInputStream()
+    {
+        return inputStream;
+    }
+}
@@ -7,13 +7,22 @@ package com.hannonhill.smt.struts;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Map;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.hannonhill.smt.LinkCheckingStatus;
 import com.hannonhill.smt.MigrationStatus;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.TaskLog;
 import com.hannonhill.smt.TaskStatus;
+import com.hannonhill.smt.service.CircuitBreaker;
+import com.hannonhill.smt.service.ConcurrencyLimiter;
+import com.hannonhill.smt.service.Log;
+import com.hannonhill.smt.service.MemoryAdmissionController;
+import com.hannonhill.smt.service.RetryInterceptor;
+import com.hannonhill.smt.task.JobScheduler;
 import com.hannonhill.smt.task.LinkCheckingTask;
 import com.hannonhill.smt.task.MigrationTask;
 
@@ -26,7 +35,13 @@ import com.hannonhill.smt.task.MigrationTask;
 public class MigrationAction extends BaseAction
 {
     private static final long serialVersionUID = 7623856132054947522L;
+    private static final long LONG_POLL_TIMEOUT_MS = 15000;
+
     private InputStream inputStream;
+    private long logId; // id of the log the cursor belongs to
+    private long cursor; // sequence number of the first log message the browser did not get yet
+    private boolean longPoll; // if true, the request waits for new log messages before responding
+    private boolean compact; // if true, only the counters are sent without the diagnostics
 
     @Override
     public String execute() throws Exception
@@ -35,8 +50,8 @@ public class MigrationAction extends BaseAction
         String currentTaskName = projectInformation.getCurrentTask();
         if (currentTaskName == null)
         {
-            projectInformation.setMigrationStatus(new MigrationStatus());
-            new MigrationTask(getProjectInformation()).start();
+            MigrationTask task = new MigrationTask(projectInformation);
+            schedule(task, projectInformation.getMigrationStatus());
         }
         return super.execute();
     }
@@ -50,7 +65,43 @@ public class MigrationAction extends BaseAction
     }
 
     /**
-     * Handles an AJAX request and sends the task status information to the input stream
+     * @param logId the logId to set
+     */
+    public void setLogId(long logId)
+    {
+        this.logId = logId;
+    }
+
+    /**
+     * @param cursor the cursor to set
+     */
+    public void setCursor(long cursor)
+    {
+        this.cursor = cursor;
+    }
+
+    /**
+     * @param longPoll the longPoll to set
+     */
+    public void setLongPoll(boolean longPoll)
+    {
+        this.longPoll = longPoll;
+    }
+
+    /**
+     * @param compact the compact to set
+     */
+    public void setCompact(boolean compact)
+    {
+        this.compact = compact;
+    }
+
+    /**
+     * Handles an AJAX request and sends the task status information to the input stream. The browser passes
+     * the log id and cursor from the previous response and gets only the log messages added since then, so
+     * each browser tab reads the log on its own and no messages get lost between the requests. With the long
+     * poll parameter the request waits up to {@link #LONG_POLL_TIMEOUT_MS} for new messages instead of
+     * returning an empty response.
      * 
      * @return
      */
@@ -67,7 +118,7 @@ public class MigrationAction extends BaseAction
                 MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
                 object = createJSONObject(migrationStatus, currentTask);
 
-                int totalProgress = (projectInformation.getFilesToProcess().size()) * 2;
+                long totalProgress = migrationStatus.getTotalProgress();
                 object.put("progress", totalProgress == 0 ? 0 : 1000.0 * migrationStatus.getProgress() / totalProgress);
                 object.put("created", migrationStatus.getAssetsCreated());
                 object.put("skipped", migrationStatus.getAssetsSkipped());
@@ -77,12 +128,11 @@ public class MigrationAction extends BaseAction
             }
             else if (LinkCheckingTask.TASK_NAME.equals(currentTask))
             {
-                MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
                 LinkCheckingStatus linkCheckingStatus = projectInformation.getLinkCheckingStatus();
                 object = createJSONObject(linkCheckingStatus, currentTask);
 
-                int totalProgress = migrationStatus.getCreatedPages().size() + migrationStatus.getCreatedBlocks().size();
-                object.put("progress", 1000.0 * linkCheckingStatus.getProgress() / totalProgress);
+                long totalProgress = linkCheckingStatus.getTotalProgress();
+                object.put("progress", totalProgress == 0 ? 0 : 1000.0 * linkCheckingStatus.getProgress() / totalProgress);
                 object.put("checked", linkCheckingStatus.getAssetsChecked());
                 object.put("withErrors", linkCheckingStatus.getAssetsWithErrors());
                 object.put("correctLinks", linkCheckingStatus.getCorrectLinks());
@@ -91,6 +141,34 @@ public class MigrationAction extends BaseAction
             else
                 return SUCCESS;
 
+            object.put("queuePosition", JobScheduler.getQueuePosition(projectInformation));
+            if (compact)
+            {
+                inputStream = new ByteArrayInputStream(object.toString().getBytes("UTF-8"));
+                return SUCCESS;
+            }
+
+            JSONObject memory = new JSONObject();
+            memory.put("paused", MemoryAdmissionController.isPaused());
+            memory.put("bytesInFlight", MemoryAdmissionController.getBytesInFlight());
+            memory.put("budget", MemoryAdmissionController.getBudget());
+            memory.put("pauses", MemoryAdmissionController.getPauses());
+            object.put("memory", memory);
+
+            ConcurrencyLimiter limiter = ConcurrencyLimiter.getExisting(projectInformation.getUrl());
+            if (limiter != null)
+                object.put("concurrency", createConcurrencyJSONObject(limiter));
+
+            CircuitBreaker circuitBreaker = CircuitBreaker.getExisting(projectInformation.getUrl());
+            if (circuitBreaker != null)
+            {
+                JSONObject resilience = new JSONObject();
+                resilience.put("circuit", circuitBreaker.getState());
+                resilience.put("timesOpened", circuitBreaker.getTimesOpened());
+                resilience.put("retries", RetryInterceptor.getRetryCount(projectInformation.getUrl()));
+                object.put("resilience", resilience);
+            }
+
             String returnString = object.toString();
             inputStream = new ByteArrayInputStream(returnString.getBytes("UTF-8"));
 
@@ -128,7 +206,10 @@ public class MigrationAction extends BaseAction
         ProjectInformation projectInformation = getProjectInformation();
         String currentTask = projectInformation.getCurrentTask();
         if (!LinkCheckingTask.TASK_NAME.equals(currentTask) || projectInformation.getLinkCheckingStatus().isCompleted())
-            new LinkCheckingTask(getProjectInformation()).start();
+        {
+            LinkCheckingTask task = new LinkCheckingTask(projectInformation);
+            schedule(task, projectInformation.getLinkCheckingStatus());
+        }
         return SUCCESS;
     }
 
@@ -148,10 +229,67 @@ public class MigrationAction extends BaseAction
         if (MigrationTask.TASK_NAME.equals(currentTask) && !projectInformation.getMigrationStatus().isCompleted())
             return SUCCESS;
 
-        new MigrationTask(getProjectInformation()).start();
+        MigrationTask task = new MigrationTask(projectInformation);
+        schedule(task, projectInformation.getMigrationStatus());
         return SUCCESS;
     }
 
+    /**
+     * Schedules the task in the {@link JobScheduler} and lets the user know if it has to wait for other tasks
+     * 
+     * @param task
+     * @param taskStatus
+     */
+    private void schedule(Runnable task, TaskStatus taskStatus)
+    {
+        JobScheduler.submit(task, getProjectInformation());
+        int queuePosition = JobScheduler.getQueuePosition(getProjectInformation());
+        if (queuePosition > 0)
+            Log.add("Waiting for " + queuePosition + " other task(s) to start first...<br/>", taskStatus);
+    }
+
+    /**
+     * Creates a JSON object with the current limit, recent limit changes and latency percentiles of the
+     * concurrency limiter
+     * 
+     * @param limiter
+     * @return
+     * @throws Exception
+     */
+    private JSONObject createConcurrencyJSONObject(ConcurrencyLimiter limiter) throws Exception
+    {
+        JSONObject object = new JSONObject();
+        object.put("limit", limiter.getCurrentLimit());
+        object.put("inFlight", limiter.getInFlight());
+        object.put("waiting", limiter.getWaiting());
+        object.put("failureRate", limiter.getFailureRate());
+        object.put("activeJobs", limiter.getActiveJobs());
+
+        JSONArray decisions = new JSONArray();
+        for (ConcurrencyLimiter.Decision decision : limiter.getDecisions())
+        {
+            JSONObject decisionObject = new JSONObject();
+            decisionObject.put("time", decision.getTime());
+            decisionObject.put("oldLimit", decision.getOldLimit());
+            decisionObject.put("newLimit", decision.getNewLimit());
+            decisionObject.put("reason", decision.getReason());
+            decisions.put(decisionObject);
+        }
+        object.put("decisions", decisions);
+
+        JSONObject latencies = new JSONObject();
+        for (Map.Entry<String, long[]> entry : limiter.getLatencyPercentiles().entrySet())
+        {
+            JSONObject latency = new JSONObject();
+            latency.put("p50", entry.getValue()[0]);
+            latency.put("p95", entry.getValue()[1]);
+            latency.put("p99", entry.getValue()[2]);
+            latencies.put(entry.getKey(), latency);
+        }
+        object.put("latencies", latencies);
+        return object;
+    }
+
     /**
      * Creates a JSON object and fills it out with values from the TaskStatus
      * 
@@ -162,12 +300,49 @@ public class MigrationAction extends BaseAction
      */
     private JSONObject createJSONObject(TaskStatus taskStatus, String currentTask) throws Exception
     {
+        TaskLog log = taskStatus.getLog();
+        long logCursor = logId == log.getId() ? cursor : 0; // a new task started a new log
+
+        // Completion is checked before reading, so that the messages added right before the task completed
+        // are not missed
+        boolean completed = taskStatus.isCompleted();
+        if (longPoll && !completed)
+            log.await(logCursor, LONG_POLL_TIMEOUT_MS);
+
+        TaskLog.Batch batch = log.read(logCursor);
+        StringBuilder messages = new StringBuilder();
+        if (batch.getLost() > 0)
+            messages.append("<span class=\"text-warning\">(" + batch.getLost() + " messages skipped, see the log file)</span><br/>");
+        for (TaskLog.LogEvent event : batch.getEvents())
+            messages.append(event.getMessage());
+
         JSONObject object = new JSONObject();
-        object.put("log", taskStatus.getLog().toString());
-        object.put("completed", taskStatus.isCompleted());
+        object.put("completed", completed);
         object.put("currentTask", currentTask);
-        // clean up the log
-        taskStatus.setLog(new StringBuilder());
+        object.put("logId", log.getId());
+        object.put("cursor", batch.getNextCursor());
+        object.put("log", escapeLog(messages.toString()));
+        object.put("rate", taskStatus.getProgressRate());
+        object.put("etaSeconds", taskStatus.getEstimatedSecondsLeft());
         return object;
     }
+
+    /**
+     * Escapes \ and ' characters in the log, because the screen puts the log into a JavaScript string
+     * 
+     * @param log
+     * @return
+     */
+    private static String escapeLog(String log)
+    {
+        StringBuilder result = new StringBuilder(log.length());
+        for (int i = 0; i < log.length(); i++)
+        {
+            char c = log.charAt(i);
+            if (c == '\\' || c == '\'')
+                result.append('\\');
+            result.append(c);
+        }
+        return result.toString();
+    }
 }
@@ -24,6 +24,8 @@ public class MigrationSummaryAction extends BaseAction
 
     private final List<String> overwriteBehaviorList = new ArrayList<String>();
     private String overwriteBehavior;
+    private final List<String> blockDiscoveryModeList = new ArrayList<String>();
+    private String blockDiscoveryMode;
 
     @Override
     public String execute() throws Exception
@@ -47,7 +49,14 @@ public class MigrationSummaryAction extends BaseAction
             return processView();
         }
 
+        if (StringUtils.isEmpty(blockDiscoveryMode))
+        {
+            addActionError("The Block Discovery must be selected.");
+            return processView();
+        }
+
         getProjectInformation().setOverwriteBehavior(overwriteBehavior);
+        getProjectInformation().setBlockDiscoveryMode(blockDiscoveryMode);
         return SUCCESS;
     }
 
@@ -63,6 +72,9 @@ public class MigrationSummaryAction extends BaseAction
         overwriteBehaviorList.add(ProjectInformation.OVERWRITE_BEHAVIOR_UPDATE_EXISTING);
         overwriteBehaviorList.add(ProjectInformation.OVERWRITE_BEHAVIOR_SKIP_EXISTING);
         overwriteBehavior = getProjectInformation().getOverwriteBehavior();
+        blockDiscoveryModeList.add(ProjectInformation.BLOCK_DISCOVERY_READ_ALL);
+        blockDiscoveryModeList.add(ProjectInformation.BLOCK_DISCOVERY_SEARCH);
+        blockDiscoveryMode = getProjectInformation().getBlockDiscoveryMode();
 
         return INPUT;
     }
@@ -90,4 +102,28 @@ public class MigrationSummaryAction extends BaseAction
     {
         this.overwriteBehavior = overwriteBehavior;
     }
+
+    /**
+     * @return Returns the blockDiscoveryModeList
+     */
+    public List<String> getBlockDiscoveryModeList()
+    {
+        return blockDiscoveryModeList;
+    }
+
+    /**
+     * @return Returns the blockDiscoveryMode.
+     */
+    public String getBlockDiscoveryMode()
+    {
+        return blockDiscoveryMode;
+    }
+
+    /**
+     * @param blockDiscoveryMode the blockDiscoveryMode to set
+     */
+    public void setBlockDiscoveryMode(String blockDiscoveryMode)
+    {
+        this.blockDiscoveryMode = blockDiscoveryMode;
+    }
 }
@@ -24,9 +24,9 @@ import com.hannonhill.smt.ChooserType;
 import com.hannonhill.smt.ContentTypeInformation;
 import com.hannonhill.smt.DataDefinitionField;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.service.SiteMetadataCache;
 import com.hannonhill.smt.service.WebServices;
 import com.hannonhill.smt.util.PathUtil;
-import com.hannonhill.www.ws.ns.AssetOperationService.ContentType;
 import com.hannonhill.www.ws.ns.AssetOperationService.Site;
 
 /**
@@ -153,17 +153,20 @@ public class ProjectPropertiesAction extends BaseAction
     }
 
     /**
-     * Loads content types from site with a site name that is specified in the projectInformation
+     * Loads content types from site with a site name that is specified in the projectInformation. The content
+     * types are shared with other sessions through the {@link SiteMetadataCache}, so they are only read
+     * through web services if they haven't been read recently.
      */
     private void loadContentTypes()
     {
         ProjectInformation projectInformation = getProjectInformation();
-        List<ContentType> contentTypes = null;
+        Map<String, ContentTypeInformation> siteContentTypes = null;
+        List<String> errors = new ArrayList<String>();
 
-        // Get all the content types from given site through web services
+        // Get all the content types with data definitions from given site
         try
         {
-            contentTypes = WebServices.getContentTypesFromSite(projectInformation);
+            siteContentTypes = SiteMetadataCache.getContentTypes(projectInformation, errors);
         }
         catch (Exception e)
         {
@@ -171,7 +174,11 @@ public class ProjectPropertiesAction extends BaseAction
             return;
         }
 
-        if (contentTypes == null || contentTypes.size() == 0)
+        // The content types that could not be read are skipped
+        for (String error : errors)
+            addActionError(error);
+
+        if (siteContentTypes == null || siteContentTypes.size() == 0)
         {
             addActionError("Site with given name has no available Content Types");
             return;
@@ -179,28 +186,13 @@ public class ProjectPropertiesAction extends BaseAction
 
         // Clear the map in the projectInformation in case if it had some old data
         projectInformation.setContentTypes(new HashMap<String, ContentTypeInformation>());
-        // Convert each ContentType to the ContentTypeInformation object and add to the map in the
-        // projectInformation
-        for (ContentType contentType : contentTypes)
+        for (Map.Entry<String, ContentTypeInformation> entry : siteContentTypes.entrySet())
         {
-            // Only content types with data definitions count
-            if (contentType.getDataDefinitionId() == null)
-                continue;
-
-            try
-            {
-                ContentTypeInformation ctInfo = new ContentTypeInformation(contentType, projectInformation);
-                Map<String, DataDefinitionField> ddFields = ctInfo.getDataDefinitionFields();
-
-                // Only data definitions with "aside", "article" and "header" multiple block chooser fields
-                if (isMultipleBlockChooser(ddFields, "aside") && isMultipleBlockChooser(ddFields, "article")
-                        && isMultipleBlockChooser(ddFields, "header"))
-                    projectInformation.getContentTypes().put(contentType.getPath(), ctInfo);
-            }
-            catch (Exception e)
-            {
-                addActionError(e.getMessage());
-            }
+            Map<String, DataDefinitionField> ddFields = entry.getValue().getDataDefinitionFields();
+
+            // Only data definitions with "aside", "article" and "header" multiple block chooser fields
+            if (isMultipleBlockChooser(ddFields, "aside") && isMultipleBlockChooser(ddFields, "article") && isMultipleBlockChooser(ddFields, "header"))
+                projectInformation.getContentTypes().put(entry.getKey(), entry.getValue());
         }
     }
 
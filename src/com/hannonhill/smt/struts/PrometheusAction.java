@@ -0,0 +1,314 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.struts;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.hannonhill.smt.LinkCheckingStatus;
+import com.hannonhill.smt.MigrationStatus;
+import com.hannonhill.smt.TaskStatus;
+import com.hannonhill.smt.service.CallMetrics;
+import com.hannonhill.smt.service.CircuitBreaker;
+import com.hannonhill.smt.service.ConcurrencyLimiter;
+import com.hannonhill.smt.service.MemoryAdmissionController;
+import com.hannonhill.smt.service.MetricsRegistry;
+import com.hannonhill.smt.service.RetryInterceptor;
+import com.hannonhill.smt.task.JobScheduler;
+import com.hannonhill.smt.util.LatencyHistogram;
+
+/**
+ * Action exporting the metrics of all the projects' tasks and of the web services calls in the Prometheus text
+ * format, so that long migrations can be watched from a dashboard. Unlike the other actions it doesn't use the
+ * session - it reports the tasks registered in the {@link MetricsRegistry}, labeled with the project, site
+ * and task name.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class PrometheusAction extends BaseAction
+{
+    private static final long serialVersionUID = 5024813866907424351L;
+    private static final double[] QUANTILES =
+    {
+            0.5, 0.9, 0.99, 0.999
+    };
+
+    private InputStream inputStream;
+
+    @Override
+    public String execute() throws Exception
+    {
+        StringBuilder out = new StringBuilder();
+        writeTaskMetrics(out, MetricsRegistry.getTasks());
+        writeSchedulerMetrics(out);
+        writeEndpointMetrics(out);
+        inputStream = new ByteArrayInputStream(out.toString().getBytes("UTF-8"));
+        return SUCCESS;
+    }
+
+    /**
+     * Writes the progress, throughput and asset counters of given tasks
+     *
+     * @param out
+     * @param tasks
+     */
+    private static void writeTaskMetrics(StringBuilder out, List<MetricsRegistry.RegisteredTask> tasks)
+    {
+        writeHeader(out, "smt_task_progress_points", "gauge", "Progress points done - each asset counts once in each pass");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_progress_points", getTaskLabels(task), task.getStatus().getProgress());
+
+        writeHeader(out, "smt_task_progress_total_points", "gauge", "Progress points of the whole task, 0 until the task starts");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_progress_total_points", getTaskLabels(task), task.getStatus().getTotalProgress());
+
+        writeHeader(out, "smt_task_throughput_points_per_second", "gauge", "Progress points per second in the last minute");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_throughput_points_per_second", getTaskLabels(task), task.getStatus().getProgressRate());
+
+        writeHeader(out, "smt_task_error_rate_per_second", "gauge", "Assets with errors per second in the last minute");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_error_rate_per_second", getTaskLabels(task), task.getStatus().getErrorRate());
+
+        writeHeader(out, "smt_task_eta_seconds", "gauge", "Estimated seconds until the task completes, -1 if not known");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_eta_seconds", getTaskLabels(task), task.getStatus().getEstimatedSecondsLeft());
+
+        writeHeader(out, "smt_task_completed", "gauge", "1 if the task completed");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_completed", getTaskLabels(task), task.getStatus().isCompleted() ? 1 : 0);
+
+        writeHeader(out, "smt_task_pending_assets", "gauge", "Assets scheduled to be created and not created yet");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+            writeSample(out, "smt_task_pending_assets", getTaskLabels(task), task.getPendingAssets().size());
+
+        writeHeader(out, "smt_migration_assets_total", "counter", "Assets processed by the migration by result");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+        {
+            TaskStatus status = task.getStatus();
+            if (!(status instanceof MigrationStatus))
+                continue;
+
+            MigrationStatus migrationStatus = (MigrationStatus) status;
+            String labels = getTaskLabels(task);
+            writeSample(out, "smt_migration_assets_total", labels + ",result=\"created\"", migrationStatus.getAssetsCreated());
+            writeSample(out, "smt_migration_assets_total", labels + ",result=\"skipped\"", migrationStatus.getAssetsSkipped());
+            writeSample(out, "smt_migration_assets_total", labels + ",result=\"error\"", migrationStatus.getAssetsWithErrors());
+            writeSample(out, "smt_migration_assets_total", labels + ",result=\"aligned\"", migrationStatus.getAssetsAligned());
+            writeSample(out, "smt_migration_assets_total", labels + ",result=\"not_aligned\"", migrationStatus.getAssetsNotAligned());
+        }
+
+        writeHeader(out, "smt_link_checker_assets_total", "counter", "Assets processed by the link checker by result");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+        {
+            if (!(task.getStatus() instanceof LinkCheckingStatus))
+                continue;
+
+            LinkCheckingStatus linkCheckingStatus = (LinkCheckingStatus) task.getStatus();
+            String labels = getTaskLabels(task);
+            writeSample(out, "smt_link_checker_assets_total", labels + ",result=\"checked\"", linkCheckingStatus.getAssetsChecked());
+            writeSample(out, "smt_link_checker_assets_total", labels + ",result=\"error\"", linkCheckingStatus.getAssetsWithErrors());
+        }
+
+        writeHeader(out, "smt_link_checker_links_total", "counter", "Links checked by the link checker by result");
+        for (MetricsRegistry.RegisteredTask task : tasks)
+        {
+            if (!(task.getStatus() instanceof LinkCheckingStatus))
+                continue;
+
+            LinkCheckingStatus linkCheckingStatus = (LinkCheckingStatus) task.getStatus();
+            String labels = getTaskLabels(task);
+            writeSample(out, "smt_link_checker_links_total", labels + ",result=\"correct\"", linkCheckingStatus.getCorrectLinks());
+            writeSample(out, "smt_link_checker_links_total", labels + ",result=\"broken\"", linkCheckingStatus.getBrokenLinks());
+        }
+    }
+
+    /**
+     * Writes the job queue and memory admission metrics
+     *
+     * @param out
+     */
+    private static void writeSchedulerMetrics(StringBuilder out)
+    {
+        writeHeader(out, "smt_job_queue_depth", "gauge", "Tasks waiting for a free worker");
+        writeSample(out, "smt_job_queue_depth", null, JobScheduler.getQueueSize());
+
+        writeHeader(out, "smt_memory_bytes_in_flight", "gauge", "Estimated memory taken by the assets being processed");
+        writeSample(out, "smt_memory_bytes_in_flight", null, MemoryAdmissionController.getBytesInFlight());
+        writeHeader(out, "smt_memory_budget_bytes", "gauge", "Memory the assets being processed may take");
+        writeSample(out, "smt_memory_budget_bytes", null, MemoryAdmissionController.getBudget());
+        writeHeader(out, "smt_memory_paused", "gauge", "1 if admitting new assets is paused because of low memory");
+        writeSample(out, "smt_memory_paused", null, MemoryAdmissionController.isPaused() ? 1 : 0);
+        writeHeader(out, "smt_memory_pauses_total", "counter", "Times admitting new assets was paused");
+        writeSample(out, "smt_memory_pauses_total", null, MemoryAdmissionController.getPauses());
+        writeHeader(out, "smt_memory_forced_admissions_total", "counter", "Assets admitted after waiting too long");
+        writeSample(out, "smt_memory_forced_admissions_total", null, MemoryAdmissionController.getForcedAdmissions());
+    }
+
+    /**
+     * Writes the concurrency, resilience and web services call metrics of each endpoint. The samples of each
+     * metric follow its header, as the text format requires.
+     *
+     * @param out
+     */
+    private static void writeEndpointMetrics(StringBuilder out)
+    {
+        Map<String, ConcurrencyLimiter> limiters = new TreeMap<String, ConcurrencyLimiter>();
+        Map<String, CircuitBreaker> circuitBreakers = new TreeMap<String, CircuitBreaker>();
+        Map<String, CallMetrics.OperationMetrics> operations = new LinkedHashMap<String, CallMetrics.OperationMetrics>();
+        for (String endpoint : CallMetrics.getEndpoints())
+        {
+            String labels = "endpoint=\"" + escapeLabel(endpoint) + "\"";
+            ConcurrencyLimiter limiter = ConcurrencyLimiter.getExisting(endpoint);
+            if (limiter != null)
+                limiters.put(labels, limiter);
+            CircuitBreaker circuitBreaker = CircuitBreaker.getExisting(endpoint);
+            if (circuitBreaker != null)
+                circuitBreakers.put(labels, circuitBreaker);
+            for (CallMetrics.OperationMetrics metrics : CallMetrics.getEndpointMetrics(endpoint))
+                operations.put(labels + ",operation=\"" + escapeLabel(metrics.getOperationName()) + "\",asset_type=\""
+                        + escapeLabel(metrics.getAssetType()) + "\"", metrics);
+        }
+
+        writeHeader(out, "smt_concurrency_limit", "gauge", "Current limit of concurrent web services calls");
+        for (Map.Entry<String, ConcurrencyLimiter> limiter : limiters.entrySet())
+            writeSample(out, "smt_concurrency_limit", limiter.getKey(), limiter.getValue().getCurrentLimit());
+        writeHeader(out, "smt_concurrency_in_flight", "gauge", "Web services calls in progress");
+        for (Map.Entry<String, ConcurrencyLimiter> limiter : limiters.entrySet())
+            writeSample(out, "smt_concurrency_in_flight", limiter.getKey(), limiter.getValue().getInFlight());
+        writeHeader(out, "smt_concurrency_waiting", "gauge", "Threads waiting to make a web services call");
+        for (Map.Entry<String, ConcurrencyLimiter> limiter : limiters.entrySet())
+            writeSample(out, "smt_concurrency_waiting", limiter.getKey(), limiter.getValue().getWaiting());
+
+        writeHeader(out, "smt_circuit_open", "gauge", "1 if the circuit breaker is open, 0.5 if half-open");
+        for (Map.Entry<String, CircuitBreaker> circuitBreaker : circuitBreakers.entrySet())
+        {
+            String state = circuitBreaker.getValue().getState();
+            writeSample(out, "smt_circuit_open", circuitBreaker.getKey(), CircuitBreaker.STATE_OPEN.equals(state) ? 1
+                    : CircuitBreaker.STATE_HALF_OPEN.equals(state) ? 0.5 : 0);
+        }
+        writeHeader(out, "smt_circuit_opened_total", "counter", "Times the circuit breaker opened");
+        for (Map.Entry<String, CircuitBreaker> circuitBreaker : circuitBreakers.entrySet())
+            writeSample(out, "smt_circuit_opened_total", circuitBreaker.getKey(), circuitBreaker.getValue().getTimesOpened());
+
+        writeHeader(out, "smt_ws_retries_total", "counter", "Web services calls retried");
+        for (String endpoint : CallMetrics.getEndpoints())
+            writeSample(out, "smt_ws_retries_total", "endpoint=\"" + escapeLabel(endpoint) + "\"", RetryInterceptor.getRetryCount(endpoint));
+
+        writeHeader(out, "smt_ws_calls_total", "counter", "Web services calls");
+        for (Map.Entry<String, CallMetrics.OperationMetrics> operation : operations.entrySet())
+            writeSample(out, "smt_ws_calls_total", operation.getKey(), operation.getValue().getCalls());
+        writeHeader(out, "smt_ws_errors_total", "counter", "Web services calls that threw an exception or returned a failed result");
+        for (Map.Entry<String, CallMetrics.OperationMetrics> operation : operations.entrySet())
+            writeSample(out, "smt_ws_errors_total", operation.getKey(), operation.getValue().getErrors());
+        writeHeader(out, "smt_ws_sent_bytes_total", "counter", "Size of the web services requests");
+        for (Map.Entry<String, CallMetrics.OperationMetrics> operation : operations.entrySet())
+            writeSample(out, "smt_ws_sent_bytes_total", operation.getKey(), operation.getValue().getBytesSent());
+        writeHeader(out, "smt_ws_received_bytes_total", "counter", "Size of the web services responses");
+        for (Map.Entry<String, CallMetrics.OperationMetrics> operation : operations.entrySet())
+            writeSample(out, "smt_ws_received_bytes_total", operation.getKey(), operation.getValue().getBytesReceived());
+
+        writeHeader(out, "smt_ws_latency_seconds", "summary", "Latency of the web services calls");
+        for (Map.Entry<String, CallMetrics.OperationMetrics> operation : operations.entrySet())
+        {
+            LatencyHistogram latencies = operation.getValue().getLatencies();
+            for (double quantile : QUANTILES)
+                writeSample(out, "smt_ws_latency_seconds", operation.getKey() + ",quantile=\"" + quantile + "\"",
+                        latencies.getPercentile(quantile * 100) / 1000000.0);
+            writeSample(out, "smt_ws_latency_seconds_sum", operation.getKey(), latencies.getTotal() / 1000000.0);
+            writeSample(out, "smt_ws_latency_seconds_count", operation.getKey(), latencies.getCount());
+        }
+    }
+
+    /**
+     * @param task
+     * @return Returns the labels identifying given task
+     */
+    private static String getTaskLabels(MetricsRegistry.RegisteredTask task)
+    {
+        return "project=\"" + task.getProjectId() + "\",site=\"" + escapeLabel(task.getSiteName()) + "\",task=\""
+                + escapeLabel(task.getTaskName()) + "\"";
+    }
+
+    /**
+     * Writes the help and type lines of a metric
+     *
+     * @param out
+     * @param name
+     * @param type
+     * @param help
+     */
+    private static void writeHeader(StringBuilder out, String name, String type, String help)
+    {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Writes a single sample
+     *
+     * @param out
+     * @param name
+     * @param labels the labels separated with commas or null if the sample has no labels
+     * @param value
+     */
+    private static void writeSample(StringBuilder out, String name, String labels, double value)
+    {
+        out.append(name);
+        if (labels != null)
+            out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (Double.isNaN(value))
+            out.append("NaN");
+        else if (Double.isInfinite(value))
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        else if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            out.append((long) value);
+        else
+            out.append(value);
+        out.append('\n');
+    }
+
+    /**
+     * Escapes the backslash, double quote and line feed characters in a label value
+     *
+     * @param value
+     * @return
+     */
+    private static String escapeLabel(String value)
+    {
+        if (value == null)
+            return "";
+
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '\\')
+                result.append("\\\\");
+            else if (c == '"')
+                result.append("\\\"");
+            else if (c == '\n')
+                result.append("\\n");
+            else
+                result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return Returns the input stream with the metrics
+     */
+    public InputStream getInputStream()
+    {
+        return inputStream;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.task;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.service.ConcurrencyLimiter;
+import com.hannonhill.smt.util.DaemonThreadFactory;
+
+/**
+ * Runs the background tasks (migrations and link checkers) of all the sessions on a bounded number of
+ * threads. Tasks submitted while all the threads are busy wait in a queue in the order they were submitted.
+ *
+ * Each task runs as a separate job of the {@link ConcurrencyLimiter}, so the tasks running against the same
+ * Cascade Server share its limit of concurrent web services calls fairly and the interactive calls made by
+ * the user interface are let through first.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class JobScheduler
+{
+    private static final int MAX_RUNNING_JOBS = 3;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(MAX_RUNNING_JOBS, new DaemonThreadFactory("job"));
+    private static final LinkedList<ProjectInformation> queue = new LinkedList<ProjectInformation>(); // projects of the
+                                                                                                   // queued tasks
+    private static final AtomicLong nextJobId = new AtomicLong();
+
+    /**
+     * Schedules the task to be run as soon as a thread is available
+     *
+     * @param task
+     * @param projectInformation the project the task works on
+     */
+    public static void submit(final Runnable task, final ProjectInformation projectInformation)
+    {
+        final String jobId = "job-" + nextJobId.incrementAndGet();
+        synchronized (queue)
+        {
+            queue.add(projectInformation);
+        }
+
+        executor.execute(new Runnable()
+        {
+            public void run()
+            {
+                synchronized (queue)
+                {
+                    queue.remove(projectInformation);
+                }
+
+                ConcurrencyLimiter.setCurrentJob(jobId);
+                try
+                {
+                    task.run();
+                }
+                catch (RuntimeException e)
+                {
+                    e.printStackTrace();
+                }
+                finally
+                {
+                    ConcurrencyLimiter.setCurrentJob(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the position of the task of given project in the queue (1 for the task that starts next) or 0
+     * if the project's task is not waiting in the queue
+     *
+     * @param projectInformation
+     * @return
+     */
+    public static int getQueuePosition(ProjectInformation projectInformation)
+    {
+        synchronized (queue)
+        {
+            return queue.indexOf(projectInformation) + 1;
+        }
+    }
+
+    /**
+     * @return Returns the number of tasks waiting in the queue
+     */
+    public static int getQueueSize()
+    {
+        synchronized (queue)
+        {
+            return queue.size();
+        }
+    }
+}
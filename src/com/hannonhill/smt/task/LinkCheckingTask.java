@@ -6,9 +6,14 @@
 package com.hannonhill.smt.task;
 
 import com.hannonhill.smt.LinkCheckingStatus;
+import com.hannonhill.smt.MigrationStatus;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.service.CallMetrics;
+import com.hannonhill.smt.service.ConcurrencyLimiter;
 import com.hannonhill.smt.service.LinkChecker;
 import com.hannonhill.smt.service.Log;
+import com.hannonhill.smt.service.MetricsRegistry;
+import com.hannonhill.smt.util.FlightRecorderEvents;
 
 /**
  * The background link checking task
@@ -16,7 +21,7 @@ import com.hannonhill.smt.service.Log;
  * @author Artur Tomusiak
  * @since 1.0
  */
-public class LinkCheckingTask extends Thread
+public class LinkCheckingTask implements Runnable
 {
     public final static String TASK_NAME = "link-checker";
     private final ProjectInformation projectInformation;
@@ -29,25 +34,40 @@ public class LinkCheckingTask extends Thread
     public LinkCheckingTask(ProjectInformation projectInformation)
     {
         this.projectInformation = projectInformation;
+
+        // The task is current as soon as it is scheduled, so that it doesn't get scheduled twice while queued
+        projectInformation.setLinkCheckingStatus(new LinkCheckingStatus());
+        projectInformation.setCurrentTask(TASK_NAME);
+        MetricsRegistry.register(projectInformation, TASK_NAME, projectInformation.getLinkCheckingStatus());
     }
 
     /**
      * Runs the link checker
      */
-    @Override
     public void run()
     {
-        LinkCheckingStatus status = new LinkCheckingStatus();
-        projectInformation.setLinkCheckingStatus(status);
-        projectInformation.setCurrentTask(TASK_NAME);
+        LinkCheckingStatus status = projectInformation.getLinkCheckingStatus();
+        projectInformation.freezeConfiguration();
         Log.createFile(projectInformation, status, "linkchecker");
 
-        LinkChecker.checkLinks(projectInformation);
+        MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        status.setTotalProgress(migrationStatus.getCreatedPageCount() + migrationStatus.getCreatedBlockCount());
+
+        Object phaseEvent = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.PHASE);
+        try
+        {
+            LinkChecker.checkLinks(projectInformation);
+        }
+        finally
+        {
+            FlightRecorderEvents.commit(phaseEvent, "checking links", projectInformation.getSiteName());
+        }
         if (status.isShouldStop())
             Log.add("<br/>Link checker stopped by the user.<br/>", status);
 
-        status.setCompleted(true);
         logLinkCheckingSummary();
+        CallMetrics.removeJob(ConcurrencyLimiter.getCurrentJob());
+        status.setCompleted(true);
         Log.close(status);
     }
 
@@ -5,10 +5,21 @@
  */
 package com.hannonhill.smt.task;
 
+import java.util.List;
+
+import com.hannonhill.smt.AssetLookupCache;
+import com.hannonhill.smt.FolderListingCache;
 import com.hannonhill.smt.MigrationStatus;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.SpecialBlockCache;
+import com.hannonhill.smt.StageReport;
+import com.hannonhill.smt.service.CallMetrics;
+import com.hannonhill.smt.service.ConcurrencyLimiter;
 import com.hannonhill.smt.service.Log;
+import com.hannonhill.smt.service.MemoryAdmissionController;
+import com.hannonhill.smt.service.MetricsRegistry;
 import com.hannonhill.smt.service.Migrator;
+import com.hannonhill.smt.util.StageTimer;
 
 /**
  * The background migration task
@@ -17,7 +28,7 @@ import com.hannonhill.smt.service.Migrator;
  * @version $Id$
  * @since   1.0
  */
-public class MigrationTask extends Thread
+public class MigrationTask implements Runnable
 {
     public final static String TASK_NAME = "migration";
     private final ProjectInformation projectInformation;
@@ -30,33 +41,47 @@ public class MigrationTask extends Thread
     public MigrationTask(ProjectInformation projectInformation)
     {
         this.projectInformation = projectInformation;
+
+        // The task is current as soon as it is scheduled, so that it doesn't get scheduled twice while queued
+        projectInformation.setMigrationStatus(new MigrationStatus());
+        projectInformation.setCurrentTask(TASK_NAME);
+        MetricsRegistry.register(projectInformation, TASK_NAME, projectInformation.getMigrationStatus());
     }
 
     /**
      * Runs the migration
      */
-    @Override
     public void run()
     {
-        MigrationStatus migrationStatus = new MigrationStatus();
+        MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
+        projectInformation.freezeConfiguration();
         Log.createFile(projectInformation, migrationStatus, "migration");
-        projectInformation.setMigrationStatus(migrationStatus);
-        projectInformation.setCurrentTask(TASK_NAME);
 
-        Migrator.createPages(projectInformation);
-        Migrator.alignLinks(projectInformation);
+        // The memory admission counters are shared by the whole server, so only their growth is reported
+        long pausesAtStart = MemoryAdmissionController.getPauses();
+        long forcedAdmissionsAtStart = MemoryAdmissionController.getForcedAdmissions();
+
+        // Each file is created in the first pass and aligned in the second one
+        migrationStatus.setTotalProgress(projectInformation.getFilesToProcess().size() * 2);
+
+        Migrator.migrate(projectInformation);
         if (migrationStatus.isShouldStop())
             Log.add("<br/>Migration stopped by the user.<br/>", migrationStatus);
 
+        // The summary is logged before completing, so that the screen doesn't stop reading the log before it
+        logMigrationSummary(pausesAtStart, forcedAdmissionsAtStart);
+        CallMetrics.removeJob(ConcurrencyLimiter.getCurrentJob());
         migrationStatus.setCompleted(true);
-        logMigrationSummary();
         Log.close(migrationStatus);
     }
 
     /**
      * Adds the summary information to the log.
+     * 
+     * @param pausesAtStart number of memory admission pauses when the migration started
+     * @param forcedAdmissionsAtStart number of forced memory admissions when the migration started
      */
-    private void logMigrationSummary()
+    private void logMigrationSummary(long pausesAtStart, long forcedAdmissionsAtStart)
     {
         MigrationStatus migrationStatus = projectInformation.getMigrationStatus();
         Log.add("<br/><em>Migration summary:<br/>", migrationStatus);
@@ -65,6 +90,84 @@ public class MigrationTask extends Thread
         Log.add("Errors: <span style=\"color: red;\">" + migrationStatus.getAssetsWithErrors() + "</span><br/>", migrationStatus);
         Log.add("Aligned: <span style=\"color: green;\">" + migrationStatus.getAssetsAligned() + "</span><br/>", migrationStatus);
         Log.add("Aligning errors: <span style=\"color: red;\">" + migrationStatus.getAssetsNotAligned() + "</span><br/>", migrationStatus);
+
+        SpecialBlockCache specialBlockCache = projectInformation.getSpecialBlockCache();
+        Log.add("Special block cache: " + specialBlockCache.getHits() + " hits, " + specialBlockCache.getMisses() + " misses, "
+                + specialBlockCache.getEvictions() + " evictions<br/>", migrationStatus);
+        AssetLookupCache assetLookupCache = projectInformation.getAssetLookupCache();
+        Log.add("Asset lookups: " + assetLookupCache.getCalls() + " read, " + assetLookupCache.getSharedLookups() + " shared, "
+                + assetLookupCache.getMissHits() + " answered from remembered misses<br/>", migrationStatus);
+        FolderListingCache folderListingCache = projectInformation.getFolderListingCache();
+        Log.add("Folder listing cache: " + folderListingCache.getHits() + " hits, " + folderListingCache.getMisses() + " folders read, "
+                + folderListingCache.getEvictions() + " evictions<br/>", migrationStatus);
+        Log.add("Memory admission: paused " + (MemoryAdmissionController.getPauses() - pausesAtStart) + " times, "
+                + (MemoryAdmissionController.getForcedAdmissions() - forcedAdmissionsAtStart) + " assets admitted after waiting too long<br/>",
+                migrationStatus);
+        logCallMetrics(migrationStatus);
+        logStageReport(migrationStatus);
         Log.add("</em><br/>Migration completed.<br/><br/>", migrationStatus);
     }
+
+    /**
+     * Adds the time spent in each stage by all the assets and the stage breakdown of the slowest assets to
+     * the log
+     * 
+     * @param migrationStatus
+     */
+    private void logStageReport(MigrationStatus migrationStatus)
+    {
+        StageReport stageReport = migrationStatus.getStageReport();
+        if (stageReport.getAssets() == 0)
+            return;
+
+        Log.add("Time per stage (" + stageReport.getAssets() + " pages and blocks created or aligned, " + stageReport.getTotalNanos() / 1000000
+                + " ms in total):<br/>", migrationStatus);
+        for (StageTimer.Stage stage : StageTimer.Stage.values())
+            Log.add("&nbsp;&nbsp;" + stage.getLabel() + ": " + formatStageTime(stageReport.getStageNanos(stage), stageReport.getTotalNanos()) + "<br/>",
+                    migrationStatus);
+        Log.add("&nbsp;&nbsp;other: " + formatStageTime(stageReport.getOtherNanos(), stageReport.getTotalNanos()) + "<br/>", migrationStatus);
+
+        Log.add("Slowest pages and blocks:<br/>", migrationStatus);
+        for (StageReport.TimedAsset asset : stageReport.getSlowestAssets())
+        {
+            StageTimer.AssetTiming timing = asset.getTiming();
+            StringBuilder line = new StringBuilder();
+            line.append("&nbsp;&nbsp;" + asset.getName() + " (" + asset.getKind() + "): " + timing.getTotalNanos() / 1000000 + " ms -");
+            for (StageTimer.Stage stage : StageTimer.Stage.values())
+                line.append(" " + stage.getLabel() + " " + timing.getStageNanos(stage) / 1000000 + " ms,");
+            line.append(" other " + timing.getOtherNanos() / 1000000 + " ms<br/>");
+            Log.add(line.toString(), migrationStatus);
+        }
+    }
+
+    /**
+     * @param nanos
+     * @param totalNanos
+     * @return Returns the time in milliseconds with its percentage of the total time
+     */
+    private static String formatStageTime(long nanos, long totalNanos)
+    {
+        return nanos / 1000000 + " ms (" + (totalNanos == 0 ? 0 : 100 * nanos / totalNanos) + "%)";
+    }
+
+    /**
+     * Adds the metrics of the web services calls made by this migration to the log, operations that took the
+     * most time first
+     * 
+     * @param migrationStatus
+     */
+    private void logCallMetrics(MigrationStatus migrationStatus)
+    {
+        List<CallMetrics.OperationMetrics> operations = CallMetrics.getJobMetrics(ConcurrencyLimiter.getCurrentJob());
+        if (operations.isEmpty())
+            return;
+
+        Log.add("Web services calls:<br/>", migrationStatus);
+        for (CallMetrics.OperationMetrics operation : operations)
+            Log.add("&nbsp;&nbsp;" + operation.getOperationName() + " " + operation.getAssetType() + ": " + operation.getCalls() + " calls, "
+                    + operation.getErrors() + " errors, " + operation.getLatencies().getTotal() / 1000000 + " s total, median "
+                    + operation.getLatencies().getPercentile(50) / 1000 + " ms, 99th percentile " + operation.getLatencies().getPercentile(99)
+                    / 1000 + " ms, max " + operation.getLatencies().getMax() / 1000 + " ms, " + operation.getBytesSent() / 1024 + " KB sent, "
+                    + operation.getBytesReceived() / 1024 + " KB received<br/>", migrationStatus);
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named daemon threads, so that the executors don't keep Tomcat from shutting down
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class DaemonThreadFactory implements ThreadFactory
+{
+    private final String namePrefix;
+    private final AtomicInteger threadCount;
+
+    /**
+     * Constructor
+     *
+     * @param namePrefix
+     */
+    public DaemonThreadFactory(String namePrefix)
+    {
+        this.namePrefix = namePrefix;
+        this.threadCount = new AtomicInteger();
+    }
+
+    public Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
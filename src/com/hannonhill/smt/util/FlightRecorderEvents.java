@@ -0,0 +1,282 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Custom Java Flight Recorder events, so that a recording of a migration shows which phase and which asset
+ * the Axis and JTidy frames belong to. The tool is built for Java versions without JFR, so the event types
+ * are created at runtime through the jdk.jfr.EventFactory API using reflection. On a JVM without JFR nothing
+ * is created and all the methods do nothing.
+ *
+ * The flight recorder state is tracked with a listener, so while nothing is being recorded
+ * {@link #begin(Kind)} costs a single volatile read and returns null. Callers should skip building the values
+ * when the event is null:
+ *
+ * <pre>
+ * Object event = FlightRecorderEvents.begin(FlightRecorderEvents.Kind.ASSET);
+ * ...
+ * if (event != null)
+ *     FlightRecorderEvents.commit(event, path, kind);
+ * </pre>
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class FlightRecorderEvents
+{
+    private static final String CATEGORY = "Site Migration";
+
+    /**
+     * The types of the events with their fields. The values passed to {@link FlightRecorderEvents#commit}
+     * must be in the order of the fields.
+     */
+    public static enum Kind
+    {
+        PHASE("MigrationPhase", "Migration Phase", new Object[]
+        {
+                String.class, "phase", String.class, "site"
+        }), ASSET("AssetProcessing", "Asset Processing", new Object[]
+        {
+                String.class, "path", String.class, "kind"
+        }), WEB_SERVICES_CALL("WebServicesCall", "Web Services Call", new Object[]
+        {
+                String.class, "operation", String.class, "assetType", String.class, "path", long.class, "bytesSent", long.class, "bytesReceived",
+                boolean.class, "success"
+        }), CACHE_LOOKUP("CacheLookup", "Cache Lookup", new Object[]
+        {
+                String.class, "cache", String.class, "key", boolean.class, "hit"
+        });
+
+        private final String name;
+        private final String label;
+        private final Object[] fields; // pairs of field type and field name
+        private Object factory; // jdk.jfr.EventFactory or null if the event type could not be created
+
+        /**
+         * Constructor
+         *
+         * @param name
+         * @param label
+         * @param fields
+         */
+        private Kind(String name, String label, Object[] fields)
+        {
+            this.name = "com.hannonhill.smt." + name;
+            this.label = label;
+            this.fields = fields;
+        }
+    }
+
+    private static final Method newEventMethod;
+    private static final Method beginMethod;
+    private static final Method commitMethod;
+    private static final Method setMethod;
+    private static volatile boolean recording; // true if the flight recorder has a running recording
+
+    static
+    {
+        Method newEvent = null;
+        Method begin = null;
+        Method commit = null;
+        Method set = null;
+        try
+        {
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            for (Kind kind : Kind.values())
+                kind.factory = createFactory(eventFactoryClass, kind);
+            newEvent = eventFactoryClass.getMethod("newEvent");
+            begin = eventClass.getMethod("begin");
+            commit = eventClass.getMethod("commit");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            listenToRecorder();
+        }
+        catch (ClassNotFoundException e)
+        {
+            // No JFR in this JVM
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            newEvent = null;
+        }
+        newEventMethod = newEvent;
+        beginMethod = begin;
+        commitMethod = commit;
+        setMethod = set;
+    }
+
+    /**
+     * Creates and begins an event of given kind
+     *
+     * @param kind
+     * @return Returns the event or null if nothing is being recorded
+     */
+    public static Object begin(Kind kind)
+    {
+        if (!recording || newEventMethod == null || kind.factory == null)
+            return null;
+
+        try
+        {
+            Object event = newEventMethod.invoke(kind.factory);
+            beginMethod.invoke(event);
+            return event;
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the values of the event's fields and commits it. The duration of the event is the time since
+     * {@link #begin(Kind)}.
+     *
+     * @param event the event returned by {@link #begin(Kind)}, ignored if null
+     * @param values
+     */
+    public static void commit(Object event, Object... values)
+    {
+        if (event == null)
+            return;
+
+        try
+        {
+            for (int i = 0; i < values.length; i++)
+                setMethod.invoke(event, i, values[i]);
+            commitMethod.invoke(event);
+        }
+        catch (Exception e)
+        {
+            // The event is just lost
+        }
+    }
+
+    /**
+     * Records a lookup in a cache
+     *
+     * @param cache the name of the cache
+     * @param key
+     * @param hit
+     */
+    public static void cacheLookup(String cache, String key, boolean hit)
+    {
+        if (!recording)
+            return;
+
+        commit(begin(Kind.CACHE_LOOKUP), cache, key, hit);
+    }
+
+    /**
+     * Creates and registers the event factory of given kind
+     *
+     * @param eventFactoryClass
+     * @param kind
+     * @return
+     * @throws Exception
+     */
+    private static Object createFactory(Class<?> eventFactoryClass, Kind kind) throws Exception
+    {
+        Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+        Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+        Constructor<?> annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+        Constructor<?> valueDescriptorConstructor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+        List<Object> annotations = new ArrayList<Object>();
+        annotations.add(annotationElementConstructor.newInstance(getAnnotationClass("jdk.jfr.Name"), kind.name));
+        annotations.add(annotationElementConstructor.newInstance(getAnnotationClass("jdk.jfr.Label"), kind.label));
+        annotations.add(annotationElementConstructor.newInstance(getAnnotationClass("jdk.jfr.Category"), new String[]
+        {
+            CATEGORY
+        }));
+
+        List<Object> fields = new ArrayList<Object>();
+        for (int i = 0; i < kind.fields.length; i += 2)
+        {
+            String fieldName = (String) kind.fields[i + 1];
+            Object label = annotationElementConstructor.newInstance(getAnnotationClass("jdk.jfr.Label"), fieldName);
+            fields.add(valueDescriptorConstructor.newInstance(kind.fields[i], fieldName, Arrays.asList(label)));
+        }
+
+        Object factory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+        eventFactoryClass.getMethod("register").invoke(factory);
+        return factory;
+    }
+
+    /**
+     * @param className
+     * @return Returns the annotation class with given name
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Annotation> getAnnotationClass(String className) throws ClassNotFoundException
+    {
+        return (Class<? extends Annotation>) Class.forName(className);
+    }
+
+    /**
+     * Registers a jdk.jfr.FlightRecorderListener that keeps {@link #recording} up to date
+     *
+     * @throws Exception
+     */
+    private static void listenToRecorder() throws Exception
+    {
+        final Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+        Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+        Object listener = Proxy.newProxyInstance(listenerClass.getClassLoader(), new Class<?>[]
+        {
+            listenerClass
+        }, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getDeclaringClass() == Object.class)
+                {
+                    if (method.getName().equals("equals"))
+                        return proxy == args[0];
+                    if (method.getName().equals("hashCode"))
+                        return System.identityHashCode(proxy);
+                    return "FlightRecorderEvents listener";
+                }
+
+                updateRecording(flightRecorderClass);
+                return null;
+            }
+        });
+        flightRecorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+
+        // A recording started with the JVM is already running
+        if ((Boolean) flightRecorderClass.getMethod("isInitialized").invoke(null))
+            updateRecording(flightRecorderClass);
+    }
+
+    /**
+     * Sets {@link #recording} to true if any recording of the flight recorder is running
+     *
+     * @param flightRecorderClass
+     * @throws Exception
+     */
+    private static void updateRecording(Class<?> flightRecorderClass) throws Exception
+    {
+        Object flightRecorder = flightRecorderClass.getMethod("getFlightRecorder").invoke(null);
+        List<?> recordings = (List<?>) flightRecorderClass.getMethod("getRecordings").invoke(flightRecorder);
+        boolean running = false;
+        for (Object recording : recordings)
+            if (String.valueOf(recording.getClass().getMethod("getState").invoke(recording)).equals("RUNNING"))
+                running = true;
+        recording = running;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.io.File;
+import java.util.Comparator;
+
+/**
+ * Orders files by their parent folder first and by their name second, so that all the files of a folder are
+ * next to each other and a folder always comes before its sub-folders. Migrating the files in this order
+ * keeps the work on a single folder together - the folder gets created once, its listing gets read once and
+ * Cascade Server keeps it in its own caches while its assets are being created. The order is the same in
+ * every run.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class FolderOrderComparator implements Comparator<File>
+{
+    public int compare(File file1, File file2)
+    {
+        int result = compareIgnoringCase(getParentPath(file1), getParentPath(file2));
+        if (result != 0)
+            return result;
+
+        return compareIgnoringCase(file1.getName(), file2.getName());
+    }
+
+    /**
+     * Compares the strings ignoring case first, so that the files that end up in the same Cascade folder stay
+     * together, and then by case to keep the order total
+     *
+     * @param string1
+     * @param string2
+     * @return
+     */
+    private static int compareIgnoringCase(String string1, String string2)
+    {
+        int result = string1.compareToIgnoreCase(string2);
+        return result != 0 ? result : string1.compareTo(string2);
+    }
+
+    /**
+     * @param file
+     * @return Returns the path of the file's parent folder or an empty string if it has no parent
+     */
+    private static String getParentPath(File file)
+    {
+        String parent = file.getParent();
+        return parent == null ? "" : parent;
+    }
+}
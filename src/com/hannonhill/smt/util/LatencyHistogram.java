@@ -0,0 +1,148 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values (latencies in microseconds) with buckets of logarithmically growing
+ * width, the way HdrHistogram does it: values below {@link #SUB_BUCKET_COUNT} get a bucket each, and every
+ * following power of 2 is split into {@link #SUB_BUCKET_COUNT}/2 buckets of equal width. Any value is
+ * therefore recorded with a relative error below 1/16, the memory taken is fixed no matter how many values
+ * are recorded, and recording is a single lock-free increment.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    /**
+     * Constructor
+     */
+    public LatencyHistogram()
+    {
+        counts = new AtomicLongArray(BUCKET_COUNT);
+        count = new AtomicLong();
+        total = new AtomicLong();
+        max = new AtomicLong();
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+            value = 0;
+
+        counts.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value))
+            ;
+    }
+
+    /**
+     * Returns the value at given percentile - the highest value that could have been recorded in the bucket
+     * the percentile falls into, but not more than the maximum recorded value. Returns 0 if nothing was
+     * recorded.
+     *
+     * @param percentile between 0 and 100
+     * @return
+     */
+    public long getPercentile(double percentile)
+    {
+        long recorded = count.get();
+        if (recorded == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+        {
+            seen += counts.get(bucket);
+            if (seen >= rank)
+                return Math.min(getHighestValue(bucket), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * @return Returns the number of recorded values
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * @return Returns the sum of the recorded values
+     */
+    public long getTotal()
+    {
+        return total.get();
+    }
+
+    /**
+     * @return Returns the highest recorded value
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * @return Returns the mean of the recorded values or 0 if nothing was recorded
+     */
+    public double getMean()
+    {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : (double) total.get() / recorded;
+    }
+
+    /**
+     * @param value
+     * @return Returns the index of the bucket the value falls into
+     */
+    private static int getBucket(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+            return (int) value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value); // at least SUB_BUCKET_BITS
+        int shift = magnitude - SUB_BUCKET_BITS + 1;
+        return shift * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * @param bucket
+     * @return Returns the highest value that falls into given bucket
+     */
+    private static long getHighestValue(int bucket)
+    {
+        if (bucket < SUB_BUCKET_COUNT)
+            return bucket;
+
+        int shift = bucket / HALF_SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (HALF_SUB_BUCKET_COUNT + bucket % HALF_SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
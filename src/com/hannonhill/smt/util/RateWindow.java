@@ -0,0 +1,79 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the rate of events per second over a moving window of the last {@link #WINDOW_SECONDS} seconds.
+ * Events are counted in one bucket per second, reused in a ring as the time moves on, so recording is
+ * lock-free and the memory taken is fixed.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class RateWindow
+{
+    public static final int WINDOW_SECONDS = 60;
+
+    private final AtomicLongArray counts; // number of events in each bucket
+    private final AtomicLongArray seconds; // the second each bucket is counting
+    private final long startSecond; // the second the window was created in
+
+    /**
+     * Constructor
+     */
+    public RateWindow()
+    {
+        counts = new AtomicLongArray(WINDOW_SECONDS);
+        seconds = new AtomicLongArray(WINDOW_SECONDS);
+        startSecond = System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Records given number of events at the current time
+     *
+     * @param events
+     */
+    public void record(long events)
+    {
+        long second = System.currentTimeMillis() / 1000;
+        int bucket = (int) (second % WINDOW_SECONDS);
+        long bucketSecond = seconds.get(bucket);
+        if (bucketSecond != second)
+        {
+            // The bucket counts an old second. The thread that moves it to the current second clears it, the
+            // events recorded by other threads in the meantime may be lost.
+            if (bucketSecond < second && seconds.compareAndSet(bucket, bucketSecond, second))
+                counts.set(bucket, 0);
+        }
+        counts.addAndGet(bucket, events);
+    }
+
+    /**
+     * Returns the average number of events per second in the completed seconds of the window. The current
+     * second is left out, because it is not over yet. A window created less than {@link #WINDOW_SECONDS}
+     * ago is averaged over the seconds since it was created.
+     *
+     * @return
+     */
+    public double getRate()
+    {
+        long currentSecond = System.currentTimeMillis() / 1000;
+        long span = Math.min(WINDOW_SECONDS, currentSecond - startSecond);
+        if (span <= 0)
+            return 0;
+
+        long events = 0;
+        for (int bucket = 0; bucket < WINDOW_SECONDS; bucket++)
+        {
+            long second = seconds.get(bucket);
+            if (second < currentSecond && second >= currentSecond - WINDOW_SECONDS)
+                events += counts.get(bucket);
+        }
+        return (double) events / span;
+    }
+}
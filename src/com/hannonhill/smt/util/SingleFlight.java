@@ -0,0 +1,105 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls with the same key: while a call for a key is in progress, other threads asking
+ * for the same key wait for that call and get its result (or its exception) instead of making their own call.
+ * Nothing is cached - once the call finishes, the next request for the key makes a new call.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class SingleFlight<V>
+{
+    private final Map<String, FutureTask<V>> calls;
+    private final AtomicLong sharedCalls;
+
+    /**
+     * Constructor
+     */
+    public SingleFlight()
+    {
+        calls = new ConcurrentHashMap<String, FutureTask<V>>();
+        sharedCalls = new AtomicLong();
+    }
+
+    /**
+     * Runs the callable unless a call with the same key is already in progress, in which case waits for that
+     * call and returns its result
+     *
+     * @param key
+     * @param callable
+     * @return
+     * @throws Exception
+     */
+    public V execute(String key, Callable<V> callable) throws Exception
+    {
+        FutureTask<V> newCall = new FutureTask<V>(callable);
+        FutureTask<V> call;
+        synchronized (calls)
+        {
+            call = calls.get(key);
+            if (call == null)
+            {
+                call = newCall;
+                calls.put(key, call);
+            }
+        }
+
+        if (call != newCall)
+        {
+            sharedCalls.incrementAndGet();
+            return getResult(call);
+        }
+
+        try
+        {
+            call.run();
+            return getResult(call);
+        }
+        finally
+        {
+            calls.remove(key);
+        }
+    }
+
+    /**
+     * @return Returns the number of times a thread got the result of another thread's call
+     */
+    public long getSharedCalls()
+    {
+        return sharedCalls.get();
+    }
+
+    /**
+     * Waits for the call and returns its result, rethrowing the original exception if it failed
+     *
+     * @param call
+     * @return
+     * @throws Exception
+     */
+    private static <V> V getResult(FutureTask<V> call) throws Exception
+    {
+        try
+        {
+            return call.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+/**
+ * Measures how the time spent on a single asset splits between the stages of its migration (reading the file,
+ * tidying, XPath, rewriting links, web services). The migration thread calls {@link #begin()} before working
+ * on an asset and {@link #end()} after, and the code of each stage is wrapped in {@link #enter(Stage)} and
+ * {@link #exit(Stage)}:
+ *
+ * <pre>
+ * StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.TIDY);
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     StageTimer.exit(previousStage);
+ * }
+ * </pre>
+ *
+ * Stages can be nested (rewriting links reads assets through web services) and the time is always counted
+ * only for the innermost stage, so the stages of an asset add up to its total time. The time spent outside
+ * any stage is reported as other local work. Outside of {@link #begin()} and {@link #end()} entering and
+ * exiting a stage costs just a thread local lookup.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class StageTimer
+{
+    /**
+     * The stages of the migration of an asset
+     */
+    public static enum Stage
+    {
+        READ("reading file"), TIDY("tidying"), XPATH("XPath"), REWRITE("rewriting links"), WAITING("waiting for web services"), WEB_SERVICES(
+                "web services calls");
+
+        private final String label;
+
+        /**
+         * Constructor
+         *
+         * @param label
+         */
+        private Stage(String label)
+        {
+            this.label = label;
+        }
+
+        /**
+         * @return Returns the label.
+         */
+        public String getLabel()
+        {
+            return label;
+        }
+    }
+
+    private static final ThreadLocal<AssetTiming> currentTiming = new ThreadLocal<AssetTiming>();
+
+    /**
+     * Starts timing an asset on the current thread
+     */
+    public static void begin()
+    {
+        currentTiming.set(new AssetTiming(System.nanoTime()));
+    }
+
+    /**
+     * Stops timing the asset on the current thread
+     *
+     * @return Returns the timing of the asset or null if {@link #begin()} was not called
+     */
+    public static AssetTiming end()
+    {
+        AssetTiming timing = currentTiming.get();
+        if (timing == null)
+            return null;
+
+        currentTiming.remove();
+        timing.switchStage(null, System.nanoTime());
+        timing.totalNanos = System.nanoTime() - timing.startNanos;
+        return timing;
+    }
+
+    /**
+     * Starts counting the time for given stage
+     *
+     * @param stage
+     * @return Returns the stage that was being counted before, to be passed to {@link #exit(Stage)}
+     */
+    public static Stage enter(Stage stage)
+    {
+        AssetTiming timing = currentTiming.get();
+        if (timing == null)
+            return null;
+
+        Stage previousStage = timing.currentStage;
+        timing.switchStage(stage, System.nanoTime());
+        return previousStage;
+    }
+
+    /**
+     * Goes back to counting the time for the stage that was being counted before {@link #enter(Stage)}
+     *
+     * @param previousStage the stage returned by {@link #enter(Stage)}
+     */
+    public static void exit(Stage previousStage)
+    {
+        AssetTiming timing = currentTiming.get();
+        if (timing != null)
+            timing.switchStage(previousStage, System.nanoTime());
+    }
+
+    /**
+     * The time spent on a single asset, split by the stages
+     */
+    public static class AssetTiming
+    {
+        private final long startNanos;
+        private final long[] stageNanos;
+        private long totalNanos;
+        private Stage currentStage; // null when the time is not counted for any stage
+        private long currentStageStartNanos;
+
+        /**
+         * Constructor
+         *
+         * @param startNanos
+         */
+        private AssetTiming(long startNanos)
+        {
+            this.startNanos = startNanos;
+            stageNanos = new long[Stage.values().length];
+            currentStage = null;
+            currentStageStartNanos = startNanos;
+        }
+
+        /**
+         * Counts the time since the current stage started for that stage and starts counting for given stage
+         *
+         * @param stage
+         * @param now
+         */
+        private void switchStage(Stage stage, long now)
+        {
+            if (currentStage != null)
+                stageNanos[currentStage.ordinal()] += now - currentStageStartNanos;
+            currentStage = stage;
+            currentStageStartNanos = now;
+        }
+
+        /**
+         * @param stage
+         * @return Returns the time spent in given stage in nanoseconds
+         */
+        public long getStageNanos(Stage stage)
+        {
+            return stageNanos[stage.ordinal()];
+        }
+
+        /**
+         * @return Returns the time spent outside of all the stages in nanoseconds
+         */
+        public long getOtherNanos()
+        {
+            long other = totalNanos;
+            for (long nanos : stageNanos)
+                other -= nanos;
+            return Math.max(0, other);
+        }
+
+        /**
+         * @return Returns the totalNanos.
+         */
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+    }
+}
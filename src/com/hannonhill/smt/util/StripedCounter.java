@@ -0,0 +1,77 @@
+/*
+ * Created on Oct 18, 2026 by Artur Tomusiak
+ *
+ * Copyright(c) 2000-2026 Hannon Hill Corporation. All rights reserved.
+ */
+package com.hannonhill.smt.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can increment at the same time without contending on a single memory location,
+ * in the spirit of Java 8's LongAdder (which is not available on the Java versions the tool runs on). The
+ * count is split into cells, each thread adds to the cell picked by its id and reading the counter sums the
+ * cells. The cells are spread apart, so that they don't share a cache line.
+ *
+ * @author Artur Tomusiak
+ * @since 1.0
+ */
+public class StripedCounter
+{
+    private static final int PADDING = 8; // longs between two cells - 64 bytes
+    private static final int STRIPES = stripeCount();
+
+    private final AtomicLongArray cells;
+
+    /**
+     * Constructor
+     */
+    public StripedCounter()
+    {
+        cells = new AtomicLongArray(STRIPES * PADDING);
+    }
+
+    /**
+     * Adds 1 to the counter
+     */
+    public void increment()
+    {
+        add(1);
+    }
+
+    /**
+     * Adds given amount to the counter
+     *
+     * @param amount
+     */
+    public void add(long amount)
+    {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        cells.addAndGet(stripe * PADDING, amount);
+    }
+
+    /**
+     * Returns the sum of the cells. Additions made while summing may or may not be included.
+     *
+     * @return
+     */
+    public long sum()
+    {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++)
+            sum += cells.get(stripe * PADDING);
+        return sum;
+    }
+
+    /**
+     * @return Returns the number of cells - the smallest power of 2 at least twice the number of processors
+     */
+    private static int stripeCount()
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors * 2)
+            stripes <<= 1;
+        return stripes;
+    }
+}
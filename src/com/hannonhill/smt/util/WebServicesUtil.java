@@ -19,12 +19,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 
+import com.hannonhill.smt.CascadeAssetType;
 import com.hannonhill.smt.ChooserType;
 import com.hannonhill.smt.ContentTypeInformation;
 import com.hannonhill.smt.DataDefinitionField;
-import com.hannonhill.smt.Field;
 import com.hannonhill.smt.MetadataSetField;
+import com.hannonhill.smt.MigrationConfiguration;
 import com.hannonhill.smt.ProjectInformation;
+import com.hannonhill.smt.SpecialBlockCache.SpecialBlockContent;
 import com.hannonhill.smt.TaskStatus;
 import com.hannonhill.smt.service.FileSystem;
 import com.hannonhill.smt.service.JTidy;
@@ -40,7 +42,6 @@ import com.hannonhill.www.ws.ns.AssetOperationService.StructuredData;
 import com.hannonhill.www.ws.ns.AssetOperationService.StructuredDataAssetType;
 import com.hannonhill.www.ws.ns.AssetOperationService.StructuredDataNode;
 import com.hannonhill.www.ws.ns.AssetOperationService.StructuredDataType;
-import com.hannonhill.www.ws.ns.AssetOperationService.XhtmlDataDefinitionBlock;
 
 /**
  * Utility class with helper methods related to web services
@@ -75,8 +76,9 @@ public class WebServicesUtil
         if (parentFolderPath.equals(""))
             parentFolderPath = "/";
 
-        String contentTypePath = projectInformation.getContentTypePath();
-        ContentTypeInformation contentType = projectInformation.getContentTypes().get(contentTypePath);
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+        String contentTypePath = configuration.getContentTypePath();
+        ContentTypeInformation contentType = configuration.getContentType();
         Set<String> metadataFieldNames = contentType.getMetadataFields().keySet();
 
         Page page = new Page();
@@ -127,30 +129,22 @@ public class WebServicesUtil
         // Create the root group object to which all the information will be attached
         StructuredDataGroup rootGroup = new StructuredDataGroup();
 
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+
         // For each field mapping assign appropriate value in structured data
-        for (String xPath : projectInformation.getFieldMapping().keySet())
+        for (Map.Entry<String, DataDefinitionField> mapping : configuration.getDataDefinitionFieldMapping().entrySet())
         {
-            Field field = projectInformation.getFieldMapping().get(xPath);
-
-            if (field == null || !(field instanceof DataDefinitionField))
-                continue;
-
-            DataDefinitionField ddField = (DataDefinitionField) field;
-            String fieldValue = XmlUtil.evaluateXPathExpression(fileContents, xPath);
+            DataDefinitionField ddField = mapping.getValue();
+            String fieldValue = XmlUtil.evaluateXPathExpression(fileContents, mapping.getKey());
             if (ddField.isWysiwyg())
                 fieldValue = LinkRewriter.rewriteLinksInXml(fieldValue, assetPath, projectInformation);
 
-            assignAppropriateFieldValue(rootGroup, (DataDefinitionField) field, fieldValue, projectInformation);
+            assignAppropriateFieldValue(rootGroup, ddField, fieldValue, projectInformation);
         }
 
-        // For each static value field, assign the static value in structured data
-        for (Field field : projectInformation.getStaticValueMapping().keySet())
-            if (field instanceof DataDefinitionField)
-            {
-                // Escape ampersands to make it a valid xml
-                String fieldValue = projectInformation.getStaticValueMapping().get(field).replaceAll("&", "&amp;");
-                assignAppropriateFieldValue(rootGroup, (DataDefinitionField) field, fieldValue, projectInformation);
-            }
+        // For each static value field, assign the static value (already escaped) in structured data
+        for (Map.Entry<DataDefinitionField, String> staticValue : configuration.getDataDefinitionStaticValues().entrySet())
+            assignAppropriateFieldValue(rootGroup, staticValue.getKey(), staticValue.getValue(), projectInformation);
 
         populateBlockChoosers("header", HEADER_XPATH, fileContents, rootGroup, projectInformation);
         populateBlockChoosers("article", ARTICLE_XPATH, fileContents, rootGroup, projectInformation);
@@ -179,19 +173,21 @@ public class WebServicesUtil
         if (specialBlockIdField == null)
             return;
 
-        String specialBlockPath = projectInformation.getBlockIdToPathMap().get(specialBlockIdField);
+        String specialBlockPath = WebServices.getBlockPathByBlockId(specialBlockIdField, projectInformation);
         if (specialBlockPath == null)
             return;
 
-        String specialBlockId = projectInformation.getExistingCascadeXhtmlBlocks().get(specialBlockPath);
+        projectInformation.getPendingAssets().await(specialBlockPath, projectInformation.getMigrationStatus());
+        String specialBlockId = projectInformation.getExistingCascadeAssets().getId(specialBlockPath, CascadeAssetType.XHTML_BLOCK);
         if (specialBlockId == null)
             return;
 
-        XhtmlDataDefinitionBlock specialBlock = WebServices.readXhtmlBlock(specialBlockId, projectInformation);
+        // The same special block is usually referenced by many pages, so its content is cached
+        SpecialBlockContent specialBlock = projectInformation.getSpecialBlockCache().getContent(specialBlockId, projectInformation);
 
         List<StructuredDataNode> allNodes = new ArrayList<StructuredDataNode>();
         List<StructuredDataNode> pageNodes = Arrays.asList(page.getStructuredData().getStructuredDataNodes());
-        List<StructuredDataNode> blockNodes = Arrays.asList(specialBlock.getStructuredData().getStructuredDataNodes());
+        List<StructuredDataNode> blockNodes = Arrays.asList(specialBlock.getStructuredDataNodes());
         allNodes.addAll(pageNodes);
         allNodes.addAll(blockNodes);
         page.getStructuredData().setStructuredDataNodes(allNodes.toArray(new StructuredDataNode[0]));
@@ -222,16 +218,17 @@ public class WebServicesUtil
         List<String> blockIds = XmlUtil.evaluateXPathExpressionAsList(fileContents, xPathToUse);
         for (String blockId : blockIds)
         {
-            if (identifier.equals("article") && projectInformation.getSpecialBlockIds().contains(blockId))
+            if (identifier.equals("article") && WebServices.isSpecialBlockId(blockId, projectInformation))
                 continue;
 
-            assignAppropriateFieldValue(rootGroup, field, projectInformation.getBlockIdToPathMap().get(blockId), projectInformation);
+            assignAppropriateFieldValue(rootGroup, field, WebServices.getBlockPathByBlockId(blockId, projectInformation), projectInformation);
         }
 
         xPathToUse = xPathExpression + "//ControlWidget[ControlType='XmlDataTransform']/Template/text()";
         List<String> xsltPaths = XmlUtil.evaluateXPathExpressionAsList(fileContents, xPathToUse);
         for (String xsltPath : xsltPaths)
-            assignAppropriateFieldValue(rootGroup, field, projectInformation.getTemplateToBlockMapping().get(xsltPath), projectInformation);
+            assignAppropriateFieldValue(rootGroup, field, projectInformation.getConfiguration().getTemplateToBlockMapping().get(xsltPath),
+                    projectInformation);
     }
 
     /**
@@ -260,31 +257,24 @@ public class WebServicesUtil
                     new FieldValue("")
                 }));
 
+        MigrationConfiguration configuration = projectInformation.getConfiguration();
+
         // For each field mapping assign appropriate value in metadata
-        for (String xPath : projectInformation.getFieldMapping().keySet())
+        for (Map.Entry<String, MetadataSetField> mapping : configuration.getMetadataFieldMapping().entrySet())
         {
-            Field field = projectInformation.getFieldMapping().get(xPath);
-
-            if (field == null)
-                continue;
-
-            if (field instanceof MetadataSetField)
-            {
-                String fieldValue = XmlUtil.evaluateXPathExpression(fileContents, xPath);
-                fieldValue = trimMetadataFieldValue(field.getIdentifier(), fieldValue, taskStatus);
-                assignAppropriateFieldValue(metadata, dynamicFieldsList, (MetadataSetField) field, fieldValue, taskStatus);
-            }
+            MetadataSetField field = mapping.getValue();
+            String fieldValue = XmlUtil.evaluateXPathExpression(fileContents, mapping.getKey());
+            fieldValue = trimMetadataFieldValue(field.getIdentifier(), fieldValue, taskStatus);
+            assignAppropriateFieldValue(metadata, dynamicFieldsList, field, fieldValue, taskStatus);
         }
 
-        // For each static value field, assign the static value in the metadata
-        for (Field field : projectInformation.getStaticValueMapping().keySet())
-            if (field instanceof MetadataSetField)
-            {
-                // Escape ampersands to make it a valid xml
-                String fieldValue = trimMetadataFieldValue(field.getIdentifier(),
-                        projectInformation.getStaticValueMapping().get(field).replaceAll("&", "&amp;"), taskStatus);
-                assignAppropriateFieldValue(metadata, dynamicFieldsList, (MetadataSetField) field, fieldValue, taskStatus);
-            }
+        // For each static value field, assign the static value (already escaped) in the metadata
+        for (Map.Entry<MetadataSetField, String> staticValue : configuration.getMetadataStaticValues().entrySet())
+        {
+            MetadataSetField field = staticValue.getKey();
+            String fieldValue = trimMetadataFieldValue(field.getIdentifier(), staticValue.getValue(), taskStatus);
+            assignAppropriateFieldValue(metadata, dynamicFieldsList, field, fieldValue, taskStatus);
+        }
 
         // Convert the list of dynamic field to an array and assign it to the metadata object
         metadata.setDynamicFields(dynamicFieldsList.toArray(new DynamicMetadataField[dynamicFieldsList.size()]));
@@ -429,6 +419,9 @@ public class WebServicesUtil
             if (path != null && !path.trim().equals(""))
             {
                 path = path.trim();
+
+                // If the file is still being uploaded, wait for it to know if it got created
+                projectInformation.getPendingAssets().await(path, projectInformation.getMigrationStatus());
                 if (WebServices.getAssetId(path, projectInformation) != null)
                 {
                     StructuredDataNode fileNode = new StructuredDataNode();
@@ -448,6 +441,9 @@ public class WebServicesUtil
             if (path != null && !path.trim().equals(""))
             {
                 path = path.trim();
+
+                // The block might be still being created
+                projectInformation.getPendingAssets().await(path, projectInformation.getMigrationStatus());
                 StructuredDataNode blockNode = new StructuredDataNode();
                 blockNode.setIdentifier(identifier);
                 blockNode.setBlockPath(path);
@@ -103,6 +103,27 @@ public class XmlUtil
      * @throws Exception
      */
     public static String evaluateXPathExpression(String xmlContents, String xPathExpression) throws Exception
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.XPATH);
+        try
+        {
+            return evaluate(xmlContents, xPathExpression);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Evaluates given xPathExpression on given xmlContents
+     * 
+     * @param xmlContents
+     * @param xPathExpression
+     * @return
+     * @throws Exception
+     */
+    private static String evaluate(String xmlContents, String xPathExpression) throws Exception
     {
         // JTidy adds a namespace, which causes many issues with xpath
         xmlContents = xmlContents.replaceAll("xmlns=\"http://www.w3.org/1999/xhtml\"", "");
@@ -142,6 +163,27 @@ public class XmlUtil
      * @throws Exception
      */
     public static List<String> evaluateXPathExpressionAsList(String xmlContents, String xPathExpression) throws Exception
+    {
+        StageTimer.Stage previousStage = StageTimer.enter(StageTimer.Stage.XPATH);
+        try
+        {
+            return evaluateAsList(xmlContents, xPathExpression);
+        }
+        finally
+        {
+            StageTimer.exit(previousStage);
+        }
+    }
+
+    /**
+     * Evaluates given xPathExpression on given xmlContents and returns a list of results converted to Strings
+     * 
+     * @param xmlContents
+     * @param xPathExpression
+     * @return
+     * @throws Exception
+     */
+    private static List<String> evaluateAsList(String xmlContents, String xPathExpression) throws Exception
     {
         // JTidy adds a namespace, which causes many issues with xpath
         xmlContents = xmlContents.replaceAll("xmlns=\"http://www.w3.org/1999/xhtml\"", "");
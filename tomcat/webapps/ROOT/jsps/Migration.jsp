@@ -66,6 +66,8 @@
 		<script type="text/javascript">
 			var currentProgress = 0;
 			var currentId = 0;
+			var logId = 0;
+			var logCursor = 0;
 			var frames = 20;
 			var framesPerSecond = 20;
 			var firstTime = true;
@@ -138,7 +140,7 @@
 			
 			function sendAjaxRequestForProgress()
 			{
-				var url = "/MigrationAjax";
+				var url = "/MigrationAjax?longPoll=true&compact=true&logId="+logId+"&cursor="+logCursor;
 			    var request = GetXmlHttpObject();    
 			    request.open("POST", url, true);    
 			    if (request.overrideMimeType)
@@ -193,6 +195,8 @@
 					animateNumber("brokenLinks", responseObject["brokenLinks"]);
 				}				
 
+				logId = responseObject["logId"];
+				logCursor = responseObject["cursor"];
 				var log = responseObject["log"];
 				log = log.replace(/[\n\r\t]/g,''); // Remove any new line or tab characters from the log
 				if (log != null && log != '')
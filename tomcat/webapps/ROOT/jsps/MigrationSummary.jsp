@@ -103,6 +103,14 @@
 							</s:iterator>
 					    </div>
 					  </div>
+					  <div class="control-group">
+							<label class="control-label" for="blockDiscoveryMode0"><strong>Block Discovery</strong></label>
+					    <div class="controls span10">
+					    <s:iterator value="blockDiscoveryModeList" status="stat">
+					    	<label class="radio"><input type="radio" name="blockDiscoveryMode" id="blockDiscoveryMode<s:property value="#stat.index" />" value="<s:property />"<s:if test="blockDiscoveryMode == top"> checked="checked"</s:if> /> <s:property /></label>
+							</s:iterator>
+					    </div>
+					  </div>
 					  <div class="clearfix">&nbsp;</div>
 					  <br/>
 					  <button class="btn pull-left" onclick="window.location='/AssignFields?assetType=<s:property value="nAssetTypes-1"/>';return false;">Previous</button>